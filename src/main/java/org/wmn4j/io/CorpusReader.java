@@ -0,0 +1,328 @@
+/*
+ * Distributed under the MIT license (see LICENSE.txt or https://opensource.org/licenses/MIT).
+ */
+package org.wmn4j.io;
+
+import org.wmn4j.notation.Score;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Reads a corpus of music notation files concurrently.
+ * <p>
+ * The files are read using readers created with the reader factory given when creating the corpus reader,
+ * for example {@code MusicXmlReader::readerFor}, so the corpus reader is not tied to any file format. Each
+ * file is read on the given executor. Executors that create a virtual thread for each task, such as the
+ * one returned by {@link Executors#newVirtualThreadPerTaskExecutor()}, are well suited for this, as the
+ * number of files read concurrently is bounded by the corpus reader itself.
+ * <p>
+ * The results are returned in the order of the paths and only a bounded number of files are read ahead of
+ * the result that is consumed next. Reading of a file is started only when there is room for its result,
+ * so the memory used for the scores that are read but not yet consumed stays bounded regardless of the
+ * size of the corpus.
+ * <p>
+ * The results of a corpus reader can be iterated only once. This class is not thread-safe.
+ */
+public final class CorpusReader implements Iterable<CorpusReader.Result>, Closeable {
+
+	private static final String DEFAULT_GLOB = "*.{xml,musicxml,mxl}";
+
+	private final Iterator<Path> paths;
+	private final Function<Path, ? extends ScoreReader> readerFactory;
+	private final ExecutorService executor;
+	private final boolean ownsExecutor;
+	private final int maxPending;
+	private final Deque<CompletableFuture<Result>> pending;
+
+	private boolean iteratorCreated;
+	private boolean isClosed;
+
+	/**
+	 * Represents the result of reading a single file in a corpus.
+	 * <p>
+	 * A result holds either the score read from the file or the exception that caused the reading to fail.
+	 * This class is immutable.
+	 */
+	public static final class Result {
+		private final Path path;
+		private final Score score;
+		private final Exception failure;
+		private final Duration readTime;
+
+		private Result(Path path, Score score, Exception failure, Duration readTime) {
+			this.path = path;
+			this.score = score;
+			this.failure = failure;
+			this.readTime = readTime;
+		}
+
+		/**
+		 * Returns the path of the file from which this result was read.
+		 *
+		 * @return the path of the file from which this result was read
+		 */
+		public Path getPath() {
+			return path;
+		}
+
+		/**
+		 * Returns true if the file was read successfully.
+		 *
+		 * @return true if the file was read successfully
+		 */
+		public boolean isSuccess() {
+			return score != null;
+		}
+
+		/**
+		 * Returns the score read from the file or an empty optional if reading failed.
+		 *
+		 * @return the score read from the file or an empty optional if reading failed
+		 */
+		public Optional<Score> getScore() {
+			return Optional.ofNullable(score);
+		}
+
+		/**
+		 * Returns the exception that caused reading the file to fail or an empty optional if the
+		 * file was read successfully.
+		 * <p>
+		 * The exception is a {@link ParsingFailureException} if the contents of the file could not be parsed
+		 * and an {@link IOException} if the file could not be read. Unexpected runtime exceptions thrown
+		 * while reading the file are also returned as failures so that a single pathological file does
+		 * not stop reading the corpus.
+		 *
+		 * @return the exception that caused reading the file to fail
+		 */
+		public Optional<Exception> getFailure() {
+			return Optional.ofNullable(failure);
+		}
+
+		/**
+		 * Returns the wall-clock time it took to read the file.
+		 *
+		 * @return the wall-clock time it took to read the file
+		 */
+		public Duration getReadTime() {
+			return readTime;
+		}
+
+		@Override
+		public String toString() {
+			final String outcome = isSuccess() ? "success" : "failure: " + failure;
+			return "Result(" + path + ", " + outcome + ", " + readTime.toMillis() + " ms)";
+		}
+	}
+
+	/**
+	 * Returns a corpus reader for the given paths that reads at most as many files concurrently as there
+	 * are available processors.
+	 * <p>
+	 * The reader uses its own executor that is shut down when the corpus reader is closed. The threads of the
+	 * executor are daemon threads, so a reader that is not closed does not keep the JVM running.
+	 *
+	 * @param paths         the paths of the files in the corpus
+	 * @param readerFactory the function used for creating a reader for a path
+	 * @return a corpus reader for the given paths
+	 */
+	public static CorpusReader of(Collection<Path> paths, Function<Path, ? extends ScoreReader> readerFactory) {
+		final int processors = Runtime.getRuntime().availableProcessors();
+		final ThreadFactory threadFactory = runnable -> {
+			final Thread thread = Executors.defaultThreadFactory().newThread(runnable);
+			thread.setDaemon(true);
+			return thread;
+		};
+
+		return new CorpusReader(paths, readerFactory, Executors.newFixedThreadPool(processors, threadFactory), true,
+				2 * processors);
+	}
+
+	/**
+	 * Returns a corpus reader for the given paths that reads the files using the given executor.
+	 * <p>
+	 * At most the given number of files are read ahead of the result that is consumed next. The executor
+	 * is not shut down by the corpus reader.
+	 *
+	 * @param paths         the paths of the files in the corpus
+	 * @param readerFactory the function used for creating a reader for a path
+	 * @param executor      the executor used for reading the files
+	 * @param maxPending    the maximum number of files that are read ahead of the consumed results
+	 * @return a corpus reader for the given paths
+	 */
+	public static CorpusReader of(Collection<Path> paths, Function<Path, ? extends ScoreReader> readerFactory,
+			ExecutorService executor, int maxPending) {
+		return new CorpusReader(paths, readerFactory, executor, false, maxPending);
+	}
+
+	/**
+	 * Returns the paths of the MusicXML files (files with .xml, .musicxml, or .mxl extension) in the given
+	 * directory and its subdirectories, in lexicographic order.
+	 *
+	 * @param directory the directory from which the files are searched
+	 * @return the paths of the MusicXML files in the given directory and its subdirectories
+	 * @throws IOException if the directory cannot be read
+	 */
+	public static List<Path> findFiles(Path directory) throws IOException {
+		return findFiles(directory, DEFAULT_GLOB);
+	}
+
+	/**
+	 * Returns the paths of the files in the given directory and its subdirectories whose names match
+	 * the given glob pattern, in lexicographic order.
+	 * <p>
+	 * The glob pattern is matched against the file names, so for example {@code "*.mxl"} matches all
+	 * compressed MusicXML files in all subdirectories. The syntax of the pattern is the one described in
+	 * {@link java.nio.file.FileSystem#getPathMatcher(String)}.
+	 *
+	 * @param directory the directory from which the files are searched
+	 * @param glob      the glob pattern the file names are matched against
+	 * @return the paths of the matching files in the given directory and its subdirectories
+	 * @throws IOException if the directory cannot be read
+	 */
+	public static List<Path> findFiles(Path directory, String glob) throws IOException {
+		final PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + glob);
+		try (Stream<Path> files = Files.walk(directory)) {
+			return files.filter(Files::isRegularFile)
+					.filter(path -> matcher.matches(path.getFileName()))
+					.sorted()
+					.collect(Collectors.toList());
+		}
+	}
+
+	private CorpusReader(Collection<Path> paths, Function<Path, ? extends ScoreReader> readerFactory,
+			ExecutorService executor, boolean ownsExecutor, int maxPending) {
+		if (maxPending < 1) {
+			throw new IllegalArgumentException("maxPending must be at least 1, was " + maxPending);
+		}
+
+		this.paths = new ArrayList<>(paths).iterator();
+		this.readerFactory = Objects.requireNonNull(readerFactory);
+		this.executor = Objects.requireNonNull(executor);
+		this.ownsExecutor = ownsExecutor;
+		this.maxPending = maxPending;
+		this.pending = new ArrayDeque<>(maxPending);
+	}
+
+	/**
+	 * Returns an iterator over the results of reading the files in the corpus in the order of the paths.
+	 * <p>
+	 * Reading the files starts when the iterator is created. Calls to {@link Iterator#next()} block until
+	 * the next result is available.
+	 *
+	 * @return an iterator over the results of reading the files in the corpus
+	 * @throws IllegalStateException if an iterator has already been created or the reader is closed
+	 */
+	@Override
+	public Iterator<Result> iterator() {
+		if (iteratorCreated || isClosed) {
+			throw new IllegalStateException("The results of a corpus reader can only be iterated once");
+		}
+
+		iteratorCreated = true;
+		fillPending();
+
+		return new Iterator<>() {
+			@Override
+			public boolean hasNext() {
+				return !pending.isEmpty();
+			}
+
+			@Override
+			public Result next() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+
+				final Result result = pending.removeFirst().join();
+				fillPending();
+				return result;
+			}
+		};
+	}
+
+	/**
+	 * Returns a sequential stream of the results of reading the files in the corpus in the order of the paths.
+	 *
+	 * @return a sequential stream of the results of reading the files in the corpus
+	 * @throws IllegalStateException if the results have already been iterated or the reader is closed
+	 */
+	public Stream<Result> stream() {
+		final Spliterator<Result> spliterator = Spliterators.spliteratorUnknownSize(iterator(),
+				Spliterator.ORDERED | Spliterator.NONNULL);
+		return StreamSupport.stream(spliterator, false);
+	}
+
+	/**
+	 * Closes the corpus reader. Reading of files whose results have not been consumed is cancelled and the
+	 * executor of the corpus reader is shut down if it was not given by the caller.
+	 */
+	@Override
+	public void close() {
+		if (!isClosed) {
+			isClosed = true;
+			pending.forEach(result -> result.cancel(true));
+			pending.clear();
+
+			if (ownsExecutor) {
+				executor.shutdownNow();
+			}
+		}
+	}
+
+	private void fillPending() {
+		while (!isClosed && pending.size() < maxPending && paths.hasNext()) {
+			final Path path = paths.next();
+			pending.addLast(CompletableFuture.supplyAsync(() -> read(path), executor)
+					.exceptionally(e -> failed(path, e)));
+		}
+	}
+
+	private Result read(Path path) {
+		final long start = System.nanoTime();
+		try (ScoreReader reader = readerFactory.apply(path)) {
+			final Score score = reader.readScore();
+			return new Result(path, score, null, Duration.ofNanos(System.nanoTime() - start));
+		} catch (IOException | ParsingFailureException | RuntimeException e) {
+			return new Result(path, null, e, Duration.ofNanos(System.nanoTime() - start));
+		}
+	}
+
+	private static Result failed(Path path, Throwable throwable) {
+		Throwable cause = throwable;
+		if (cause instanceof CompletionException && cause.getCause() != null) {
+			cause = cause.getCause();
+		}
+
+		if (cause instanceof Error error) {
+			throw error;
+		}
+
+		return new Result(path, null, (Exception) cause, Duration.ZERO);
+	}
+}
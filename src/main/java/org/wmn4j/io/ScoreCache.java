@@ -0,0 +1,515 @@
+/*
+ * Distributed under the MIT license (see LICENSE.txt or https://opensource.org/licenses/MIT).
+ */
+package org.wmn4j.io;
+
+import org.wmn4j.notation.Chord;
+import org.wmn4j.notation.Durational;
+import org.wmn4j.notation.Measure;
+import org.wmn4j.notation.Note;
+import org.wmn4j.notation.Part;
+import org.wmn4j.notation.Score;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * Represents an in-memory cache of scores read from files.
+ * <p>
+ * Scores are immutable, so a score read once can be shared by all threads that need the same file. The
+ * scores are read using readers created with the reader factory given when creating the cache, for example
+ * {@code MusicXmlReader::readerFor}. When several threads request a file that is not in the cache at the
+ * same time, the file is read only once and all the threads get the same score. Reading failures are not
+ * cached, so a file whose reading failed is read again when it is requested the next time.
+ * <p>
+ * The cache is bounded by the total weight of the cached scores, which is an estimate of the memory
+ * retained by them in bytes as given by {@link #estimateWeight(Score)}. When the total weight exceeds the
+ * maximum weight, the least recently used scores are removed. Scores can also be set to expire after a
+ * given time from reading them, after which the file is read again when requested.
+ * <p>
+ * This class is thread-safe.
+ */
+public final class ScoreCache {
+
+	// Rough shallow sizes of the objects in a score, including the collections that hold them.
+	private static final long SCORE_WEIGHT = 256;
+	private static final long PART_WEIGHT = 256;
+	private static final long MEASURE_WEIGHT = 256;
+	private static final long DURATIONAL_WEIGHT = 48;
+	private static final long NOTE_WEIGHT = 96;
+	private static final long NOTE_PROPERTY_WEIGHT = 48;
+
+	private static final long NO_EXPIRY = Long.MAX_VALUE;
+
+	private final Function<Path, ? extends ScoreReader> readerFactory;
+	private final long maximumWeight;
+	private final long expiryNanos;
+	private final LongSupplier nanoTime;
+
+	// The cached scores from the least recently used to the most recently used.
+	private final LinkedHashMap<Path, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+	// The cached scores from the earliest read to the latest read, which is also the order in which they expire.
+	private final LinkedHashMap<Path, Entry> expiryOrder = new LinkedHashMap<>();
+	// The readings in progress. A reading adds its score to the cache only if it is still the reading of its path
+	// when it finishes, so that a reading that was in progress when the path was invalidated is not cached.
+	private final Map<Path, CompletableFuture<Score>> loading = new HashMap<>();
+	private long weight;
+
+	private long hitCount;
+	private long missCount;
+	private long loadSuccessCount;
+	private long loadFailureCount;
+	private long totalLoadNanos;
+	private long evictionCount;
+
+	private static final class Entry {
+		private final Score score;
+		private final long weight;
+		private final long loadedAt;
+
+		private Entry(Score score, long weight, long loadedAt) {
+			this.score = score;
+			this.weight = weight;
+			this.loadedAt = loadedAt;
+		}
+	}
+
+	/**
+	 * Represents a snapshot of the statistics of a score cache.
+	 * <p>
+	 * This class is immutable.
+	 */
+	public static final class Statistics {
+		private final long hitCount;
+		private final long missCount;
+		private final long loadSuccessCount;
+		private final long loadFailureCount;
+		private final Duration totalLoadTime;
+		private final long evictionCount;
+
+		private Statistics(long hitCount, long missCount, long loadSuccessCount, long loadFailureCount,
+				Duration totalLoadTime, long evictionCount) {
+			this.hitCount = hitCount;
+			this.missCount = missCount;
+			this.loadSuccessCount = loadSuccessCount;
+			this.loadFailureCount = loadFailureCount;
+			this.totalLoadTime = totalLoadTime;
+			this.evictionCount = evictionCount;
+		}
+
+		/**
+		 * Returns the number of requests for which the score was found in the cache.
+		 *
+		 * @return the number of requests for which the score was found in the cache
+		 */
+		public long getHitCount() {
+			return hitCount;
+		}
+
+		/**
+		 * Returns the number of requests for which the score was not found in the cache. This includes the
+		 * requests that waited for the same file to be read for another request.
+		 *
+		 * @return the number of requests for which the score was not found in the cache
+		 */
+		public long getMissCount() {
+			return missCount;
+		}
+
+		/**
+		 * Returns the ratio of hits to all requests, or 1.0 if there have been no requests.
+		 *
+		 * @return the ratio of hits to all requests
+		 */
+		public double getHitRate() {
+			final long requestCount = hitCount + missCount;
+			return requestCount == 0 ? 1.0 : (double) hitCount / requestCount;
+		}
+
+		/**
+		 * Returns the number of files that have been read successfully.
+		 *
+		 * @return the number of files that have been read successfully
+		 */
+		public long getLoadSuccessCount() {
+			return loadSuccessCount;
+		}
+
+		/**
+		 * Returns the number of times reading a file has failed.
+		 *
+		 * @return the number of times reading a file has failed
+		 */
+		public long getLoadFailureCount() {
+			return loadFailureCount;
+		}
+
+		/**
+		 * Returns the total wall-clock time spent reading files, including the failed reads.
+		 *
+		 * @return the total wall-clock time spent reading files
+		 */
+		public Duration getTotalLoadTime() {
+			return totalLoadTime;
+		}
+
+		/**
+		 * Returns the average wall-clock time spent reading a file, or zero if no files have been read.
+		 *
+		 * @return the average wall-clock time spent reading a file
+		 */
+		public Duration getAverageLoadTime() {
+			final long loadCount = loadSuccessCount + loadFailureCount;
+			return loadCount == 0 ? Duration.ZERO : totalLoadTime.dividedBy(loadCount);
+		}
+
+		/**
+		 * Returns the number of scores that have been removed from the cache because of the weight limit
+		 * or expiry.
+		 *
+		 * @return the number of scores that have been removed from the cache
+		 */
+		public long getEvictionCount() {
+			return evictionCount;
+		}
+
+		@Override
+		public String toString() {
+			return "Statistics(hits: " + hitCount + ", misses: " + missCount + ", loads: " + loadSuccessCount
+					+ ", load failures: " + loadFailureCount + ", load time: " + totalLoadTime.toMillis()
+					+ " ms, evictions: " + evictionCount + ")";
+		}
+	}
+
+	/**
+	 * Returns a cache that reads files using the given reader factory and holds scores with at most the given
+	 * total weight. The scores do not expire.
+	 *
+	 * @param readerFactory the function used for creating a reader for a path
+	 * @param maximumWeight the maximum total weight of the cached scores
+	 * @return a cache that reads files using the given reader factory
+	 */
+	public static ScoreCache create(Function<Path, ? extends ScoreReader> readerFactory, long maximumWeight) {
+		return new ScoreCache(readerFactory, maximumWeight, NO_EXPIRY, System::nanoTime);
+	}
+
+	/**
+	 * Returns a cache that reads files using the given reader factory and holds scores with at most the given
+	 * total weight. The scores expire after the given time from reading them.
+	 *
+	 * @param readerFactory the function used for creating a reader for a path
+	 * @param maximumWeight the maximum total weight of the cached scores
+	 * @param expiry        the time after reading a score after which it is removed from the cache
+	 * @return a cache that reads files using the given reader factory
+	 */
+	public static ScoreCache create(Function<Path, ? extends ScoreReader> readerFactory, long maximumWeight,
+			Duration expiry) {
+		if (expiry.isNegative() || expiry.isZero()) {
+			throw new IllegalArgumentException("Expiry must be positive, was " + expiry);
+		}
+
+		return new ScoreCache(readerFactory, maximumWeight, toNanos(expiry), System::nanoTime);
+	}
+
+	ScoreCache(Function<Path, ? extends ScoreReader> readerFactory, long maximumWeight, long expiryNanos,
+			LongSupplier nanoTime) {
+		if (maximumWeight < 0) {
+			throw new IllegalArgumentException("Maximum weight cannot be negative, was " + maximumWeight);
+		}
+
+		this.readerFactory = Objects.requireNonNull(readerFactory);
+		this.maximumWeight = maximumWeight;
+		this.expiryNanos = expiryNanos;
+		this.nanoTime = nanoTime;
+	}
+
+	private static long toNanos(Duration duration) {
+		try {
+			return duration.toNanos();
+		} catch (ArithmeticException e) {
+			return NO_EXPIRY;
+		}
+	}
+
+	/**
+	 * Returns the score in the file at the given path. The score is read from the file if it is not in the
+	 * cache or has expired. If the file is already being read for another request, waits for that reading to
+	 * finish instead of reading the file again.
+	 *
+	 * @param path the path of the file
+	 * @return the score in the file at the given path
+	 * @throws IOException             if the file is not found or reading the file fails
+	 * @throws ParsingFailureException if the file cannot be parsed
+	 */
+	public Score get(Path path) throws IOException, ParsingFailureException {
+		final Path key = toKey(path);
+		final CompletableFuture<Score> future;
+		final boolean isLoader;
+
+		synchronized (this) {
+			final Entry entry = getValidEntry(key);
+			if (entry != null) {
+				++hitCount;
+				return entry.score;
+			}
+
+			++missCount;
+			final CompletableFuture<Score> pending = loading.get(key);
+			isLoader = pending == null;
+			if (isLoader) {
+				future = new CompletableFuture<>();
+				loading.put(key, future);
+			} else {
+				future = pending;
+			}
+		}
+
+		if (isLoader) {
+			return load(key, future);
+		}
+
+		return await(future);
+	}
+
+	/**
+	 * Returns the score in the file at the given path if it is in the cache and has not expired, otherwise
+	 * returns an empty optional. Does not read the file.
+	 *
+	 * @param path the path of the file
+	 * @return the cached score in the file at the given path or an empty optional if there is none
+	 */
+	public synchronized Optional<Score> getIfPresent(Path path) {
+		final Entry entry = getValidEntry(toKey(path));
+		if (entry != null) {
+			++hitCount;
+			return Optional.of(entry.score);
+		}
+
+		++missCount;
+		return Optional.empty();
+	}
+
+	/**
+	 * Removes the score in the file at the given path from the cache. If the file is being read, the requests
+	 * waiting for the reading get the score, but it is not added to the cache and later requests read the file
+	 * again.
+	 *
+	 * @param path the path of the file
+	 */
+	public synchronized void invalidate(Path path) {
+		final Path key = toKey(path);
+		loading.remove(key);
+		removeEntry(key);
+	}
+
+	/**
+	 * Removes all scores from the cache. The scores of the readings in progress are not added to the cache.
+	 */
+	public synchronized void invalidateAll() {
+		loading.clear();
+		entries.clear();
+		expiryOrder.clear();
+		weight = 0;
+	}
+
+	/**
+	 * Returns the number of scores in the cache, including expired scores that have not been removed yet.
+	 *
+	 * @return the number of scores in the cache
+	 */
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	/**
+	 * Returns the total weight of the scores in the cache.
+	 *
+	 * @return the total weight of the scores in the cache
+	 */
+	public synchronized long getWeight() {
+		return weight;
+	}
+
+	/**
+	 * Returns a snapshot of the statistics of this cache.
+	 *
+	 * @return a snapshot of the statistics of this cache
+	 */
+	public synchronized Statistics getStatistics() {
+		return new Statistics(hitCount, missCount, loadSuccessCount, loadFailureCount,
+				Duration.ofNanos(totalLoadNanos), evictionCount);
+	}
+
+	/**
+	 * Returns an estimate of the memory retained by the given score in bytes. The estimate is based on the
+	 * numbers of parts, measures, notes, rests, and note properties such as articulations and lyrics in the
+	 * score. Objects that are shared between scores, such as pitches and durations, are not counted.
+	 *
+	 * @param score the score whose weight is estimated
+	 * @return an estimate of the memory retained by the given score in bytes
+	 */
+	public static long estimateWeight(Score score) {
+		long estimate = SCORE_WEIGHT;
+		for (Part part : score) {
+			estimate += PART_WEIGHT;
+			for (Measure measure : part) {
+				estimate += MEASURE_WEIGHT;
+				for (Durational durational : measure) {
+					estimate += estimateWeight(durational);
+				}
+			}
+		}
+
+		return estimate;
+	}
+
+	private static long estimateWeight(Durational durational) {
+		if (durational instanceof Note note) {
+			return DURATIONAL_WEIGHT + estimateWeight(note);
+		}
+
+		if (durational instanceof Chord chord) {
+			long estimate = DURATIONAL_WEIGHT;
+			for (Note note : chord) {
+				estimate += estimateWeight(note);
+			}
+
+			return estimate;
+		}
+
+		return DURATIONAL_WEIGHT;
+	}
+
+	private static long estimateWeight(Note note) {
+		final int propertyCount = note.getArticulations().size() + note.getNotations().size()
+				+ note.getOrnaments().size() + note.getTechniques().size() + note.getLyrics().size();
+		return NOTE_WEIGHT + propertyCount * NOTE_PROPERTY_WEIGHT;
+	}
+
+	private static Path toKey(Path path) {
+		return path.toAbsolutePath().normalize();
+	}
+
+	// Must be called while holding the lock of this cache.
+	private Entry getValidEntry(Path key) {
+		final Entry entry = entries.get(key);
+		if (entry != null && isExpired(entry, nanoTime.getAsLong())) {
+			removeEntry(key);
+			++evictionCount;
+			return null;
+		}
+
+		return entry;
+	}
+
+	// Must be called while holding the lock of this cache.
+	private void removeEntry(Path key) {
+		final Entry entry = entries.remove(key);
+		if (entry != null) {
+			expiryOrder.remove(key);
+			weight -= entry.weight;
+		}
+	}
+
+	private boolean isExpired(Entry entry, long now) {
+		return expiryNanos != NO_EXPIRY && now - entry.loadedAt >= expiryNanos;
+	}
+
+	private Score load(Path key, CompletableFuture<Score> future) throws IOException, ParsingFailureException {
+		final long start = nanoTime.getAsLong();
+		final Score score;
+		try (ScoreReader reader = readerFactory.apply(key)) {
+			score = reader.readScore();
+		} catch (IOException | ParsingFailureException | RuntimeException | Error e) {
+			synchronized (this) {
+				loading.remove(key, future);
+				++loadFailureCount;
+				totalLoadNanos += nanoTime.getAsLong() - start;
+			}
+
+			future.completeExceptionally(e);
+			throw e;
+		}
+
+		final long scoreWeight = estimateWeight(score);
+		synchronized (this) {
+			final long now = nanoTime.getAsLong();
+			final boolean isCurrent = loading.remove(key, future);
+			++loadSuccessCount;
+			totalLoadNanos += now - start;
+
+			if (isCurrent && scoreWeight <= maximumWeight) {
+				final Entry entry = new Entry(score, scoreWeight, now);
+				removeEntry(key);
+				entries.put(key, entry);
+				expiryOrder.put(key, entry);
+				weight += scoreWeight;
+				evict(now);
+			}
+		}
+
+		future.complete(score);
+		return score;
+	}
+
+	// Must be called while holding the lock of this cache.
+	private void evict(long now) {
+		final Iterator<Map.Entry<Path, Entry>> expiring = expiryOrder.entrySet().iterator();
+		while (expiring.hasNext()) {
+			final Map.Entry<Path, Entry> earliest = expiring.next();
+			if (!isExpired(earliest.getValue(), now)) {
+				break;
+			}
+
+			expiring.remove();
+			entries.remove(earliest.getKey());
+			weight -= earliest.getValue().weight;
+			++evictionCount;
+		}
+
+		final Iterator<Map.Entry<Path, Entry>> leastRecentlyUsed = entries.entrySet().iterator();
+		while (weight > maximumWeight && leastRecentlyUsed.hasNext()) {
+			final Map.Entry<Path, Entry> eldest = leastRecentlyUsed.next();
+			leastRecentlyUsed.remove();
+			expiryOrder.remove(eldest.getKey());
+			weight -= eldest.getValue().weight;
+			++evictionCount;
+		}
+	}
+
+	private static Score await(CompletableFuture<Score> future) throws IOException, ParsingFailureException {
+		try {
+			return future.join();
+		} catch (CompletionException e) {
+			final Throwable cause = e.getCause();
+			if (cause instanceof IOException ioException) {
+				throw ioException;
+			}
+
+			if (cause instanceof ParsingFailureException parsingFailureException) {
+				throw parsingFailureException;
+			}
+
+			if (cause instanceof RuntimeException runtimeException) {
+				throw runtimeException;
+			}
+
+			if (cause instanceof Error error) {
+				throw error;
+			}
+
+			throw e;
+		}
+	}
+}
@@ -10,7 +10,8 @@ import java.io.Closeable;
 import java.io.IOException;
 
 /**
- * Represents a reader for music notation files. The only supported file type is MusicXML.
+ * Represents a reader for music notation files. The supported file types are MusicXML, the binary score
+ * format of wmn4j, and Standard MIDI Files.
  * <p>
  * ScoreReader implementations are expected to be single use: for reading separate scores,
  * separate instances need to be used.
@@ -7,7 +7,8 @@ import java.io.Closeable;
 import java.io.IOException;
 
 /**
- * Represents a writer for music notation files. The only supported file type is currently MusicXML.
+ * Represents a writer for music notation files. The supported file types are currently MusicXML and the binary
+ * score format of wmn4j.
  * <p>
  * ScoreWriter implementations are expected to be single use: for writing separate scores,
  * separate instances need to be used.
@@ -16,7 +17,8 @@ import java.io.IOException;
 public interface ScoreWriter extends Closeable {
 
 	/**
-	 * Writes the contents in this writer into a file specified by the given path.
+	 * Writes the contents in this writer to the output of this writer, such as a file specified by a path.
+	 * The writer is closed after writing.
 	 *
 	 * @throws IOException in case the score cannot be written to the output
 	 */
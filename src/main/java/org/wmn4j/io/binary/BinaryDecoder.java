@@ -0,0 +1,429 @@
+/*
+ * Distributed under the MIT license (see LICENSE.txt or https://opensource.org/licenses/MIT).
+ */
+package org.wmn4j.io.binary;
+
+import org.wmn4j.io.ParsingFailureException;
+import org.wmn4j.notation.Articulation;
+import org.wmn4j.notation.Barline;
+import org.wmn4j.notation.ChordBuilder;
+import org.wmn4j.notation.ChordSymbol;
+import org.wmn4j.notation.ChordSymbolBuilder;
+import org.wmn4j.notation.Clef;
+import org.wmn4j.notation.ConnectableBuilder;
+import org.wmn4j.notation.Duration;
+import org.wmn4j.notation.GraceNote;
+import org.wmn4j.notation.GraceNoteBuilder;
+import org.wmn4j.notation.GraceNoteChordBuilder;
+import org.wmn4j.notation.KeySignature;
+import org.wmn4j.notation.Lyric;
+import org.wmn4j.notation.MeasureBuilder;
+import org.wmn4j.notation.Notation;
+import org.wmn4j.notation.NoteBuilder;
+import org.wmn4j.notation.Ornament;
+import org.wmn4j.notation.OrnamentalBuilder;
+import org.wmn4j.notation.Pitch;
+import org.wmn4j.notation.PitchName;
+import org.wmn4j.notation.RestBuilder;
+import org.wmn4j.notation.TimeSignature;
+import org.wmn4j.notation.directions.Direction;
+import org.wmn4j.notation.techniques.Technique;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Reads the contents of scores written by a {@link BinaryEncoder}.
+ * <p>
+ * The decoder keeps the dictionaries of the read values and the builders of the read notes, so the
+ * notations connecting the notes can only be read for the notes that have been read using the same decoder.
+ * <p>
+ * This class is not thread-safe.
+ */
+final class BinaryDecoder {
+
+	private static final Articulation[] ARTICULATIONS = Articulation.values();
+	private static final Pitch.Base[] BASES = Pitch.Base.values();
+	private static final Pitch.Accidental[] ACCIDENTALS = Pitch.Accidental.values();
+
+	private final BinaryInput input;
+	private final List<Pitch> pitches = new ArrayList<>();
+	private final List<Duration> durations = new ArrayList<>();
+	private final List<String> strings = new ArrayList<>();
+	private final List<TimeSignature> timeSignatures = new ArrayList<>();
+	private final List<KeySignature> keySignatures = new ArrayList<>();
+	private final List<Clef> clefs = new ArrayList<>();
+
+	// The builders of the notes and grace notes in the order of their numbers.
+	private final List<ConnectableBuilder> noteBuilders = new ArrayList<>();
+
+	BinaryDecoder(BinaryInput input) {
+		this.input = input;
+	}
+
+	/**
+	 * Returns the exception to throw when the values read from a binary score are rejected by the classes they are
+	 * read into, for example when a duration has a zero denominator or a note refers to a voice that is not valid.
+	 *
+	 * @param cause the exception thrown for the invalid values
+	 * @return the exception to throw instead of the given exception
+	 */
+	static ParsingFailureException malformedScore(RuntimeException cause) {
+		final ParsingFailureException exception = new ParsingFailureException("Malformed binary score: "
+				+ cause.getMessage());
+		exception.initCause(cause);
+		return exception;
+	}
+
+	MeasureBuilder readMeasure() throws IOException, ParsingFailureException {
+		final MeasureBuilder builder = new MeasureBuilder(input.readVarInt());
+		builder.setTimeSignature(readTimeSignature());
+		builder.setKeySignature(readKeySignature());
+		builder.setClef(readClef());
+		builder.setLeftBarline(input.readEnum(Barline.values()));
+		builder.setRightBarline(input.readEnum(Barline.values()));
+
+		final int clefChangeCount = input.readVarInt();
+		for (int i = 0; i < clefChangeCount; ++i) {
+			final Duration offset = readOffset();
+			builder.addClefChange(offset, readClef());
+		}
+
+		final int directionCount = input.readVarInt();
+		for (int i = 0; i < directionCount; ++i) {
+			final Duration offset = readOffset();
+			final Direction.Type type = input.readEnum(Direction.Type.values());
+			builder.addDirection(offset, Direction.of(type, input.readBoolean() ? readString() : null));
+		}
+
+		final int chordSymbolCount = input.readVarInt();
+		for (int i = 0; i < chordSymbolCount; ++i) {
+			final Duration offset = readOffset();
+			builder.addChordSymbol(offset, readChordSymbol());
+		}
+
+		final int voiceCount = input.readVarInt();
+		for (int i = 0; i < voiceCount; ++i) {
+			final int voiceNumber = input.readSignedVarInt();
+			final int voiceSize = input.readVarInt();
+			for (int j = 0; j < voiceSize; ++j) {
+				readDurational(builder, voiceNumber);
+			}
+		}
+
+		return builder;
+	}
+
+	private TimeSignature readTimeSignature() throws IOException, ParsingFailureException {
+		TimeSignature timeSignature = input.readIndex(timeSignatures);
+		if (timeSignature == null) {
+			final int beatCount = input.readVarInt();
+			final Duration beatDuration = readDuration();
+			timeSignature = TimeSignature.of(beatCount, beatDuration,
+					input.readEnum(TimeSignature.Symbol.values()));
+			timeSignatures.add(timeSignature);
+		}
+
+		return timeSignature;
+	}
+
+	private KeySignature readKeySignature() throws IOException, ParsingFailureException {
+		KeySignature keySignature = input.readIndex(keySignatures);
+		if (keySignature == null) {
+			final List<Pitch.Base> sharps = readBases();
+			keySignature = KeySignature.of(sharps, readBases());
+			keySignatures.add(keySignature);
+		}
+
+		return keySignature;
+	}
+
+	private List<Pitch.Base> readBases() throws IOException, ParsingFailureException {
+		final int count = input.readVarInt();
+		final List<Pitch.Base> bases = new ArrayList<>();
+		for (int i = 0; i < count; ++i) {
+			bases.add(input.readEnum(BASES));
+		}
+
+		return bases;
+	}
+
+	private Clef readClef() throws IOException, ParsingFailureException {
+		Clef clef = input.readIndex(clefs);
+		if (clef == null) {
+			final Clef.Symbol symbol = input.readEnum(Clef.Symbol.values());
+			clef = Clef.of(symbol, input.readSignedVarInt());
+			clefs.add(clef);
+		}
+
+		return clef;
+	}
+
+	private ChordSymbolBuilder readChordSymbol() throws IOException, ParsingFailureException {
+		final ChordSymbolBuilder builder = new ChordSymbolBuilder();
+		builder.setBase(input.readEnum(ChordSymbol.Base.values()));
+		builder.setRoot(readPitchName());
+		builder.setBass(readPitchName());
+
+		final int extensionCount = input.readVarInt();
+		for (int i = 0; i < extensionCount; ++i) {
+			final ChordSymbol.Extension.Type type = input.readEnum(ChordSymbol.Extension.Type.values());
+			final Pitch.Accidental accidental = input.readEnum(ACCIDENTALS);
+			builder.addExtension(ChordSymbol.extension(type, accidental, input.readVarInt()));
+		}
+
+		return builder;
+	}
+
+	private PitchName readPitchName() throws IOException, ParsingFailureException {
+		final Pitch.Base base = input.readEnum(BASES);
+		return PitchName.of(base, input.readEnum(ACCIDENTALS));
+	}
+
+	private Duration readOffset() throws IOException, ParsingFailureException {
+		return input.readBoolean() ? readDuration() : null;
+	}
+
+	private void readDurational(MeasureBuilder builder, int voiceNumber) throws IOException, ParsingFailureException {
+		final int type = input.readVarInt();
+		switch (type) {
+			case BinaryFormat.NOTE:
+				builder.addToVoice(voiceNumber, readNote());
+				break;
+			case BinaryFormat.CHORD:
+				final int noteCount = input.readVarInt();
+				final List<NoteBuilder> notes = new ArrayList<>();
+				for (int i = 0; i < noteCount; ++i) {
+					notes.add(readNote());
+				}
+
+				builder.addToVoice(voiceNumber, new ChordBuilder(notes));
+				break;
+			case BinaryFormat.REST:
+				builder.addToVoice(voiceNumber, new RestBuilder(readDuration()));
+				break;
+			default:
+				throw BinaryInput.invalidContents("Invalid element type " + type);
+		}
+	}
+
+	private NoteBuilder readNote() throws IOException, ParsingFailureException {
+		final NoteBuilder builder = new NoteBuilder();
+		noteBuilders.add(builder);
+
+		final int flags = input.readVarInt();
+		readNoteContents(builder, flags);
+
+		if ((flags & BinaryFormat.HAS_PRECEDING_GRACE_NOTES) != 0) {
+			builder.setPrecedingGraceNotes(readGraceNotes());
+		}
+
+		if ((flags & BinaryFormat.HAS_SUCCEEDING_GRACE_NOTES) != 0) {
+			builder.setSucceedingGraceNotes(readGraceNotes());
+		}
+
+		return builder;
+	}
+
+	private List<OrnamentalBuilder> readGraceNotes() throws IOException, ParsingFailureException {
+		final int count = input.readVarInt();
+		final List<OrnamentalBuilder> graceNotes = new ArrayList<>();
+		for (int i = 0; i < count; ++i) {
+			final int type = input.readVarInt();
+			if (type == BinaryFormat.GRACE_NOTE) {
+				graceNotes.add(readGraceNote());
+			} else if (type == BinaryFormat.GRACE_NOTE_CHORD) {
+				final int noteCount = input.readVarInt();
+				final GraceNoteChordBuilder chordBuilder = new GraceNoteChordBuilder();
+				for (int j = 0; j < noteCount; ++j) {
+					chordBuilder.add(readGraceNote());
+				}
+
+				graceNotes.add(chordBuilder);
+			} else {
+				throw BinaryInput.invalidContents("Invalid grace note type " + type);
+			}
+		}
+
+		return graceNotes;
+	}
+
+	private GraceNoteBuilder readGraceNote() throws IOException, ParsingFailureException {
+		// The note builder is read first, as grace note builders do not have all the setters of note builders.
+		final int number = noteBuilders.size();
+		noteBuilders.add(null);
+
+		final NoteBuilder noteBuilder = new NoteBuilder();
+		readNoteContents(noteBuilder, input.readVarInt());
+
+		final GraceNoteBuilder builder = GraceNoteBuilder.moveFrom(noteBuilder);
+		builder.setGraceNoteType(input.readEnum(GraceNote.Type.values()));
+		noteBuilders.set(number, builder);
+		return builder;
+	}
+
+	private void readNoteContents(NoteBuilder builder, int flags) throws IOException, ParsingFailureException {
+		final Pitch pitch = readPitch();
+		if ((flags & BinaryFormat.HAS_PITCH) != 0) {
+			builder.setPitch(pitch);
+		} else {
+			builder.setUnpitched();
+			builder.setDisplayPitch(pitch);
+		}
+
+		builder.setDuration(readDuration());
+
+		if ((flags & BinaryFormat.HAS_ARTICULATIONS) != 0) {
+			final int articulationBits = input.readVarInt();
+			final Set<Articulation> articulations = EnumSet.noneOf(Articulation.class);
+			for (Articulation articulation : ARTICULATIONS) {
+				if ((articulationBits & (1 << articulation.ordinal())) != 0) {
+					articulations.add(articulation);
+				}
+			}
+
+			builder.setArticulations(articulations);
+		}
+
+		if ((flags & BinaryFormat.HAS_ORNAMENTS) != 0) {
+			final int count = input.readVarInt();
+			for (int i = 0; i < count; ++i) {
+				builder.addOrnament(Ornament.of(input.readEnum(Ornament.Type.values())));
+			}
+		}
+
+		if ((flags & BinaryFormat.HAS_TECHNIQUES) != 0) {
+			final int count = input.readVarInt();
+			for (int i = 0; i < count; ++i) {
+				builder.addTechnique(readTechnique());
+			}
+		}
+
+		if ((flags & BinaryFormat.HAS_LYRICS) != 0) {
+			final int count = input.readVarInt();
+			final List<Lyric> lyrics = new ArrayList<>();
+			for (int i = 0; i < count; ++i) {
+				final String text = readString();
+				lyrics.add(Lyric.of(text, input.readEnum(Lyric.Type.values())));
+			}
+
+			builder.setLyrics(lyrics);
+		}
+	}
+
+	private Technique readTechnique() throws IOException, ParsingFailureException {
+		final Technique.Type type = input.readEnum(Technique.Type.values());
+		final int kind = input.readVarInt();
+		switch (kind) {
+			case BinaryFormat.PLAIN_TECHNIQUE:
+				return Technique.of(type);
+			case BinaryFormat.TEXTUAL_TECHNIQUE:
+				return Technique.of(type, readString());
+			case BinaryFormat.NUMERIC_TECHNIQUE:
+				return Technique.of(type, input.readSignedVarInt());
+			case BinaryFormat.COMPLEX_TECHNIQUE:
+				final int count = input.readVarInt();
+				final Map<Technique.AdditionalValue, Object> values = new EnumMap<>(Technique.AdditionalValue.class);
+				for (int i = 0; i < count; ++i) {
+					final Technique.AdditionalValue value = input.readEnum(Technique.AdditionalValue.values());
+					values.put(value, readAdditionalValue(value.getValueClass()));
+				}
+
+				return Technique.of(type, values);
+			default:
+				throw BinaryInput.invalidContents("Invalid technique kind " + kind);
+		}
+	}
+
+	private Object readAdditionalValue(Class<?> valueClass) throws IOException, ParsingFailureException {
+		if (valueClass == Duration.class) {
+			return readDuration();
+		} else if (valueClass == Double.class) {
+			return Double.longBitsToDouble(input.readLong());
+		} else if (valueClass == Pitch.class) {
+			return readPitch();
+		} else if (valueClass == Boolean.class) {
+			return input.readBoolean();
+		} else if (valueClass == String.class) {
+			return readString();
+		} else if (valueClass == Technique.Opening.class) {
+			return input.readEnum(Technique.Opening.values());
+		}
+
+		throw new ParsingFailureException("Cannot read technique value of type " + valueClass.getSimpleName());
+	}
+
+	private Pitch readPitch() throws IOException, ParsingFailureException {
+		Pitch pitch = input.readIndex(pitches);
+		if (pitch == null) {
+			final Pitch.Base base = input.readEnum(BASES);
+			final Pitch.Accidental accidental = input.readEnum(ACCIDENTALS);
+			pitch = Pitch.of(base, accidental, input.readVarInt());
+			pitches.add(pitch);
+		}
+
+		return pitch;
+	}
+
+	private Duration readDuration() throws IOException, ParsingFailureException {
+		Duration duration = input.readIndex(durations);
+		if (duration == null) {
+			final int numerator = input.readVarInt();
+			final int denominator = input.readVarInt();
+			final int dotCount = input.readVarInt();
+			duration = Duration.of(numerator, denominator, dotCount, input.readVarInt());
+			durations.add(duration);
+		}
+
+		return duration;
+	}
+
+	String readString() throws IOException, ParsingFailureException {
+		String value = input.readIndex(strings);
+		if (value == null) {
+			value = input.readString();
+			strings.add(value);
+		}
+
+		return value;
+	}
+
+	void readConnections() throws IOException, ParsingFailureException {
+		final int notationCount = input.readVarInt();
+		final List<Notation> notations = new ArrayList<>();
+		for (int i = 0; i < notationCount; ++i) {
+			final Notation.Type type = input.readEnum(Notation.Type.values());
+			notations.add(Notation.of(type, input.readEnum(Notation.Style.values())));
+		}
+
+		final int connectionCount = input.readVarInt();
+		for (int i = 0; i < connectionCount; ++i) {
+			final ConnectableBuilder source = getNoteBuilder(input.readVarInt());
+			final int notationNumber = input.readVarInt();
+			if (notationNumber >= notations.size()) {
+				throw BinaryInput.invalidContents("Invalid notation number " + notationNumber);
+			}
+
+			final Notation notation = notations.get(notationNumber);
+			final ConnectableBuilder target = getNoteBuilder(input.readVarInt());
+			if (target instanceof NoteBuilder noteBuilder) {
+				source.connectWith(notation, noteBuilder);
+			} else {
+				source.connectWith(notation, (GraceNoteBuilder) target);
+			}
+		}
+	}
+
+	private ConnectableBuilder getNoteBuilder(int number) throws ParsingFailureException {
+		if (number >= noteBuilders.size()) {
+			throw BinaryInput.invalidContents("Invalid note number " + number);
+		}
+
+		return noteBuilders.get(number);
+	}
+}
@@ -0,0 +1,499 @@
+/*
+ * Distributed under the MIT license (see LICENSE.txt or https://opensource.org/licenses/MIT).
+ */
+package org.wmn4j.io.binary;
+
+import org.wmn4j.notation.Articulation;
+import org.wmn4j.notation.Chord;
+import org.wmn4j.notation.ChordSymbol;
+import org.wmn4j.notation.Clef;
+import org.wmn4j.notation.Duration;
+import org.wmn4j.notation.Durational;
+import org.wmn4j.notation.GraceNote;
+import org.wmn4j.notation.GraceNoteChord;
+import org.wmn4j.notation.KeySignature;
+import org.wmn4j.notation.Lyric;
+import org.wmn4j.notation.Measure;
+import org.wmn4j.notation.Notation;
+import org.wmn4j.notation.Note;
+import org.wmn4j.notation.Ornament;
+import org.wmn4j.notation.Ornamental;
+import org.wmn4j.notation.Pitch;
+import org.wmn4j.notation.PitchName;
+import org.wmn4j.notation.Rest;
+import org.wmn4j.notation.TimeSignature;
+import org.wmn4j.notation.access.Offset;
+import org.wmn4j.notation.directions.Direction;
+import org.wmn4j.notation.techniques.Technique;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Writes the contents of scores in the binary score format.
+ * <p>
+ * The encoder keeps the dictionaries of the written values and the numbers of the written notes, so the
+ * notations connecting the notes can only be written for the notes that have been written using the same
+ * encoder. The values written by an encoder can be read using a {@link BinaryDecoder}.
+ * <p>
+ * This class is not thread-safe.
+ */
+final class BinaryEncoder {
+
+	private final BinaryOutput output;
+	private final BinaryOutput.Dictionary pitches = new BinaryOutput.Dictionary();
+	private final BinaryOutput.Dictionary durations = new BinaryOutput.Dictionary();
+	private final BinaryOutput.Dictionary strings = new BinaryOutput.Dictionary();
+	private final BinaryOutput.Dictionary timeSignatures = new BinaryOutput.Dictionary();
+	private final BinaryOutput.Dictionary keySignatures = new BinaryOutput.Dictionary();
+	private final BinaryOutput.Dictionary clefs = new BinaryOutput.Dictionary();
+
+	// The notes and grace notes are numbered in the order in which they are written, which is the order in which
+	// the decoder numbers them. The same note instance can occur several times in a score when notes are
+	// interned, so the numbers are only kept for the notes that have notations, which are never shared.
+	private int noteCount;
+	private final Map<Notation.Connectable, Integer> noteNumbers = new IdentityHashMap<>();
+	private final Map<GraceNote, Integer> principalNoteNumbers = new IdentityHashMap<>();
+	private final List<Notation.Connectable> notesWithNotations = new ArrayList<>();
+
+	BinaryEncoder(BinaryOutput output) {
+		this.output = output;
+	}
+
+	<T extends Enum<T>> void writeAttributes(T[] attributes, Function<T, Optional<String>> getter)
+			throws IOException {
+		final List<T> presentAttributes = new ArrayList<>(attributes.length);
+		for (T attribute : attributes) {
+			if (getter.apply(attribute).isPresent()) {
+				presentAttributes.add(attribute);
+			}
+		}
+
+		output.writeVarInt(presentAttributes.size());
+		for (T attribute : presentAttributes) {
+			output.writeVarInt(attribute.ordinal());
+			writeString(getter.apply(attribute).get());
+		}
+	}
+
+	void writeMeasure(Measure measure) throws IOException {
+		output.writeVarInt(measure.getNumber());
+		writeTimeSignature(measure.getTimeSignature());
+		writeKeySignature(measure.getKeySignature());
+		writeClef(measure.getClef());
+		output.writeVarInt(measure.getLeftBarline().ordinal());
+		output.writeVarInt(measure.getRightBarline().ordinal());
+
+		final List<Offset<Clef>> clefChanges = measure.getClefChanges();
+		output.writeVarInt(clefChanges.size());
+		for (Offset<Clef> clefChange : clefChanges) {
+			writeOffset(clefChange);
+			writeClef(clefChange.get());
+		}
+
+		final List<Offset<Direction>> directions = measure.getDirections();
+		output.writeVarInt(directions.size());
+		for (Offset<Direction> direction : directions) {
+			writeOffset(direction);
+			output.writeVarInt(direction.get().getType().ordinal());
+			writeOptionalString(direction.get().getText().orElse(null));
+		}
+
+		final List<Offset<ChordSymbol>> chordSymbols = measure.getChordSymbols();
+		output.writeVarInt(chordSymbols.size());
+		for (Offset<ChordSymbol> chordSymbol : chordSymbols) {
+			writeOffset(chordSymbol);
+			writeChordSymbol(chordSymbol.get());
+		}
+
+		final List<Integer> voiceNumbers = measure.getVoiceNumbers();
+		output.writeVarInt(voiceNumbers.size());
+		for (Integer voiceNumber : voiceNumbers) {
+			final int voiceSize = measure.getVoiceSize(voiceNumber);
+			output.writeSignedVarInt(voiceNumber);
+			output.writeVarInt(voiceSize);
+			for (int i = 0; i < voiceSize; ++i) {
+				writeDurational(measure.get(voiceNumber, i));
+			}
+		}
+	}
+
+	private void writeTimeSignature(TimeSignature timeSignature) throws IOException {
+		final Duration beatDuration = timeSignature.getBeatDuration();
+		if (output.writeIndex(timeSignatures, Arrays.asList(timeSignature.getBeatCount(), getKey(beatDuration),
+				timeSignature.getSymbol()))) {
+			output.writeVarInt(timeSignature.getBeatCount());
+			writeDuration(beatDuration);
+			output.writeVarInt(timeSignature.getSymbol().ordinal());
+		}
+	}
+
+	private void writeKeySignature(KeySignature keySignature) throws IOException {
+		if (output.writeIndex(keySignatures, keySignature)) {
+			writeBases(keySignature.getSharps());
+			writeBases(keySignature.getFlats());
+		}
+	}
+
+	private void writeBases(List<Pitch.Base> bases) throws IOException {
+		output.writeVarInt(bases.size());
+		for (Pitch.Base base : bases) {
+			output.writeVarInt(base.ordinal());
+		}
+	}
+
+	private void writeClef(Clef clef) throws IOException {
+		if (output.writeIndex(clefs, clef)) {
+			output.writeVarInt(clef.getSymbol().ordinal());
+			output.writeSignedVarInt(clef.getLine());
+		}
+	}
+
+	private void writeChordSymbol(ChordSymbol chordSymbol) throws IOException {
+		output.writeVarInt(chordSymbol.getBase().ordinal());
+		writePitchName(chordSymbol.getRoot());
+		writePitchName(chordSymbol.getBass());
+
+		final List<ChordSymbol.Extension> extensions = chordSymbol.getExtensions();
+		output.writeVarInt(extensions.size());
+		for (ChordSymbol.Extension extension : extensions) {
+			output.writeVarInt(extension.getType().ordinal());
+			output.writeVarInt(extension.getAccidental().ordinal());
+			output.writeVarInt(extension.getNumber().orElse(0));
+		}
+	}
+
+	private void writePitchName(PitchName pitchName) throws IOException {
+		output.writeVarInt(pitchName.getBase().ordinal());
+		output.writeVarInt(pitchName.getAccidental().ordinal());
+	}
+
+	private void writeOffset(Offset<?> offset) throws IOException {
+		final Optional<Duration> duration = offset.getDuration();
+		output.writeBoolean(duration.isPresent());
+		if (duration.isPresent()) {
+			writeDuration(duration.get());
+		}
+	}
+
+	private void writeDurational(Durational durational) throws IOException {
+		if (durational instanceof Note note) {
+			output.writeVarInt(BinaryFormat.NOTE);
+			writeNote(note);
+		} else if (durational instanceof Chord chord) {
+			output.writeVarInt(BinaryFormat.CHORD);
+			output.writeVarInt(chord.getNoteCount());
+			for (Note note : chord) {
+				writeNote(note);
+			}
+		} else if (durational instanceof Rest rest) {
+			output.writeVarInt(BinaryFormat.REST);
+			writeDuration(rest.getDuration());
+		} else {
+			throw new IllegalArgumentException("Cannot write durational " + durational);
+		}
+	}
+
+	private void writeNote(Note note) throws IOException {
+		final int number = addNote(note, note.getNotations());
+
+		List<Ornamental> precedingGraceNotes = null;
+		List<Ornamental> succeedingGraceNotes = null;
+		final List<Ornament> ornaments = new ArrayList<>(note.getOrnaments().size());
+		for (Ornament ornament : note.getOrnaments()) {
+			if (ornament.getType() == Ornament.Type.GRACE_NOTES) {
+				precedingGraceNotes = ornament.getOrnamentalNotes();
+			} else if (ornament.getType() == Ornament.Type.SUCCEEDING_GRACE_NOTES) {
+				succeedingGraceNotes = ornament.getOrnamentalNotes();
+			} else {
+				ornaments.add(ornament);
+			}
+		}
+
+		int flags = getFlags(note.getPitch(), note.getArticulations(), ornaments, note.getTechniques(),
+				note.getLyrics());
+		if (precedingGraceNotes != null) {
+			flags |= BinaryFormat.HAS_PRECEDING_GRACE_NOTES;
+		}
+
+		if (succeedingGraceNotes != null) {
+			flags |= BinaryFormat.HAS_SUCCEEDING_GRACE_NOTES;
+		}
+
+		output.writeVarInt(flags);
+		writeNoteContents(flags, note.getPitch(), note.getDisplayPitch(), note.getDuration(),
+				note.getArticulations(), ornaments, note.getTechniques(), note.getLyrics());
+
+		if (precedingGraceNotes != null) {
+			writeGraceNotes(precedingGraceNotes, number);
+		}
+
+		if (succeedingGraceNotes != null) {
+			writeGraceNotes(succeedingGraceNotes, number);
+		}
+	}
+
+	private int addNote(Notation.Connectable note, Set<Notation> notations) {
+		final int number = noteCount++;
+		if (!notations.isEmpty()) {
+			noteNumbers.put(note, number);
+			notesWithNotations.add(note);
+		}
+
+		return number;
+	}
+
+	private void writeGraceNotes(List<Ornamental> graceNotes, int principalNoteNumber) throws IOException {
+		output.writeVarInt(graceNotes.size());
+		for (Ornamental ornamental : graceNotes) {
+			if (ornamental instanceof GraceNote graceNote) {
+				output.writeVarInt(BinaryFormat.GRACE_NOTE);
+				writeGraceNote(graceNote, principalNoteNumber);
+			} else if (ornamental instanceof GraceNoteChord graceNoteChord) {
+				output.writeVarInt(BinaryFormat.GRACE_NOTE_CHORD);
+				output.writeVarInt(graceNoteChord.getNoteCount());
+				for (GraceNote graceNote : graceNoteChord) {
+					writeGraceNote(graceNote, principalNoteNumber);
+				}
+			} else {
+				throw new IllegalArgumentException("Cannot write grace note " + ornamental);
+			}
+		}
+	}
+
+	private void writeGraceNote(GraceNote graceNote, int principalNoteNumber) throws IOException {
+		addNote(graceNote, graceNote.getNotations());
+		principalNoteNumbers.put(graceNote, principalNoteNumber);
+
+		final int flags = getFlags(graceNote.getPitch(), graceNote.getArticulations(), graceNote.getOrnaments(),
+				graceNote.getTechniques(), graceNote.getLyrics());
+		output.writeVarInt(flags);
+		writeNoteContents(flags, graceNote.getPitch(), graceNote.getDisplayPitch(),
+				graceNote.getDisplayableDuration(), graceNote.getArticulations(), graceNote.getOrnaments(),
+				graceNote.getTechniques(), graceNote.getLyrics());
+		output.writeVarInt(graceNote.getType().ordinal());
+	}
+
+	private static int getFlags(Optional<Pitch> pitch, Set<Articulation> articulations,
+			Collection<Ornament> ornaments, Set<Technique> techniques, List<Lyric> lyrics) {
+		int flags = 0;
+		if (pitch.isPresent()) {
+			flags |= BinaryFormat.HAS_PITCH;
+		}
+
+		if (!articulations.isEmpty()) {
+			flags |= BinaryFormat.HAS_ARTICULATIONS;
+		}
+
+		if (!ornaments.isEmpty()) {
+			flags |= BinaryFormat.HAS_ORNAMENTS;
+		}
+
+		if (!techniques.isEmpty()) {
+			flags |= BinaryFormat.HAS_TECHNIQUES;
+		}
+
+		if (!lyrics.isEmpty()) {
+			flags |= BinaryFormat.HAS_LYRICS;
+		}
+
+		return flags;
+	}
+
+	private void writeNoteContents(int flags, Optional<Pitch> pitch, Pitch displayPitch, Duration duration,
+			Set<Articulation> articulations, Collection<Ornament> ornaments, Set<Technique> techniques,
+			List<Lyric> lyrics) throws IOException {
+		writePitch(pitch.orElse(displayPitch));
+		writeDuration(duration);
+
+		if ((flags & BinaryFormat.HAS_ARTICULATIONS) != 0) {
+			int articulationBits = 0;
+			for (Articulation articulation : articulations) {
+				articulationBits |= 1 << articulation.ordinal();
+			}
+
+			output.writeVarInt(articulationBits);
+		}
+
+		if ((flags & BinaryFormat.HAS_ORNAMENTS) != 0) {
+			output.writeVarInt(ornaments.size());
+			for (Ornament ornament : ornaments) {
+				output.writeVarInt(ornament.getType().ordinal());
+			}
+		}
+
+		if ((flags & BinaryFormat.HAS_TECHNIQUES) != 0) {
+			output.writeVarInt(techniques.size());
+			for (Technique technique : techniques) {
+				writeTechnique(technique);
+			}
+		}
+
+		if ((flags & BinaryFormat.HAS_LYRICS) != 0) {
+			output.writeVarInt(lyrics.size());
+			for (Lyric lyric : lyrics) {
+				writeString(lyric.getText());
+				output.writeVarInt(lyric.getType().ordinal());
+			}
+		}
+	}
+
+	private void writeTechnique(Technique technique) throws IOException {
+		output.writeVarInt(technique.getType().ordinal());
+
+		if (technique.getText().isPresent()) {
+			output.writeVarInt(BinaryFormat.TEXTUAL_TECHNIQUE);
+			writeString(technique.getText().get());
+			return;
+		}
+
+		if (technique.getNumber().isPresent()) {
+			output.writeVarInt(BinaryFormat.NUMERIC_TECHNIQUE);
+			output.writeSignedVarInt(technique.getNumber().getAsInt());
+			return;
+		}
+
+		if (technique.getClass() == Technique.class) {
+			output.writeVarInt(BinaryFormat.PLAIN_TECHNIQUE);
+			return;
+		}
+
+		final Map<Technique.AdditionalValue, Object> values = new EnumMap<>(Technique.AdditionalValue.class);
+		for (Technique.AdditionalValue value : Technique.AdditionalValue.values()) {
+			technique.getValue(value, value.getValueClass()).ifPresent(v -> values.put(value, v));
+		}
+
+		output.writeVarInt(BinaryFormat.COMPLEX_TECHNIQUE);
+		output.writeVarInt(values.size());
+		for (Map.Entry<Technique.AdditionalValue, Object> value : values.entrySet()) {
+			output.writeVarInt(value.getKey().ordinal());
+			writeAdditionalValue(value.getValue());
+		}
+	}
+
+	private void writeAdditionalValue(Object value) throws IOException {
+		if (value instanceof Duration duration) {
+			writeDuration(duration);
+		} else if (value instanceof Double number) {
+			output.writeLong(Double.doubleToLongBits(number));
+		} else if (value instanceof Pitch pitch) {
+			writePitch(pitch);
+		} else if (value instanceof Boolean isSet) {
+			output.writeBoolean(isSet);
+		} else if (value instanceof String text) {
+			writeString(text);
+		} else if (value instanceof Technique.Opening opening) {
+			output.writeVarInt(opening.ordinal());
+		} else {
+			throw new IllegalArgumentException("Cannot write technique value " + value);
+		}
+	}
+
+	private void writePitch(Pitch pitch) throws IOException {
+		if (output.writeIndex(pitches, pitch)) {
+			output.writeVarInt(pitch.getBase().ordinal());
+			output.writeVarInt(pitch.getAccidental().ordinal());
+			output.writeVarInt(pitch.getOctave());
+		}
+	}
+
+	private void writeDuration(Duration duration) throws IOException {
+		if (output.writeIndex(durations, getKey(duration))) {
+			output.writeVarInt(duration.getNumerator());
+			output.writeVarInt(duration.getDenominator());
+			output.writeVarInt(duration.getDotCount());
+			output.writeVarInt(duration.getTupletDivisor());
+		}
+	}
+
+	/*
+	 * Durations are equal if their lengths are equal, so the key includes the expression of the duration.
+	 */
+	private static Object getKey(Duration duration) {
+		return Arrays.asList(duration.getNumerator(), duration.getDenominator(), duration.getDotCount(),
+				duration.getTupletDivisor());
+	}
+
+	private void writeString(String value) throws IOException {
+		if (output.writeIndex(strings, value)) {
+			output.writeString(value);
+		}
+	}
+
+	private void writeOptionalString(String value) throws IOException {
+		output.writeBoolean(value != null);
+		if (value != null) {
+			writeString(value);
+		}
+	}
+
+	/*
+	 * Writes the notations that connect the notes as connections from a note to the following note. The notes at
+	 * which the notations end are not written, as they are the ones that have no following note.
+	 */
+	void writeConnections() throws IOException {
+		final Map<Notation, Integer> notationNumbers = new IdentityHashMap<>();
+		final List<Notation> notations = new ArrayList<>();
+		final List<int[]> connections = new ArrayList<>();
+
+		for (Notation.Connectable note : notesWithNotations) {
+			final Set<Notation> noteNotations = note instanceof Note
+					? ((Note) note).getNotations()
+					: ((GraceNote) note).getNotations();
+
+			for (Notation notation : noteNotations) {
+				final Notation.Connection connection = note.getConnection(notation).orElseThrow();
+				final Optional<? extends Notation.Connectable> following = connection.getFollowingNote().isPresent()
+						? connection.getFollowingNote()
+						: connection.getFollowingGraceNote();
+
+				if (following.isPresent()) {
+					if (!notationNumbers.containsKey(notation)) {
+						notationNumbers.put(notation, notations.size());
+						notations.add(notation);
+					}
+
+					connections.add(new int[] {noteNumbers.get(note), notationNumbers.get(notation),
+							getFollowingNoteNumber(note, following.get())});
+				}
+			}
+		}
+
+		output.writeVarInt(notations.size());
+		for (Notation notation : notations) {
+			output.writeVarInt(notation.getType().ordinal());
+			output.writeVarInt(notation.getStyle().ordinal());
+		}
+
+		output.writeVarInt(connections.size());
+		for (int[] connection : connections) {
+			for (int value : connection) {
+				output.writeVarInt(value);
+			}
+		}
+	}
+
+	private int getFollowingNoteNumber(Notation.Connectable note, Notation.Connectable following) {
+		final Integer number = noteNumbers.get(following);
+		if (number != null) {
+			return number;
+		}
+
+		// The notations from grace notes to their principal notes can be connected to copies of the
+		// principal notes that are not in the score.
+		if (note instanceof GraceNote graceNote && following instanceof Note) {
+			return principalNoteNumbers.get(graceNote);
+		}
+
+		throw new IllegalArgumentException("Score contains a notation connected to a note that is not in the score");
+	}
+}
@@ -0,0 +1,49 @@
+/*
+ * Distributed under the MIT license (see LICENSE.txt or https://opensource.org/licenses/MIT).
+ */
+package org.wmn4j.io.binary;
+
+/**
+ * Constants of the binary score format.
+ * <p>
+ * A binary score starts with the magic bytes and the format version, which are followed by the score
+ * attributes and the parts. Each part consists of its attributes and staves, and each staff of its measures.
+ * The measures contain the measure attributes and the voices with their notes, chords, and rests. Notes are
+ * numbered in the order in which they are written, including the grace notes that are written right after
+ * their principal notes. The notations that connect notes, such as ties and slurs, are written after the parts
+ * as connections between the numbered notes.
+ * <p>
+ * Enum constants are written as their ordinals, so the version must be increased when constants are added to
+ * or removed from the enums in the notation model.
+ */
+final class BinaryFormat {
+
+	static final byte[] MAGIC = {'W', 'M', 'N', 'B'};
+	static final int VERSION = 1;
+
+	static final int REST = 0;
+	static final int NOTE = 1;
+	static final int CHORD = 2;
+
+	static final int GRACE_NOTE = 0;
+	static final int GRACE_NOTE_CHORD = 1;
+
+	static final int HAS_PITCH = 1;
+	static final int HAS_ARTICULATIONS = 1 << 1;
+	static final int HAS_ORNAMENTS = 1 << 2;
+	static final int HAS_TECHNIQUES = 1 << 3;
+	static final int HAS_LYRICS = 1 << 4;
+	static final int HAS_PRECEDING_GRACE_NOTES = 1 << 5;
+	static final int HAS_SUCCEEDING_GRACE_NOTES = 1 << 6;
+
+	static final int PLAIN_TECHNIQUE = 0;
+	static final int TEXTUAL_TECHNIQUE = 1;
+	static final int NUMERIC_TECHNIQUE = 2;
+	static final int COMPLEX_TECHNIQUE = 3;
+
+	static final int NO_VALUE = 0;
+
+	private BinaryFormat() {
+		// Not meant to be instantiated.
+	}
+}
@@ -0,0 +1,204 @@
+/*
+ * Distributed under the MIT license (see LICENSE.txt or https://opensource.org/licenses/MIT).
+ */
+package org.wmn4j.io.binary;
+
+import org.wmn4j.io.ParsingFailureException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Buffered input for the binary score format. Reads the values written by {@link BinaryOutput}.
+ * <p>
+ * This class is not thread-safe.
+ */
+final class BinaryInput {
+
+	private static final int BUFFER_SIZE = 16 * 1024;
+	// The last byte of a varint can only contain the four highest bits of the value, of which the highest
+	// is always zero for a non-negative int.
+	private static final int MAX_VARINT_SHIFT = 28;
+	private static final int MAX_LAST_VARINT_BYTE = 0x07;
+	private static final int MAX_LAST_UNSIGNED_VARINT_BYTE = 0x0F;
+	private static final String TRUNCATED_MESSAGE = "Binary score ends unexpectedly";
+
+	private final InputStream inputStream;
+	private final byte[] buffer;
+	private int position;
+	private int limit;
+
+	BinaryInput(InputStream inputStream) {
+		this.inputStream = inputStream;
+		this.buffer = new byte[BUFFER_SIZE];
+	}
+
+	BinaryInput(byte[] contents) {
+		this.inputStream = null;
+		this.buffer = contents;
+		this.limit = contents.length;
+	}
+
+	/**
+	 * Returns the exception to throw when the contents of a binary score are not valid.
+	 *
+	 * @param problem description of the invalid contents
+	 * @return the exception to throw for the invalid contents
+	 */
+	static ParsingFailureException invalidContents(String problem) {
+		return new ParsingFailureException(problem + " in binary score");
+	}
+
+	int readByte() throws IOException, ParsingFailureException {
+		if (position == limit) {
+			fillBuffer();
+		}
+
+		return buffer[position++] & 0xFF;
+	}
+
+	int readVarInt() throws IOException, ParsingFailureException {
+		return readVarInt(MAX_LAST_VARINT_BYTE);
+	}
+
+	int readSignedVarInt() throws IOException, ParsingFailureException {
+		final int value = readVarInt(MAX_LAST_UNSIGNED_VARINT_BYTE);
+		return (value >>> 1) ^ -(value & 1);
+	}
+
+	/**
+	 * Reads the number of the values that follow in the input. Each of the values takes at least one byte, so when
+	 * reading from a byte array the count cannot exceed the number of the remaining bytes.
+	 *
+	 * @return the number of the values that follow
+	 * @throws IOException             if reading fails
+	 * @throws ParsingFailureException if the input ends or the count exceeds the remaining input
+	 */
+	int readCount() throws IOException, ParsingFailureException {
+		final int count = readVarInt();
+		if (inputStream == null && count > limit - position) {
+			throw invalidContents("Invalid count " + count);
+		}
+
+		return count;
+	}
+
+	boolean readBoolean() throws IOException, ParsingFailureException {
+		return readByte() != 0;
+	}
+
+	long readLong() throws IOException, ParsingFailureException {
+		long value = 0;
+		for (int i = 0; i < Long.BYTES; ++i) {
+			value |= (long) readByte() << (8 * i);
+		}
+
+		return value;
+	}
+
+	String readString() throws IOException, ParsingFailureException {
+		final int length = readVarInt();
+		if (length <= limit - position) {
+			final String value = new String(buffer, position, length, StandardCharsets.UTF_8);
+			position += length;
+			return value;
+		}
+
+		if (inputStream == null) {
+			throw new ParsingFailureException(TRUNCATED_MESSAGE);
+		}
+
+		final byte[] bytes = new byte[length];
+		readBytes(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	void readBytes(byte[] bytes) throws IOException, ParsingFailureException {
+		int offset = 0;
+		while (offset < bytes.length) {
+			if (position == limit) {
+				fillBuffer();
+			}
+
+			final int count = Math.min(bytes.length - offset, limit - position);
+			System.arraycopy(buffer, position, bytes, offset, count);
+			position += count;
+			offset += count;
+		}
+	}
+
+	/**
+	 * Reads an enum constant written as its ordinal.
+	 *
+	 * @param values the constants of the enum
+	 * @param <T>    the type of the enum
+	 * @return the enum constant with the read ordinal
+	 * @throws IOException             if reading fails
+	 * @throws ParsingFailureException if the input ends or the ordinal is not valid
+	 */
+	<T extends Enum<T>> T readEnum(T[] values) throws IOException, ParsingFailureException {
+		final int ordinal = readVarInt();
+		if (ordinal >= values.length) {
+			throw invalidContents("Invalid value " + ordinal + " for "
+					+ values.getClass().getComponentType().getSimpleName());
+		}
+
+		return values[ordinal];
+	}
+
+	/**
+	 * Reads a dictionary index. Returns the value at the index, or null if the index is the next free index,
+	 * in which case the caller must read the value and add it to the dictionary.
+	 *
+	 * @param dictionary the values read so far in the order of their indices
+	 * @param <T>        the type of the values
+	 * @return the value at the read index or null if the value follows the index
+	 * @throws IOException             if reading fails
+	 * @throws ParsingFailureException if the input ends or the index is not valid
+	 */
+	<T> T readIndex(List<T> dictionary) throws IOException, ParsingFailureException {
+		final int index = readVarInt();
+		if (index < dictionary.size()) {
+			return dictionary.get(index);
+		}
+
+		if (index > dictionary.size()) {
+			throw invalidContents("Invalid dictionary index " + index);
+		}
+
+		return null;
+	}
+
+	private int readVarInt(int maxLastByte) throws IOException, ParsingFailureException {
+		int value = 0;
+		for (int shift = 0; shift < Integer.SIZE; shift += 7) {
+			final int current = readByte();
+			if (shift == MAX_VARINT_SHIFT && current > maxLastByte) {
+				break;
+			}
+
+			value |= (current & 0x7F) << shift;
+			if ((current & 0x80) == 0) {
+				return value;
+			}
+		}
+
+		throw invalidContents("Malformed integer");
+	}
+
+	private void fillBuffer() throws IOException, ParsingFailureException {
+		if (inputStream == null) {
+			throw new ParsingFailureException(TRUNCATED_MESSAGE);
+		}
+
+		final int count = inputStream.read(buffer);
+		if (count <= 0) {
+			throw new ParsingFailureException(TRUNCATED_MESSAGE);
+		}
+
+		position = 0;
+		limit = count;
+	}
+}
@@ -0,0 +1,162 @@
+/*
+ * Distributed under the MIT license (see LICENSE.txt or https://opensource.org/licenses/MIT).
+ */
+package org.wmn4j.io.binary;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Buffered output for the binary score format.
+ * <p>
+ * Integers are written as unsigned varints with seven bits per byte, least significant group first.
+ * Repeated values are written using dictionaries: the first occurrence of a value is written as the next
+ * free index followed by the value, and later occurrences only as the index of the value.
+ * <p>
+ * This class is not thread-safe.
+ */
+final class BinaryOutput {
+
+	private static final int BUFFER_SIZE = 16 * 1024;
+	private static final int MAX_VARINT_LENGTH = 5;
+
+	private final OutputStream outputStream;
+	private final byte[] buffer = new byte[BUFFER_SIZE];
+	private int position;
+
+	/**
+	 * Maps the values written into a dictionary to their indices. The keys are chosen by the caller, so that
+	 * values that are equal but are written differently, such as a dotted duration and its equivalent sum,
+	 * get separate entries.
+	 */
+	static final class Dictionary {
+		private final Map<Object, Integer> indices = new HashMap<>();
+
+		/**
+		 * Returns the index of the value with the given key. If the key is not in this dictionary, it is added
+		 * with the next free index.
+		 *
+		 * @param key the key of the value
+		 * @return the index of the value with the given key
+		 */
+		int indexOf(Object key) {
+			final int size = indices.size();
+			final Integer index = indices.putIfAbsent(key, size);
+			return index == null ? size : index;
+		}
+
+		/**
+		 * Returns the number of values in this dictionary.
+		 *
+		 * @return the number of values in this dictionary
+		 */
+		int size() {
+			return indices.size();
+		}
+	}
+
+	BinaryOutput(OutputStream outputStream) {
+		this.outputStream = outputStream;
+	}
+
+	void writeByte(int value) throws IOException {
+		if (position == buffer.length) {
+			flushBuffer();
+		}
+
+		buffer[position++] = (byte) value;
+	}
+
+	void writeVarInt(int value) throws IOException {
+		if (value < 0) {
+			throw new IllegalArgumentException("Cannot write negative value " + value + " as unsigned varint");
+		}
+
+		writeUnsignedVarInt(value);
+	}
+
+	/**
+	 * Writes the value using zigzag encoding, so that values of small magnitude are short regardless of their sign.
+	 * Every int can be written: the zigzag encoded value is written as an unsigned 32-bit value.
+	 *
+	 * @param value the value to write
+	 * @throws IOException if writing fails
+	 */
+	void writeSignedVarInt(int value) throws IOException {
+		writeUnsignedVarInt((value << 1) ^ (value >> 31));
+	}
+
+	private void writeUnsignedVarInt(int value) throws IOException {
+		if (buffer.length - position < MAX_VARINT_LENGTH) {
+			flushBuffer();
+		}
+
+		int remaining = value;
+		while ((remaining & ~0x7F) != 0) {
+			buffer[position++] = (byte) ((remaining & 0x7F) | 0x80);
+			remaining >>>= 7;
+		}
+
+		buffer[position++] = (byte) remaining;
+	}
+
+	void writeBoolean(boolean value) throws IOException {
+		writeByte(value ? 1 : 0);
+	}
+
+	void writeLong(long value) throws IOException {
+		for (int i = 0; i < Long.BYTES; ++i) {
+			writeByte((int) (value >>> (8 * i)));
+		}
+	}
+
+	void writeString(String value) throws IOException {
+		final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		writeVarInt(bytes.length);
+		writeBytes(bytes);
+	}
+
+	void writeBytes(byte[] bytes) throws IOException {
+		if (bytes.length > buffer.length - position) {
+			flushBuffer();
+			if (bytes.length > buffer.length) {
+				outputStream.write(bytes);
+				return;
+			}
+		}
+
+		System.arraycopy(bytes, 0, buffer, position, bytes.length);
+		position += bytes.length;
+	}
+
+	/**
+	 * Writes the index of the value with the given key in the given dictionary. Returns true if the value was
+	 * not in the dictionary, in which case the caller must write the value itself after the index.
+	 *
+	 * @param dictionary the dictionary in which the value is looked up
+	 * @param key        the key of the value
+	 * @return true if the value needs to be written after the index
+	 * @throws IOException if writing fails
+	 */
+	boolean writeIndex(Dictionary dictionary, Object key) throws IOException {
+		final int size = dictionary.size();
+		final int index = dictionary.indexOf(key);
+		writeVarInt(index);
+		return index == size;
+	}
+
+	void flush() throws IOException {
+		flushBuffer();
+		outputStream.flush();
+	}
+
+	private void flushBuffer() throws IOException {
+		if (position > 0) {
+			outputStream.write(buffer, 0, position);
+			position = 0;
+		}
+	}
+}
@@ -0,0 +1,153 @@
+/*
+ * Distributed under the MIT license (see LICENSE.txt or https://opensource.org/licenses/MIT).
+ */
+package org.wmn4j.io.binary;
+
+import org.wmn4j.io.ParsingFailureException;
+import org.wmn4j.notation.Part;
+import org.wmn4j.notation.PartBuilder;
+import org.wmn4j.notation.Score;
+import org.wmn4j.notation.ScoreBuilder;
+import org.wmn4j.notation.Staff;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Objects;
+
+final class BinaryReader implements BinaryScoreReader {
+
+	private final Path path;
+	private final byte[] contents;
+	private final InputStream source;
+	private InputStream inputStream;
+	private boolean isClosed;
+
+	private ScoreBuilder scoreBuilder;
+	private Score score;
+
+	private BinaryInput input;
+	private BinaryDecoder decoder;
+
+	BinaryReader(Path path) {
+		this.path = Objects.requireNonNull(path);
+		this.contents = null;
+		this.source = null;
+	}
+
+	BinaryReader(InputStream inputStream) {
+		this.path = null;
+		this.contents = null;
+		this.source = Objects.requireNonNull(inputStream);
+	}
+
+	BinaryReader(byte[] contents) {
+		this.path = null;
+		this.contents = Objects.requireNonNull(contents);
+		this.source = null;
+	}
+
+	@Override
+	public Score readScore() throws IOException, ParsingFailureException {
+		if (score == null) {
+			final ScoreBuilder builder = readScoreBuilder();
+			try {
+				score = builder.build();
+			} catch (RuntimeException e) {
+				throw BinaryDecoder.malformedScore(e);
+			}
+		}
+
+		return score;
+	}
+
+	@Override
+	public ScoreBuilder readScoreBuilder() throws IOException, ParsingFailureException {
+		if (scoreBuilder == null) {
+			if (isClosed) {
+				throw new IllegalStateException("Cannot read a score using a closed reader");
+			}
+
+			try {
+				input = openInput();
+				decoder = new BinaryDecoder(input);
+				scoreBuilder = readScoreContents();
+			} catch (RuntimeException e) {
+				throw BinaryDecoder.malformedScore(e);
+			} finally {
+				close();
+			}
+		}
+
+		return scoreBuilder;
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (!isClosed) {
+			isClosed = true;
+			if (inputStream != null) {
+				inputStream.close();
+			}
+		}
+	}
+
+	private BinaryInput openInput() throws IOException {
+		if (contents != null) {
+			return new BinaryInput(contents);
+		}
+
+		inputStream = path != null ? Files.newInputStream(path) : source;
+		return new BinaryInput(inputStream);
+	}
+
+	private ScoreBuilder readScoreContents() throws IOException, ParsingFailureException {
+		final byte[] magic = new byte[BinaryFormat.MAGIC.length];
+		input.readBytes(magic);
+		if (!Arrays.equals(magic, BinaryFormat.MAGIC)) {
+			throw new ParsingFailureException("Input is not a binary score");
+		}
+
+		final int version = input.readVarInt();
+		if (version != BinaryFormat.VERSION) {
+			throw new ParsingFailureException("Unsupported binary score version " + version);
+		}
+
+		final ScoreBuilder builder = new ScoreBuilder();
+		final int attributeCount = input.readVarInt();
+		for (int i = 0; i < attributeCount; ++i) {
+			builder.setAttribute(input.readEnum(Score.Attribute.values()), decoder.readString());
+		}
+
+		final int partCount = input.readVarInt();
+		for (int i = 0; i < partCount; ++i) {
+			builder.addPart(readPart());
+		}
+
+		decoder.readConnections();
+		return builder;
+	}
+
+	private PartBuilder readPart() throws IOException, ParsingFailureException {
+		final PartBuilder builder = new PartBuilder();
+		final int attributeCount = input.readVarInt();
+		for (int i = 0; i < attributeCount; ++i) {
+			builder.setAttribute(input.readEnum(Part.Attribute.values()), decoder.readString());
+		}
+
+		final int staffCount = input.readVarInt();
+		for (int i = 0; i < staffCount; ++i) {
+			final int staffNumber = input.readVarInt();
+			builder.setStaffType(input.readEnum(Staff.Type.values()), staffNumber);
+
+			final int measureCount = input.readVarInt();
+			for (int m = 0; m < measureCount; ++m) {
+				builder.addToStaff(staffNumber, decoder.readMeasure());
+			}
+		}
+
+		return builder;
+	}
+}
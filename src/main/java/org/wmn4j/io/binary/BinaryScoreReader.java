@@ -0,0 +1,53 @@
+/*
+ * Distributed under the MIT license (see LICENSE.txt or https://opensource.org/licenses/MIT).
+ */
+package org.wmn4j.io.binary;
+
+import org.wmn4j.io.ScoreReader;
+
+import java.io.InputStream;
+import java.nio.file.Path;
+
+/**
+ * Represents a reader for scores written in the binary score format of wmn4j using a {@link BinaryScoreWriter}.
+ * <p>
+ * The input is read completely when the score is read and the reader is closed after reading.
+ * A {@link org.wmn4j.io.ParsingFailureException} is thrown if the input is not a binary score or if it has
+ * been written in an unsupported version of the format.
+ * <p>
+ * Implementations of this interface are not guaranteed to be thread-safe.
+ */
+public interface BinaryScoreReader extends ScoreReader {
+
+	/**
+	 * Returns a reader for the binary score at the given path.
+	 *
+	 * @param path the path of the file for which this reader is created
+	 * @return a reader for the binary score at the given path
+	 */
+	static BinaryScoreReader readerFor(Path path) {
+		return new BinaryReader(path);
+	}
+
+	/**
+	 * Returns a reader for the binary score read from the given input stream.
+	 * <p>
+	 * The given stream is closed when the reader is closed.
+	 *
+	 * @param inputStream the input stream from which the binary score is read
+	 * @return a reader for the binary score read from the given input stream
+	 */
+	static BinaryScoreReader readerFor(InputStream inputStream) {
+		return new BinaryReader(inputStream);
+	}
+
+	/**
+	 * Returns a reader for the binary score with the given contents.
+	 *
+	 * @param contents the bytes of the binary score
+	 * @return a reader for the binary score with the given contents
+	 */
+	static BinaryScoreReader readerFor(byte[] contents) {
+		return new BinaryReader(contents);
+	}
+}
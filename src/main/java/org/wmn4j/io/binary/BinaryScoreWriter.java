@@ -0,0 +1,71 @@
+/*
+ * Distributed under the MIT license (see LICENSE.txt or https://opensource.org/licenses/MIT).
+ */
+package org.wmn4j.io.binary;
+
+import org.wmn4j.io.ScoreWriter;
+import org.wmn4j.notation.Score;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Path;
+
+/**
+ * Represents a writer for the binary score format of wmn4j.
+ * <p>
+ * The binary format stores the complete contents of a {@link Score}, including the notations that connect
+ * notes, such as ties and slurs, lyrics, directions, and chord symbols. Repeated values, such as pitches,
+ * durations, and texts, are stored only once, so that binary scores are much smaller than uncompressed MusicXML
+ * and are much faster to read. Binary scores can be read using a {@link BinaryScoreReader}.
+ * <p>
+ * The binary format is meant for storing scores for later use with wmn4j, for example, in caches.
+ * It is not an interchange format: binary scores can only be read with the version of wmn4j that wrote them or
+ * with a later version that supports the same format version.
+ * <p>
+ * Implementations of this interface are not guaranteed to be thread-safe.
+ */
+public interface BinaryScoreWriter extends ScoreWriter {
+
+	/**
+	 * Returns an instance of a writer that writes the given {@link Score} to the given path.
+	 *
+	 * @param score the score for which the writer is created
+	 * @param path  the path to which the binary score is written
+	 * @return an instance of a writer for the given {@link Score}
+	 */
+	static BinaryScoreWriter writerFor(Score score, Path path) {
+		return new BinaryWriter(score, path);
+	}
+
+	/**
+	 * Returns an instance of a writer that writes the given {@link Score} to the given output stream.
+	 * <p>
+	 * The given stream is flushed but not closed when the writer is closed, so that the caller can
+	 * continue to use it.
+	 *
+	 * @param score        the score for which the writer is created
+	 * @param outputStream the output stream to which the binary score is written
+	 * @return an instance of a writer for the given {@link Score}
+	 */
+	static BinaryScoreWriter writerFor(Score score, OutputStream outputStream) {
+		return new BinaryWriter(score, outputStream);
+	}
+
+	/**
+	 * Returns the given {@link Score} in the binary format as bytes.
+	 * The returned bytes can be read using {@link BinaryScoreReader#readerFor(byte[])}.
+	 *
+	 * @param score the score that is returned in the binary format
+	 * @return the bytes of the given score in the binary format
+	 * @throws IOException in case the score cannot be written
+	 */
+	static byte[] toBytes(Score score) throws IOException {
+		final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		try (BinaryScoreWriter writer = writerFor(score, outputStream)) {
+			writer.write();
+		}
+
+		return outputStream.toByteArray();
+	}
+}
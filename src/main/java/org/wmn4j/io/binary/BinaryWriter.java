@@ -0,0 +1,93 @@
+/*
+ * Distributed under the MIT license (see LICENSE.txt or https://opensource.org/licenses/MIT).
+ */
+package org.wmn4j.io.binary;
+
+import org.wmn4j.notation.Measure;
+import org.wmn4j.notation.Part;
+import org.wmn4j.notation.Score;
+import org.wmn4j.notation.Staff;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Objects;
+
+final class BinaryWriter implements BinaryScoreWriter {
+
+	private final Score score;
+	private final Path path;
+	private final OutputStream target;
+	private OutputStream outputStream;
+	private boolean isClosed;
+
+	private BinaryOutput output;
+	private BinaryEncoder encoder;
+
+	BinaryWriter(Score score, Path path) {
+		this.score = Objects.requireNonNull(score);
+		this.path = Objects.requireNonNull(path);
+		this.target = null;
+	}
+
+	BinaryWriter(Score score, OutputStream outputStream) {
+		this.score = Objects.requireNonNull(score);
+		this.path = null;
+		this.target = Objects.requireNonNull(outputStream);
+	}
+
+	@Override
+	public void write() throws IOException {
+		try {
+			outputStream = path != null ? new BufferedOutputStream(Files.newOutputStream(path)) : target;
+
+			output = new BinaryOutput(outputStream);
+			encoder = new BinaryEncoder(output);
+			output.writeBytes(BinaryFormat.MAGIC);
+			output.writeVarInt(BinaryFormat.VERSION);
+
+			encoder.writeAttributes(Score.Attribute.values(), score::getAttribute);
+			output.writeVarInt(score.getPartCount());
+			for (Part part : score) {
+				writePart(part);
+			}
+
+			encoder.writeConnections();
+			output.flush();
+		} finally {
+			close();
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (!isClosed) {
+			isClosed = true;
+			// The stream given by the user is flushed but not closed, so that the user can continue to use it.
+			if (path != null && outputStream != null) {
+				outputStream.close();
+			} else if (outputStream != null) {
+				outputStream.flush();
+			}
+		}
+	}
+
+	private void writePart(Part part) throws IOException {
+		encoder.writeAttributes(Part.Attribute.values(), part::getAttribute);
+
+		final List<Integer> staffNumbers = part.getStaffNumbers();
+		output.writeVarInt(staffNumbers.size());
+		for (Integer staffNumber : staffNumbers) {
+			final Staff staff = part.getStaff(staffNumber);
+			output.writeVarInt(staffNumber);
+			output.writeVarInt(staff.getType().ordinal());
+			output.writeVarInt(staff.getMeasureCount());
+			for (Measure measure : staff) {
+				encoder.writeMeasure(measure);
+			}
+		}
+	}
+}
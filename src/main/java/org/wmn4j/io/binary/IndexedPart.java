@@ -0,0 +1,321 @@
+/*
+ * Distributed under the MIT license (see LICENSE.txt or https://opensource.org/licenses/MIT).
+ */
+package org.wmn4j.io.binary;
+
+import org.wmn4j.io.ParsingFailureException;
+import org.wmn4j.notation.Measure;
+import org.wmn4j.notation.MeasureBuilder;
+import org.wmn4j.notation.Part;
+import org.wmn4j.notation.Staff;
+import org.wmn4j.notation.access.PartIterator;
+
+import java.io.IOException;
+import java.lang.ref.SoftReference;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+
+/**
+ * Represents a part whose measures are read from an indexed binary file when they are accessed.
+ * <p>
+ * This class is thread-safe.
+ */
+final class IndexedPart implements Part {
+
+	private final SegmentCache cache;
+	private final Map<Part.Attribute, String> attributes;
+	private final boolean isMultiStaff;
+	private final int[] staffNumbers;
+	private final Staff.Type[] staffTypes;
+	private final boolean[] hasPickupMeasure;
+	private final int[] fullMeasureCounts;
+
+	// The number of the last measure of each segment and the offsets of the segments in the file. The offsets
+	// have one more element than the segments, so that the end of the last segment is the last offset.
+	private final int[] segmentEnds;
+	private final int[] segmentOffsets;
+
+	/*
+	 * Holds the measures of the most recently used segments of the parts of one file.
+	 */
+	static final class SegmentCache {
+		private final ByteBuffer buffer;
+		private final Map<Segment, SoftReference<Measure[][]>> segments;
+
+		SegmentCache(ByteBuffer buffer, int cachedSegmentCount) {
+			this.buffer = buffer;
+			this.segments = new LinkedHashMap<>(16, 0.75f, true) {
+				@Override
+				protected boolean removeEldestEntry(Map.Entry<Segment, SoftReference<Measure[][]>> eldest) {
+					return size() > cachedSegmentCount;
+				}
+			};
+		}
+
+		Measure[][] get(IndexedPart part, int segmentIndex) {
+			final Segment key = new Segment(part, segmentIndex);
+			synchronized (this) {
+				final SoftReference<Measure[][]> reference = segments.get(key);
+				final Measure[][] measures = reference != null ? reference.get() : null;
+				if (measures != null) {
+					return measures;
+				}
+			}
+
+			// The segment is decoded without holding the lock, so that other segments can be read meanwhile.
+			final Measure[][] measures = part.decodeSegment(buffer, segmentIndex);
+			synchronized (this) {
+				segments.put(key, new SoftReference<>(measures));
+			}
+
+			return measures;
+		}
+	}
+
+	private record Segment(IndexedPart part, int index) {
+	}
+
+	IndexedPart(SegmentCache cache, Map<Part.Attribute, String> attributes, boolean isMultiStaff,
+			int[] staffNumbers, Staff.Type[] staffTypes, boolean[] hasPickupMeasure, int[] fullMeasureCounts,
+			int[] segmentEnds, int[] segmentOffsets) {
+		this.cache = cache;
+		this.attributes = Collections.unmodifiableMap(attributes);
+		this.isMultiStaff = isMultiStaff;
+		this.staffNumbers = staffNumbers;
+		this.staffTypes = staffTypes;
+		this.hasPickupMeasure = hasPickupMeasure;
+		this.fullMeasureCounts = fullMeasureCounts;
+		this.segmentEnds = segmentEnds;
+		this.segmentOffsets = segmentOffsets;
+	}
+
+	static boolean containsMeasure(boolean hasPickupMeasure, int fullMeasureCount, int measureNumber) {
+		return (measureNumber == 0 && hasPickupMeasure) || (measureNumber >= 1 && measureNumber <= fullMeasureCount);
+	}
+
+	@Override
+	public Optional<String> getName() {
+		return getAttribute(Part.Attribute.NAME);
+	}
+
+	@Override
+	public boolean isMultiStaff() {
+		return isMultiStaff;
+	}
+
+	@Override
+	public int getStaffCount() {
+		return staffNumbers.length;
+	}
+
+	@Override
+	public List<Integer> getStaffNumbers() {
+		final List<Integer> numbers = new ArrayList<>(staffNumbers.length);
+		for (int staffNumber : staffNumbers) {
+			numbers.add(staffNumber);
+		}
+
+		return numbers;
+	}
+
+	@Override
+	public Optional<String> getAttribute(Attribute attribute) {
+		return Optional.ofNullable(attributes.get(attribute));
+	}
+
+	/**
+	 * Returns the staff with the given number. All the measures of the staff are read.
+	 *
+	 * @param staffNumber the number of the staff
+	 * @return the staff with the given number
+	 */
+	@Override
+	public Staff getStaff(int staffNumber) {
+		final int staffIndex = getStaffIndex(staffNumber);
+		final List<Measure> measures = new ArrayList<>(getMeasureCount());
+		for (int measureNumber = hasPickupMeasure[staffIndex] ? 0 : 1;
+				measureNumber <= fullMeasureCounts[staffIndex]; ++measureNumber) {
+			measures.add(getMeasure(staffIndex, measureNumber, staffNumber));
+		}
+
+		return Staff.of(staffTypes[staffIndex], measures);
+	}
+
+	@Override
+	public int getMeasureCount() {
+		return getFullMeasureCount() + (hasPickupMeasure[0] ? 1 : 0);
+	}
+
+	@Override
+	public int getFullMeasureCount() {
+		return fullMeasureCounts[0];
+	}
+
+	@Override
+	public Measure getMeasure(int staffNumber, int measureNumber) throws NoSuchElementException {
+		return getMeasure(getStaffIndex(staffNumber), measureNumber, staffNumber);
+	}
+
+	private Measure getMeasure(int staffIndex, int measureNumber, int staffNumber) {
+		if (!containsMeasure(hasPickupMeasure[staffIndex], fullMeasureCounts[staffIndex], measureNumber)) {
+			throw new NoSuchElementException("No measure with number " + measureNumber + " in staff " + staffNumber);
+		}
+
+		final int segmentIndex = getSegmentIndex(measureNumber);
+		final int firstMeasure = segmentIndex == 0 ? getFirstMeasureNumber() : segmentEnds[segmentIndex - 1] + 1;
+		final Measure[][] measures = cache.get(this, segmentIndex);
+		return measures[staffIndex][measureNumber - Math.max(firstMeasure, getFirstMeasureNumber(staffIndex))];
+	}
+
+	private int getStaffIndex(int staffNumber) {
+		for (int i = 0; i < staffNumbers.length; ++i) {
+			if (staffNumbers[i] == staffNumber) {
+				return i;
+			}
+		}
+
+		throw new NoSuchElementException("No staff with number " + staffNumber + " in part");
+	}
+
+	private int getSegmentIndex(int measureNumber) {
+		final int index = Arrays.binarySearch(segmentEnds, measureNumber);
+		return index >= 0 ? index : -index - 1;
+	}
+
+	private int getFirstMeasureNumber() {
+		for (boolean hasPickup : hasPickupMeasure) {
+			if (hasPickup) {
+				return 0;
+			}
+		}
+
+		return 1;
+	}
+
+	private int getFirstMeasureNumber(int staffIndex) {
+		return hasPickupMeasure[staffIndex] ? 0 : 1;
+	}
+
+	private Measure[][] decodeSegment(ByteBuffer buffer, int segmentIndex) {
+		final int offset = segmentOffsets[segmentIndex];
+		final byte[] contents = new byte[segmentOffsets[segmentIndex + 1] - offset];
+		buffer.get(offset, contents);
+
+		final int firstMeasure = segmentIndex == 0 ? getFirstMeasureNumber() : segmentEnds[segmentIndex - 1] + 1;
+		final int lastMeasure = segmentEnds[segmentIndex];
+		final BinaryDecoder decoder = new BinaryDecoder(new BinaryInput(contents));
+		final List<List<MeasureBuilder>> builders = new ArrayList<>(staffNumbers.length);
+
+		try {
+			for (int staffIndex = 0; staffIndex < staffNumbers.length; ++staffIndex) {
+				final List<MeasureBuilder> staffBuilders = new ArrayList<>();
+				for (int measureNumber = firstMeasure; measureNumber <= lastMeasure; ++measureNumber) {
+					if (containsMeasure(hasPickupMeasure[staffIndex], fullMeasureCounts[staffIndex], measureNumber)) {
+						staffBuilders.add(decoder.readMeasure());
+					}
+				}
+
+				builders.add(staffBuilders);
+			}
+
+			decoder.readConnections();
+		} catch (IOException | ParsingFailureException | RuntimeException e) {
+			throw new IllegalStateException("Cannot read measures " + firstMeasure + "-" + lastMeasure
+					+ " from indexed binary score", e);
+		}
+
+		final Measure[][] measures = new Measure[staffNumbers.length][];
+		for (int staffIndex = 0; staffIndex < staffNumbers.length; ++staffIndex) {
+			final List<MeasureBuilder> staffBuilders = builders.get(staffIndex);
+			measures[staffIndex] = new Measure[staffBuilders.size()];
+			for (int i = 0; i < staffBuilders.size(); ++i) {
+				measures[staffIndex][i] = staffBuilders.get(i).build(false, false);
+			}
+		}
+
+		return measures;
+	}
+
+	@Override
+	public PartIterator getPartIterator() {
+		return new Iter(hasPickupMeasure() ? 0 : 1, getFullMeasureCount());
+	}
+
+	@Override
+	public PartIterator getPartIterator(int firstMeasure, int lastMeasure) {
+		return new Iter(firstMeasure, lastMeasure);
+	}
+
+	@Override
+	public String toString() {
+		final StringBuilder builder = new StringBuilder();
+		builder.append("Part: ");
+		for (Attribute attr : this.attributes.keySet()) {
+			builder.append(attr).append(": ").append(this.attributes.get(attr));
+		}
+
+		for (Measure m : this) {
+			builder.append("\n").append(m.toString());
+		}
+
+		return builder.toString();
+	}
+
+	/*
+	 * Iterates through the measures in the same order as the iterators of the other parts: the measures with
+	 * the same number in all staves before the measures with the next number.
+	 */
+	private final class Iter implements PartIterator {
+		private final int lastMeasure;
+		private int staffIndex;
+		private int nextMeasureNumber;
+		private int prevStaffNumber;
+		private int prevMeasureNumber;
+
+		private Iter(int firstMeasure, int lastMeasure) {
+			this.nextMeasureNumber = firstMeasure;
+			this.lastMeasure = lastMeasure;
+		}
+
+		@Override
+		public int getStaffNumberOfPrevious() {
+			return prevStaffNumber;
+		}
+
+		@Override
+		public int getMeasureNumberOfPrevious() {
+			return prevMeasureNumber;
+		}
+
+		@Override
+		public boolean hasNext() {
+			return nextMeasureNumber <= lastMeasure;
+		}
+
+		@Override
+		public Measure next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+
+			prevStaffNumber = staffNumbers[staffIndex];
+			prevMeasureNumber = nextMeasureNumber;
+			final Measure measure = getMeasure(staffIndex, prevMeasureNumber, prevStaffNumber);
+
+			++staffIndex;
+			if (staffIndex == staffNumbers.length) {
+				staffIndex = 0;
+				++nextMeasureNumber;
+			}
+
+			return measure;
+		}
+	}
+}
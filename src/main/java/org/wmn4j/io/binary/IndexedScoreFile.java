@@ -0,0 +1,363 @@
+/*
+ * Distributed under the MIT license (see LICENSE.txt or https://opensource.org/licenses/MIT).
+ */
+package org.wmn4j.io.binary;
+
+import org.wmn4j.io.ParsingFailureException;
+import org.wmn4j.notation.Chord;
+import org.wmn4j.notation.Durational;
+import org.wmn4j.notation.GraceNote;
+import org.wmn4j.notation.GraceNoteChord;
+import org.wmn4j.notation.Measure;
+import org.wmn4j.notation.Notation;
+import org.wmn4j.notation.Note;
+import org.wmn4j.notation.Ornament;
+import org.wmn4j.notation.Ornamental;
+import org.wmn4j.notation.Part;
+import org.wmn4j.notation.Score;
+import org.wmn4j.notation.Staff;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Contains methods for writing scores into indexed binary files and for opening them as scores whose measures
+ * are read only when they are accessed.
+ * <p>
+ * An indexed binary file contains the measures of each part in segments that can be read independently of
+ * each other, and an index of the parts and segments at the end of the file. A segment usually contains a
+ * single measure of all the staves of a part. Measures connected by notations, such as ties and slurs that
+ * continue over a bar line, are stored in the same segment, as connected notes can only be created together.
+ * <p>
+ * Opening an indexed binary file only reads the index and memory-maps the file. The measures of a segment are
+ * read when a measure in it is first accessed, for example using {@link Part#getMeasure(int, int)} or when
+ * iterating through the score. The measures of the most recently used segments are held in a bounded cache
+ * through soft references, so the garbage collector can reclaim them when memory is low. Measures that have
+ * been dropped from the cache are read again when they are accessed, so accessing the same measure at
+ * different times can return different measure objects. Calling {@link Part#getStaff(int)} reads all the
+ * measures of the part.
+ * <p>
+ * The opened scores can be used from multiple threads. The size of an indexed binary file is limited to two
+ * gigabytes.
+ */
+public final class IndexedScoreFile {
+
+	/**
+	 * The number of segments whose measures are cached by default.
+	 */
+	public static final int DEFAULT_CACHED_SEGMENT_COUNT = 256;
+
+	static final byte[] MAGIC = {'W', 'M', 'N', 'I'};
+	static final int VERSION = 1;
+	static final int HEADER_SIZE = MAGIC.length + Integer.BYTES;
+	static final int TRAILER_SIZE = Long.BYTES;
+
+	private IndexedScoreFile() {
+		// Not meant to be instantiated.
+	}
+
+	/**
+	 * Writes the given score into an indexed binary file at the given path.
+	 *
+	 * @param score the score to write
+	 * @param path  the path of the file
+	 * @throws IOException if writing the file fails
+	 */
+	public static void write(Score score, Path path) throws IOException {
+		try (OutputStream outputStream = new BufferedOutputStream(Files.newOutputStream(path))) {
+			final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+			header.put(MAGIC).putInt(VERSION);
+			outputStream.write(header.array());
+			long position = HEADER_SIZE;
+
+			final ByteArrayOutputStream indexBytes = new ByteArrayOutputStream();
+			final BinaryOutput index = new BinaryOutput(indexBytes);
+			final BinaryEncoder indexEncoder = new BinaryEncoder(index);
+			indexEncoder.writeAttributes(Score.Attribute.values(), score::getAttribute);
+			index.writeVarInt(score.getPartCount());
+
+			for (Part part : score) {
+				indexEncoder.writeAttributes(Part.Attribute.values(), part::getAttribute);
+				index.writeBoolean(part.isMultiStaff());
+
+				final List<Integer> staffNumbers = part.getStaffNumbers();
+				index.writeVarInt(staffNumbers.size());
+				int firstMeasure = Integer.MAX_VALUE;
+				int lastMeasure = 0;
+				for (Integer staffNumber : staffNumbers) {
+					final Staff staff = part.getStaff(staffNumber);
+					index.writeVarInt(staffNumber);
+					index.writeVarInt(staff.getType().ordinal());
+					index.writeBoolean(staff.hasPickupMeasure());
+					index.writeVarInt(staff.getFullMeasureCount());
+					firstMeasure = Math.min(firstMeasure, staff.hasPickupMeasure() ? 0 : 1);
+					lastMeasure = Math.max(lastMeasure, staff.getFullMeasureCount());
+				}
+
+				final List<Integer> segmentEnds = getSegmentEnds(part, firstMeasure, lastMeasure);
+				index.writeVarInt(segmentEnds.size());
+				int segmentStart = firstMeasure;
+				for (int segmentEnd : segmentEnds) {
+					final byte[] segment = encodeSegment(part, segmentStart, segmentEnd);
+					outputStream.write(segment);
+					position += segment.length;
+					index.writeVarInt(segmentEnd);
+					index.writeVarInt(segment.length);
+					segmentStart = segmentEnd + 1;
+				}
+			}
+
+			index.writeLong(position);
+			index.flush();
+			indexBytes.writeTo(outputStream);
+		}
+	}
+
+	/**
+	 * Returns a score whose measures are read from the indexed binary file at the given path when they are
+	 * accessed. The measures of at most {@link #DEFAULT_CACHED_SEGMENT_COUNT} segments are cached.
+	 *
+	 * @param path the path of the file
+	 * @return a score whose measures are read from the file at the given path when they are accessed
+	 * @throws IOException             if the file is not found or reading the file fails
+	 * @throws ParsingFailureException if the file is not an indexed binary file of a supported version
+	 */
+	public static Score open(Path path) throws IOException, ParsingFailureException {
+		return open(path, DEFAULT_CACHED_SEGMENT_COUNT);
+	}
+
+	/**
+	 * Returns a score whose measures are read from the indexed binary file at the given path when they are
+	 * accessed. The measures of at most the given number of segments are cached.
+	 *
+	 * @param path                the path of the file
+	 * @param cachedSegmentCount the maximum number of segments whose measures are cached
+	 * @return a score whose measures are read from the file at the given path when they are accessed
+	 * @throws IOException             if the file is not found or reading the file fails
+	 * @throws ParsingFailureException if the file is not an indexed binary file of a supported version
+	 */
+	public static Score open(Path path, int cachedSegmentCount) throws IOException, ParsingFailureException {
+		if (cachedSegmentCount < 0) {
+			throw new IllegalArgumentException("Cached segment count cannot be negative, was " + cachedSegmentCount);
+		}
+
+		final ByteBuffer buffer;
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			if (channel.size() < HEADER_SIZE + TRAILER_SIZE || channel.size() > Integer.MAX_VALUE) {
+				throw new ParsingFailureException("File is not an indexed binary score of a supported size");
+			}
+
+			// The mapping stays valid after the channel is closed.
+			buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()).order(ByteOrder.LITTLE_ENDIAN);
+		}
+
+		for (int i = 0; i < MAGIC.length; ++i) {
+			if (buffer.get(i) != MAGIC[i]) {
+				throw new ParsingFailureException("File is not an indexed binary score");
+			}
+		}
+
+		final int version = buffer.getInt(MAGIC.length);
+		if (version != VERSION) {
+			throw new ParsingFailureException("Unsupported indexed binary score version " + version);
+		}
+
+		final long indexOffset = buffer.getLong(buffer.capacity() - TRAILER_SIZE);
+		if (indexOffset < HEADER_SIZE || indexOffset > buffer.capacity() - TRAILER_SIZE) {
+			throw new ParsingFailureException("Invalid index offset " + indexOffset + " in indexed binary score");
+		}
+
+		final byte[] indexBytes = new byte[buffer.capacity() - TRAILER_SIZE - (int) indexOffset];
+		buffer.get((int) indexOffset, indexBytes);
+		try {
+			return readIndex(new BinaryInput(indexBytes), new IndexedPart.SegmentCache(buffer, cachedSegmentCount),
+					(int) indexOffset);
+		} catch (RuntimeException e) {
+			throw BinaryDecoder.malformedScore(e);
+		}
+	}
+
+	private static Score readIndex(BinaryInput index, IndexedPart.SegmentCache cache, int indexOffset)
+			throws IOException, ParsingFailureException {
+		final BinaryDecoder decoder = new BinaryDecoder(index);
+		final Map<Score.Attribute, String> scoreAttributes = new EnumMap<>(Score.Attribute.class);
+		final int scoreAttributeCount = index.readVarInt();
+		for (int i = 0; i < scoreAttributeCount; ++i) {
+			scoreAttributes.put(index.readEnum(Score.Attribute.values()), decoder.readString());
+		}
+
+		final int partCount = index.readCount();
+		if (partCount == 0) {
+			throw new ParsingFailureException("Indexed binary score has no parts");
+		}
+
+		final List<Part> parts = new ArrayList<>(partCount);
+		int segmentOffset = HEADER_SIZE;
+		for (int p = 0; p < partCount; ++p) {
+			final Map<Part.Attribute, String> partAttributes = new EnumMap<>(Part.Attribute.class);
+			final int partAttributeCount = index.readVarInt();
+			for (int i = 0; i < partAttributeCount; ++i) {
+				partAttributes.put(index.readEnum(Part.Attribute.values()), decoder.readString());
+			}
+
+			final boolean isMultiStaff = index.readBoolean();
+			final int staffCount = index.readCount();
+			if (staffCount == 0) {
+				throw new ParsingFailureException("Part in indexed binary score has no staves");
+			}
+
+			final int[] staffNumbers = new int[staffCount];
+			final Staff.Type[] staffTypes = new Staff.Type[staffCount];
+			final boolean[] hasPickupMeasure = new boolean[staffCount];
+			final int[] fullMeasureCounts = new int[staffCount];
+			for (int s = 0; s < staffCount; ++s) {
+				staffNumbers[s] = index.readVarInt();
+				staffTypes[s] = index.readEnum(Staff.Type.values());
+				hasPickupMeasure[s] = index.readBoolean();
+				fullMeasureCounts[s] = index.readVarInt();
+			}
+
+			final int segmentCount = index.readCount();
+			final int[] segmentEnds = new int[segmentCount];
+			final int[] segmentOffsets = new int[segmentCount + 1];
+			for (int i = 0; i < segmentCount; ++i) {
+				segmentEnds[i] = index.readVarInt();
+				if (i > 0 && segmentEnds[i] <= segmentEnds[i - 1]) {
+					throw new ParsingFailureException("Segments of indexed binary score are not in order");
+				}
+
+				segmentOffsets[i] = segmentOffset;
+				segmentOffset += index.readVarInt();
+				if (segmentOffset < 0 || segmentOffset > indexOffset) {
+					throw new ParsingFailureException("Segment of indexed binary score exceeds the file");
+				}
+			}
+
+			segmentOffsets[segmentCount] = segmentOffset;
+			parts.add(new IndexedPart(cache, partAttributes, isMultiStaff, staffNumbers, staffTypes,
+					hasPickupMeasure, fullMeasureCounts, segmentEnds, segmentOffsets));
+		}
+
+		if (segmentOffset != indexOffset) {
+			throw new ParsingFailureException("Segments of indexed binary score do not match the file");
+		}
+
+		return Score.of(scoreAttributes, parts);
+	}
+
+	/*
+	 * Returns the numbers of the last measures of the segments of the given part. A segment ends at a measure
+	 * unless a notation connects a note in the measure to a note in a later measure.
+	 */
+	private static List<Integer> getSegmentEnds(Part part, int firstMeasure, int lastMeasure) {
+		final Map<Notation.Connectable, Integer> measureNumbers = new IdentityHashMap<>();
+		for (Integer staffNumber : part.getStaffNumbers()) {
+			for (Measure measure : part.getStaff(staffNumber)) {
+				for (Durational durational : measure) {
+					if (durational instanceof Note note) {
+						addNote(note, measure.getNumber(), measureNumbers);
+					} else if (durational instanceof Chord chord) {
+						for (Note note : chord) {
+							addNote(note, measure.getNumber(), measureNumbers);
+						}
+					}
+				}
+			}
+		}
+
+		// Continues[m] is true if a notation continues from measure m to the next measure.
+		final boolean[] continues = new boolean[lastMeasure + 1];
+		for (Map.Entry<Notation.Connectable, Integer> note : measureNumbers.entrySet()) {
+			final Set<Notation> notations = note.getKey() instanceof Note
+					? ((Note) note.getKey()).getNotations()
+					: ((GraceNote) note.getKey()).getNotations();
+
+			for (Notation notation : notations) {
+				final Notation.Connection connection = note.getKey().getConnection(notation).orElseThrow();
+				final Optional<? extends Notation.Connectable> following = connection.getFollowingNote().isPresent()
+						? connection.getFollowingNote()
+						: connection.getFollowingGraceNote();
+
+				// Notes that are not in the part are copies of principal notes of grace notes in the same measure.
+				final int followingMeasure = following.map(measureNumbers::get).orElse(note.getValue());
+				final int start = Math.min(note.getValue(), followingMeasure);
+				final int end = Math.max(note.getValue(), followingMeasure);
+				Arrays.fill(continues, start, end, true);
+			}
+		}
+
+		final List<Integer> segmentEnds = new ArrayList<>();
+		for (int measureNumber = firstMeasure; measureNumber <= lastMeasure; ++measureNumber) {
+			if (!continues[measureNumber] || measureNumber == lastMeasure) {
+				segmentEnds.add(measureNumber);
+			}
+		}
+
+		return segmentEnds;
+	}
+
+	/*
+	 * Adds the given note and its grace notes to the given measure numbers if they have notations. Only the notes
+	 * with notations are needed for finding the segments, and they are never shared between measures.
+	 */
+	private static void addNote(Note note, int measureNumber, Map<Notation.Connectable, Integer> measureNumbers) {
+		if (note.hasNotations()) {
+			measureNumbers.put(note, measureNumber);
+		}
+
+		for (Ornament ornament : note.getOrnaments()) {
+			for (Ornamental ornamental : ornament.getOrnamentalNotes()) {
+				if (ornamental instanceof GraceNote graceNote) {
+					addGraceNote(graceNote, measureNumber, measureNumbers);
+				} else if (ornamental instanceof GraceNoteChord graceNoteChord) {
+					for (GraceNote graceNote : graceNoteChord) {
+						addGraceNote(graceNote, measureNumber, measureNumbers);
+					}
+				}
+			}
+		}
+	}
+
+	private static void addGraceNote(GraceNote graceNote, int measureNumber,
+			Map<Notation.Connectable, Integer> measureNumbers) {
+		if (graceNote.hasNotations()) {
+			measureNumbers.put(graceNote, measureNumber);
+		}
+	}
+
+	private static byte[] encodeSegment(Part part, int firstMeasure, int lastMeasure) throws IOException {
+		final ByteArrayOutputStream segmentBytes = new ByteArrayOutputStream();
+		final BinaryOutput output = new BinaryOutput(segmentBytes);
+		final BinaryEncoder encoder = new BinaryEncoder(output);
+
+		for (Integer staffNumber : part.getStaffNumbers()) {
+			final Staff staff = part.getStaff(staffNumber);
+			for (int measureNumber = firstMeasure; measureNumber <= lastMeasure; ++measureNumber) {
+				if (IndexedPart.containsMeasure(staff.hasPickupMeasure(), staff.getFullMeasureCount(),
+						measureNumber)) {
+					encoder.writeMeasure(staff.getMeasure(measureNumber));
+				}
+			}
+		}
+
+		encoder.writeConnections();
+		output.flush();
+		return segmentBytes.toByteArray();
+	}
+}
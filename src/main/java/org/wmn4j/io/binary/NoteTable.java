@@ -0,0 +1,481 @@
+/*
+ * Distributed under the MIT license (see LICENSE.txt or https://opensource.org/licenses/MIT).
+ */
+package org.wmn4j.io.binary;
+
+import org.wmn4j.io.ParsingFailureException;
+import org.wmn4j.notation.Chord;
+import org.wmn4j.notation.Duration;
+import org.wmn4j.notation.Durational;
+import org.wmn4j.notation.Note;
+import org.wmn4j.notation.Pitch;
+import org.wmn4j.notation.Score;
+import org.wmn4j.notation.access.Position;
+import org.wmn4j.notation.access.Positional;
+import org.wmn4j.notation.access.Selection;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Optional;
+
+/**
+ * Represents a table of the notes of a score stored in a columnar file.
+ * <p>
+ * Each row of the table describes one note with its part index, staff number, measure number, voice number,
+ * onset from the beginning of the measure, duration, pitch, and ties. The values of each property are stored
+ * in the file as a contiguous array of primitives, and the table reads them directly from a memory-mapped
+ * file, so scanning the notes of a large corpus does not create any objects. The notes of chords are stored
+ * as separate rows with the same onset. Rests and grace notes are not stored.
+ * <p>
+ * The rows are in the partwise order of the notes: part by part, measure by measure, and voice by voice.
+ * Onsets and durations are stored as reduced fractions of a whole note, so an onset of a quarter note after
+ * the beginning of the measure has the numerator 1 and the denominator 4. An onset at the beginning of the
+ * measure has the numerator 0 and the denominator 1.
+ * <p>
+ * The file consists of a header with the magic bytes, the format version, the number of rows, and the size
+ * of a row in bytes, followed by the columns. All values are little-endian. A file can hold at most as many
+ * rows as fit into two gigabytes.
+ * <p>
+ * This class is immutable.
+ */
+public final class NoteTable {
+
+	private static final byte[] MAGIC = {'W', 'M', 'N', 'T'};
+	private static final int VERSION = 1;
+	private static final int HEADER_SIZE = 16;
+
+	// The int columns are first so that they are aligned, followed by the short column and the byte columns.
+	private static final int PART_COLUMN = 0;
+	private static final int STAFF_COLUMN = 1;
+	private static final int MEASURE_COLUMN = 2;
+	private static final int VOICE_COLUMN = 3;
+	private static final int ONSET_NUMERATOR_COLUMN = 4;
+	private static final int ONSET_DENOMINATOR_COLUMN = 5;
+	private static final int DURATION_NUMERATOR_COLUMN = 6;
+	private static final int DURATION_DENOMINATOR_COLUMN = 7;
+	private static final int INT_COLUMN_COUNT = 8;
+
+	private static final int BASE_COLUMN = 0;
+	private static final int ACCIDENTAL_COLUMN = 1;
+	private static final int OCTAVE_COLUMN = 2;
+	private static final int FLAGS_COLUMN = 3;
+	private static final int BYTE_COLUMN_COUNT = 4;
+
+	private static final int ROW_SIZE = INT_COLUMN_COUNT * Integer.BYTES + Short.BYTES + BYTE_COLUMN_COUNT;
+	private static final int MAX_ROW_COUNT = (Integer.MAX_VALUE - HEADER_SIZE) / ROW_SIZE;
+
+	private static final int PITCHED = 1;
+	private static final int TIED_TO_FOLLOWING = 1 << 1;
+	private static final int TIED_FROM_PREVIOUS = 1 << 2;
+
+	private static final Pitch.Base[] BASES = Pitch.Base.values();
+	private static final Pitch.Accidental[] ACCIDENTALS = Pitch.Accidental.values();
+
+	private final ByteBuffer buffer;
+	private final int rowCount;
+	private final int pitchOffset;
+	private final int byteColumnsOffset;
+
+	private NoteTable(ByteBuffer buffer, int rowCount) {
+		this.buffer = buffer;
+		this.rowCount = rowCount;
+		this.pitchOffset = HEADER_SIZE + INT_COLUMN_COUNT * Integer.BYTES * rowCount;
+		this.byteColumnsOffset = pitchOffset + Short.BYTES * rowCount;
+	}
+
+	/**
+	 * Writes the notes of the given score into a note table file at the given path.
+	 *
+	 * @param score the score whose notes are written
+	 * @param path  the path of the file
+	 * @throws IOException if writing the file fails
+	 */
+	public static void write(Score score, Path path) throws IOException {
+		write(score.toSelection(), path);
+	}
+
+	/**
+	 * Writes the notes of the given selection into a note table file at the given path.
+	 *
+	 * @param selection the selection whose notes are written
+	 * @param path      the path of the file
+	 * @throws IOException if writing the file fails
+	 */
+	public static void write(Selection selection, Path path) throws IOException {
+		final Columns columns = new Columns();
+
+		Position voicePosition = null;
+		long onsetNumerator = 0;
+		long onsetDenominator = 1;
+
+		for (Positional positional : selection.enumeratePartwise()) {
+			final Position position = positional.position();
+			if (voicePosition == null || !isSameVoice(voicePosition, position)) {
+				voicePosition = position;
+				onsetNumerator = 0;
+				onsetDenominator = 1;
+			}
+
+			final Durational durational = positional.durational();
+			if (durational instanceof Note note) {
+				columns.add(position, onsetNumerator, onsetDenominator, note);
+			} else if (durational instanceof Chord chord) {
+				for (Note note : chord) {
+					columns.add(position, onsetNumerator, onsetDenominator, note);
+				}
+			}
+
+			final Duration duration = durational.getDuration();
+			onsetNumerator = onsetNumerator * duration.getDenominator() + duration.getNumerator() * onsetDenominator;
+			onsetDenominator = onsetDenominator * duration.getDenominator();
+			final long divisor = gcd(onsetNumerator, onsetDenominator);
+			onsetNumerator /= divisor;
+			onsetDenominator /= divisor;
+		}
+
+		columns.write(path);
+	}
+
+	private static boolean isSameVoice(Position first, Position second) {
+		return first.getPartIndex() == second.getPartIndex() && first.getStaffNumber() == second.getStaffNumber()
+				&& first.getMeasureNumber() == second.getMeasureNumber()
+				&& first.getVoiceNumber() == second.getVoiceNumber();
+	}
+
+	private static long gcd(long first, long second) {
+		long dividend = first;
+		long divisor = second;
+		while (divisor != 0) {
+			final long remainder = dividend % divisor;
+			dividend = divisor;
+			divisor = remainder;
+		}
+
+		return dividend;
+	}
+
+	/**
+	 * Returns a note table with the contents of the note table file at the given path. The file is
+	 * memory-mapped, so its contents are read only when they are accessed.
+	 *
+	 * @param path the path of the file
+	 * @return a note table with the contents of the file at the given path
+	 * @throws IOException             if the file is not found or reading the file fails
+	 * @throws ParsingFailureException if the file is not a note table file of a supported version
+	 */
+	public static NoteTable open(Path path) throws IOException, ParsingFailureException {
+		final ByteBuffer buffer;
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			if (channel.size() < HEADER_SIZE || channel.size() > Integer.MAX_VALUE) {
+				throw new ParsingFailureException("File is not a note table of a supported size");
+			}
+
+			// The mapping stays valid after the channel is closed.
+			buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()).order(ByteOrder.LITTLE_ENDIAN);
+		}
+
+		for (int i = 0; i < MAGIC.length; ++i) {
+			if (buffer.get(i) != MAGIC[i]) {
+				throw new ParsingFailureException("File is not a note table");
+			}
+		}
+
+		final int version = buffer.getInt(MAGIC.length);
+		if (version != VERSION) {
+			throw new ParsingFailureException("Unsupported note table version " + version);
+		}
+
+		final int rowCount = buffer.getInt(MAGIC.length + Integer.BYTES);
+		final int rowSize = buffer.getInt(MAGIC.length + 2 * Integer.BYTES);
+		if (rowSize != ROW_SIZE || rowCount < 0 || rowCount > MAX_ROW_COUNT
+				|| buffer.capacity() != HEADER_SIZE + rowCount * ROW_SIZE) {
+			throw new ParsingFailureException("Note table size does not match its row count " + rowCount);
+		}
+
+		return new NoteTable(buffer, rowCount);
+	}
+
+	/**
+	 * Returns the number of rows, that is notes, in this table.
+	 *
+	 * @return the number of rows in this table
+	 */
+	public int getRowCount() {
+		return rowCount;
+	}
+
+	/**
+	 * Returns the index of the part of the note in the given row.
+	 *
+	 * @param row the index of the row
+	 * @return the index of the part of the note in the given row
+	 */
+	public int getPartIndex(int row) {
+		return getInt(PART_COLUMN, row);
+	}
+
+	/**
+	 * Returns the staff number of the note in the given row.
+	 *
+	 * @param row the index of the row
+	 * @return the staff number of the note in the given row
+	 */
+	public int getStaffNumber(int row) {
+		return getInt(STAFF_COLUMN, row);
+	}
+
+	/**
+	 * Returns the number of the measure of the note in the given row.
+	 *
+	 * @param row the index of the row
+	 * @return the number of the measure of the note in the given row
+	 */
+	public int getMeasureNumber(int row) {
+		return getInt(MEASURE_COLUMN, row);
+	}
+
+	/**
+	 * Returns the voice number of the note in the given row.
+	 *
+	 * @param row the index of the row
+	 * @return the voice number of the note in the given row
+	 */
+	public int getVoiceNumber(int row) {
+		return getInt(VOICE_COLUMN, row);
+	}
+
+	/**
+	 * Returns the numerator of the onset of the note in the given row from the beginning of the measure.
+	 *
+	 * @param row the index of the row
+	 * @return the numerator of the onset of the note in the given row
+	 */
+	public int getOnsetNumerator(int row) {
+		return getInt(ONSET_NUMERATOR_COLUMN, row);
+	}
+
+	/**
+	 * Returns the denominator of the onset of the note in the given row from the beginning of the measure.
+	 *
+	 * @param row the index of the row
+	 * @return the denominator of the onset of the note in the given row
+	 */
+	public int getOnsetDenominator(int row) {
+		return getInt(ONSET_DENOMINATOR_COLUMN, row);
+	}
+
+	/**
+	 * Returns the numerator of the duration of the note in the given row.
+	 *
+	 * @param row the index of the row
+	 * @return the numerator of the duration of the note in the given row
+	 */
+	public int getDurationNumerator(int row) {
+		return getInt(DURATION_NUMERATOR_COLUMN, row);
+	}
+
+	/**
+	 * Returns the denominator of the duration of the note in the given row.
+	 *
+	 * @param row the index of the row
+	 * @return the denominator of the duration of the note in the given row
+	 */
+	public int getDurationDenominator(int row) {
+		return getInt(DURATION_DENOMINATOR_COLUMN, row);
+	}
+
+	/**
+	 * Returns true if the note in the given row has a pitch.
+	 *
+	 * @param row the index of the row
+	 * @return true if the note in the given row has a pitch
+	 */
+	public boolean isPitched(int row) {
+		return (getByte(FLAGS_COLUMN, row) & PITCHED) != 0;
+	}
+
+	/**
+	 * Returns the pitch of the note in the given row as an integer as given by {@link Pitch#toInt()}, which is
+	 * the MIDI note number for pitches in the MIDI range. The returned value is zero for unpitched notes.
+	 *
+	 * @param row the index of the row
+	 * @return the pitch of the note in the given row as an integer
+	 */
+	public int getPitchNumber(int row) {
+		checkRow(row);
+		return buffer.getShort(pitchOffset + Short.BYTES * row);
+	}
+
+	/**
+	 * Returns the base letter of the pitch of the note in the given row. The returned value is
+	 * {@link Pitch.Base#C} for unpitched notes.
+	 *
+	 * @param row the index of the row
+	 * @return the base letter of the pitch of the note in the given row
+	 */
+	public Pitch.Base getPitchBase(int row) {
+		return BASES[getByte(BASE_COLUMN, row)];
+	}
+
+	/**
+	 * Returns the accidental of the pitch of the note in the given row. The returned value is
+	 * {@link Pitch.Accidental#NATURAL} for unpitched notes.
+	 *
+	 * @param row the index of the row
+	 * @return the accidental of the pitch of the note in the given row
+	 */
+	public Pitch.Accidental getAccidental(int row) {
+		return ACCIDENTALS[getByte(ACCIDENTAL_COLUMN, row)];
+	}
+
+	/**
+	 * Returns the octave of the pitch of the note in the given row. The returned value is zero for unpitched
+	 * notes.
+	 *
+	 * @param row the index of the row
+	 * @return the octave of the pitch of the note in the given row
+	 */
+	public int getOctave(int row) {
+		return getByte(OCTAVE_COLUMN, row);
+	}
+
+	/**
+	 * Returns the pitch of the note in the given row or an empty optional if the note is unpitched.
+	 *
+	 * @param row the index of the row
+	 * @return the pitch of the note in the given row
+	 */
+	public Optional<Pitch> getPitch(int row) {
+		if (!isPitched(row)) {
+			return Optional.empty();
+		}
+
+		return Optional.of(Pitch.of(getPitchBase(row), getAccidental(row), getOctave(row)));
+	}
+
+	/**
+	 * Returns true if the note in the given row is tied to a following note.
+	 *
+	 * @param row the index of the row
+	 * @return true if the note in the given row is tied to a following note
+	 */
+	public boolean isTiedToFollowing(int row) {
+		return (getByte(FLAGS_COLUMN, row) & TIED_TO_FOLLOWING) != 0;
+	}
+
+	/**
+	 * Returns true if the note in the given row is tied from a previous note.
+	 *
+	 * @param row the index of the row
+	 * @return true if the note in the given row is tied from a previous note
+	 */
+	public boolean isTiedFromPrevious(int row) {
+		return (getByte(FLAGS_COLUMN, row) & TIED_FROM_PREVIOUS) != 0;
+	}
+
+	private int getInt(int column, int row) {
+		checkRow(row);
+		return buffer.getInt(HEADER_SIZE + Integer.BYTES * (column * rowCount + row));
+	}
+
+	private int getByte(int column, int row) {
+		checkRow(row);
+		return buffer.get(byteColumnsOffset + column * rowCount + row);
+	}
+
+	private void checkRow(int row) {
+		if (row < 0 || row >= rowCount) {
+			throw new IndexOutOfBoundsException("Row " + row + " is out of bounds for row count " + rowCount);
+		}
+	}
+
+	/*
+	 * Collects the values of the columns before they are written into a file.
+	 */
+	private static final class Columns {
+		private static final int INITIAL_CAPACITY = 1024;
+
+		private final int[][] intColumns = new int[INT_COLUMN_COUNT][INITIAL_CAPACITY];
+		private short[] pitchColumn = new short[INITIAL_CAPACITY];
+		private final byte[][] byteColumns = new byte[BYTE_COLUMN_COUNT][INITIAL_CAPACITY];
+		private int size;
+
+		void add(Position position, long onsetNumerator, long onsetDenominator, Note note) {
+			if (size == MAX_ROW_COUNT) {
+				throw new IllegalArgumentException("Note table can have at most " + MAX_ROW_COUNT + " rows");
+			}
+
+			if (size == pitchColumn.length) {
+				final int capacity = (int) Math.min(2L * size, MAX_ROW_COUNT);
+				for (int i = 0; i < INT_COLUMN_COUNT; ++i) {
+					intColumns[i] = Arrays.copyOf(intColumns[i], capacity);
+				}
+
+				pitchColumn = Arrays.copyOf(pitchColumn, capacity);
+				for (int i = 0; i < BYTE_COLUMN_COUNT; ++i) {
+					byteColumns[i] = Arrays.copyOf(byteColumns[i], capacity);
+				}
+			}
+
+			intColumns[PART_COLUMN][size] = position.getPartIndex();
+			intColumns[STAFF_COLUMN][size] = position.getStaffNumber();
+			intColumns[MEASURE_COLUMN][size] = position.getMeasureNumber();
+			intColumns[VOICE_COLUMN][size] = position.getVoiceNumber();
+			intColumns[ONSET_NUMERATOR_COLUMN][size] = (int) onsetNumerator;
+			intColumns[ONSET_DENOMINATOR_COLUMN][size] = (int) onsetDenominator;
+			intColumns[DURATION_NUMERATOR_COLUMN][size] = note.getDuration().getNumerator();
+			intColumns[DURATION_DENOMINATOR_COLUMN][size] = note.getDuration().getDenominator();
+
+			int flags = 0;
+			final Optional<Pitch> pitch = note.getPitch();
+			if (pitch.isPresent()) {
+				flags |= PITCHED;
+				pitchColumn[size] = (short) pitch.get().toInt();
+				byteColumns[BASE_COLUMN][size] = (byte) pitch.get().getBase().ordinal();
+				byteColumns[ACCIDENTAL_COLUMN][size] = (byte) pitch.get().getAccidental().ordinal();
+				byteColumns[OCTAVE_COLUMN][size] = (byte) pitch.get().getOctave();
+			}
+
+			if (note.isTiedToFollowing()) {
+				flags |= TIED_TO_FOLLOWING;
+			}
+
+			if (note.isTiedFromPrevious()) {
+				flags |= TIED_FROM_PREVIOUS;
+			}
+
+			byteColumns[FLAGS_COLUMN][size] = (byte) flags;
+			++size;
+		}
+
+		void write(Path path) throws IOException {
+			final ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + size * ROW_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+			buffer.put(MAGIC).putInt(VERSION).putInt(size).putInt(ROW_SIZE);
+
+			for (int[] column : intColumns) {
+				buffer.asIntBuffer().put(column, 0, size);
+				buffer.position(buffer.position() + Integer.BYTES * size);
+			}
+
+			buffer.asShortBuffer().put(pitchColumn, 0, size);
+			buffer.position(buffer.position() + Short.BYTES * size);
+
+			for (byte[] column : byteColumns) {
+				buffer.put(column, 0, size);
+			}
+
+			buffer.flip();
+			try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+					StandardOpenOption.TRUNCATE_EXISTING)) {
+				while (buffer.hasRemaining()) {
+					channel.write(buffer);
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,15 @@
+/*
+ * Distributed under the MIT license (see LICENSE.txt or https://opensource.org/licenses/MIT).
+ */
+
+/**
+ * Contains input and output operations for the binary score format of wmn4j.
+ * The {@link org.wmn4j.io.binary.BinaryScoreWriter} objects can be used for writing
+ * {@link org.wmn4j.notation.Score} objects into a compact binary format and the
+ * {@link org.wmn4j.io.binary.BinaryScoreReader} objects can be used for reading them back.
+ * The {@link org.wmn4j.io.binary.IndexedScoreFile} stores scores in an indexed form from which
+ * measures are read only when they are accessed.
+ * The {@link org.wmn4j.io.binary.NoteTable} stores the notes of scores in a columnar file
+ * for analysing large corpora without creating the notation objects.
+ */
+package org.wmn4j.io.binary;
@@ -0,0 +1,384 @@
+/*
+ * Distributed under the MIT license (see LICENSE.txt or https://opensource.org/licenses/MIT).
+ */
+package org.wmn4j.io.midi;
+
+import org.wmn4j.io.ParsingFailureException;
+import org.wmn4j.notation.Duration;
+import org.wmn4j.notation.Score;
+import org.wmn4j.notation.ScoreBuilder;
+import org.wmn4j.notation.TimeSignature;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Reads the events of a Standard MIDI File one at a time and passes the quantized notes and the time and key
+ * signatures to a {@link MidiScoreAssembler}.
+ */
+final class MidiFileReader implements MidiReader {
+
+	// The chunk types "MThd" and "MTrk" as big endian integers.
+	private static final int HEADER_CHUNK = 0x4D546864;
+	private static final int TRACK_CHUNK = 0x4D54726B;
+	private static final int HEADER_LENGTH = 6;
+
+	private static final int META_EVENT = 0xFF;
+	private static final int SYSEX_EVENT = 0xF0;
+	private static final int ESCAPED_SYSEX_EVENT = 0xF7;
+	private static final int NOTE_OFF = 0x80;
+	private static final int NOTE_ON = 0x90;
+	private static final int PROGRAM_CHANGE = 0xC0;
+	private static final int CHANNEL_PRESSURE = 0xD0;
+
+	private static final int TRACK_NAME = 0x03;
+	private static final int END_OF_TRACK = 0x2F;
+	private static final int TIME_SIGNATURE = 0x58;
+	private static final int KEY_SIGNATURE = 0x59;
+
+	private static final int CHANNEL_COUNT = 16;
+	private static final int KEY_COUNT = 128;
+	private static final int MAX_TIME_SIGNATURE_DENOMINATOR_EXPONENT = 6;
+	private static final int MAX_KEY_SIGNATURE_ALTERATIONS = 7;
+
+	private static final String MALFORMED_HEADER_MESSAGE = "Malformed MIDI file header";
+	private static final String TRACK_END_MESSAGE = "Unexpected end of MIDI track";
+	private static final String AT_TICK = " at tick ";
+
+	private final Path path;
+	private final InputStream source;
+	private final Duration grid;
+	private InputStream inputStream;
+	private boolean isClosed;
+
+	private ScoreBuilder scoreBuilder;
+	private Score score;
+
+	private MidiScoreAssembler assembler;
+	private int ticksPerQuarter;
+	private long trackBytesLeft;
+
+	MidiFileReader(Path path, Duration grid) {
+		this.path = Objects.requireNonNull(path);
+		this.source = null;
+		this.grid = Objects.requireNonNull(grid);
+	}
+
+	MidiFileReader(InputStream inputStream, Duration grid) {
+		this.path = null;
+		this.source = Objects.requireNonNull(inputStream);
+		this.grid = Objects.requireNonNull(grid);
+	}
+
+	@Override
+	public Score readScore() throws IOException, ParsingFailureException {
+		if (score == null) {
+			score = readScoreBuilder().build();
+		}
+
+		return score;
+	}
+
+	@Override
+	public ScoreBuilder readScoreBuilder() throws IOException, ParsingFailureException {
+		if (scoreBuilder == null) {
+			if (isClosed) {
+				throw new IllegalStateException("Cannot read a score using a closed reader");
+			}
+
+			try {
+				inputStream = new BufferedInputStream(path != null ? Files.newInputStream(path) : source);
+				assembler = new MidiScoreAssembler(grid);
+				readFile();
+				scoreBuilder = assembler.assemble();
+			} finally {
+				close();
+			}
+		}
+
+		return scoreBuilder;
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (!isClosed) {
+			isClosed = true;
+			if (inputStream != null) {
+				inputStream.close();
+			} else if (source != null) {
+				source.close();
+			}
+		}
+	}
+
+	private void readFile() throws IOException, ParsingFailureException {
+		if (readInt() != HEADER_CHUNK) {
+			throw new ParsingFailureException("Input is not a MIDI file");
+		}
+
+		final long headerLength = readUnsignedInt();
+		if (headerLength < HEADER_LENGTH) {
+			throw new ParsingFailureException(MALFORMED_HEADER_MESSAGE);
+		}
+
+		final int format = readShort();
+		final int trackCount = readShort();
+		final int division = readShort();
+		skip(headerLength - HEADER_LENGTH);
+
+		if ((division & 0x8000) != 0) {
+			throw new ParsingFailureException("MIDI files with SMPTE time division are not supported");
+		}
+
+		if (division == 0) {
+			throw new ParsingFailureException(MALFORMED_HEADER_MESSAGE);
+		}
+
+		ticksPerQuarter = division;
+		int tracksRead = 0;
+		while (tracksRead < trackCount) {
+			final int chunkType = readInt();
+			final long chunkLength = readUnsignedInt();
+			if (chunkType == TRACK_CHUNK) {
+				readTrack(chunkLength, format == 1 && tracksRead == 0);
+				++tracksRead;
+			} else {
+				// Chunks of unknown types are skipped as required by the specification.
+				skip(chunkLength);
+			}
+		}
+	}
+
+	private void readTrack(long length, boolean isConductorTrack) throws IOException, ParsingFailureException {
+		trackBytesLeft = length;
+
+		final MidiScoreAssembler.PartNotes[] channelParts = new MidiScoreAssembler.PartNotes[CHANNEL_COUNT];
+		final List<ArrayDeque<MidiScoreAssembler.QuantizedNote>> soundingNotes = new ArrayList<>(
+				Collections.nCopies(CHANNEL_COUNT * KEY_COUNT, null));
+		String name = null;
+		long tick = 0;
+		int runningStatus = 0;
+		boolean isEnded = false;
+
+		while (trackBytesLeft > 0 && !isEnded) {
+			tick += readVariableLength();
+			int status = readTrackByte();
+			int firstDataByte = -1;
+			if (status < 0x80) {
+				if (runningStatus == 0) {
+					throw new ParsingFailureException("MIDI event without a status at tick " + tick);
+				}
+
+				firstDataByte = status;
+				status = runningStatus;
+			}
+
+			if (status == META_EVENT) {
+				runningStatus = 0;
+				final int type = readTrackByte();
+				final byte[] data = readTrackBytes(readVariableLength());
+				switch (type) {
+					case TRACK_NAME:
+						name = new String(data, StandardCharsets.ISO_8859_1).trim();
+						break;
+					case TIME_SIGNATURE:
+						assembler.addTimeSignature(toGridPosition(tick), toTimeSignature(data));
+						break;
+					case KEY_SIGNATURE:
+						assembler.addKeySignature(toGridPosition(tick), toKeySignatureAlterations(data));
+						break;
+					case END_OF_TRACK:
+						isEnded = true;
+						break;
+					default:
+						break;
+				}
+			} else if (status == SYSEX_EVENT || status == ESCAPED_SYSEX_EVENT) {
+				runningStatus = 0;
+				skipTrackBytes(readVariableLength());
+			} else if (status >= 0xF0) {
+				throw new ParsingFailureException("Unexpected MIDI status " + status + AT_TICK + tick);
+			} else {
+				runningStatus = status;
+				final int type = status & 0xF0;
+				final int channel = status & 0x0F;
+				final int key = firstDataByte >= 0 ? firstDataByte : readDataByte(tick);
+				if (type != PROGRAM_CHANGE && type != CHANNEL_PRESSURE) {
+					final int velocity = readDataByte(tick);
+					final int index = channel * KEY_COUNT + key;
+					if (type == NOTE_ON && velocity > 0) {
+						if (channelParts[channel] == null) {
+							channelParts[channel] = new MidiScoreAssembler.PartNotes();
+						}
+
+						final MidiScoreAssembler.QuantizedNote note = new MidiScoreAssembler.QuantizedNote(
+								toGridPosition(tick), key);
+						channelParts[channel].add(note);
+						if (soundingNotes.get(index) == null) {
+							soundingNotes.set(index, new ArrayDeque<>());
+						}
+
+						soundingNotes.get(index).add(note);
+					} else if ((type == NOTE_ON || type == NOTE_OFF) && soundingNotes.get(index) != null) {
+						// Overlapping notes with the same key are ended in the order in which they started.
+						final MidiScoreAssembler.QuantizedNote note = soundingNotes.get(index).poll();
+						if (note != null) {
+							note.setEnd(toGridPosition(tick));
+						}
+					}
+				}
+			}
+		}
+
+		skip(trackBytesLeft);
+
+		// Notes that are not ended before the end of the track are ended at the end of the track.
+		final long trackEnd = toGridPosition(tick);
+		for (ArrayDeque<MidiScoreAssembler.QuantizedNote> notes : soundingNotes) {
+			if (notes != null) {
+				notes.forEach(note -> note.setEnd(trackEnd));
+			}
+		}
+
+		boolean hasNotes = false;
+		for (MidiScoreAssembler.PartNotes part : channelParts) {
+			if (part != null) {
+				part.setName(name);
+				assembler.addPart(part);
+				hasNotes = true;
+			}
+		}
+
+		if (isConductorTrack && !hasNotes && name != null && !name.isEmpty()) {
+			assembler.setTitle(name);
+		}
+	}
+
+	/*
+	 * Returns the given number of ticks as the nearest number of grid durations.
+	 */
+	private long toGridPosition(long tick) {
+		final long ticksPerGrid = 4L * ticksPerQuarter * grid.getNumerator();
+		return (2 * tick * grid.getDenominator() + ticksPerGrid) / (2 * ticksPerGrid);
+	}
+
+	private static TimeSignature toTimeSignature(byte[] data) throws ParsingFailureException {
+		if (data.length < 2 || data[0] < 1 || data[1] < 0 || data[1] > MAX_TIME_SIGNATURE_DENOMINATOR_EXPONENT) {
+			throw new ParsingFailureException("Malformed MIDI time signature");
+		}
+
+		return TimeSignature.of(data[0], 1 << data[1]);
+	}
+
+	private static int toKeySignatureAlterations(byte[] data) throws ParsingFailureException {
+		if (data.length < 2 || Math.abs(data[0]) > MAX_KEY_SIGNATURE_ALTERATIONS) {
+			throw new ParsingFailureException("Malformed MIDI key signature");
+		}
+
+		return data[0];
+	}
+
+	private int readByte() throws IOException, ParsingFailureException {
+		final int value = inputStream.read();
+		if (value < 0) {
+			throw new ParsingFailureException("Unexpected end of MIDI file");
+		}
+
+		return value;
+	}
+
+	private int readShort() throws IOException, ParsingFailureException {
+		return (readByte() << 8) | readByte();
+	}
+
+	private int readInt() throws IOException, ParsingFailureException {
+		return (readShort() << 16) | readShort();
+	}
+
+	private long readUnsignedInt() throws IOException, ParsingFailureException {
+		return readInt() & 0xFFFFFFFFL;
+	}
+
+	private void skip(long count) throws IOException, ParsingFailureException {
+		for (long left = count; left > 0; ) {
+			final long skipped = inputStream.skip(left);
+			if (skipped > 0) {
+				left -= skipped;
+			} else {
+				readByte();
+				--left;
+			}
+		}
+	}
+
+	private int readTrackByte() throws IOException, ParsingFailureException {
+		if (trackBytesLeft == 0) {
+			throw new ParsingFailureException(TRACK_END_MESSAGE);
+		}
+
+		--trackBytesLeft;
+		return readByte();
+	}
+
+	/*
+	 * Reads a data byte of a channel event. Data bytes have the highest bit unset, so a key or velocity is
+	 * always in the range 0-127.
+	 */
+	private int readDataByte(long tick) throws IOException, ParsingFailureException {
+		final int value = readTrackByte();
+		if (value >= 0x80) {
+			throw new ParsingFailureException("Invalid MIDI data byte " + value + AT_TICK + tick);
+		}
+
+		return value;
+	}
+
+	private byte[] readTrackBytes(int count) throws IOException, ParsingFailureException {
+		if (count > trackBytesLeft) {
+			throw new ParsingFailureException(TRACK_END_MESSAGE);
+		}
+
+		final byte[] bytes = new byte[count];
+		for (int i = 0; i < count; ++i) {
+			bytes[i] = (byte) readByte();
+		}
+
+		trackBytesLeft -= count;
+		return bytes;
+	}
+
+	private void skipTrackBytes(int count) throws IOException, ParsingFailureException {
+		if (count > trackBytesLeft) {
+			throw new ParsingFailureException(TRACK_END_MESSAGE);
+		}
+
+		skip(count);
+		trackBytesLeft -= count;
+	}
+
+	/*
+	 * Reads a variable-length quantity, which has seven bits in each byte and the highest bit set in all bytes
+	 * except the last one. The quantities are at most four bytes long.
+	 */
+	private int readVariableLength() throws IOException, ParsingFailureException {
+		int value = 0;
+		for (int i = 0; i < 4; ++i) {
+			final int b = readTrackByte();
+			value = (value << 7) | (b & 0x7F);
+			if ((b & 0x80) == 0) {
+				return value;
+			}
+		}
+
+		throw new ParsingFailureException("Malformed variable-length quantity in MIDI track");
+	}
+}
@@ -0,0 +1,84 @@
+/*
+ * Distributed under the MIT license (see LICENSE.txt or https://opensource.org/licenses/MIT).
+ */
+package org.wmn4j.io.midi;
+
+import org.wmn4j.io.ScoreReader;
+import org.wmn4j.notation.Duration;
+import org.wmn4j.notation.Durations;
+
+import java.io.InputStream;
+import java.nio.file.Path;
+
+/**
+ * Represents a reader for Standard MIDI Files (.mid).
+ * <p>
+ * The events of the file are read in a single pass and the onsets and ends of the notes are quantized to the
+ * nearest multiple of a grid duration, which is a sixteenth by default. The notes of each channel of each track
+ * are read into a separate part. Notes that start and end at the same time are combined into chords and
+ * overlapping notes are placed in separate voices. Durations that cannot be expressed using a single note or
+ * rest are written as several tied notes or as several rests, and notes that cross barlines are tied over the
+ * barlines.
+ * <p>
+ * The measures follow the time signatures of the file, which default to 4/4. A time signature or key signature
+ * change that does not occur at a barline takes effect at the following barline. The durations of the measures
+ * must be multiples of the grid duration. Pitches are spelled with sharps, except in keys with flats. Only files
+ * with a time division in ticks per quarter note are supported.
+ * <p>
+ * Implementations of this interface are not guaranteed to be thread-safe.
+ */
+public interface MidiReader extends ScoreReader {
+
+	/**
+	 * The default duration to which the notes are quantized.
+	 */
+	Duration DEFAULT_GRID = Durations.SIXTEENTH;
+
+	/**
+	 * Returns a reader for the MIDI file at the given path that quantizes the notes to the default grid.
+	 *
+	 * @param path the path of the file for which this reader is created
+	 * @return a reader for the MIDI file at the given path
+	 */
+	static MidiReader readerFor(Path path) {
+		return readerFor(path, DEFAULT_GRID);
+	}
+
+	/**
+	 * Returns a reader for the MIDI file at the given path that quantizes the notes to the given grid.
+	 *
+	 * @param path the path of the file for which this reader is created
+	 * @param grid the duration to whose multiples the onsets and ends of the notes are quantized
+	 * @return a reader for the MIDI file at the given path
+	 */
+	static MidiReader readerFor(Path path, Duration grid) {
+		return new MidiFileReader(path, grid);
+	}
+
+	/**
+	 * Returns a reader for the MIDI file read from the given input stream that quantizes the notes to the
+	 * default grid.
+	 * <p>
+	 * The given stream is closed when the reader is closed.
+	 *
+	 * @param inputStream the input stream from which the MIDI file is read
+	 * @return a reader for the MIDI file read from the given input stream
+	 */
+	static MidiReader readerFor(InputStream inputStream) {
+		return readerFor(inputStream, DEFAULT_GRID);
+	}
+
+	/**
+	 * Returns a reader for the MIDI file read from the given input stream that quantizes the notes to the
+	 * given grid.
+	 * <p>
+	 * The given stream is closed when the reader is closed.
+	 *
+	 * @param inputStream the input stream from which the MIDI file is read
+	 * @param grid        the duration to whose multiples the onsets and ends of the notes are quantized
+	 * @return a reader for the MIDI file read from the given input stream
+	 */
+	static MidiReader readerFor(InputStream inputStream, Duration grid) {
+		return new MidiFileReader(inputStream, grid);
+	}
+}
@@ -0,0 +1,409 @@
+/*
+ * Distributed under the MIT license (see LICENSE.txt or https://opensource.org/licenses/MIT).
+ */
+package org.wmn4j.io.midi;
+
+import org.wmn4j.io.ParsingFailureException;
+import org.wmn4j.notation.Barline;
+import org.wmn4j.notation.ChordBuilder;
+import org.wmn4j.notation.Clef;
+import org.wmn4j.notation.Clefs;
+import org.wmn4j.notation.Duration;
+import org.wmn4j.notation.KeySignature;
+import org.wmn4j.notation.MeasureAttributes;
+import org.wmn4j.notation.MeasureBuilder;
+import org.wmn4j.notation.NoteBuilder;
+import org.wmn4j.notation.PartBuilder;
+import org.wmn4j.notation.Pitch;
+import org.wmn4j.notation.RestBuilder;
+import org.wmn4j.notation.Score;
+import org.wmn4j.notation.ScoreBuilder;
+import org.wmn4j.notation.TimeSignature;
+import org.wmn4j.notation.TimeSignatures;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Builds a score from notes whose onsets and ends are given as multiples of a grid duration.
+ * <p>
+ * The notes of each part are combined into chords and voices, which are written into the measures
+ * defined by the time signatures. Notes and rests are split at barlines and into durations that can be
+ * expressed with single notes and rests.
+ */
+final class MidiScoreAssembler {
+
+	private static final TimeSignature DEFAULT_TIME_SIGNATURE = TimeSignatures.FOUR_FOUR;
+	private static final int MIDDLE_C = 60;
+	private static final int LOWEST_KEY = 12;
+
+	private static final Pitch.Base[] SHARP_SPELLING_BASES = { Pitch.Base.C, Pitch.Base.C, Pitch.Base.D,
+			Pitch.Base.D, Pitch.Base.E, Pitch.Base.F, Pitch.Base.F, Pitch.Base.G, Pitch.Base.G, Pitch.Base.A,
+			Pitch.Base.A, Pitch.Base.B };
+	private static final Pitch.Base[] FLAT_SPELLING_BASES = { Pitch.Base.C, Pitch.Base.D, Pitch.Base.D,
+			Pitch.Base.E, Pitch.Base.E, Pitch.Base.F, Pitch.Base.G, Pitch.Base.G, Pitch.Base.A, Pitch.Base.A,
+			Pitch.Base.B, Pitch.Base.B };
+	private static final boolean[] IS_ALTERED = { false, true, false, true, false, false, true, false, true,
+			false, true, false };
+
+	private static final List<Pitch.Base> SHARP_ORDER = List.of(Pitch.Base.F, Pitch.Base.C, Pitch.Base.G,
+			Pitch.Base.D, Pitch.Base.A, Pitch.Base.E, Pitch.Base.B);
+
+	// The key signatures indexed by the number of sharps added to the maximum number of flats.
+	private static final KeySignature[] KEY_SIGNATURES = new KeySignature[2 * SHARP_ORDER.size() + 1];
+
+	static {
+		final List<Pitch.Base> flatOrder = new ArrayList<>(SHARP_ORDER);
+		Collections.reverse(flatOrder);
+		for (int i = 0; i <= SHARP_ORDER.size(); ++i) {
+			KEY_SIGNATURES[SHARP_ORDER.size() + i] = KeySignature.of(SHARP_ORDER.subList(0, i), null);
+			KEY_SIGNATURES[SHARP_ORDER.size() - i] = KeySignature.of(null, flatOrder.subList(0, i));
+		}
+	}
+
+	private final Duration grid;
+	private final List<Change<TimeSignature>> timeSignatures = new ArrayList<>();
+	private final List<Change<Integer>> keySignatures = new ArrayList<>();
+	private final List<PartNotes> parts = new ArrayList<>();
+	private String title;
+
+	// The positions of the barlines, including the end of the last measure, and the attributes of the measures.
+	private long[] barlines;
+	private TimeSignature[] measureTimeSignatures;
+	private int[] measureKeyAlterations;
+
+	private record Change<T>(long position, T value) {
+	}
+
+	/*
+	 * A chord or a single note in a voice.
+	 */
+	private record Event(long onset, long end, int[] keys) {
+	}
+
+	private static final class Voice {
+		private final List<Event> events = new ArrayList<>();
+		private long end;
+	}
+
+	/*
+	 * A note whose onset and end are multiples of the grid duration. The end is set when the note ends.
+	 */
+	static final class QuantizedNote {
+		private final long onset;
+		private final int key;
+		private long end = -1;
+
+		QuantizedNote(long onset, int key) {
+			this.onset = onset;
+			this.key = key;
+		}
+
+		void setEnd(long end) {
+			this.end = end;
+		}
+
+		/*
+		 * Notes that are shorter than the grid are lengthened to last one grid duration.
+		 */
+		private long getEnd() {
+			return Math.max(end, onset + 1);
+		}
+	}
+
+	/*
+	 * The notes of one part ordered by their onsets.
+	 */
+	static final class PartNotes {
+		private final List<QuantizedNote> notes = new ArrayList<>();
+		private String name;
+
+		void add(QuantizedNote note) {
+			notes.add(note);
+		}
+
+		void setName(String name) {
+			this.name = name;
+		}
+	}
+
+	MidiScoreAssembler(Duration grid) {
+		this.grid = grid;
+	}
+
+	void addTimeSignature(long position, TimeSignature timeSignature) {
+		timeSignatures.add(new Change<>(position, timeSignature));
+	}
+
+	void addKeySignature(long position, int alterations) {
+		keySignatures.add(new Change<>(position, alterations));
+	}
+
+	void addPart(PartNotes part) {
+		parts.add(part);
+	}
+
+	void setTitle(String title) {
+		this.title = title;
+	}
+
+	ScoreBuilder assemble() throws ParsingFailureException {
+		computeMeasures();
+
+		final ScoreBuilder scoreBuilder = new ScoreBuilder();
+		if (title != null) {
+			scoreBuilder.setAttribute(Score.Attribute.TITLE, title);
+		}
+
+		for (PartNotes part : parts) {
+			scoreBuilder.addPart(buildPart(part));
+		}
+
+		return scoreBuilder;
+	}
+
+	private void computeMeasures() throws ParsingFailureException {
+		long end = 0;
+		for (PartNotes part : parts) {
+			for (QuantizedNote note : part.notes) {
+				end = Math.max(end, note.getEnd());
+			}
+		}
+
+		// The changes from different tracks are ordered by position, keeping the order of changes at the same position.
+		timeSignatures.sort(Comparator.comparingLong(Change::position));
+		keySignatures.sort(Comparator.comparingLong(Change::position));
+
+		final List<Long> positions = new ArrayList<>();
+		final List<TimeSignature> measureTimes = new ArrayList<>();
+		final List<Integer> measureKeys = new ArrayList<>();
+		TimeSignature timeSignature = DEFAULT_TIME_SIGNATURE;
+		int keyAlterations = 0;
+		int timeIndex = 0;
+		int keyIndex = 0;
+		long position = 0;
+
+		do {
+			while (timeIndex < timeSignatures.size() && timeSignatures.get(timeIndex).position() <= position) {
+				timeSignature = timeSignatures.get(timeIndex++).value();
+			}
+
+			while (keyIndex < keySignatures.size() && keySignatures.get(keyIndex).position() <= position) {
+				keyAlterations = keySignatures.get(keyIndex++).value();
+			}
+
+			positions.add(position);
+			measureTimes.add(timeSignature);
+			measureKeys.add(keyAlterations);
+			position += getMeasureLength(timeSignature);
+		} while (position < end);
+
+		positions.add(position);
+
+		barlines = positions.stream().mapToLong(Long::longValue).toArray();
+		measureTimeSignatures = measureTimes.toArray(new TimeSignature[0]);
+		measureKeyAlterations = measureKeys.stream().mapToInt(Integer::intValue).toArray();
+	}
+
+	private long getMeasureLength(TimeSignature timeSignature) throws ParsingFailureException {
+		final Duration total = timeSignature.getTotalDuration();
+		final long numerator = (long) total.getNumerator() * grid.getDenominator();
+		final long denominator = (long) total.getDenominator() * grid.getNumerator();
+		if (numerator % denominator != 0) {
+			throw new ParsingFailureException("Measures in time signature " + timeSignature
+					+ " cannot be divided into durations of " + grid);
+		}
+
+		return numerator / denominator;
+	}
+
+	private PartBuilder buildPart(PartNotes part) {
+		final int measureCount = measureTimeSignatures.length;
+		final MeasureBuilder[] measures = new MeasureBuilder[measureCount];
+		final Clef clef = getClef(part.notes);
+		for (int i = 0; i < measureCount; ++i) {
+			final Barline barline = i == measureCount - 1 ? Barline.FINAL : Barline.SINGLE;
+			measures[i] = new MeasureBuilder(i + 1, MeasureAttributes.of(measureTimeSignatures[i],
+					toKeySignature(measureKeyAlterations[i]), barline, clef));
+		}
+
+		final List<Voice> voices = assignVoices(toEvents(part.notes));
+		for (int i = 0; i < voices.size(); ++i) {
+			writeVoice(i + 1, voices.get(i).events, measures);
+		}
+
+		final PartBuilder partBuilder = part.name != null ? new PartBuilder(part.name) : new PartBuilder();
+		for (int i = 0; i < measureCount; ++i) {
+			if (measures[i].getVoiceCount() == 0) {
+				measures[i].addToVoice(1, new RestBuilder(measureTimeSignatures[i].getTotalDuration()));
+			}
+
+			partBuilder.add(measures[i]);
+		}
+
+		return partBuilder;
+	}
+
+	private static Clef getClef(List<QuantizedNote> notes) {
+		long keySum = 0;
+		for (QuantizedNote note : notes) {
+			keySum += note.key;
+		}
+
+		return !notes.isEmpty() && keySum < (long) MIDDLE_C * notes.size() ? Clefs.F : Clefs.G;
+	}
+
+	/*
+	 * Combines the notes with the same onset and end into chords. Notes below the lowest octave are left out.
+	 */
+	private static List<Event> toEvents(List<QuantizedNote> notes) {
+		final List<Event> events = new ArrayList<>();
+		final Comparator<QuantizedNote> byEndAndKey = Comparator.comparingLong(QuantizedNote::getEnd)
+				.thenComparingInt(note -> note.key);
+
+		int first = 0;
+		while (first < notes.size()) {
+			final long onset = notes.get(first).onset;
+			int last = first;
+			while (last < notes.size() && notes.get(last).onset == onset) {
+				++last;
+			}
+
+			final List<QuantizedNote> simultaneous = new ArrayList<>(notes.subList(first, last));
+			simultaneous.sort(byEndAndKey);
+
+			int chordStart = 0;
+			while (chordStart < simultaneous.size()) {
+				final long end = simultaneous.get(chordStart).getEnd();
+				int chordEnd = chordStart;
+				while (chordEnd < simultaneous.size() && simultaneous.get(chordEnd).getEnd() == end) {
+					++chordEnd;
+				}
+
+				final int[] keys = simultaneous.subList(chordStart, chordEnd).stream().mapToInt(note -> note.key)
+						.filter(key -> key >= LOWEST_KEY).distinct().toArray();
+				if (keys.length > 0) {
+					events.add(new Event(onset, end, keys));
+				}
+
+				chordStart = chordEnd;
+			}
+
+			first = last;
+		}
+
+		return events;
+	}
+
+	/*
+	 * Places each event into the first voice that has ended before the event starts.
+	 */
+	private static List<Voice> assignVoices(List<Event> events) {
+		final List<Voice> voices = new ArrayList<>();
+		for (Event event : events) {
+			Voice voice = null;
+			for (Voice candidate : voices) {
+				if (candidate.end <= event.onset()) {
+					voice = candidate;
+					break;
+				}
+			}
+
+			if (voice == null) {
+				voice = new Voice();
+				voices.add(voice);
+			}
+
+			voice.events.add(event);
+			voice.end = event.end();
+		}
+
+		return voices;
+	}
+
+	private void writeVoice(int voiceNumber, List<Event> events, MeasureBuilder[] measures) {
+		long position = 0;
+		for (Event event : events) {
+			writeRests(voiceNumber, position, event.onset(), measures);
+			writeNotes(voiceNumber, event, measures);
+			position = event.end();
+		}
+
+		// The last measure in which the voice has notes is filled with rests.
+		final int lastMeasure = getMeasureIndex(position - 1);
+		writeRests(voiceNumber, position, barlines[lastMeasure + 1], measures);
+	}
+
+	/*
+	 * Writes rests for the parts of the given range that do not cover whole measures. The voice is left out
+	 * from the measures that the range covers completely.
+	 */
+	private void writeRests(int voiceNumber, long start, long end, MeasureBuilder[] measures) {
+		if (start >= end) {
+			return;
+		}
+
+		for (int i = getMeasureIndex(start); i <= getMeasureIndex(end - 1); ++i) {
+			final long restStart = Math.max(start, barlines[i]);
+			final long restEnd = Math.min(end, barlines[i + 1]);
+			if (restStart > barlines[i] || restEnd < barlines[i + 1]) {
+				for (Duration duration : toDurations(restEnd - restStart, i)) {
+					measures[i].addToVoice(voiceNumber, new RestBuilder(duration));
+				}
+			}
+		}
+	}
+
+	private void writeNotes(int voiceNumber, Event event, MeasureBuilder[] measures) {
+		NoteBuilder[] previous = null;
+		for (int i = getMeasureIndex(event.onset()); i <= getMeasureIndex(event.end() - 1); ++i) {
+			final long length = Math.min(event.end(), barlines[i + 1]) - Math.max(event.onset(), barlines[i]);
+			for (Duration duration : toDurations(length, i)) {
+				final NoteBuilder[] notes = new NoteBuilder[event.keys().length];
+				for (int k = 0; k < notes.length; ++k) {
+					notes[k] = new NoteBuilder(toPitch(event.keys()[k], measureKeyAlterations[i]), duration);
+					if (previous != null) {
+						previous[k].addTieToFollowing(notes[k]);
+					}
+				}
+
+				if (notes.length == 1) {
+					measures[i].addToVoice(voiceNumber, notes[0]);
+				} else {
+					measures[i].addToVoice(voiceNumber, new ChordBuilder(Arrays.asList(notes)));
+				}
+
+				previous = notes;
+			}
+		}
+	}
+
+	private List<Duration> toDurations(long gridCount, int measureIndex) {
+		return grid.multiply((int) gridCount).decompose(measureTimeSignatures[measureIndex].getTotalDuration());
+	}
+
+	private int getMeasureIndex(long position) {
+		final int index = Arrays.binarySearch(barlines, position);
+		return index >= 0 ? index : -index - 2;
+	}
+
+	private static Pitch toPitch(int key, int keyAlterations) {
+		final int pitchClass = key % 12;
+		final Pitch.Base base = keyAlterations < 0 ? FLAT_SPELLING_BASES[pitchClass]
+				: SHARP_SPELLING_BASES[pitchClass];
+
+		Pitch.Accidental accidental = Pitch.Accidental.NATURAL;
+		if (IS_ALTERED[pitchClass]) {
+			accidental = keyAlterations < 0 ? Pitch.Accidental.FLAT : Pitch.Accidental.SHARP;
+		}
+
+		return Pitch.of(base, accidental, key / 12 - 1);
+	}
+
+	private static KeySignature toKeySignature(int alterations) {
+		return KEY_SIGNATURES[alterations + SHARP_ORDER.size()];
+	}
+}
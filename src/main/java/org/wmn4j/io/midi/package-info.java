@@ -0,0 +1,11 @@
+/*
+ * Distributed under the MIT license (see LICENSE.txt or https://opensource.org/licenses/MIT).
+ */
+
+/**
+ * Contains input operations for Standard MIDI Files.
+ * The {@link org.wmn4j.io.midi.MidiReader} objects can be used for reading
+ * {@link org.wmn4j.notation.Score} objects from MIDI files by quantizing the note events
+ * to a grid of durations.
+ */
+package org.wmn4j.io.midi;
@@ -0,0 +1,144 @@
+/*
+ * Distributed under the MIT license (see LICENSE.txt or https://opensource.org/licenses/MIT).
+ */
+package org.wmn4j.io.musicxml;
+
+import org.wmn4j.notation.Measure;
+import org.wmn4j.notation.Score;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Represents a writer that writes a part-wise MusicXML score measure by measure, without requiring a complete
+ * {@link Score}.
+ * <p>
+ * The parts of the score are declared when the writer is created and the measures are written in the order
+ * of their measure numbers within each part. The measures of different parts can be written in any order
+ * relative to each other. Measures of multi-staff parts are written per staff, and a measure of a part is
+ * written once the measures of all its staves have been given. The score is finished when the writer is closed.
+ * <p>
+ * The measures of the first part are written directly to the output. Because the parts follow each other in
+ * part-wise MusicXML, the measures of the other parts are written to temporary files, which are appended to the
+ * output when the writer is closed. The memory used by the writer therefore does not grow with the length of
+ * the score.
+ * <p>
+ * The durations are written using a number of divisions per quarter note that is given when the writer is
+ * created. If a measure contains durations that cannot be expressed in whole divisions, the divisions of the
+ * part are increased from that measure onwards. For output that has the same divisions throughout, declare
+ * divisions with which all durations of the score can be written.
+ * <p>
+ * Implementations of this interface are not guaranteed to be thread-safe.
+ */
+public interface IncrementalMusicXmlWriter extends Closeable {
+
+	/**
+	 * Returns a writer that writes a score with the given attributes and parts to the given path.
+	 * The divisions start from one division per quarter note.
+	 *
+	 * @param path            the path to which the MusicXML file is written
+	 * @param scoreAttributes the attributes of the score, such as the title
+	 * @param parts           the parts of the score in the order in which they are in the score
+	 * @param compress        set true to write compressed MusicXML, otherwise writes uncompressed
+	 * @param minify          set true to produce minified MusicXML with no unnecessary whitespace
+	 * @return a writer that writes a score with the given attributes and parts to the given path
+	 * @throws IOException in case the output cannot be opened or the beginning of the score cannot be written
+	 */
+	static IncrementalMusicXmlWriter writerFor(Path path, Map<Score.Attribute, String> scoreAttributes,
+			List<PartDeclaration> parts, boolean compress, boolean minify) throws IOException {
+		return writerFor(path, scoreAttributes, parts, 1, compress, minify);
+	}
+
+	/**
+	 * Returns a writer that writes a score with the given attributes and parts to the given path using the
+	 * given divisions per quarter note.
+	 *
+	 * @param path            the path to which the MusicXML file is written
+	 * @param scoreAttributes the attributes of the score, such as the title
+	 * @param parts           the parts of the score in the order in which they are in the score
+	 * @param divisions       the number of divisions per quarter note with which durations are written
+	 * @param compress        set true to write compressed MusicXML, otherwise writes uncompressed
+	 * @param minify          set true to produce minified MusicXML with no unnecessary whitespace
+	 * @return a writer that writes a score with the given attributes and parts to the given path
+	 * @throws IOException in case the output cannot be opened or the beginning of the score cannot be written
+	 */
+	static IncrementalMusicXmlWriter writerFor(Path path, Map<Score.Attribute, String> scoreAttributes,
+			List<PartDeclaration> parts, int divisions, boolean compress, boolean minify) throws IOException {
+		return new IncrementalStaxWriter(path, null, scoreAttributes, parts, divisions, compress, minify);
+	}
+
+	/**
+	 * Returns a writer that writes a score with the given attributes and parts to the given output stream.
+	 * The divisions start from one division per quarter note.
+	 * <p>
+	 * The given stream is flushed but not closed when the writer is closed. Compressed output is written as a
+	 * complete .mxl container in which the MusicXML file is named score.musicxml.
+	 *
+	 * @param outputStream    the output stream to which the MusicXML is written
+	 * @param scoreAttributes the attributes of the score, such as the title
+	 * @param parts           the parts of the score in the order in which they are in the score
+	 * @param compress        set true to write compressed MusicXML, otherwise writes uncompressed
+	 * @param minify          set true to produce minified MusicXML with no unnecessary whitespace
+	 * @return a writer that writes a score with the given attributes and parts to the given output stream
+	 * @throws IOException in case the beginning of the score cannot be written
+	 */
+	static IncrementalMusicXmlWriter writerFor(OutputStream outputStream,
+			Map<Score.Attribute, String> scoreAttributes, List<PartDeclaration> parts, boolean compress,
+			boolean minify) throws IOException {
+		return writerFor(outputStream, scoreAttributes, parts, 1, compress, minify);
+	}
+
+	/**
+	 * Returns a writer that writes a score with the given attributes and parts to the given output stream using
+	 * the given divisions per quarter note.
+	 * <p>
+	 * The given stream is flushed but not closed when the writer is closed. Compressed output is written as a
+	 * complete .mxl container in which the MusicXML file is named score.musicxml.
+	 *
+	 * @param outputStream    the output stream to which the MusicXML is written
+	 * @param scoreAttributes the attributes of the score, such as the title
+	 * @param parts           the parts of the score in the order in which they are in the score
+	 * @param divisions       the number of divisions per quarter note with which durations are written
+	 * @param compress        set true to write compressed MusicXML, otherwise writes uncompressed
+	 * @param minify          set true to produce minified MusicXML with no unnecessary whitespace
+	 * @return a writer that writes a score with the given attributes and parts to the given output stream
+	 * @throws IOException in case the beginning of the score cannot be written
+	 */
+	static IncrementalMusicXmlWriter writerFor(OutputStream outputStream,
+			Map<Score.Attribute, String> scoreAttributes, List<PartDeclaration> parts, int divisions,
+			boolean compress, boolean minify) throws IOException {
+		return new IncrementalStaxWriter(null, outputStream, scoreAttributes, parts, divisions, compress, minify);
+	}
+
+	/**
+	 * Writes the given measure to the first staff of the part at the given index.
+	 *
+	 * @param partIndex the index of the part in the declared parts
+	 * @param measure   the measure that is written
+	 * @throws IOException in case the measure cannot be written
+	 */
+	void writeMeasure(int partIndex, Measure measure) throws IOException;
+
+	/**
+	 * Writes the given measure to the staff with the given number in the part at the given index.
+	 *
+	 * @param partIndex   the index of the part in the declared parts
+	 * @param staffNumber the number of the staff in the part, starting from one
+	 * @param measure     the measure that is written
+	 * @throws IOException in case the measure cannot be written
+	 */
+	void writeMeasure(int partIndex, int staffNumber, Measure measure) throws IOException;
+
+	/**
+	 * Finishes the score and closes this writer. Temporary files used by the writer are deleted.
+	 *
+	 * @throws IOException           in case the end of the score cannot be written
+	 * @throws IllegalStateException if the measures of some staves of a part are missing
+	 */
+	@Override
+	void close() throws IOException;
+}
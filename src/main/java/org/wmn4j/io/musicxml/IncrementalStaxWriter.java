@@ -0,0 +1,233 @@
+/*
+ * Distributed under the MIT license (see LICENSE.txt or https://opensource.org/licenses/MIT).
+ */
+package org.wmn4j.io.musicxml;
+
+import org.wmn4j.notation.Measure;
+import org.wmn4j.notation.Score;
+
+import javax.xml.stream.XMLStreamException;
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+final class IncrementalStaxWriter implements IncrementalMusicXmlWriter {
+
+	private static final String TEMPORARY_FILE_PREFIX = "wmn4j-part";
+	private static final String TEMPORARY_FILE_SUFFIX = ".xml";
+
+	private final OutputStream outputStream;
+	private final Utf8XmlEmitter writer;
+	private final List<PartOutput> parts;
+	private boolean isClosed;
+
+	/**
+	 * The output of a single part: the writer of the part contents and the measures that are waiting for the
+	 * measures of the other staves of the part.
+	 */
+	private static final class PartOutput {
+		private final PartContentWriter partWriter;
+		private final Utf8XmlEmitter writer;
+		private final Path temporaryFile;
+		private final OutputStream temporaryOutput;
+		private final List<ArrayDeque<Measure>> pendingMeasures;
+		private final List<Measure> measures;
+
+		PartOutput(PartDeclaration declaration, Utf8XmlEmitter writer, Path temporaryFile,
+				OutputStream temporaryOutput, int divisions) {
+			this.writer = writer;
+			this.temporaryFile = temporaryFile;
+			this.temporaryOutput = temporaryOutput;
+
+			final int staffCount = declaration.getStaffCount();
+			final List<Integer> staffNumbers = new ArrayList<>(staffCount);
+			this.pendingMeasures = new ArrayList<>(staffCount);
+			for (int staffNumber = 1; staffNumber <= staffCount; ++staffNumber) {
+				staffNumbers.add(staffNumber);
+				pendingMeasures.add(new ArrayDeque<>());
+			}
+
+			this.measures = new ArrayList<>(staffCount);
+			this.partWriter = new PartContentWriter(writer, divisions, staffNumbers, declaration.getStaffTypes(),
+					declaration.isMultiStaff());
+		}
+
+		boolean hasPendingMeasures() {
+			for (ArrayDeque<Measure> pending : pendingMeasures) {
+				if (!pending.isEmpty()) {
+					return true;
+				}
+			}
+
+			return false;
+		}
+
+		void write(int staffNumber, Measure measure) throws XMLStreamException {
+			pendingMeasures.get(staffNumber - 1).add(measure);
+
+			for (ArrayDeque<Measure> pending : pendingMeasures) {
+				if (pending.isEmpty()) {
+					return;
+				}
+			}
+
+			measures.clear();
+			for (ArrayDeque<Measure> pending : pendingMeasures) {
+				measures.add(pending.poll());
+			}
+
+			final int number = measures.get(0).getNumber();
+			for (Measure staffMeasure : measures) {
+				if (staffMeasure.getNumber() != number) {
+					throw new IllegalArgumentException("Measure numbers of the staves do not match: "
+							+ staffMeasure.getNumber() + " and " + number);
+				}
+			}
+
+			partWriter.adaptDivisions(measures);
+			partWriter.writeMeasure(number, measures);
+		}
+	}
+
+	IncrementalStaxWriter(Path path, OutputStream target, Map<Score.Attribute, String> scoreAttributes,
+			List<PartDeclaration> partDeclarations, int divisions, boolean compress, boolean minify)
+			throws IOException {
+		if (partDeclarations.isEmpty()) {
+			throw new IllegalArgumentException("Score must have at least one part");
+		}
+
+		if (divisions < 1) {
+			throw new IllegalArgumentException("Divisions must be positive, was " + divisions);
+		}
+
+		final OutputStream destination = path != null
+				? new FileOutputStream(path.toString())
+				: new StaxWriter.NonClosingOutputStream(Objects.requireNonNull(target));
+
+		final List<ScoreMetadata.PartInfo> partInfos = new ArrayList<>(partDeclarations.size());
+		for (PartDeclaration declaration : partDeclarations) {
+			partInfos.add(new ScoreMetadata.PartInfo("P" + (partInfos.size() + 1), declaration.getName(),
+					declaration.getAbbreviatedName().orElse(null)));
+		}
+
+		this.parts = new ArrayList<>(partDeclarations.size());
+		try {
+			this.outputStream = StaxWriter.createOutputStream(destination, StaxWriter.getFilename(path), compress,
+					minify);
+			this.writer = new Utf8XmlEmitter(outputStream, !minify);
+			StaxWriter.writeDocumentStart(writer, new ScoreMetadata(scoreAttributes, partInfos));
+
+			// The first part is written directly to the output and the rest to temporary files
+			// nested in the score-partwise element.
+			parts.add(new PartOutput(partDeclarations.get(0), writer, null, null, divisions));
+			for (int i = 1; i < partDeclarations.size(); ++i) {
+				final Path temporaryFile = Files.createTempFile(TEMPORARY_FILE_PREFIX, TEMPORARY_FILE_SUFFIX);
+				final OutputStream temporaryOutput = new BufferedOutputStream(Files.newOutputStream(temporaryFile));
+				parts.add(new PartOutput(partDeclarations.get(i), new Utf8XmlEmitter(temporaryOutput, !minify, 1),
+						temporaryFile, temporaryOutput, divisions));
+			}
+
+			for (int i = 0; i < parts.size(); ++i) {
+				parts.get(i).partWriter.writePartStart(partInfos.get(i).getId());
+			}
+		} catch (XMLStreamException e) {
+			closeAfterFailure(destination);
+			throw writingFailed(e);
+		} catch (IOException | RuntimeException e) {
+			closeAfterFailure(destination);
+			throw e;
+		}
+	}
+
+	private void closeAfterFailure(OutputStream destination) throws IOException {
+		try {
+			deleteTemporaryFiles();
+		} finally {
+			destination.close();
+		}
+	}
+
+	@Override
+	public void writeMeasure(int partIndex, Measure measure) throws IOException {
+		writeMeasure(partIndex, 1, measure);
+	}
+
+	@Override
+	public void writeMeasure(int partIndex, int staffNumber, Measure measure) throws IOException {
+		if (isClosed) {
+			throw new IllegalStateException("Cannot write measures to a closed writer");
+		}
+
+		if (partIndex < 0 || partIndex >= parts.size()) {
+			throw new IllegalArgumentException("No part at index " + partIndex);
+		}
+
+		final PartOutput part = parts.get(partIndex);
+		if (staffNumber < 1 || staffNumber > part.pendingMeasures.size()) {
+			throw new IllegalArgumentException("No staff " + staffNumber + " in part at index " + partIndex);
+		}
+
+		try {
+			part.write(staffNumber, Objects.requireNonNull(measure));
+		} catch (XMLStreamException e) {
+			throw writingFailed(e);
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (isClosed) {
+			return;
+		}
+
+		isClosed = true;
+		try {
+			for (int i = 0; i < parts.size(); ++i) {
+				if (parts.get(i).hasPendingMeasures()) {
+					throw new IllegalStateException("Measures are missing from some staves of part at index " + i);
+				}
+			}
+
+			for (PartOutput part : parts) {
+				part.partWriter.writePartEnd();
+				part.writer.flush();
+
+				if (part.temporaryFile != null) {
+					part.temporaryOutput.close();
+					Files.copy(part.temporaryFile, outputStream);
+				}
+			}
+
+			StaxWriter.writeDocumentEnd(writer);
+		} catch (XMLStreamException e) {
+			throw writingFailed(e);
+		} finally {
+			try {
+				deleteTemporaryFiles();
+			} finally {
+				outputStream.close();
+			}
+		}
+	}
+
+	private static IOException writingFailed(XMLStreamException cause) {
+		return new IOException("Writing MusicXML failed with exception: " + cause.getMessage(), cause);
+	}
+
+	private void deleteTemporaryFiles() throws IOException {
+		for (PartOutput part : parts) {
+			if (part.temporaryFile != null) {
+				part.temporaryOutput.close();
+				Files.deleteIfExists(part.temporaryFile);
+			}
+		}
+	}
+}
@@ -0,0 +1,393 @@
+/*
+ * Distributed under the MIT license (see LICENSE.txt or https://opensource.org/licenses/MIT).
+ */
+package org.wmn4j.io.musicxml;
+
+import org.wmn4j.Wmn4j;
+import org.wmn4j.io.ParsingFailureException;
+import org.wmn4j.io.binary.BinaryScoreReader;
+import org.wmn4j.io.binary.BinaryScoreWriter;
+import org.wmn4j.notation.Score;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+
+/**
+ * Represents a cache of parsed MusicXML files stored in a directory.
+ * <p>
+ * When a MusicXML file is read using the cache for the first time, the file is parsed using a
+ * {@link MusicXmlReader} and the score is stored in the cache directory in the binary format of
+ * {@link BinaryScoreWriter}. When the same file is read again, even in a later run, the score is read from
+ * the cache, which is much faster than parsing the MusicXML again. The options used for reading are part of
+ * the cache key, so a projection of a score read using {@link ReadOptions} is cached separately from the
+ * whole score.
+ * <p>
+ * The files are identified either by the hash of their contents or by their path, modification time,
+ * and size, as selected by the {@link KeyType}. When the total size of the cached scores exceeds the maximum
+ * size of the cache, the least recently used scores are removed. All cached scores are removed when the cache
+ * is opened with a different version of wmn4j than the one that stored them.
+ * <p>
+ * The numbers of reads that are served from the cache and that require parsing are available as hit and miss
+ * counts. A stored score that has been damaged is detected using a checksum and the file is parsed again.
+ * This class is thread-safe, but a cache directory should only be used by one cache instance at a time.
+ */
+public final class MusicXmlCache {
+
+	private static final String ENTRY_SUFFIX = ".score";
+	private static final String TEMPORARY_SUFFIX = ".tmp";
+	private static final String VERSION_FILE_NAME = "wmn4j-cache-version";
+	private static final String HASH_ALGORITHM = "SHA-256";
+	private static final String KEY_SEPARATOR = "|";
+	private static final int HASH_BUFFER_SIZE = 64 * 1024;
+	private static final int CHECKSUM_LENGTH = Integer.BYTES;
+
+	/**
+	 * The ways in which the MusicXML files are identified in the cache.
+	 */
+	public enum KeyType {
+		/**
+		 * Files are identified by the hash of their contents. The whole file is read for computing the hash,
+		 * which is fast compared to parsing it. Files with the same contents share the cached score regardless
+		 * of their paths.
+		 */
+		CONTENT,
+
+		/**
+		 * Files are identified by their absolute path, modification time, and size. The contents of the file
+		 * are not read when the score is found in the cache, but changes that keep the modification time and
+		 * size of the file unchanged are not detected.
+		 */
+		FILE_ATTRIBUTES
+	}
+
+	private final Path directory;
+	private final long maximumSize;
+	private final KeyType keyType;
+
+	// The sizes of the cached scores by their keys from the least recently used to the most recently used.
+	private final LinkedHashMap<String, Long> entrySizes = new LinkedHashMap<>(16, 0.75f, true);
+	private long size;
+
+	private final AtomicLong hitCount = new AtomicLong();
+	private final AtomicLong missCount = new AtomicLong();
+
+	private MusicXmlCache(Path directory, long maximumSize, KeyType keyType) {
+		this.directory = directory;
+		this.maximumSize = maximumSize;
+		this.keyType = keyType;
+	}
+
+	/**
+	 * Returns a cache that stores the parsed scores in the given directory and identifies files by the hash
+	 * of their contents. The directory is created if it does not exist.
+	 *
+	 * @param directory   the directory in which the parsed scores are stored
+	 * @param maximumSize the maximum total size of the stored scores in bytes
+	 * @return a cache that stores the parsed scores in the given directory
+	 * @throws IOException if the directory cannot be created or read
+	 */
+	public static MusicXmlCache open(Path directory, long maximumSize) throws IOException {
+		return open(directory, maximumSize, KeyType.CONTENT);
+	}
+
+	/**
+	 * Returns a cache that stores the parsed scores in the given directory and identifies files in the given
+	 * way. The directory is created if it does not exist. The scores already stored in the directory are used
+	 * if they have been stored by the same version of wmn4j, otherwise they are removed.
+	 *
+	 * @param directory   the directory in which the parsed scores are stored
+	 * @param maximumSize the maximum total size of the stored scores in bytes
+	 * @param keyType     the way in which files are identified
+	 * @return a cache that stores the parsed scores in the given directory
+	 * @throws IOException if the directory cannot be created or read
+	 */
+	public static MusicXmlCache open(Path directory, long maximumSize, KeyType keyType) throws IOException {
+		if (maximumSize < 0) {
+			throw new IllegalArgumentException("Maximum size cannot be negative, was " + maximumSize);
+		}
+
+		final MusicXmlCache cache = new MusicXmlCache(Objects.requireNonNull(directory), maximumSize,
+				Objects.requireNonNull(keyType));
+		cache.load();
+		return cache;
+	}
+
+	private void load() throws IOException {
+		Files.createDirectories(directory);
+
+		final Path versionFile = directory.resolve(VERSION_FILE_NAME);
+		final String version = Wmn4j.getVersion();
+		final boolean isSameVersion = Files.exists(versionFile)
+				&& Files.readString(versionFile, StandardCharsets.UTF_8).equals(version);
+
+		final List<Path> entries = new ArrayList<>();
+		try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+			for (Path file : files) {
+				final String name = file.getFileName().toString();
+				if (name.endsWith(TEMPORARY_SUFFIX) || (name.endsWith(ENTRY_SUFFIX) && !isSameVersion)) {
+					Files.deleteIfExists(file);
+				} else if (name.endsWith(ENTRY_SUFFIX)) {
+					entries.add(file);
+				}
+			}
+		}
+
+		if (!isSameVersion) {
+			Files.writeString(versionFile, version, StandardCharsets.UTF_8);
+		}
+
+		final Map<Path, BasicFileAttributes> attributes = new LinkedHashMap<>();
+		for (Path entry : entries) {
+			attributes.put(entry, Files.readAttributes(entry, BasicFileAttributes.class));
+		}
+
+		entries.sort(Comparator.comparing(entry -> attributes.get(entry).lastModifiedTime()));
+		synchronized (this) {
+			for (Path entry : entries) {
+				final String name = entry.getFileName().toString();
+				final long entrySize = attributes.get(entry).size();
+				entrySizes.put(name.substring(0, name.length() - ENTRY_SUFFIX.length()), entrySize);
+				size += entrySize;
+			}
+
+			evict();
+		}
+	}
+
+	/**
+	 * Returns the score in the MusicXML file at the given path. The score is read from the cache if it is
+	 * there, otherwise the file is read using a validating {@link MusicXmlReader} and the score is stored in
+	 * the cache.
+	 *
+	 * @param path the path of the MusicXML file
+	 * @return the score in the MusicXML file at the given path
+	 * @throws IOException             if the file is not found or reading the file fails
+	 * @throws ParsingFailureException if the file cannot be parsed
+	 */
+	public Score readScore(Path path) throws IOException, ParsingFailureException {
+		return readScore(path, ReadOptions.defaults());
+	}
+
+	/**
+	 * Returns the score in the MusicXML file at the given path read using the given options. The score is
+	 * read from the cache if it has been stored there using the same options, otherwise the file is read
+	 * using a {@link MusicXmlReader} and the score is stored in the cache.
+	 * <p>
+	 * The engine and the part parallelism of the options do not affect which score is read.
+	 *
+	 * @param path    the path of the MusicXML file
+	 * @param options the options for reading the file
+	 * @return the score in the MusicXML file at the given path
+	 * @throws IOException             if the file is not found or reading the file fails
+	 * @throws ParsingFailureException if the file cannot be parsed
+	 */
+	public Score readScore(Path path, ReadOptions options) throws IOException, ParsingFailureException {
+		final String key = computeKey(path, options);
+		final Path entry = getEntryPath(key);
+
+		if (touch(key)) {
+			try {
+				final byte[] contents = getStoredScore(Files.readAllBytes(entry));
+				final Score score = BinaryScoreReader.readerFor(contents).readScore();
+				Files.setLastModifiedTime(entry, FileTime.fromMillis(System.currentTimeMillis()));
+				hitCount.incrementAndGet();
+				return score;
+			} catch (NoSuchFileException | ParsingFailureException | RuntimeException e) {
+				// The stored score has been removed or damaged outside the cache, so the file is parsed again.
+				remove(key);
+			}
+		}
+
+		missCount.incrementAndGet();
+		final Score score;
+		try (MusicXmlReader reader = MusicXmlReader.readerFor(path, options)) {
+			score = reader.readScore();
+		}
+
+		store(key, withChecksum(BinaryScoreWriter.toBytes(score)));
+		return score;
+	}
+
+	/**
+	 * Returns the number of reads that have been served from the cache.
+	 *
+	 * @return the number of reads that have been served from the cache
+	 */
+	public long getHitCount() {
+		return hitCount.get();
+	}
+
+	/**
+	 * Returns the number of reads that have required parsing the MusicXML file.
+	 *
+	 * @return the number of reads that have required parsing the MusicXML file
+	 */
+	public long getMissCount() {
+		return missCount.get();
+	}
+
+	/**
+	 * Returns the total size of the cached scores in bytes.
+	 *
+	 * @return the total size of the cached scores in bytes
+	 */
+	public synchronized long getSize() {
+		return size;
+	}
+
+	/**
+	 * Returns the number of cached scores.
+	 *
+	 * @return the number of cached scores
+	 */
+	public synchronized int getEntryCount() {
+		return entrySizes.size();
+	}
+
+	/**
+	 * Removes all cached scores.
+	 *
+	 * @throws IOException if removing the stored scores fails
+	 */
+	public synchronized void clear() throws IOException {
+		for (String key : entrySizes.keySet()) {
+			Files.deleteIfExists(getEntryPath(key));
+		}
+
+		entrySizes.clear();
+		size = 0;
+	}
+
+	private Path getEntryPath(String key) {
+		return directory.resolve(key + ENTRY_SUFFIX);
+	}
+
+	private synchronized boolean touch(String key) {
+		return entrySizes.get(key) != null;
+	}
+
+	private synchronized void remove(String key) throws IOException {
+		final Long entrySize = entrySizes.remove(key);
+		if (entrySize != null) {
+			size -= entrySize;
+		}
+
+		Files.deleteIfExists(getEntryPath(key));
+	}
+
+	private static byte[] withChecksum(byte[] contents) {
+		final CRC32 checksum = new CRC32();
+		checksum.update(contents);
+		return ByteBuffer.allocate(contents.length + CHECKSUM_LENGTH).put(contents)
+				.putInt((int) checksum.getValue()).array();
+	}
+
+	/*
+	 * Returns the binary score stored in the given entry contents, or throws if the checksum of the score does
+	 * not match the one stored after it.
+	 */
+	private static byte[] getStoredScore(byte[] entryContents) throws ParsingFailureException {
+		if (entryContents.length >= CHECKSUM_LENGTH) {
+			final int length = entryContents.length - CHECKSUM_LENGTH;
+			final CRC32 checksum = new CRC32();
+			checksum.update(entryContents, 0, length);
+			if ((int) checksum.getValue() == ByteBuffer.wrap(entryContents).getInt(length)) {
+				return Arrays.copyOf(entryContents, length);
+			}
+		}
+
+		throw new ParsingFailureException("Cached score is damaged");
+	}
+
+	private void store(String key, byte[] contents) throws IOException {
+		if (contents.length > maximumSize) {
+			return;
+		}
+
+		// The score is written to a temporary file first, so that a partially written score is never read.
+		final Path temporaryFile = Files.createTempFile(directory, key, TEMPORARY_SUFFIX);
+		try {
+			Files.write(temporaryFile, contents);
+			Files.move(temporaryFile, getEntryPath(key), StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
+		} finally {
+			Files.deleteIfExists(temporaryFile);
+		}
+
+		synchronized (this) {
+			final Long previousSize = entrySizes.put(key, (long) contents.length);
+			size += contents.length - (previousSize != null ? previousSize : 0);
+			evict();
+		}
+	}
+
+	private synchronized void evict() throws IOException {
+		final Iterator<Map.Entry<String, Long>> iterator = entrySizes.entrySet().iterator();
+		while (size > maximumSize && iterator.hasNext()) {
+			final Map.Entry<String, Long> eldest = iterator.next();
+			Files.deleteIfExists(getEntryPath(eldest.getKey()));
+			size -= eldest.getValue();
+			iterator.remove();
+		}
+	}
+
+	private String computeKey(Path path, ReadOptions options) throws IOException {
+		final MessageDigest digest = createDigest();
+
+		if (keyType == KeyType.CONTENT) {
+			try (InputStream input = Files.newInputStream(path)) {
+				final byte[] buffer = new byte[HASH_BUFFER_SIZE];
+				int count;
+				while ((count = input.read(buffer)) > 0) {
+					digest.update(buffer, 0, count);
+				}
+			}
+		} else {
+			final BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+			digest.update(String.join(KEY_SEPARATOR, path.toAbsolutePath().normalize().toString(),
+					String.valueOf(attributes.lastModifiedTime().toMillis()), String.valueOf(attributes.size()))
+					.getBytes(StandardCharsets.UTF_8));
+		}
+
+		// Only the options that affect the read score are part of the key.
+		digest.update(KEY_SEPARATOR.getBytes(StandardCharsets.UTF_8));
+		digest.update(String.join(KEY_SEPARATOR, String.valueOf(options.isValidating()),
+				new TreeSet<>(options.getPartIds()).toString(), new TreeSet<>(options.getPartIndices()).toString(),
+				String.valueOf(options.getFirstMeasure()), String.valueOf(options.getLastMeasure()))
+				.getBytes(StandardCharsets.UTF_8));
+
+		return HexFormat.of().formatHex(digest.digest());
+	}
+
+	private static MessageDigest createDigest() {
+		try {
+			return MessageDigest.getInstance(HASH_ALGORITHM);
+		} catch (NoSuchAlgorithmException e) {
+			// Every Java platform is required to support SHA-256.
+			throw new IllegalStateException(e);
+		}
+	}
+}
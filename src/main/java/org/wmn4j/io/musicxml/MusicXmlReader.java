@@ -3,17 +3,75 @@
  */
 package org.wmn4j.io.musicxml;
 
+import org.wmn4j.io.ParsingFailureException;
 import org.wmn4j.io.ScoreReader;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
 import java.nio.file.Path;
+import java.util.Optional;
 
 /**
  * Represents a reader for MusicXML files.
  * <p>
+ * Besides files, MusicXML can be read from streams, channels, and from memory.
+ * For these sources both uncompressed MusicXML and compressed MusicXML (.mxl) contents
+ * are supported: compressed contents are recognized from the zip file signature at the
+ * start of the input, so no file extension is needed.
+ * <p>
+ * For reading many files one after another, readers that reuse their setup can be created
+ * using a {@link MusicXmlReaderSession}.
+ * <p>
  * Implementations of this interface are not guaranteed to be thread-safe.
  */
 public interface MusicXmlReader extends ScoreReader {
 
+	/**
+	 * Reads the next measure from the MusicXML file without reading the whole score into memory.
+	 * <p>
+	 * The measures are returned in the order in which they are in the file: all measures of the first
+	 * part, followed by all measures of the second part, and so on. For parts with multiple staves the
+	 * measures of all staves with the same measure number are returned one after another in the order of
+	 * the staff numbers.
+	 * <p>
+	 * A measure is returned only after all notations, such as ties and slurs, that connect its notes to
+	 * following notes have been read, so that the notes of returned measures are complete. Typically this
+	 * means that a measure is returned after at most a few following measures have been read, so scores
+	 * can be processed in memory that does not grow with the length of the score.
+	 * <p>
+	 * Reading measures one at a time cannot be combined with reading the whole score using the same reader.
+	 * The reader is closed after the last measure has been read.
+	 *
+	 * @return the next measure or empty if all measures have been read
+	 * @throws IOException             if the file is not found or reading the file fails
+	 * @throws ParsingFailureException if the file cannot be parsed
+	 * @throws IllegalStateException   if the score has already been read using this reader
+	 */
+	Optional<PartMeasure> readNextMeasure() throws IOException, ParsingFailureException;
+
+	/**
+	 * Reads the metadata of the score, such as the title, the creators, and the part list, without reading
+	 * the notation of the score.
+	 * <p>
+	 * If neither the score nor any measures have been read using this reader, only the header of the
+	 * MusicXML file is read: reading stops at the first part element and the reader is closed. For
+	 * compressed MusicXML, only as much of the main MusicXML file is decompressed as is needed for the
+	 * header. If the input is validated, only the header is validated. This makes reading the metadata
+	 * of a file much faster than reading the whole score, which is useful, for example, for indexing
+	 * large collections of files.
+	 * <p>
+	 * After reading only the metadata, the score or its measures cannot be read using the same reader.
+	 *
+	 * @return the metadata of the score
+	 * @throws IOException             if the file is not found or reading the file fails
+	 * @throws ParsingFailureException if the header of the file cannot be parsed
+	 */
+	ScoreMetadata readMetadata() throws IOException, ParsingFailureException;
+
 	/**
 	 * Returns a reader for the MusicXML file at the given path.
 	 * The MusicXML file is validated against the schema.
@@ -39,4 +97,140 @@ public interface MusicXmlReader extends ScoreReader {
 	static MusicXmlReader nonValidatingReaderFor(Path path) {
 		return new StaxReader(path, false);
 	}
+
+	/**
+	 * Returns a reader for the MusicXML file at the given path that reads the file using the given options.
+	 * <p>
+	 * The options can be used, for example, for reading only selected parts and measures of the score
+	 * or for selecting the {@link ReadOptions.Engine} used for parsing the file.
+	 *
+	 * @param path    the path of the file for which this reader is created
+	 * @param options the options for reading the file
+	 * @return a reader for the MusicXML file at the given path
+	 */
+	static MusicXmlReader readerFor(Path path, ReadOptions options) {
+		return new StaxReader(path, options);
+	}
+
+	/**
+	 * Returns a reader for the MusicXML contents of the given input stream that reads the contents
+	 * using the given options.
+	 * <p>
+	 * The options can be used, for example, for reading only selected parts and measures of the score.
+	 * The contents can be either uncompressed or compressed MusicXML. The given stream is
+	 * closed when the reader is closed.
+	 *
+	 * @param inputStream the stream from which the MusicXML is read
+	 * @param options     the options for reading the contents
+	 * @return a reader for the MusicXML contents of the given input stream
+	 */
+	static MusicXmlReader readerFor(InputStream inputStream, ReadOptions options) {
+		return new StaxReader(inputStream, options);
+	}
+
+	/**
+	 * Returns a reader for the MusicXML contents of the given input stream.
+	 * The MusicXML is validated against the schema.
+	 * The contents can be either uncompressed or compressed MusicXML. The given stream is
+	 * closed when the reader is closed.
+	 *
+	 * @param inputStream the stream from which the MusicXML is read
+	 * @return a reader for the MusicXML contents of the given input stream
+	 */
+	static MusicXmlReader readerFor(InputStream inputStream) {
+		return new StaxReader(inputStream, true);
+	}
+
+	/**
+	 * Returns a reader for the MusicXML contents of the given input stream that does not
+	 * validate the input against MusicXML schema.
+	 * The contents can be either uncompressed or compressed MusicXML. The given stream is
+	 * closed when the reader is closed.
+	 *
+	 * @param inputStream the stream from which the MusicXML is read
+	 * @return a reader for the MusicXML contents of the given input stream that skips validation
+	 */
+	static MusicXmlReader nonValidatingReaderFor(InputStream inputStream) {
+		return new StaxReader(inputStream, false);
+	}
+
+	/**
+	 * Returns a reader for the MusicXML contents in the given byte array.
+	 * The MusicXML is validated against the schema.
+	 * The contents can be either uncompressed or compressed MusicXML.
+	 * The array is not copied, so it should not be modified while it is read.
+	 *
+	 * @param contents the bytes of the MusicXML contents
+	 * @return a reader for the MusicXML contents in the given byte array
+	 */
+	static MusicXmlReader readerFor(byte[] contents) {
+		return readerFor(new ByteArrayInputStream(contents));
+	}
+
+	/**
+	 * Returns a reader for the MusicXML contents in the given byte array that does not
+	 * validate the input against MusicXML schema.
+	 * The contents can be either uncompressed or compressed MusicXML.
+	 * The array is not copied, so it should not be modified while it is read.
+	 *
+	 * @param contents the bytes of the MusicXML contents
+	 * @return a reader for the MusicXML contents in the given byte array that skips validation
+	 */
+	static MusicXmlReader nonValidatingReaderFor(byte[] contents) {
+		return nonValidatingReaderFor(new ByteArrayInputStream(contents));
+	}
+
+	/**
+	 * Returns a reader for the MusicXML contents in the remaining bytes of the given buffer.
+	 * The MusicXML is validated against the schema.
+	 * The contents can be either uncompressed or compressed MusicXML.
+	 * The position of the given buffer is not changed by reading and the bytes are not copied,
+	 * so the buffer contents should not be modified while they are read.
+	 *
+	 * @param contents the buffer with the bytes of the MusicXML contents
+	 * @return a reader for the MusicXML contents in the given buffer
+	 */
+	static MusicXmlReader readerFor(ByteBuffer contents) {
+		return readerFor(new ByteBufferInputStream(contents));
+	}
+
+	/**
+	 * Returns a reader for the MusicXML contents in the remaining bytes of the given buffer that
+	 * does not validate the input against MusicXML schema.
+	 * The contents can be either uncompressed or compressed MusicXML.
+	 * The position of the given buffer is not changed by reading and the bytes are not copied,
+	 * so the buffer contents should not be modified while they are read.
+	 *
+	 * @param contents the buffer with the bytes of the MusicXML contents
+	 * @return a reader for the MusicXML contents in the given buffer that skips validation
+	 */
+	static MusicXmlReader nonValidatingReaderFor(ByteBuffer contents) {
+		return nonValidatingReaderFor(new ByteBufferInputStream(contents));
+	}
+
+	/**
+	 * Returns a reader for the MusicXML contents read from the given channel.
+	 * The MusicXML is validated against the schema.
+	 * The contents can be either uncompressed or compressed MusicXML. The given channel is
+	 * closed when the reader is closed.
+	 *
+	 * @param channel the channel from which the MusicXML is read
+	 * @return a reader for the MusicXML contents read from the given channel
+	 */
+	static MusicXmlReader readerFor(ReadableByteChannel channel) {
+		return readerFor(Channels.newInputStream(channel));
+	}
+
+	/**
+	 * Returns a reader for the MusicXML contents read from the given channel that does not
+	 * validate the input against MusicXML schema.
+	 * The contents can be either uncompressed or compressed MusicXML. The given channel is
+	 * closed when the reader is closed.
+	 *
+	 * @param channel the channel from which the MusicXML is read
+	 * @return a reader for the MusicXML contents read from the given channel that skips validation
+	 */
+	static MusicXmlReader nonValidatingReaderFor(ReadableByteChannel channel) {
+		return nonValidatingReaderFor(Channels.newInputStream(channel));
+	}
 }
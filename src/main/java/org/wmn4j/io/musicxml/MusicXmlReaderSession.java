@@ -0,0 +1,178 @@
+/*
+ * Distributed under the MIT license (see LICENSE.txt or https://opensource.org/licenses/MIT).
+ */
+package org.wmn4j.io.musicxml;
+
+import org.wmn4j.notation.MeasureBuilder;
+import org.wmn4j.notation.PartBuilder;
+import org.xml.sax.SAXException;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.validation.ValidatorHandler;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.Objects;
+import java.util.function.BiConsumer;
+
+/**
+ * Represents a session for reading multiple MusicXML files one after another.
+ * <p>
+ * Creating a {@link MusicXmlReader} using the static factory methods of the interface sets up the XML parser
+ * factory, the schema validator, and the contexts used for reading the notation anew for every reader.
+ * When many small files are read back to back, this setup and the garbage it creates can take a significant
+ * part of the reading time. The readers created by a session instead share the parser factory, the
+ * validator, and the reading contexts of the session, which are reset between files.
+ * <p>
+ * Only one reader created by a session can be in use at a time: a reader must be closed before the next
+ * reader is created using the same session. Readers close themselves after the score or all the measures
+ * have been read, so typically this only requires using try-with-resources for the readers.
+ * <p>
+ * This class is not thread-safe. A session should be used by one thread at a time, for example, by using
+ * the session returned by {@link #ofCurrentThread()}.
+ */
+public final class MusicXmlReaderSession {
+
+	private static final ThreadLocal<MusicXmlReaderSession> THREAD_SESSIONS = ThreadLocal.withInitial(
+			MusicXmlReaderSession::new);
+
+	private final NotationReadResolver notationResolver = new NotationReadResolver();
+	private XMLInputFactory inputFactory;
+	private PartContext partContext;
+	private ValidatorHandler validator;
+	private StaxReader activeReader;
+
+	MusicXmlReaderSession() {
+	}
+
+	/**
+	 * Returns a new session.
+	 *
+	 * @return a new session
+	 */
+	public static MusicXmlReaderSession create() {
+		return new MusicXmlReaderSession();
+	}
+
+	/**
+	 * Returns the session of the current thread. The session is created when it is first requested
+	 * in the thread and the same session is returned for all subsequent calls in the same thread.
+	 *
+	 * @return the session of the current thread
+	 */
+	public static MusicXmlReaderSession ofCurrentThread() {
+		return THREAD_SESSIONS.get();
+	}
+
+	/**
+	 * Returns a reader for the MusicXML file at the given path that uses this session.
+	 * The MusicXML file is validated against the schema.
+	 *
+	 * @param path the path of the file for which the reader is created
+	 * @return a reader for the MusicXML file at the given path
+	 * @throws IllegalStateException if the previous reader created using this session has not been closed
+	 */
+	public MusicXmlReader readerFor(Path path) {
+		return readerFor(path, ReadOptions.defaults());
+	}
+
+	/**
+	 * Returns a reader for the MusicXML file at the given path that uses this session and reads the file
+	 * using the given options.
+	 *
+	 * @param path    the path of the file for which the reader is created
+	 * @param options the options for reading the file
+	 * @return a reader for the MusicXML file at the given path
+	 * @throws IllegalStateException if the previous reader created using this session has not been closed
+	 */
+	public MusicXmlReader readerFor(Path path, ReadOptions options) {
+		return activate(new StaxReader(path, options, this));
+	}
+
+	/**
+	 * Returns a reader for the MusicXML contents of the given input stream that uses this session and reads
+	 * the contents using the given options. The contents can be either uncompressed or compressed MusicXML.
+	 * The given stream is closed when the reader is closed.
+	 *
+	 * @param inputStream the stream from which the MusicXML is read
+	 * @param options     the options for reading the contents
+	 * @return a reader for the MusicXML contents of the given input stream
+	 * @throws IllegalStateException if the previous reader created using this session has not been closed
+	 */
+	public MusicXmlReader readerFor(InputStream inputStream, ReadOptions options) {
+		return activate(new StaxReader(inputStream, options, this));
+	}
+
+	private MusicXmlReader activate(StaxReader reader) {
+		if (activeReader != null) {
+			throw new IllegalStateException("The previous reader of the session must be closed before "
+					+ "creating a new reader");
+		}
+
+		activeReader = reader;
+		return reader;
+	}
+
+	/**
+	 * Releases the reading contexts of this session from the given reader when the reader is closed, so that
+	 * the session does not keep the builders of the read score reachable. Only the parser factory, the
+	 * validator, and the empty reading contexts are kept for the next reader.
+	 *
+	 * @param reader the reader that is closed
+	 */
+	void release(StaxReader reader) {
+		if (activeReader != null && activeReader != reader) {
+			// The contexts are in use by another reader.
+			return;
+		}
+
+		activeReader = null;
+		if (partContext != null) {
+			partContext.release();
+		}
+
+		notationResolver.release();
+	}
+
+	XMLInputFactory getInputFactory() {
+		if (inputFactory == null) {
+			inputFactory = XMLInputFactory.newInstance();
+			// Disable using validation using the DTD references in the file as this
+			// could download DTD files which can be slow. Instead do validation using
+			// the schema included in the resources.
+			inputFactory.setProperty(XMLInputFactory.IS_VALIDATING, false);
+			inputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+		}
+
+		return inputFactory;
+	}
+
+	NotationReadResolver getNotationResolver() {
+		return notationResolver;
+	}
+
+	ValidatorHandler getValidator() throws SAXException {
+		if (validator == null) {
+			validator = MusicXmlSchema.get().newValidatorHandler();
+		}
+
+		return validator;
+	}
+
+	/**
+	 * Returns the part context of this session reset for reading a new part.
+	 *
+	 * @param partBuilder             the builder of the part that is read
+	 * @param finishedMeasureConsumer the consumer for the staff numbers and builders of finished measures
+	 * @return the part context of this session reset for reading a new part
+	 */
+	PartContext getPartContext(PartBuilder partBuilder, BiConsumer<Integer, MeasureBuilder> finishedMeasureConsumer) {
+		Objects.requireNonNull(finishedMeasureConsumer);
+		if (partContext == null) {
+			partContext = new PartContext(partBuilder, finishedMeasureConsumer);
+		} else {
+			partContext.reset(partBuilder, finishedMeasureConsumer);
+		}
+
+		return partContext;
+	}
+}
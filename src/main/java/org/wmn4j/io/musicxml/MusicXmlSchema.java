@@ -0,0 +1,56 @@
+/*
+ * Distributed under the MIT license (see LICENSE.txt or https://opensource.org/licenses/MIT).
+ */
+package org.wmn4j.io.musicxml;
+
+import org.xml.sax.SAXException;
+
+import javax.xml.XMLConstants;
+import javax.xml.validation.Schema;
+import javax.xml.validation.SchemaFactory;
+import java.net.URL;
+
+/**
+ * Holds the compiled MusicXML schema that is shared by all validating readers.
+ * <p>
+ * Compiling the MusicXML schema is far more expensive than validating a typical document,
+ * so the schema is compiled only once when it is first needed. Compiled {@link Schema} instances
+ * are immutable and thread-safe, so the same instance can be used concurrently by any number of readers.
+ */
+final class MusicXmlSchema {
+
+	private static final String MUSICXML_V4_0_SCHEMA_PATH = "org/wmn4j/io/musicxml/musicxml.xsd";
+
+	private static volatile Schema schema;
+
+	private MusicXmlSchema() {
+		// Not meant to be instantiated.
+	}
+
+	/**
+	 * Returns the compiled MusicXML 4.0 schema.
+	 *
+	 * @return the compiled MusicXML 4.0 schema
+	 * @throws SAXException if the schema cannot be compiled
+	 */
+	static Schema get() throws SAXException {
+		Schema compiled = schema;
+		if (compiled == null) {
+			synchronized (MusicXmlSchema.class) {
+				compiled = schema;
+				if (compiled == null) {
+					compiled = compile();
+					schema = compiled;
+				}
+			}
+		}
+
+		return compiled;
+	}
+
+	private static Schema compile() throws SAXException {
+		final SchemaFactory factory = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI);
+		final URL schemaUrl = MusicXmlSchema.class.getClassLoader().getResource(MUSICXML_V4_0_SCHEMA_PATH);
+		return factory.newSchema(schemaUrl);
+	}
+}
@@ -6,6 +6,11 @@ package org.wmn4j.io.musicxml;
 import org.wmn4j.io.ScoreWriter;
 import org.wmn4j.notation.Score;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
 import java.nio.file.Path;
 
 /**
@@ -13,6 +18,11 @@ import java.nio.file.Path;
  * The default MusicXML version for output is currently 4.0.
  * Only part-wise scores are currently supported.
  * <p>
+ * Besides files, MusicXML can be written to streams, channels, and into memory, for example,
+ * for sending it over a network without writing it to a temporary file. For all of these both
+ * uncompressed and compressed MusicXML (.mxl) output is supported. The output can be configured using
+ * {@link WriteOptions}.
+ * <p>
  * Implementations of this interface are not guaranteed to be thread-safe.
  */
 public interface MusicXmlWriter extends ScoreWriter {
@@ -33,4 +43,106 @@ public interface MusicXmlWriter extends ScoreWriter {
 	static MusicXmlWriter writerFor(Score score, Path path, boolean compress, boolean minify) {
 		return new StaxWriter(score, path, compress, minify);
 	}
+
+	/**
+	 * Returns an instance of a writer for the given {@link Score} and path that writes the MusicXML using
+	 * the given options.
+	 *
+	 * @param score   the score for which the writer is created
+	 * @param path    the path to which the MusicXML file is written
+	 * @param options the options for writing the MusicXML
+	 * @return an instance of a writer for the given {@link Score}
+	 */
+	static MusicXmlWriter writerFor(Score score, Path path, WriteOptions options) {
+		return new StaxWriter(score, path, options);
+	}
+
+	/**
+	 * Returns an instance of a writer that writes the MusicXML of the given {@link Score} to the given
+	 * output stream.
+	 * <p>
+	 * The given stream is flushed but not closed when the writer is closed, so that the caller can
+	 * continue to use it. Compressed output is written as a complete .mxl container in which the
+	 * MusicXML file is named score.musicxml.
+	 *
+	 * @param score        the score for which the writer is created
+	 * @param outputStream the output stream to which the MusicXML is written
+	 * @param compress     set true to write compressed MusicXML, otherwise writes uncompressed
+	 * @param minify       set true to produce minified MusicXML with no unnecessary whitespace
+	 * @return an instance of a writer for the given {@link Score}
+	 */
+	static MusicXmlWriter writerFor(Score score, OutputStream outputStream, boolean compress, boolean minify) {
+		return new StaxWriter(score, outputStream, compress, minify);
+	}
+
+	/**
+	 * Returns an instance of a writer that writes the MusicXML of the given {@link Score} to the given
+	 * output stream using the given options.
+	 * <p>
+	 * The given stream is flushed but not closed when the writer is closed, so that the caller can
+	 * continue to use it. Compressed output is written as a complete .mxl container in which the
+	 * MusicXML file is named score.musicxml.
+	 *
+	 * @param score        the score for which the writer is created
+	 * @param outputStream the output stream to which the MusicXML is written
+	 * @param options      the options for writing the MusicXML
+	 * @return an instance of a writer for the given {@link Score}
+	 */
+	static MusicXmlWriter writerFor(Score score, OutputStream outputStream, WriteOptions options) {
+		return new StaxWriter(score, outputStream, options);
+	}
+
+	/**
+	 * Returns an instance of a writer that writes the MusicXML of the given {@link Score} to the given
+	 * channel.
+	 * <p>
+	 * The given channel is not closed when the writer is closed, so that the caller can continue to use it.
+	 * Compressed output is written as a complete .mxl container in which the MusicXML file is named
+	 * score.musicxml.
+	 *
+	 * @param score    the score for which the writer is created
+	 * @param channel  the channel to which the MusicXML is written
+	 * @param compress set true to write compressed MusicXML, otherwise writes uncompressed
+	 * @param minify   set true to produce minified MusicXML with no unnecessary whitespace
+	 * @return an instance of a writer for the given {@link Score}
+	 */
+	static MusicXmlWriter writerFor(Score score, WritableByteChannel channel, boolean compress, boolean minify) {
+		return writerFor(score, Channels.newOutputStream(channel), compress, minify);
+	}
+
+	/**
+	 * Returns the MusicXML of the given {@link Score} as bytes.
+	 * <p>
+	 * Compressed output is a complete .mxl container in which the MusicXML file is named score.musicxml.
+	 * The returned bytes can be read using {@link MusicXmlReader#readerFor(byte[])}.
+	 *
+	 * @param score    the score whose MusicXML is returned
+	 * @param compress set true to return compressed MusicXML, otherwise returns uncompressed
+	 * @param minify   set true to produce minified MusicXML with no unnecessary whitespace
+	 * @return the bytes of the MusicXML of the given score
+	 * @throws IOException in case the MusicXML cannot be written
+	 */
+	static byte[] toBytes(Score score, boolean compress, boolean minify) throws IOException {
+		return toBytes(score, WriteOptions.defaults().withCompression(compress).withMinification(minify));
+	}
+
+	/**
+	 * Returns the MusicXML of the given {@link Score} written using the given options as bytes.
+	 * <p>
+	 * Compressed output is a complete .mxl container in which the MusicXML file is named score.musicxml.
+	 * The returned bytes can be read using {@link MusicXmlReader#readerFor(byte[])}.
+	 *
+	 * @param score   the score whose MusicXML is returned
+	 * @param options the options for writing the MusicXML
+	 * @return the bytes of the MusicXML of the given score
+	 * @throws IOException in case the MusicXML cannot be written
+	 */
+	static byte[] toBytes(Score score, WriteOptions options) throws IOException {
+		final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		try (MusicXmlWriter writer = writerFor(score, outputStream, options)) {
+			writer.write();
+		}
+
+		return outputStream.toByteArray();
+	}
 }
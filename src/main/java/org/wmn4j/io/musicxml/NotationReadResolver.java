@@ -48,6 +48,12 @@ class NotationReadResolver {
 		return false;
 	}
 
+	boolean hasUnresolvedNotations() {
+		return unresolvedNotations.values().stream()
+				.flatMap(unresolvedForVoices -> unresolvedForVoices.values().stream())
+				.anyMatch(unresolveds -> !unresolveds.isEmpty());
+	}
+
 	void addNotationToStartOrContinue(int notationNumber, Notation.Type notationType,
 			Notation.Style notationStyle) {
 		notationsToStartOrContinue.add(new Unresolved(notationNumber, notationType, notationStyle));
@@ -155,6 +161,18 @@ class NotationReadResolver {
 		currentPartContext = partContext;
 		currentPartContext.setArpeggioResolver(this::resolveArpeggios);
 		unresolvedNotations.clear();
+		notationsToStartOrContinue.clear();
+		notationsToEnd.clear();
+	}
+
+	/**
+	 * Releases the part context and the builders of the unresolved notations after reading.
+	 */
+	void release() {
+		currentPartContext = null;
+		unresolvedNotations.clear();
+		notationsToStartOrContinue.clear();
+		notationsToEnd.clear();
 	}
 
 	class Unresolved {
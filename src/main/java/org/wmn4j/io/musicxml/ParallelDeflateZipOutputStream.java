@@ -0,0 +1,324 @@
+/*
+ * Distributed under the MIT license (see LICENSE.txt or https://opensource.org/licenses/MIT).
+ */
+package org.wmn4j.io.musicxml;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Output stream that writes a zip archive with two entries: a small entry whose contents are given up front,
+ * such as the container metadata of an .mxl file, followed by a main entry whose contents are written to
+ * this stream and deflated in parallel.
+ * <p>
+ * The contents of the main entry are split into blocks that are deflated on separate threads. Like in pigz,
+ * each block is compressed using the end of the previous block as the dictionary, and every block except the
+ * last ends with a sync flush, so that the compressed blocks can be concatenated into a single deflate stream
+ * in the order of the blocks. The checksum and sizes of the main entry are written in a data descriptor after
+ * the compressed data, so the output is streamed without seeking. The number of blocks held in memory at a
+ * time is bounded. Entries larger than 4 GiB are not supported.
+ * <p>
+ * This class is not thread-safe.
+ */
+final class ParallelDeflateZipOutputStream extends OutputStream {
+
+	static final int BLOCK_SIZE = 128 * 1024;
+	private static final int DICTIONARY_SIZE = 32 * 1024;
+	private static final int OUTPUT_BUFFER_SIZE = 16 * 1024;
+
+	private static final int LOCAL_FILE_HEADER_SIGNATURE = 0x04034b50;
+	private static final int DATA_DESCRIPTOR_SIGNATURE = 0x08074b50;
+	private static final int CENTRAL_FILE_HEADER_SIGNATURE = 0x02014b50;
+	private static final int END_OF_CENTRAL_DIRECTORY_SIGNATURE = 0x06054b50;
+	private static final int VERSION = 20;
+	private static final int DATA_DESCRIPTOR_FLAG = 0x0008;
+	private static final int DEFLATED = 8;
+	private static final long MAX_SIZE = 0xFFFFFFFFL;
+
+	private final OutputStream destination;
+	private final int level;
+	private final ExecutorService executor;
+	private final int maxBlocksInProgress;
+	private final ArrayDeque<Future<byte[]>> blocksInProgress = new ArrayDeque<>();
+	private final CRC32 crc = new CRC32();
+	private final int dosTime;
+	private final int dosDate;
+
+	private final byte[] firstEntryName;
+	private final byte[] firstEntryContents;
+	private final long firstEntryCompressedSize;
+	private final long firstEntryCrc;
+	private final byte[] firstEntryData;
+	private final byte[] mainEntryName;
+	private long mainEntryOffset;
+
+	private byte[] block = new byte[BLOCK_SIZE];
+	private int blockLength;
+	private byte[] dictionary;
+	private long uncompressedSize;
+	private long compressedSize;
+	private boolean isClosed;
+
+	/**
+	 * Creates a stream that writes a zip archive to the given destination. The first entry with the given
+	 * contents is written immediately, and the contents of the main entry are written to the created stream.
+	 * The destination is closed when the created stream is closed.
+	 *
+	 * @param destination        the stream to which the zip archive is written
+	 * @param firstEntryName     the name of the entry written before the main entry
+	 * @param firstEntryContents the contents of the entry written before the main entry
+	 * @param mainEntryName      the name of the main entry
+	 * @param level              the compression level of the entries
+	 * @param parallelism        the maximum number of blocks deflated in parallel
+	 * @throws IOException if writing the first entry fails
+	 */
+	ParallelDeflateZipOutputStream(OutputStream destination, String firstEntryName, byte[] firstEntryContents,
+			String mainEntryName, int level, int parallelism) throws IOException {
+		this.destination = new BufferedOutputStream(destination, OUTPUT_BUFFER_SIZE);
+		this.level = level;
+		this.firstEntryName = firstEntryName.getBytes(StandardCharsets.UTF_8);
+		this.firstEntryContents = firstEntryContents;
+		this.mainEntryName = mainEntryName.getBytes(StandardCharsets.UTF_8);
+
+		final LocalDateTime now = LocalDateTime.now();
+		this.dosTime = (now.getHour() << 11) | (now.getMinute() << 5) | (now.getSecond() / 2);
+		this.dosDate = ((now.getYear() - 1980) << 9) | (now.getMonthValue() << 5) | now.getDayOfMonth();
+
+		final CRC32 firstEntryChecksum = new CRC32();
+		firstEntryChecksum.update(firstEntryContents);
+		this.firstEntryCrc = firstEntryChecksum.getValue();
+		this.firstEntryData = deflate(firstEntryContents, firstEntryContents.length, null, level, true);
+		this.firstEntryCompressedSize = firstEntryData.length;
+
+		this.executor = Executors.newFixedThreadPool(parallelism);
+		this.maxBlocksInProgress = 2 * parallelism;
+
+		try {
+			writeLocalFileHeader(this.firstEntryName, 0, firstEntryCrc, firstEntryCompressedSize,
+					firstEntryContents.length);
+			this.destination.write(firstEntryData);
+			mainEntryOffset = 30L + this.firstEntryName.length + firstEntryData.length;
+			writeLocalFileHeader(this.mainEntryName, DATA_DESCRIPTOR_FLAG, 0, 0, 0);
+		} catch (IOException | RuntimeException e) {
+			executor.shutdownNow();
+			throw e;
+		}
+	}
+
+	@Override
+	public void write(int value) throws IOException {
+		if (blockLength == BLOCK_SIZE) {
+			submitBlock(false);
+		}
+
+		block[blockLength] = (byte) value;
+		++blockLength;
+	}
+
+	@Override
+	public void write(byte[] bytes, int offset, int length) throws IOException {
+		int position = offset;
+		int remaining = length;
+		while (remaining > 0) {
+			if (blockLength == BLOCK_SIZE) {
+				submitBlock(false);
+			}
+
+			final int count = Math.min(remaining, BLOCK_SIZE - blockLength);
+			System.arraycopy(bytes, position, block, blockLength, count);
+			blockLength += count;
+			position += count;
+			remaining -= count;
+		}
+	}
+
+	/**
+	 * Flushes the blocks that have been deflated to the destination. The block that is being filled is not
+	 * deflated until it is full or the stream is closed, because ending blocks early would make the
+	 * compression worse.
+	 *
+	 * @throws IOException if writing to the destination fails
+	 */
+	@Override
+	public void flush() throws IOException {
+		while (!blocksInProgress.isEmpty() && blocksInProgress.peek().isDone()) {
+			writeCompressedBlock(blocksInProgress.poll());
+		}
+
+		destination.flush();
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (isClosed) {
+			return;
+		}
+
+		isClosed = true;
+		try {
+			submitBlock(true);
+			while (!blocksInProgress.isEmpty()) {
+				writeCompressedBlock(blocksInProgress.poll());
+			}
+
+			if (uncompressedSize > MAX_SIZE || compressedSize > MAX_SIZE) {
+				throw new IOException("MusicXML file is too large for an .mxl container");
+			}
+
+			writeInt(DATA_DESCRIPTOR_SIGNATURE);
+			writeInt(crc.getValue());
+			writeInt(compressedSize);
+			writeInt(uncompressedSize);
+
+			final long centralDirectoryOffset = mainEntryOffset + 30 + mainEntryName.length + compressedSize + 16;
+			writeCentralFileHeader(firstEntryName, 0, firstEntryCrc, firstEntryCompressedSize,
+					firstEntryContents.length, 0);
+			writeCentralFileHeader(mainEntryName, DATA_DESCRIPTOR_FLAG, crc.getValue(), compressedSize,
+					uncompressedSize, mainEntryOffset);
+			final long centralDirectorySize = 2 * 46L + firstEntryName.length + mainEntryName.length;
+
+			writeInt(END_OF_CENTRAL_DIRECTORY_SIGNATURE);
+			writeShort(0);
+			writeShort(0);
+			writeShort(2);
+			writeShort(2);
+			writeInt(centralDirectorySize);
+			writeInt(centralDirectoryOffset);
+			writeShort(0);
+		} finally {
+			executor.shutdownNow();
+			destination.close();
+		}
+	}
+
+	private void submitBlock(boolean isLast) throws IOException {
+		final byte[] input = block;
+		final int inputLength = blockLength;
+		final byte[] inputDictionary = dictionary;
+
+		crc.update(input, 0, inputLength);
+		uncompressedSize += inputLength;
+		blocksInProgress.add(executor.submit(() -> deflate(input, inputLength, inputDictionary, level, isLast)));
+
+		if (!isLast) {
+			dictionary = Arrays.copyOfRange(input, inputLength - DICTIONARY_SIZE, inputLength);
+			block = new byte[BLOCK_SIZE];
+			blockLength = 0;
+		}
+
+		while (blocksInProgress.size() > maxBlocksInProgress) {
+			writeCompressedBlock(blocksInProgress.poll());
+		}
+	}
+
+	private void writeCompressedBlock(Future<byte[]> compressedBlock) throws IOException {
+		final byte[] compressed;
+		try {
+			compressed = compressedBlock.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while compressing MusicXML");
+		} catch (ExecutionException e) {
+			throw new IOException("Compressing MusicXML failed with exception: " + e.getCause(), e.getCause());
+		}
+
+		destination.write(compressed);
+		compressedSize += compressed.length;
+	}
+
+	/*
+	 * Deflates the given input as raw deflate data. Blocks other than the last end with a sync flush, so that
+	 * the next block starts at a byte boundary.
+	 */
+	private static byte[] deflate(byte[] input, int length, byte[] dictionary, int level, boolean isLast) {
+		final Deflater deflater = new Deflater(level, true);
+		try {
+			if (dictionary != null) {
+				deflater.setDictionary(dictionary);
+			}
+
+			deflater.setInput(input, 0, length);
+			final ByteArrayOutputStream output = new ByteArrayOutputStream(length / 2 + 64);
+			final byte[] buffer = new byte[OUTPUT_BUFFER_SIZE];
+
+			if (isLast) {
+				deflater.finish();
+				while (!deflater.finished()) {
+					output.write(buffer, 0, deflater.deflate(buffer));
+				}
+			} else {
+				int count;
+				do {
+					count = deflater.deflate(buffer, 0, buffer.length, Deflater.SYNC_FLUSH);
+					output.write(buffer, 0, count);
+				} while (count == buffer.length);
+			}
+
+			return output.toByteArray();
+		} finally {
+			deflater.end();
+		}
+	}
+
+	private void writeLocalFileHeader(byte[] name, int flags, long entryCrc, long entryCompressedSize,
+			long entryUncompressedSize) throws IOException {
+		writeInt(LOCAL_FILE_HEADER_SIGNATURE);
+		writeShort(VERSION);
+		writeShort(flags);
+		writeShort(DEFLATED);
+		writeShort(dosTime);
+		writeShort(dosDate);
+		writeInt(entryCrc);
+		writeInt(entryCompressedSize);
+		writeInt(entryUncompressedSize);
+		writeShort(name.length);
+		writeShort(0);
+		destination.write(name);
+	}
+
+	private void writeCentralFileHeader(byte[] name, int flags, long entryCrc, long entryCompressedSize,
+			long entryUncompressedSize, long localHeaderOffset) throws IOException {
+		writeInt(CENTRAL_FILE_HEADER_SIGNATURE);
+		writeShort(VERSION);
+		writeShort(VERSION);
+		writeShort(flags);
+		writeShort(DEFLATED);
+		writeShort(dosTime);
+		writeShort(dosDate);
+		writeInt(entryCrc);
+		writeInt(entryCompressedSize);
+		writeInt(entryUncompressedSize);
+		writeShort(name.length);
+		// Extra field, comment, disk number, and internal and external attributes
+		writeShort(0);
+		writeShort(0);
+		writeShort(0);
+		writeShort(0);
+		writeInt(0);
+		writeInt(localHeaderOffset);
+		destination.write(name);
+	}
+
+	private void writeShort(int value) throws IOException {
+		destination.write(value & 0xFF);
+		destination.write((value >>> 8) & 0xFF);
+	}
+
+	private void writeInt(long value) throws IOException {
+		writeShort((int) (value & 0xFFFF));
+		writeShort((int) ((value >>> 16) & 0xFFFF));
+	}
+}
@@ -8,11 +8,13 @@ import org.wmn4j.notation.Barline;
 import org.wmn4j.notation.ChordSymbolBuilder;
 import org.wmn4j.notation.Clef;
 import org.wmn4j.notation.Duration;
+import org.wmn4j.notation.DurationAccumulator;
 import org.wmn4j.notation.DurationalBuilder;
 import org.wmn4j.notation.GraceNoteBuilder;
 import org.wmn4j.notation.Lyric;
 import org.wmn4j.notation.MeasureBuilder;
 import org.wmn4j.notation.NoteBuilder;
+import org.wmn4j.notation.NoteInterner;
 import org.wmn4j.notation.Ornamental;
 import org.wmn4j.notation.OrnamentalBuilder;
 import org.wmn4j.notation.Part;
@@ -23,8 +25,6 @@ import org.wmn4j.notation.access.Offset;
 import org.wmn4j.notation.directions.Direction;
 import org.wmn4j.notation.techniques.Technique;
 
-import java.util.ArrayList;
-import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -55,7 +55,8 @@ final class PartContext {
 	private Set<Integer> staves = new HashSet<>();
 	private BiConsumer<Integer, Integer> arpeggioResolver;
 
-	private final PartBuilder partBuilder;
+	private PartBuilder partBuilder;
+	private BiConsumer<Integer, MeasureBuilder> finishedMeasureConsumer;
 
 	private NoteBuilder prevNoteBuilder;
 
@@ -70,19 +71,97 @@ final class PartContext {
 	private Map<Integer, MeasureBuilder> measureBuilders = new HashMap<>();
 	private Map<Integer, OrnamentalBuffer> ornamentalNoteBuffers = new HashMap<>();
 
-	// Offset durations are handled as a list even though the forward element in
+	// Offset durations are handled as a single sum even though the forward element in
 	// MusicXML may contain a staff number (optional). However, the purpose of that
-	// is so unclear that it is ignored.
-	private Collection<Duration> offsetDurations = new ArrayList<>();
-	private Collection<Duration> backupDurations = new ArrayList<>();
+	// is so unclear that it is ignored. The durations are positive, so the sums are zero
+	// only when no durations have been added.
+	private final DurationAccumulator offsetDurations = new DurationAccumulator();
+	private final DurationAccumulator backupDurations = new DurationAccumulator();
 
 	private Map<Technique.AdditionalValue, Object> harmonicValues = new HashMap<>();
 
+	private NoteInterner interner;
+
 	PartContext(PartBuilder partBuilder) {
+		this(partBuilder, partBuilder::addToStaff);
+	}
+
+	/**
+	 * Creates a part context that gives the finished measure builders to the given consumer
+	 * instead of adding them to the part builder.
+	 *
+	 * @param partBuilder             the builder of the part that is read
+	 * @param finishedMeasureConsumer the consumer for the staff numbers and builders of finished measures
+	 */
+	PartContext(PartBuilder partBuilder, BiConsumer<Integer, MeasureBuilder> finishedMeasureConsumer) {
+		reset(partBuilder, finishedMeasureConsumer);
+	}
+
+	/**
+	 * Resets this context for reading a new part, so that the same context can be reused for
+	 * reading multiple parts without allocating new buffers for each part.
+	 *
+	 * @param partBuilder             the builder of the part that is read
+	 * @param finishedMeasureConsumer the consumer for the staff numbers and builders of finished measures
+	 */
+	void reset(PartBuilder partBuilder, BiConsumer<Integer, MeasureBuilder> finishedMeasureConsumer) {
 		this.partBuilder = partBuilder;
+		this.finishedMeasureConsumer = finishedMeasureConsumer;
+
+		staff = 0;
+		voice = 0;
+		measureNumber = 0;
+		hasChordTag = false;
+		isPrevArtificialHarmonicPitch = false;
+		arpeggioResolver = null;
+		prevNoteBuilder = null;
+		interner = null;
+
+		directionType = null;
+		directionText = null;
+		directionOffset = null;
+		directionStaff = Part.DEFAULT_STAFF_NUMBER;
+
+		staves.clear();
+		chordBuffers.clear();
+		lyricBuffers.clear();
+		measureBuilders.clear();
+		ornamentalNoteBuffers.clear();
+		offsetDurations.clear();
+		backupDurations.clear();
+		if (!harmonicValues.isEmpty()) {
+			// The previous map may be referenced by a technique that has been read.
+			harmonicValues = new HashMap<>();
+		}
+
 		setStaff(Part.DEFAULT_STAFF_NUMBER);
 	}
 
+	/**
+	 * Releases the builders and consumers of the part that has been read, so that a context kept for reuse
+	 * does not keep them reachable. The context must be reset before it is used again.
+	 */
+	void release() {
+		partBuilder = null;
+		finishedMeasureConsumer = null;
+		prevNoteBuilder = null;
+		arpeggioResolver = null;
+		interner = null;
+		directionText = null;
+		directionOffset = null;
+
+		staves.clear();
+		chordBuffers.clear();
+		lyricBuffers.clear();
+		measureBuilders.clear();
+		ornamentalNoteBuffers.clear();
+		offsetDurations.clear();
+		backupDurations.clear();
+		if (!harmonicValues.isEmpty()) {
+			harmonicValues = new HashMap<>();
+		}
+	}
+
 	void setArpeggioResolver(BiConsumer<Integer, Integer> resolver) {
 		arpeggioResolver = resolver;
 	}
@@ -108,6 +187,16 @@ final class PartContext {
 		return measureBuilders.get(staff);
 	}
 
+	/**
+	 * Sets the interner that is set in the note and chord builders added to the measures, or null if
+	 * the notes and chords are not shared.
+	 *
+	 * @param interner the interner that is set in the added note and chord builders
+	 */
+	void setInterner(NoteInterner interner) {
+		this.interner = interner;
+	}
+
 	/**
 	 * Updates the chord buffer by setting previously accumulated
 	 * notebuilders to the measurebuilder as correct type and adding
@@ -120,6 +209,13 @@ final class PartContext {
 
 		if (!hasChordTag || builder == null) {
 			DurationalBuilder added = buffer.flushTo(measureBuilders.get(staff), arpeggioResolver);
+			if (interner != null && added != null) {
+				if (added.isChordBuilder()) {
+					added.toChordBuilder().setInterner(interner);
+				} else if (added.isNoteBuilder()) {
+					added.toNoteBuilder().setInterner(interner);
+				}
+			}
 
 			// The touching and sounding pitches of artificial harmonics are handled
 			// as notes with the chord tag in MusicXML. When a previous "chord" ends,
@@ -188,32 +284,22 @@ final class PartContext {
 	}
 
 	private Duration getOffset() {
-		if (offsetDurations.isEmpty()) {
+		if (offsetDurations.isZero()) {
 			return null;
 		}
 
-		Duration offsetDuration = Duration.sum(offsetDurations);
-
-		if (!backupDurations.isEmpty()) {
-			final Duration backupDuration = Duration.sum(backupDurations);
-
+		if (!backupDurations.isZero()) {
 			// Backups with length exactly equal to the offset may occur on
 			// staff changes, in which case offset is null and durations
 			// should be reset.
-			if (offsetDuration.isLongerThan(backupDuration)) {
-				offsetDuration = offsetDuration.subtract(backupDuration);
-			} else {
-				offsetDuration = null;
+			offsetDurations.subtract(backupDurations.toDuration());
+			if (!offsetDurations.isPositive()) {
+				offsetDurations.clear();
 			}
 			backupDurations.clear();
 		}
 
-		offsetDurations.clear();
-		if (offsetDuration != null) {
-			offsetDurations.add(offsetDuration);
-		}
-
-		return offsetDuration;
+		return offsetDurations.isZero() ? null : offsetDurations.toDuration();
 	}
 
 	void addForwardDuration(Duration duration) {
@@ -266,7 +352,7 @@ final class PartContext {
 		for (Map.Entry<Integer, MeasureBuilder> entry : measureBuilders.entrySet()) {
 			final int staffNumber = entry.getKey();
 			final MeasureBuilder builder = entry.getValue();
-			partBuilder.addToStaff(staffNumber, builder);
+			finishedMeasureConsumer.accept(staffNumber, builder);
 			entry.setValue(copyContext(builder));
 		}
 
@@ -388,7 +474,7 @@ final class PartContext {
 	}
 
 	private Duration getDirectionOffset() {
-		if (offsetDurations.isEmpty()) {
+		if (offsetDurations.isZero()) {
 			if (directionOffset != null && directionOffset.compareTo(Fraction.ZERO) > 0) {
 				return Duration.of(directionOffset.getNumerator(), directionOffset.getDenominator());
 			}
@@ -396,10 +482,10 @@ final class PartContext {
 			return null;
 		}
 
-		Duration offset = Duration.sum(offsetDurations);
+		Duration offset = offsetDurations.toDuration();
 
-		if (!backupDurations.isEmpty()) {
-			final Duration backup = Duration.sum(backupDurations);
+		if (!backupDurations.isZero()) {
+			final Duration backup = backupDurations.toDuration();
 			if (backup.equals(offset)) {
 				return null;
 			}
@@ -418,6 +504,10 @@ final class PartContext {
 		return offset;
 	}
 
+	int getMeasureNumber() {
+		return measureNumber;
+	}
+
 	void incrementMeasureNumber() {
 		++measureNumber;
 	}
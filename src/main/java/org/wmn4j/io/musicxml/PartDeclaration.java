@@ -0,0 +1,132 @@
+/*
+ * Distributed under the MIT license (see LICENSE.txt or https://opensource.org/licenses/MIT).
+ */
+package org.wmn4j.io.musicxml;
+
+import org.wmn4j.notation.Staff;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Represents a part declared before its measures are written with an {@link IncrementalMusicXmlWriter}.
+ * <p>
+ * The staves of a declared part are numbered from one up to the number of staves in the part.
+ * This class is immutable.
+ */
+public final class PartDeclaration {
+
+	private final String name;
+	private final String abbreviatedName;
+	private final List<Staff.Type> staffTypes;
+
+	/**
+	 * Returns a declaration of a part with the given name and the given number of normal staves.
+	 *
+	 * @param name       the name of the part
+	 * @param staffCount the number of staves in the part
+	 * @return a declaration of a part with the given name and number of staves
+	 */
+	public static PartDeclaration of(String name, int staffCount) {
+		if (staffCount < 1) {
+			throw new IllegalArgumentException("Part must have at least one staff, was " + staffCount);
+		}
+
+		return new PartDeclaration(name, null, Collections.nCopies(staffCount, Staff.Type.NORMAL));
+	}
+
+	/**
+	 * Returns a declaration of a part with the given names and staves of the given types.
+	 *
+	 * @param name            the name of the part
+	 * @param abbreviatedName the abbreviated name of the part or null if the part has no abbreviated name
+	 * @param staffTypes      the types of the staves of the part in the order of the staff numbers
+	 * @return a declaration of a part with the given names and staves
+	 */
+	public static PartDeclaration of(String name, String abbreviatedName, List<Staff.Type> staffTypes) {
+		if (staffTypes.isEmpty()) {
+			throw new IllegalArgumentException("Part must have at least one staff");
+		}
+
+		return new PartDeclaration(name, abbreviatedName, staffTypes);
+	}
+
+	private PartDeclaration(String name, String abbreviatedName, List<Staff.Type> staffTypes) {
+		this.name = Objects.requireNonNull(name);
+		this.abbreviatedName = abbreviatedName;
+		this.staffTypes = List.copyOf(staffTypes);
+	}
+
+	/**
+	 * Returns the name of the part.
+	 *
+	 * @return the name of the part
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Returns the abbreviated name of the part or empty if the part does not have an abbreviated name.
+	 *
+	 * @return the abbreviated name of the part
+	 */
+	public Optional<String> getAbbreviatedName() {
+		return Optional.ofNullable(abbreviatedName);
+	}
+
+	/**
+	 * Returns the number of staves in the part.
+	 *
+	 * @return the number of staves in the part
+	 */
+	public int getStaffCount() {
+		return staffTypes.size();
+	}
+
+	/**
+	 * Returns the types of the staves of the part in the order of the staff numbers.
+	 *
+	 * @return the types of the staves of the part
+	 */
+	public List<Staff.Type> getStaffTypes() {
+		return staffTypes;
+	}
+
+	/**
+	 * Returns true if the part has more than one staff.
+	 *
+	 * @return true if the part has more than one staff
+	 */
+	public boolean isMultiStaff() {
+		return staffTypes.size() > 1;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o) {
+			return true;
+		}
+
+		if (!(o instanceof PartDeclaration)) {
+			return false;
+		}
+
+		final PartDeclaration other = (PartDeclaration) o;
+		return name.equals(other.name)
+				&& Objects.equals(abbreviatedName, other.abbreviatedName)
+				&& staffTypes.equals(other.staffTypes);
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(name, abbreviatedName, staffTypes);
+	}
+
+	@Override
+	public String toString() {
+		return "PartDeclaration(" + name + ", " + abbreviatedName + ", " + staffTypes + ")";
+	}
+}
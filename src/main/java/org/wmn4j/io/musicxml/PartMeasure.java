@@ -0,0 +1,83 @@
+/*
+ * Distributed under the MIT license (see LICENSE.txt or https://opensource.org/licenses/MIT).
+ */
+package org.wmn4j.io.musicxml;
+
+import org.wmn4j.notation.Measure;
+
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Represents a measure read from a MusicXML file together with the part and staff it belongs to.
+ * <p>
+ * This class is immutable.
+ */
+public final class PartMeasure {
+
+	private final int partIndex;
+	private final String partId;
+	private final String partName;
+	private final int staffNumber;
+	private final Measure measure;
+
+	PartMeasure(int partIndex, String partId, String partName, int staffNumber, Measure measure) {
+		this.partIndex = partIndex;
+		this.partId = Objects.requireNonNull(partId);
+		this.partName = partName;
+		this.staffNumber = staffNumber;
+		this.measure = Objects.requireNonNull(measure);
+	}
+
+	/**
+	 * Returns the index of the part of the measure in the score that is read. When only some of the parts are
+	 * read, as selected using {@link ReadOptions}, the index is the index among the selected parts, which is
+	 * the index of the part in the score returned by the reader, and not the index of the part in the file.
+	 *
+	 * @return the index of the part of the measure in the score that is read
+	 */
+	public int getPartIndex() {
+		return partIndex;
+	}
+
+	/**
+	 * Returns the identifier of the part of the measure in the MusicXML file.
+	 *
+	 * @return the identifier of the part of the measure in the MusicXML file
+	 */
+	public String getPartId() {
+		return partId;
+	}
+
+	/**
+	 * Returns the name of the part of the measure or empty if the part does not have a name.
+	 *
+	 * @return the name of the part of the measure
+	 */
+	public Optional<String> getPartName() {
+		return Optional.ofNullable(partName);
+	}
+
+	/**
+	 * Returns the number of the staff of the measure in the part.
+	 *
+	 * @return the number of the staff of the measure in the part
+	 */
+	public int getStaffNumber() {
+		return staffNumber;
+	}
+
+	/**
+	 * Returns the measure.
+	 *
+	 * @return the measure
+	 */
+	public Measure getMeasure() {
+		return measure;
+	}
+
+	@Override
+	public String toString() {
+		return "PartMeasure(part " + partIndex + " (" + partId + "), staff " + staffNumber + ", " + measure + ")";
+	}
+}
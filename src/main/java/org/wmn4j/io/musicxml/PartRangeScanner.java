@@ -0,0 +1,380 @@
+/*
+ * Distributed under the MIT license (see LICENSE.txt or https://opensource.org/licenses/MIT).
+ */
+package org.wmn4j.io.musicxml;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Scans UTF-8 encoded part-wise MusicXML for the byte ranges of the part elements so that the parts can be
+ * parsed independently of each other.
+ * <p>
+ * The scan only looks at the markup of the document: it skips text, comments, CDATA sections, processing
+ * instructions, and the document type declaration, and tracks the nesting of the elements to find the part
+ * elements that are children of the root element. It does not check that the document is well-formed, which
+ * is left to the parsing of the parts. If the markup cannot be scanned, the scan returns no parts, so that
+ * the document can be parsed as a whole, which reports the error.
+ * <p>
+ * The scan also records the divisions declared in each part. In MusicXML the divisions are declared within
+ * the parts, but the reader carries the divisions in effect at the end of a part to the next part that is
+ * read, so that a part that uses durations before declaring its own divisions uses the divisions of the
+ * previous part. The recorded divisions make it possible to give each part the divisions it starts with
+ * before any part has been parsed.
+ */
+final class PartRangeScanner {
+
+	private static final byte[] COMMENT_START = bytes("<!--");
+	private static final byte[] COMMENT_END = bytes("-->");
+	private static final byte[] CDATA_START = bytes("<![CDATA[");
+	private static final byte[] CDATA_END = bytes("]]>");
+	private static final byte[] PI_END = bytes("?>");
+	private static final byte[] PART = bytes(Tags.PART);
+	private static final byte[] DIVISIONS = bytes(Tags.DIVISIONS);
+	private static final List<byte[]> DIVISIONS_DEPENDENT = List.of(bytes(Tags.NOTE), bytes(Tags.FORWARD),
+			bytes(Tags.BACKUP), bytes(Tags.HARMONY), bytes(Tags.DIRECTION));
+	private static final int NOT_DECLARED = 0;
+
+	/**
+	 * Represents the location of a part element in a MusicXML document. This class is immutable.
+	 */
+	static final class PartRange {
+		private final int start;
+		private final int contentEnd;
+		private final int end;
+		private final int lastDivisions;
+		private final boolean usesPreviousDivisions;
+
+		PartRange(int start, int contentEnd, int end, int lastDivisions, boolean usesPreviousDivisions) {
+			this.start = start;
+			this.contentEnd = contentEnd;
+			this.end = end;
+			this.lastDivisions = lastDivisions;
+			this.usesPreviousDivisions = usesPreviousDivisions;
+		}
+
+		/**
+		 * Returns the index of the first byte of the start tag of the part.
+		 *
+		 * @return the index of the first byte of the start tag of the part
+		 */
+		int getStart() {
+			return start;
+		}
+
+		/**
+		 * Returns the index of the first byte of the end tag of the part. For an empty part element this is
+		 * the same as {@link #getEnd()}.
+		 *
+		 * @return the index of the first byte of the end tag of the part
+		 */
+		int getContentEnd() {
+			return contentEnd;
+		}
+
+		/**
+		 * Returns the index following the last byte of the part element.
+		 *
+		 * @return the index following the last byte of the part element
+		 */
+		int getEnd() {
+			return end;
+		}
+
+		/**
+		 * Returns the divisions declared last in the part, or zero if the part does not declare divisions.
+		 *
+		 * @return the divisions declared last in the part
+		 */
+		int getLastDivisions() {
+			return lastDivisions;
+		}
+
+		/**
+		 * Returns true if the part contains elements whose durations depend on the divisions before it
+		 * declares its own divisions, so that the part uses the divisions carried from the previous part.
+		 *
+		 * @return true if the part uses the divisions carried from the previous part
+		 */
+		boolean usesPreviousDivisions() {
+			return usesPreviousDivisions;
+		}
+	}
+
+	private final byte[] bytes;
+	private final List<PartRange> parts = new ArrayList<>();
+	private int position;
+	private int depth;
+
+	private int partStart = -1;
+	private int lastDivisions;
+	private boolean usesPreviousDivisions;
+
+	private PartRangeScanner(byte[] bytes) {
+		this.bytes = bytes;
+	}
+
+	/**
+	 * Returns the ranges of the part elements that are children of the root element of the given document
+	 * in the order in which they are in the document. Returns an empty list if the document cannot be
+	 * scanned.
+	 *
+	 * @param bytes the UTF-8 encoded bytes of a MusicXML document
+	 * @return the ranges of the part elements in the document
+	 */
+	static List<PartRange> scan(byte[] bytes) {
+		final PartRangeScanner scanner = new PartRangeScanner(bytes);
+		if (!scanner.scanDocument()) {
+			return Collections.emptyList();
+		}
+
+		return Collections.unmodifiableList(scanner.parts);
+	}
+
+	private boolean scanDocument() {
+		while (position < bytes.length) {
+			final int markupStart = indexOf(position, (byte) '<');
+			if (markupStart < 0) {
+				break;
+			}
+
+			position = markupStart;
+			if (!scanMarkup()) {
+				return false;
+			}
+		}
+
+		return depth == 0 && partStart < 0;
+	}
+
+	private boolean scanMarkup() {
+		if (startsWith(position, COMMENT_START)) {
+			return skipPast(COMMENT_START.length, COMMENT_END);
+		}
+
+		if (startsWith(position, CDATA_START)) {
+			return skipPast(CDATA_START.length, CDATA_END);
+		}
+
+		if (position + 1 >= bytes.length) {
+			return false;
+		}
+
+		if (bytes[position + 1] == '?') {
+			return skipPast(2, PI_END);
+		}
+
+		if (bytes[position + 1] == '!') {
+			return skipDeclaration();
+		}
+
+		if (bytes[position + 1] == '/') {
+			return scanEndTag();
+		}
+
+		return scanStartTag();
+	}
+
+	private boolean scanStartTag() {
+		final int tagStart = position;
+		final int nameStart = position + 1;
+		final int nameEnd = findNameEnd(nameStart);
+
+		int index = nameEnd;
+		while (index < bytes.length && bytes[index] != '>') {
+			if (bytes[index] == '"' || bytes[index] == '\'') {
+				index = indexOf(index + 1, bytes[index]);
+				if (index < 0) {
+					return false;
+				}
+			}
+			++index;
+		}
+
+		if (index >= bytes.length) {
+			return false;
+		}
+
+		position = index + 1;
+		final boolean isEmpty = bytes[index - 1] == '/';
+
+		if (depth == 1 && nameEquals(nameStart, nameEnd, PART)) {
+			if (isEmpty) {
+				parts.add(new PartRange(tagStart, position, position, NOT_DECLARED, false));
+				return true;
+			}
+
+			partStart = tagStart;
+			lastDivisions = NOT_DECLARED;
+			usesPreviousDivisions = false;
+		} else if (partStart >= 0) {
+			if (nameEquals(nameStart, nameEnd, DIVISIONS) && !isEmpty) {
+				if (!scanDivisions()) {
+					return false;
+				}
+			} else if (lastDivisions == NOT_DECLARED && isDivisionsDependent(nameStart, nameEnd)) {
+				usesPreviousDivisions = true;
+			}
+		}
+
+		if (!isEmpty) {
+			++depth;
+		}
+
+		return true;
+	}
+
+	private boolean scanEndTag() {
+		final int tagStart = position;
+		final int tagEnd = indexOf(position, (byte) '>');
+		if (tagEnd < 0 || depth == 0) {
+			return false;
+		}
+
+		position = tagEnd + 1;
+		--depth;
+
+		if (depth == 1 && partStart >= 0) {
+			if (!nameEquals(tagStart + 2, findNameEnd(tagStart + 2), PART)) {
+				return false;
+			}
+
+			parts.add(new PartRange(partStart, tagStart, position, lastDivisions, usesPreviousDivisions));
+			partStart = -1;
+		}
+
+		return true;
+	}
+
+	private boolean scanDivisions() {
+		// Only plain decimal divisions are recognized. Divisions written in any other way, for example,
+		// using character references, make the scan fail so that the document is parsed as a whole.
+		int index = skipWhitespace(position);
+		int value = 0;
+		int digitCount = 0;
+		while (index < bytes.length && bytes[index] >= '0' && bytes[index] <= '9') {
+			if (value > (Integer.MAX_VALUE - 9) / 10) {
+				return false;
+			}
+
+			value = value * 10 + bytes[index] - '0';
+			++digitCount;
+			++index;
+		}
+
+		index = skipWhitespace(index);
+		if (digitCount == 0 || index >= bytes.length || bytes[index] != '<') {
+			return false;
+		}
+
+		lastDivisions = value;
+		return true;
+	}
+
+	private boolean skipDeclaration() {
+		boolean isInInternalSubset = false;
+		int index = position + 2;
+		while (index < bytes.length) {
+			final byte current = bytes[index];
+			if (current == '"' || current == '\'') {
+				index = indexOf(index + 1, current);
+				if (index < 0) {
+					return false;
+				}
+			} else if (current == '[') {
+				isInInternalSubset = true;
+			} else if (current == ']') {
+				isInInternalSubset = false;
+			} else if (current == '>' && !isInInternalSubset) {
+				position = index + 1;
+				return true;
+			}
+			++index;
+		}
+
+		return false;
+	}
+
+	private boolean skipPast(int startLength, byte[] terminator) {
+		final int index = indexOf(position + startLength, terminator);
+		if (index < 0) {
+			return false;
+		}
+
+		position = index + terminator.length;
+		return true;
+	}
+
+	private boolean isDivisionsDependent(int nameStart, int nameEnd) {
+		for (byte[] name : DIVISIONS_DEPENDENT) {
+			if (nameEquals(nameStart, nameEnd, name)) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	private boolean nameEquals(int nameStart, int nameEnd, byte[] name) {
+		return Arrays.equals(bytes, nameStart, nameEnd, name, 0, name.length);
+	}
+
+	private int findNameEnd(int start) {
+		int index = start;
+		while (index < bytes.length) {
+			final byte current = bytes[index];
+			if (current == '>' || current == '/' || isWhitespace(current)) {
+				break;
+			}
+			++index;
+		}
+
+		return index;
+	}
+
+	private int skipWhitespace(int start) {
+		int index = start;
+		while (index < bytes.length && isWhitespace(bytes[index])) {
+			++index;
+		}
+
+		return index;
+	}
+
+	private static boolean isWhitespace(byte value) {
+		return value == ' ' || value == '\n' || value == '\t' || value == '\r';
+	}
+
+	private boolean startsWith(int start, byte[] prefix) {
+		return start + prefix.length <= bytes.length
+				&& Arrays.equals(bytes, start, start + prefix.length, prefix, 0, prefix.length);
+	}
+
+	private int indexOf(int start, byte value) {
+		for (int i = start; i < bytes.length; ++i) {
+			if (bytes[i] == value) {
+				return i;
+			}
+		}
+
+		return -1;
+	}
+
+	private int indexOf(int start, byte[] value) {
+		final int last = bytes.length - value.length;
+		for (int i = start; i <= last; ++i) {
+			if (bytes[i] == value[0] && Arrays.equals(bytes, i, i + value.length, value, 0, value.length)) {
+				return i;
+			}
+		}
+
+		return -1;
+	}
+
+	private static byte[] bytes(String value) {
+		return value.getBytes(StandardCharsets.US_ASCII);
+	}
+}
@@ -0,0 +1,330 @@
+/*
+ * Distributed under the MIT license (see LICENSE.txt or https://opensource.org/licenses/MIT).
+ */
+package org.wmn4j.io.musicxml;
+
+import java.util.Collection;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Represents the options for reading MusicXML.
+ * <p>
+ * The options can be used for reading only a projection of the score: only the selected parts and
+ * the selected range of measures in them are read. Everything else is skipped without creating notation
+ * objects for it, which makes reading a small projection of a large score much faster and lighter than
+ * reading the whole score. In a projection, the measures before the selected range are replaced by empty
+ * measures that only have the measure attributes (for example, the time signature and clef) in effect at
+ * that measure, so that the measure numbers are unchanged and the selected range can be accessed using
+ * {@link org.wmn4j.notation.Score#selectRange(int, int)}. The measures after the selected range are left
+ * out.
+ * <p>
+ * The options also select the {@link Engine} that is used for parsing the XML, the number of parts
+ * that can be parsed in parallel, and whether equal notes are shared in the read score.
+ * <p>
+ * This class is immutable.
+ */
+public final class ReadOptions {
+
+	private static final ReadOptions DEFAULTS = new ReadOptions(true, Set.of(), Set.of(), 0, Integer.MAX_VALUE,
+			Engine.STAX, 1, false);
+
+	/**
+	 * The engines that can be used for parsing the XML of MusicXML files. All engines produce the same
+	 * notation from the same input.
+	 */
+	public enum Engine {
+		/**
+		 * Parses the XML using the StAX stream reader of the XML parser available in the Java runtime.
+		 * Supports all encodings supported by the parser and reads the input incrementally.
+		 */
+		STAX,
+
+		/**
+		 * Parses the XML using a tokenizer that works directly on UTF-8 encoded bytes. Element names and
+		 * values from the MusicXML vocabulary are matched without creating strings for them, and numeric
+		 * content is parsed directly from the bytes, which makes reading faster and produces less garbage.
+		 * The whole MusicXML document is read into memory before parsing it. Input that is not encoded in
+		 * UTF-8 is parsed using the StAX engine instead.
+		 */
+		UTF8_TOKENIZER
+	}
+
+	private final boolean validate;
+	private final Set<String> partIds;
+	private final Set<Integer> partIndices;
+	private final int firstMeasure;
+	private final int lastMeasure;
+	private final Engine engine;
+	private final int partParallelism;
+	private final boolean internNotes;
+
+	private ReadOptions(boolean validate, Set<String> partIds, Set<Integer> partIndices, int firstMeasure,
+			int lastMeasure, Engine engine, int partParallelism, boolean internNotes) {
+		this.validate = validate;
+		this.partIds = partIds;
+		this.partIndices = partIndices;
+		this.firstMeasure = firstMeasure;
+		this.lastMeasure = lastMeasure;
+		this.engine = engine;
+		this.partParallelism = partParallelism;
+		this.internNotes = internNotes;
+	}
+
+	/**
+	 * Returns the default options. The default options validate the input against the MusicXML schema,
+	 * read all parts and measures, and use the {@link Engine#STAX} engine for parsing the parts one at a time
+	 * without sharing equal notes.
+	 *
+	 * @return the default options
+	 */
+	public static ReadOptions defaults() {
+		return DEFAULTS;
+	}
+
+	/**
+	 * Returns options that are otherwise the same as these, but with validation against the MusicXML
+	 * schema set on or off.
+	 *
+	 * @param validate true if the input should be validated against the MusicXML schema
+	 * @return options with the given validation setting
+	 */
+	public ReadOptions withValidation(boolean validate) {
+		return new ReadOptions(validate, partIds, partIndices, firstMeasure, lastMeasure, engine, partParallelism,
+				internNotes);
+	}
+
+	/**
+	 * Returns options that are otherwise the same as these, but with the given engine used for parsing
+	 * the XML.
+	 *
+	 * @param engine the engine used for parsing the XML
+	 * @return options with the given engine
+	 */
+	public ReadOptions withEngine(Engine engine) {
+		Objects.requireNonNull(engine);
+		return new ReadOptions(validate, partIds, partIndices, firstMeasure, lastMeasure, engine, partParallelism,
+				internNotes);
+	}
+
+	/**
+	 * Returns options that are otherwise the same as these, but with at most the given number of parts
+	 * parsed in parallel when the whole score is read.
+	 * <p>
+	 * Parsing parts in parallel makes reading scores with many parts, such as orchestral scores, faster on
+	 * multicore processors. Before parsing, the input is scanned for the locations of the parts, and each
+	 * selected part is then parsed on its own thread. The parts are added to the score in the order in which
+	 * they are in the input, so the read score is the same as when the parts are parsed one at a time. If the
+	 * input is validated, the validation is done in parallel with parsing the parts.
+	 * <p>
+	 * Parallel parsing requires the whole input in memory as UTF-8, so it is only used with the
+	 * {@link Engine#UTF8_TOKENIZER} engine for UTF-8 input. Otherwise, and when reading measures one at a
+	 * time or only the metadata, the parts are parsed one at a time.
+	 *
+	 * @param partParallelism the maximum number of parts parsed in parallel, one for parsing the parts one at
+	 *                        a time
+	 * @return options with the given number of parts parsed in parallel
+	 * @throws IllegalArgumentException if the given number is less than one
+	 */
+	public ReadOptions withPartParallelism(int partParallelism) {
+		if (partParallelism < 1) {
+			throw new IllegalArgumentException("Part parallelism must be at least one, was " + partParallelism);
+		}
+
+		return new ReadOptions(validate, partIds, partIndices, firstMeasure, lastMeasure, engine, partParallelism,
+				internNotes);
+	}
+
+	/**
+	 * Returns options that are otherwise the same as these, but with sharing of equal notes and chords
+	 * set on or off.
+	 * <p>
+	 * When sharing is on, all the notes that are equal in pitch, duration, articulations, ornaments,
+	 * techniques, and lyrics are the same instance in the read score, and so are the equal chords made of
+	 * them. This uses considerably less memory for repetitive scores, such as orchestral scores with doubled
+	 * parts and accompaniment figures. Notes that have notations, such as ties and slurs, or grace notes are
+	 * never shared. See {@link org.wmn4j.notation.NoteInterner} for details.
+	 *
+	 * @param internNotes true if equal notes and chords should be shared
+	 * @return options with the given note sharing setting
+	 */
+	public ReadOptions withNoteInterning(boolean internNotes) {
+		return new ReadOptions(validate, partIds, partIndices, firstMeasure, lastMeasure, engine, partParallelism,
+				internNotes);
+	}
+
+	/**
+	 * Returns options that are otherwise the same as these, but with the parts to read selected using
+	 * the part identifiers in the MusicXML file.
+	 * <p>
+	 * If parts are selected both by identifiers and by indices, the parts selected by either are read.
+	 * An empty collection selects all parts.
+	 *
+	 * @param partIds the identifiers of the parts to read
+	 * @return options that read the parts with the given identifiers
+	 */
+	public ReadOptions withPartIds(Collection<String> partIds) {
+		return new ReadOptions(validate, Set.copyOf(partIds), partIndices, firstMeasure, lastMeasure, engine,
+				partParallelism, internNotes);
+	}
+
+	/**
+	 * Returns options that are otherwise the same as these, but with the parts to read selected using
+	 * the indices of the parts in the MusicXML file. The index of the first part is zero.
+	 * <p>
+	 * If parts are selected both by identifiers and by indices, the parts selected by either are read.
+	 * An empty collection selects all parts.
+	 *
+	 * @param partIndices the indices of the parts to read
+	 * @return options that read the parts with the given indices
+	 */
+	public ReadOptions withPartIndices(Collection<Integer> partIndices) {
+		return new ReadOptions(validate, partIds, Set.copyOf(partIndices), firstMeasure, lastMeasure, engine,
+				partParallelism, internNotes);
+	}
+
+	/**
+	 * Returns options that are otherwise the same as these, but only read the measures in the given
+	 * range of measure numbers.
+	 *
+	 * @param firstMeasure the number of the first measure to read, zero for a pickup measure
+	 * @param lastMeasure  the number of the last measure to read (inclusive)
+	 * @return options that read the given range of measures
+	 * @throws IllegalArgumentException if the first measure number is negative or greater than the last
+	 */
+	public ReadOptions withMeasureRange(int firstMeasure, int lastMeasure) {
+		if (firstMeasure < 0 || firstMeasure > lastMeasure) {
+			throw new IllegalArgumentException(
+					"Invalid measure range from " + firstMeasure + " to " + lastMeasure);
+		}
+
+		return new ReadOptions(validate, partIds, partIndices, firstMeasure, lastMeasure, engine, partParallelism,
+				internNotes);
+	}
+
+	/**
+	 * Returns true if the input is validated against the MusicXML schema.
+	 *
+	 * @return true if the input is validated against the MusicXML schema
+	 */
+	public boolean isValidating() {
+		return validate;
+	}
+
+	/**
+	 * Returns the identifiers of the selected parts. Empty if parts are not selected using identifiers.
+	 *
+	 * @return the identifiers of the selected parts
+	 */
+	public Set<String> getPartIds() {
+		return partIds;
+	}
+
+	/**
+	 * Returns the indices of the selected parts. Empty if parts are not selected using indices.
+	 *
+	 * @return the indices of the selected parts
+	 */
+	public Set<Integer> getPartIndices() {
+		return partIndices;
+	}
+
+	/**
+	 * Returns the number of the first measure that is read.
+	 *
+	 * @return the number of the first measure that is read
+	 */
+	public int getFirstMeasure() {
+		return firstMeasure;
+	}
+
+	/**
+	 * Returns the number of the last measure that is read.
+	 *
+	 * @return the number of the last measure that is read
+	 */
+	public int getLastMeasure() {
+		return lastMeasure;
+	}
+
+	/**
+	 * Returns the engine used for parsing the XML.
+	 *
+	 * @return the engine used for parsing the XML
+	 */
+	public Engine getEngine() {
+		return engine;
+	}
+
+	/**
+	 * Returns the maximum number of parts parsed in parallel.
+	 *
+	 * @return the maximum number of parts parsed in parallel
+	 */
+	public int getPartParallelism() {
+		return partParallelism;
+	}
+
+	/**
+	 * Returns true if equal notes and chords are shared in the read score.
+	 *
+	 * @return true if equal notes and chords are shared in the read score
+	 */
+	public boolean isInterningNotes() {
+		return internNotes;
+	}
+
+	boolean isMeasureRangeSelected() {
+		return firstMeasure > 0 || lastMeasure < Integer.MAX_VALUE;
+	}
+
+	boolean isPartSelected(String partId, int partIndex) {
+		if (partIds.isEmpty() && partIndices.isEmpty()) {
+			return true;
+		}
+
+		return partIds.contains(partId) || partIndices.contains(partIndex);
+	}
+
+	boolean isBeforeSelectedMeasures(int measureNumber) {
+		return measureNumber < firstMeasure;
+	}
+
+	boolean isAfterSelectedMeasures(int measureNumber) {
+		return measureNumber > lastMeasure;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o) {
+			return true;
+		}
+
+		if (!(o instanceof ReadOptions)) {
+			return false;
+		}
+
+		final ReadOptions other = (ReadOptions) o;
+		return validate == other.validate
+				&& firstMeasure == other.firstMeasure
+				&& lastMeasure == other.lastMeasure
+				&& partIds.equals(other.partIds)
+				&& partIndices.equals(other.partIndices)
+				&& engine == other.engine
+				&& partParallelism == other.partParallelism
+				&& internNotes == other.internNotes;
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(validate, partIds, partIndices, firstMeasure, lastMeasure, engine, partParallelism,
+				internNotes);
+	}
+
+	@Override
+	public String toString() {
+		return "ReadOptions(validate=" + validate + ", partIds=" + partIds + ", partIndices=" + partIndices
+				+ ", measures=" + firstMeasure + "-" + lastMeasure + ", engine=" + engine
+				+ ", partParallelism=" + partParallelism + ", internNotes=" + internNotes + ")";
+	}
+}
@@ -0,0 +1,183 @@
+/*
+ * Distributed under the MIT license (see LICENSE.txt or https://opensource.org/licenses/MIT).
+ */
+package org.wmn4j.io.musicxml;
+
+import org.wmn4j.notation.Score;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Represents the metadata of a MusicXML score: the score attributes, such as the title and the composer,
+ * and the parts listed in the part list of the score.
+ * <p>
+ * The metadata is read from the header of the MusicXML file without reading the notation in the parts.
+ * This class is immutable.
+ */
+public final class ScoreMetadata {
+
+	private final Map<Score.Attribute, String> attributes;
+	private final List<PartInfo> parts;
+
+	/**
+	 * Represents the information of a part in the part list of a MusicXML score.
+	 * <p>
+	 * This class is immutable.
+	 */
+	public static final class PartInfo {
+		private final String id;
+		private final String name;
+		private final String abbreviatedName;
+
+		PartInfo(String id, String name, String abbreviatedName) {
+			this.id = Objects.requireNonNull(id);
+			this.name = name;
+			this.abbreviatedName = abbreviatedName;
+		}
+
+		/**
+		 * Returns the identifier of the part in the MusicXML file.
+		 *
+		 * @return the identifier of the part in the MusicXML file
+		 */
+		public String getId() {
+			return id;
+		}
+
+		/**
+		 * Returns the name of the part or empty if the part does not have a name.
+		 *
+		 * @return the name of the part
+		 */
+		public Optional<String> getName() {
+			return Optional.ofNullable(name);
+		}
+
+		/**
+		 * Returns the abbreviated name of the part or empty if the part does not have an abbreviated name.
+		 *
+		 * @return the abbreviated name of the part
+		 */
+		public Optional<String> getAbbreviatedName() {
+			return Optional.ofNullable(abbreviatedName);
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) {
+				return true;
+			}
+
+			if (!(o instanceof PartInfo)) {
+				return false;
+			}
+
+			final PartInfo other = (PartInfo) o;
+			return id.equals(other.id)
+					&& Objects.equals(name, other.name)
+					&& Objects.equals(abbreviatedName, other.abbreviatedName);
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(id, name, abbreviatedName);
+		}
+
+		@Override
+		public String toString() {
+			return "PartInfo(" + id + ", " + name + ", " + abbreviatedName + ')';
+		}
+	}
+
+	ScoreMetadata(Map<Score.Attribute, String> attributes, List<PartInfo> parts) {
+		final Map<Score.Attribute, String> attributesCopy = new EnumMap<>(Score.Attribute.class);
+		attributesCopy.putAll(attributes);
+		this.attributes = Collections.unmodifiableMap(attributesCopy);
+		this.parts = List.copyOf(parts);
+	}
+
+	/**
+	 * Returns the title of the score or empty if the score does not have a title.
+	 *
+	 * @return the title of the score
+	 */
+	public Optional<String> getTitle() {
+		return getAttribute(Score.Attribute.TITLE);
+	}
+
+	/**
+	 * Returns true if the score has the given attribute.
+	 *
+	 * @param attribute the attribute whose presence is checked
+	 * @return true if the score has the given attribute
+	 */
+	public boolean hasAttribute(Score.Attribute attribute) {
+		return attributes.containsKey(attribute);
+	}
+
+	/**
+	 * Returns the value of the given attribute or empty if the score does not have the attribute.
+	 *
+	 * @param attribute the attribute whose value is returned
+	 * @return the value of the given attribute
+	 */
+	public Optional<String> getAttribute(Score.Attribute attribute) {
+		return Optional.ofNullable(attributes.get(attribute));
+	}
+
+	/**
+	 * Returns the attributes of the score.
+	 *
+	 * @return the attributes of the score
+	 */
+	public Map<Score.Attribute, String> getAttributes() {
+		return attributes;
+	}
+
+	/**
+	 * Returns the number of parts in the part list of the score.
+	 *
+	 * @return the number of parts in the part list of the score
+	 */
+	public int getPartCount() {
+		return parts.size();
+	}
+
+	/**
+	 * Returns the parts in the part list of the score in the order in which they are listed.
+	 *
+	 * @return the parts in the part list of the score
+	 */
+	public List<PartInfo> getParts() {
+		return parts;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o) {
+			return true;
+		}
+
+		if (!(o instanceof ScoreMetadata)) {
+			return false;
+		}
+
+		final ScoreMetadata other = (ScoreMetadata) o;
+		return attributes.equals(other.attributes) && parts.equals(other.parts);
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(attributes, parts);
+	}
+
+	@Override
+	public String toString() {
+		return "ScoreMetadata(" + attributes + ", " + parts + ")";
+	}
+}
@@ -18,8 +18,10 @@ import org.wmn4j.notation.DurationalBuilder;
 import org.wmn4j.notation.Durations;
 import org.wmn4j.notation.GraceNoteBuilder;
 import org.wmn4j.notation.Lyric;
+import org.wmn4j.notation.MeasureBuilder;
 import org.wmn4j.notation.Notation;
 import org.wmn4j.notation.NoteBuilder;
+import org.wmn4j.notation.NoteInterner;
 import org.wmn4j.notation.Ornament;
 import org.wmn4j.notation.Ornamental;
 import org.wmn4j.notation.Part;
@@ -34,53 +36,80 @@ import org.wmn4j.notation.directions.Direction;
 import org.wmn4j.notation.techniques.Technique;
 import org.xml.sax.SAXException;
 
-import javax.xml.XMLConstants;
 import javax.xml.stream.XMLInputFactory;
 import javax.xml.stream.XMLStreamConstants;
 import javax.xml.stream.XMLStreamException;
 import javax.xml.stream.XMLStreamReader;
-import javax.xml.transform.stax.StAXSource;
-import javax.xml.validation.Schema;
-import javax.xml.validation.SchemaFactory;
-import javax.xml.validation.Validator;
 import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
 import java.io.FileInputStream;
+import java.io.FilterInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
 import java.util.EnumMap;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
+import java.util.zip.ZipInputStream;
 
 /**
  * Implements a MusicXML reader using the Stax Cursor API.
  */
 final class StaxReader implements MusicXmlReader {
 
-	private static final String MUSICXML_V4_0_SCHEMA_PATH = "org/wmn4j/io/musicxml/musicxml.xsd";
 	private static final Logger LOG = LoggerFactory.getLogger(StaxReader.class);
 	private static final String COMPRESSED_EXTENSION = "mxl";
-	private static final Set<String> VALID_EXTENSIONS = Set.of("xml", "musicxml", COMPRESSED_EXTENSION);
-
+	private static final String XML_EXTENSION = "xml";
+	private static final String MUSICXML_EXTENSION = "musicxml";
+	private static final Set<String> UNCOMPRESSED_EXTENSIONS = Set.of(XML_EXTENSION, MUSICXML_EXTENSION);
+	private static final Set<String> VALID_EXTENSIONS = Set.of(XML_EXTENSION, MUSICXML_EXTENSION, COMPRESSED_EXTENSION);
+	private static final byte[] ZIP_SIGNATURE = {0x50, 0x4B, 0x03, 0x04};
+	private static final String STREAM_SOURCE_NAME = "input stream";
+	private static final String MISSING_CONTENT_MESSAGE = "Invalid compressed MusicXML file: missing MusicXML content.";
+
+	private final ReadOptions options;
 	private final boolean validateInput;
 	private final Path path;
+	private final InputStream source;
 	private final Map<String, PartBuilder> partBuilders;
+	private final Map<Score.Attribute, String> scoreAttributes = new EnumMap<>(Score.Attribute.class);
+	private final List<ScoreMetadata.PartInfo> partInfos = new ArrayList<>();
 
 	private XMLStreamReader reader;
+	// Set when the input is parsed using the byte-level tokenizer. When the input is validated,
+	// the reader wraps the tokenizer and both advance together.
+	private Utf8XmlTokenizer tokenizer;
 	private InputStream inputStream;
 	private ZipFile compressedFile;
 	private ScoreBuilder scoreBuilder;
 	private Score score;
+	private ScoreMetadata metadata;
+	private boolean isReadingMetadataOnly;
 
 	private PartContext partContext;
 
 	// Divisions are defined within a part but can still be shared between
-	// multiple parts, so it's part of the context of the whole score.
+	// multiple parts, so it's part of the context of the whole score. The
+	// divisions in effect at the end of a part carry to the next part that
+	// is read, also when the parts are read in parallel.
 	private int currentDivisions;
 	private DurationalBuilder currentDurationalBuilder;
 	private ConnectableBuilder currentConnectableBuilder;
@@ -115,15 +144,89 @@ final class StaxReader implements MusicXmlReader {
 
 	private boolean isClosed;
 
-	private final NotationReadResolver notationResolver = new NotationReadResolver();
+	private int nextPartIndex;
+
+	private boolean isStreaming;
+	private boolean isStreamFinished;
+	private int streamedPartIndex = -1;
+	private String streamedPartId;
+	private final List<Map.Entry<Integer, MeasureBuilder>> pendingMeasures = new ArrayList<>();
+	private final Deque<PartMeasure> streamedMeasures = new ArrayDeque<>();
+
+	// Set when the parts of the score are read in parallel.
+	private List<PartRangeScanner.PartRange> partRanges = List.of();
+	private int nextPartRangeIndex;
+	private ValidatingStreamReader documentValidator;
+
+	private final MusicXmlReaderSession session;
+	private final NotationReadResolver notationResolver;
+
+	// Shared by the readers of the parts when the parts are read in parallel. Null if notes are not interned.
+	private final NoteInterner interner;
 
 	StaxReader(Path path, boolean validate) {
+		this(path, ReadOptions.defaults().withValidation(validate));
+	}
+
+	StaxReader(Path path, ReadOptions options) {
+		this(path, options, new MusicXmlReaderSession());
+	}
+
+	StaxReader(Path path, ReadOptions options, MusicXmlReaderSession session) {
 		this.path = Objects.requireNonNull(path);
-		this.validateInput = validate;
+		this.source = null;
+		this.session = Objects.requireNonNull(session);
+		this.notationResolver = session.getNotationResolver();
+		this.options = Objects.requireNonNull(options);
+		this.validateInput = options.isValidating();
+		this.interner = options.isInterningNotes() ? new NoteInterner() : null;
 		this.partBuilders = new HashMap<>();
 		this.isClosed = false;
 	}
 
+	StaxReader(InputStream source, boolean validate) {
+		this(source, ReadOptions.defaults().withValidation(validate));
+	}
+
+	StaxReader(InputStream source, ReadOptions options) {
+		this(source, options, new MusicXmlReaderSession());
+	}
+
+	StaxReader(InputStream source, ReadOptions options, MusicXmlReaderSession session) {
+		this.path = null;
+		this.source = Objects.requireNonNull(source);
+		this.session = Objects.requireNonNull(session);
+		this.notationResolver = session.getNotationResolver();
+		this.options = Objects.requireNonNull(options);
+		this.validateInput = options.isValidating();
+		this.interner = options.isInterningNotes() ? new NoteInterner() : null;
+		this.partBuilders = new HashMap<>();
+		this.isClosed = false;
+	}
+
+	/**
+	 * Creates a reader for reading a single part of the score read by the given reader in parallel with the
+	 * other parts. The part reader has its own session for the reading contexts of the part, but shares the
+	 * part builders of the score reader, which are not modified while the parts are read.
+	 *
+	 * @param scoreReader    the reader of the score that contains the part
+	 * @param partTokenizer  the tokenizer for the part element
+	 * @param startDivisions the divisions in effect at the start of the part
+	 */
+	private StaxReader(StaxReader scoreReader, Utf8XmlTokenizer partTokenizer, int startDivisions) {
+		this.path = scoreReader.path;
+		this.source = null;
+		this.session = new MusicXmlReaderSession();
+		this.notationResolver = session.getNotationResolver();
+		this.options = scoreReader.options;
+		this.validateInput = false;
+		this.interner = scoreReader.interner;
+		this.partBuilders = scoreReader.partBuilders;
+		this.reader = partTokenizer;
+		this.tokenizer = partTokenizer;
+		this.currentDivisions = startDivisions;
+	}
+
 	@Override
 	public Score readScore() throws IOException, ParsingFailureException {
 		if (score == null) {
@@ -135,22 +238,46 @@ final class StaxReader implements MusicXmlReader {
 
 	@Override
 	public ScoreBuilder readScoreBuilder() throws IOException, ParsingFailureException {
+		if (isStreaming) {
+			throw new IllegalStateException("Cannot read the score after measures have been read");
+		}
+
 		if (scoreBuilder == null) {
+			checkNotReadingMetadataOnly();
 			scoreBuilder = new ScoreBuilder();
-			try {
-				fillScoreBuilder();
-			} catch (SAXException e) {
-				throw new ParsingFailureException(getParsingFailureMessage(e.getMessage()));
-			}
+			fillScoreBuilder();
+			scoreAttributes.forEach(scoreBuilder::setAttribute);
 		}
 
 		return scoreBuilder;
 	}
 
+	@Override
+	public ScoreMetadata readMetadata() throws IOException, ParsingFailureException {
+		if (metadata == null) {
+			// The header has already been read if the score or measures have been read.
+			if (scoreBuilder == null && !isStreaming) {
+				isReadingMetadataOnly = true;
+				scanHeader();
+			}
+
+			metadata = new ScoreMetadata(scoreAttributes, partInfos);
+		}
+
+		return metadata;
+	}
+
+	private void checkNotReadingMetadataOnly() {
+		if (isReadingMetadataOnly) {
+			throw new IllegalStateException("Cannot read the notation after only the metadata has been read");
+		}
+	}
+
 	@Override
 	public void close() throws IOException {
 		if (!isClosed) {
 			isClosed = true;
+			session.release(this);
 
 			if (compressedFile != null) {
 				compressedFile.close();
@@ -167,43 +294,22 @@ final class StaxReader implements MusicXmlReader {
 			if (inputStream != null) {
 				inputStream.close();
 			}
+
+			if (source != null) {
+				source.close();
+			}
 		}
 	}
 
-	private void fillScoreBuilder() throws IOException, ParsingFailureException, SAXException {
-		if (validateInput) {
-			validate();
-		}
-		reader = createStreamReader(path);
+	private void fillScoreBuilder() throws IOException, ParsingFailureException {
+		reader = createStreamReader();
 
 		try {
-			consumeUntil(tag -> {
-				switch (tag) {
-					case Tags.WORK:
-						consumeWorkElem();
-						break;
-					case Tags.IDENTIFICATION:
-						consumeIdentificationElem();
-						break;
-					case Tags.MOVEMENT_TITLE:
-						consumeMovementTitleElem();
-						break;
-					case Tags.MOVEMENT_NUMBER:
-						consumeMovementNumberElem();
-						break;
-					case Tags.PART_LIST:
-						consumePartListElem();
-						break;
-					case Tags.PART:
-						consumePartElem();
-						break;
-					case Tags.SCORE_PARTWISE:
-						// Do nothing
-						break;
-					default:
-						skipElement();
-				}
-			}, Tags.SCORE_PARTWISE);
+			if (partRanges.isEmpty()) {
+				consumeUntil(this::consumeScoreElem, Tags.SCORE_PARTWISE);
+			} else {
+				readPartsInParallel();
+			}
 
 			// Ensure the reader is at the end of document.
 			while (reader.getEventType() != XMLStreamConstants.END_DOCUMENT) {
@@ -211,26 +317,263 @@ final class StaxReader implements MusicXmlReader {
 			}
 		} catch (XMLStreamException e) {
 			throw new ParsingFailureException(getParsingFailureMessage(e.getMessage()));
+		} catch (RuntimeException e) {
+			// Content that does not comply with the schema can break the parsing before the
+			// validator has seen enough of it to report the error, so check the rest of the
+			// document to report the actual reason for the failure.
+			validateRemaining();
+			throw e;
 		}
 
 		// Close all IO resources
 		close();
 	}
 
-	private void validate() throws IOException, ParsingFailureException {
-		SchemaFactory factory = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI);
-		ClassLoader classLoader = getClass().getClassLoader();
+	/**
+	 * Reads the score elements on this thread and the parts in parallel. The parts are skipped on this thread
+	 * using the part ranges found by scanning the document, and each selected part is read by its own reader
+	 * that starts with the divisions carried from the previous selected part. The parts are added to the
+	 * score builder in document order once they all have been read. If the input is validated, the whole
+	 * document is validated in parallel with reading the parts.
+	 */
+	private void readPartsInParallel() throws XMLStreamException, IOException, ParsingFailureException {
+		final int taskCount = partRanges.size() + (documentValidator == null ? 0 : 1);
+		final ExecutorService executor = Executors.newFixedThreadPool(
+				Math.min(options.getPartParallelism(), taskCount));
+
+		try {
+			final Future<?> validation = documentValidator == null ? null : executor.submit(() -> {
+				documentValidator.validateRemaining();
+				return null;
+			});
+
+			final List<Future<PartBuilder>> partReads = new ArrayList<>();
+			consumeUntil(tag -> {
+				if (Tags.PART.equals(tag)) {
+					submitPartRead(executor, partReads);
+				} else {
+					consumeScoreElem(tag);
+				}
+			}, Tags.SCORE_PARTWISE);
+
+			if (validation != null) {
+				awaitPartTask(validation);
+			}
+
+			for (Future<PartBuilder> partRead : partReads) {
+				scoreBuilder.addPart(awaitPartTask(partRead));
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private void submitPartRead(ExecutorService executor, List<Future<PartBuilder>> partReads)
+			throws XMLStreamException {
+		if (nextPartRangeIndex >= partRanges.size()
+				|| partRanges.get(nextPartRangeIndex).getStart() != tokenizer.getElementStart()) {
+			throw new XMLStreamException("Malformed part element", reader.getLocation());
+		}
+
+		final PartRangeScanner.PartRange range = partRanges.get(nextPartRangeIndex);
+		++nextPartRangeIndex;
+
+		if (isSelectedPart()) {
+			final StaxReader partReader = new StaxReader(this,
+					tokenizer.fragment(range.getStart(), range.getEnd()), currentDivisions);
+			partReads.add(executor.submit(partReader::readPart));
+
+			if (range.getLastDivisions() > 0) {
+				currentDivisions = range.getLastDivisions();
+			}
+		}
+
+		tokenizer.skipContent(range.getContentEnd());
+	}
+
+	private PartBuilder readPart() throws XMLStreamException {
+		reader.nextTag();
+		return readPartElem();
+	}
+
+	private <T> T awaitPartTask(Future<T> task) throws IOException, ParsingFailureException {
+		try {
+			return task.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while reading the parts of the score");
+		} catch (ExecutionException e) {
+			final Throwable cause = e.getCause();
+			if (cause instanceof XMLStreamException) {
+				throw new ParsingFailureException(getParsingFailureMessage(cause.getMessage()));
+			}
+
+			if (cause instanceof RuntimeException runtimeException) {
+				throw runtimeException;
+			}
+
+			if (cause instanceof Error error) {
+				throw error;
+			}
+
+			throw new IllegalStateException(cause);
+		}
+	}
+
+	/**
+	 * Reads the elements before the first part, which contain the metadata of the score, and closes the reader
+	 * without reading the rest of the input.
+	 */
+	private void scanHeader() throws IOException, ParsingFailureException {
+		reader = createStreamReader();
+
+		try {
+			while (reader.hasNext()) {
+				if (reader.next() == XMLStreamConstants.START_ELEMENT) {
+					final String tag = reader.getLocalName();
+					if (Tags.PART.equals(tag)) {
+						break;
+					}
+
+					consumeScoreElem(tag);
+				}
+			}
+		} catch (XMLStreamException e) {
+			throw new ParsingFailureException(getParsingFailureMessage(e.getMessage()));
+		} catch (RuntimeException e) {
+			validateRemaining();
+			throw e;
+		}
+
+		close();
+	}
+
+	private void consumeScoreElem(String tag) throws XMLStreamException {
+		switch (tag) {
+			case Tags.WORK:
+				consumeWorkElem();
+				break;
+			case Tags.IDENTIFICATION:
+				consumeIdentificationElem();
+				break;
+			case Tags.MOVEMENT_TITLE:
+				consumeMovementTitleElem();
+				break;
+			case Tags.MOVEMENT_NUMBER:
+				consumeMovementNumberElem();
+				break;
+			case Tags.PART_LIST:
+				consumePartListElem();
+				break;
+			case Tags.PART:
+				if (isSelectedPart()) {
+					consumePartElem();
+				} else {
+					skipElement();
+				}
+				break;
+			case Tags.SCORE_PARTWISE:
+				// Do nothing
+				break;
+			default:
+				skipElement();
+		}
+	}
+
+	@Override
+	public Optional<PartMeasure> readNextMeasure() throws IOException, ParsingFailureException {
+		if (!isStreaming) {
+			if (scoreBuilder != null) {
+				throw new IllegalStateException("Cannot read measures after the score has been read");
+			}
+
+			checkNotReadingMetadataOnly();
+			isStreaming = true;
+			reader = createStreamReader();
+		}
+
 		try {
-			Schema schema = factory.newSchema(classLoader.getResource(MUSICXML_V4_0_SCHEMA_PATH));
-			Validator validator = schema.newValidator();
-			final XMLStreamReader validationReader = createStreamReader(path);
-			validator.validate(new StAXSource(validationReader));
-			validationReader.close();
-		} catch (SAXException | XMLStreamException e) {
+			while (streamedMeasures.isEmpty() && !isStreamFinished) {
+				streamNextElement();
+			}
+		} catch (XMLStreamException e) {
 			throw new ParsingFailureException(getParsingFailureMessage(e.getMessage()));
+		} catch (RuntimeException e) {
+			validateRemaining();
+			throw e;
 		}
 
-		inputStream.close();
+		return Optional.ofNullable(streamedMeasures.pollFirst());
+	}
+
+	private void streamNextElement() throws XMLStreamException, IOException {
+		final int event = reader.next();
+
+		if (event == XMLStreamConstants.START_ELEMENT) {
+			final String tag = reader.getLocalName();
+			if (Tags.PART.equals(tag)) {
+				if (isSelectedPart()) {
+					startStreamedPart();
+				} else {
+					skipElement();
+				}
+			} else if (Tags.MEASURE.equals(tag) && partContext != null) {
+				consumeMeasureElem();
+				releasePendingMeasures(false);
+			} else {
+				consumeScoreElem(tag);
+			}
+		} else if (isEndTag(event, Tags.PART)) {
+			releasePendingMeasures(true);
+			partContext = null;
+		} else if (event == XMLStreamConstants.END_DOCUMENT) {
+			isStreamFinished = true;
+			close();
+		}
+	}
+
+	private void startStreamedPart() {
+		++streamedPartIndex;
+		streamedPartId = reader.getAttributeValue(0);
+		partContext = session.getPartContext(partBuilders.get(streamedPartId), (staffNumber, builder) -> {
+			// Measures before the selected range are only read for their attributes.
+			if (!options.isBeforeSelectedMeasures(builder.getNumber())) {
+				pendingMeasures.add(Map.entry(staffNumber, builder));
+			}
+		});
+		partContext.setInterner(interner);
+		notationResolver.reset(partContext);
+	}
+
+	/**
+	 * Builds the pending measures once the notations connecting their notes to following notes have been
+	 * resolved. Measures cannot be built before that, because the built notes must contain the connections.
+	 *
+	 * @param isEndOfPart true if the end of the part has been reached and no more notations can be resolved
+	 */
+	private void releasePendingMeasures(boolean isEndOfPart) {
+		if (!isEndOfPart && notationResolver.hasUnresolvedNotations()) {
+			return;
+		}
+
+		final PartBuilder partBuilder = partBuilders.get(streamedPartId);
+		final String partName = partBuilder == null ? null : partBuilder.getName();
+		for (Map.Entry<Integer, MeasureBuilder> pending : pendingMeasures) {
+			streamedMeasures.add(new PartMeasure(streamedPartIndex, streamedPartId, partName, pending.getKey(),
+					pending.getValue().build(false, false)));
+		}
+
+		pendingMeasures.clear();
+	}
+
+	private void validateRemaining() throws ParsingFailureException {
+		if (reader instanceof ValidatingStreamReader validatingReader) {
+			try {
+				validatingReader.validateRemaining();
+			} catch (XMLStreamException e) {
+				throw new ParsingFailureException(getParsingFailureMessage(e.getMessage()));
+			}
+		}
 	}
 
 	private boolean isCompressed(String extension) {
@@ -242,13 +585,72 @@ final class StaxReader implements MusicXmlReader {
 		return split[split.length - 1];
 	}
 
-	private XMLStreamReader createStreamReader(Path path) throws IOException, ParsingFailureException {
-		final XMLInputFactory xmlInputFactory = XMLInputFactory.newInstance();
-		// Disable using validation using the DTD references in the file as this
-		// could download DTD files which can be slow. Instead do validation using
-		// the DTD included in the resources.
-		xmlInputFactory.setProperty(XMLInputFactory.IS_VALIDATING, false);
-		xmlInputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+	private XMLStreamReader createStreamReader() throws IOException, ParsingFailureException {
+		final XMLInputFactory xmlInputFactory = session.getInputFactory();
+
+		try {
+			if (path != null) {
+				inputStream = openFile(path);
+			} else {
+				inputStream = openSource(source);
+			}
+
+			final XMLStreamReader streamReader = createEngineStreamReader(xmlInputFactory);
+			if (validateInput && documentValidator == null) {
+				return new ValidatingStreamReader(streamReader, session.getValidator());
+			}
+
+			return streamReader;
+		} catch (XMLStreamException | SAXException e) {
+			throw new ParsingFailureException(getParsingFailureMessage(e.getMessage()));
+		}
+	}
+
+	private XMLStreamReader createEngineStreamReader(XMLInputFactory xmlInputFactory) throws IOException,
+			XMLStreamException, SAXException {
+		if (options.getEngine() == ReadOptions.Engine.UTF8_TOKENIZER) {
+			final byte[] contents = inputStream.readAllBytes();
+			if (Utf8XmlTokenizer.isUtf8(contents)) {
+				tokenizer = new Utf8XmlTokenizer(contents);
+				if (options.getPartParallelism() > 1 && !isStreaming && !isReadingMetadataOnly) {
+					partRanges = findPartRangesForParallelReading(contents);
+					if (!partRanges.isEmpty() && validateInput) {
+						// The parts are skipped on this thread, so the document is validated separately.
+						documentValidator = new ValidatingStreamReader(new Utf8XmlTokenizer(contents),
+								session.getValidator());
+					}
+				}
+
+				return tokenizer;
+			}
+
+			return xmlInputFactory.createXMLStreamReader(new ByteArrayInputStream(contents));
+		}
+
+		return xmlInputFactory.createXMLStreamReader(new BufferedInputStream(inputStream));
+	}
+
+	private List<PartRangeScanner.PartRange> findPartRangesForParallelReading(byte[] contents) {
+		final List<PartRangeScanner.PartRange> ranges = PartRangeScanner.scan(contents);
+		if (ranges.size() < 2) {
+			return List.of();
+		}
+
+		if (options.isMeasureRangeSelected()) {
+			// The measures after the selected range are skipped, so divisions declared in them are not carried
+			// to the next part. The divisions scanned from whole parts can then only be used if no part relies
+			// on the carried divisions.
+			for (PartRangeScanner.PartRange range : ranges) {
+				if (range.usesPreviousDivisions()) {
+					return List.of();
+				}
+			}
+		}
+
+		return ranges;
+	}
+
+	private InputStream openFile(Path path) throws IOException, ParsingFailureException, XMLStreamException {
 		final String extension = getExtension(path);
 		if (validateInput && !VALID_EXTENSIONS.contains(extension)) {
 			throw new ParsingFailureException(
@@ -257,23 +659,34 @@ final class StaxReader implements MusicXmlReader {
 
 		try {
 			if (isCompressed(extension)) {
-				inputStream = getStreamToZipEntry(path);
-			} else {
-				inputStream = new FileInputStream(path.toFile());
+				return getStreamToZipEntry(path);
 			}
 
-			return xmlInputFactory.createXMLStreamReader(new BufferedInputStream(inputStream));
-		} catch (XMLStreamException e) {
-			throw new ParsingFailureException(getParsingFailureMessage(e.getMessage()));
+			return new FileInputStream(path.toFile());
 		} catch (FileNotFoundException e) {
 			throw new IOException("File " + path + " not found");
 		}
 	}
 
-	private void findMainMusicXmlFile(ZipFile zipFile) throws IOException, XMLStreamException {
-		inputStream = zipFile.getInputStream(zipFile.getEntry(CompressedMxl.META_INF_PATH));
-		final XMLInputFactory xmlInputFactory = XMLInputFactory.newInstance();
-		reader = xmlInputFactory.createXMLStreamReader(new BufferedInputStream(inputStream));
+	private InputStream openSource(InputStream source) throws IOException, ParsingFailureException,
+			XMLStreamException {
+		final BufferedInputStream bufferedSource = new BufferedInputStream(source);
+		if (startsWithZipSignature(bufferedSource)) {
+			return getStreamToZipEntry(new ZipInputStream(bufferedSource));
+		}
+
+		return bufferedSource;
+	}
+
+	private static boolean startsWithZipSignature(BufferedInputStream stream) throws IOException {
+		stream.mark(ZIP_SIGNATURE.length);
+		final byte[] signature = stream.readNBytes(ZIP_SIGNATURE.length);
+		stream.reset();
+		return Arrays.equals(signature, ZIP_SIGNATURE);
+	}
+
+	private void findMainMusicXmlFile(InputStream containerStream) throws XMLStreamException {
+		reader = session.getInputFactory().createXMLStreamReader(containerStream);
 
 		while (reader.getEventType() != XMLStreamConstants.END_DOCUMENT) {
 			consumeUntil(tag -> {
@@ -289,14 +702,15 @@ final class StaxReader implements MusicXmlReader {
 
 		reader.close();
 		reader = null;
-
-		inputStream.close();
-		inputStream = null;
 	}
 
 	private InputStream getStreamToZipEntry(Path path) throws ParsingFailureException, IOException, XMLStreamException {
 		compressedFile = new ZipFile(path.toString());
-		findMainMusicXmlFile(compressedFile);
+		try (InputStream containerStream = new BufferedInputStream(
+				compressedFile.getInputStream(compressedFile.getEntry(CompressedMxl.META_INF_PATH)))) {
+			findMainMusicXmlFile(containerStream);
+		}
+
 		var entries = compressedFile.entries();
 		while (entries.hasMoreElements()) {
 			final var entry = entries.nextElement();
@@ -305,7 +719,38 @@ final class StaxReader implements MusicXmlReader {
 			}
 		}
 
-		throw new ParsingFailureException("Invalid compressed MusicXML file: missing MusicXML content.");
+		throw new ParsingFailureException(MISSING_CONTENT_MESSAGE);
+	}
+
+	private InputStream getStreamToZipEntry(ZipInputStream zipStream) throws ParsingFailureException, IOException,
+			XMLStreamException {
+		// The entries of a zip stream can only be read in order, so MusicXML entries that are
+		// encountered before the container file tells which one is the main file are kept in memory.
+		final Map<String, byte[]> entriesBeforeContainer = new HashMap<>();
+
+		ZipEntry entry = zipStream.getNextEntry();
+		while (entry != null) {
+			final String entryName = entry.getName();
+			if (entryName.equals(CompressedMxl.META_INF_PATH)) {
+				findMainMusicXmlFile(new FilterInputStream(zipStream) {
+					@Override
+					public void close() {
+						// The zip stream is still needed for reading the following entries.
+					}
+				});
+				if (entriesBeforeContainer.containsKey(mxlMainFilePath)) {
+					return new ByteArrayInputStream(entriesBeforeContainer.get(mxlMainFilePath));
+				}
+			} else if (mxlMainFilePath != null && entryName.equals(mxlMainFilePath)) {
+				return zipStream;
+			} else if (mxlMainFilePath == null && UNCOMPRESSED_EXTENSIONS.contains(getExtension(Path.of(entryName)))) {
+				entriesBeforeContainer.put(entryName, zipStream.readAllBytes());
+			}
+
+			entry = zipStream.getNextEntry();
+		}
+
+		throw new ParsingFailureException(MISSING_CONTENT_MESSAGE);
 	}
 
 	private void consumeText(Consumer<String> consumer) throws XMLStreamException {
@@ -317,6 +762,28 @@ final class StaxReader implements MusicXmlReader {
 		}
 	}
 
+	/**
+	 * Consumes the text of the current element as an integer. When the input is parsed using the tokenizer,
+	 * the integer is parsed directly from the bytes of the input without creating a string.
+	 *
+	 * @param consumer the consumer for the integer value of the text
+	 * @throws XMLStreamException if reading the text fails
+	 */
+	private void consumeInt(IntConsumer consumer) throws XMLStreamException {
+		if (reader.next() == XMLStreamConstants.CHARACTERS) {
+			if (tokenizer != null) {
+				if (!tokenizer.isBlankText()) {
+					consumer.accept(tokenizer.getTextAsInt());
+				}
+			} else {
+				final String text = reader.getText();
+				if (text != null && !text.isBlank()) {
+					consumer.accept(Integer.parseInt(text));
+				}
+			}
+		}
+	}
+
 	private void skipElement() throws XMLStreamException {
 		String tag = reader.getLocalName();
 		int event = reader.getEventType();
@@ -366,7 +833,7 @@ final class StaxReader implements MusicXmlReader {
 		consumeUntil(tag -> {
 			switch (tag) {
 				case Tags.WORK_TITLE:
-					consumeText(text -> scoreBuilder.setAttribute(Score.Attribute.TITLE, text));
+					consumeText(text -> scoreAttributes.put(Score.Attribute.TITLE, text));
 					break;
 				// Fall through for elements that are currently not supported
 				case Tags.WORK_NUMBER:
@@ -379,7 +846,7 @@ final class StaxReader implements MusicXmlReader {
 	}
 
 	private void consumeMovementTitleElem() throws XMLStreamException {
-		consumeText(text -> scoreBuilder.setAttribute(Score.Attribute.MOVEMENT_TITLE, text));
+		consumeText(text -> scoreAttributes.put(Score.Attribute.MOVEMENT_TITLE, text));
 	}
 
 	private void consumeMovementNumberElem() throws XMLStreamException {
@@ -392,7 +859,7 @@ final class StaxReader implements MusicXmlReader {
 			switch (tag) {
 				case Tags.CREATOR:
 					final String type = reader.getAttributeValue(null, Tags.TYPE);
-					consumeText(text -> scoreBuilder.setAttribute(Transforms.creatorTypeToAttribute(type), text));
+					consumeText(text -> scoreAttributes.put(Transforms.creatorTypeToAttribute(type), text));
 					break;
 				// Fall through for elements that are currently not supported
 				case Tags.RIGHTS:
@@ -423,16 +890,15 @@ final class StaxReader implements MusicXmlReader {
 
 	private void consumePartInfoElem() throws XMLStreamException {
 		final String partId = reader.getAttributeValue(0);
-		final PartBuilder partBuilder = new PartBuilder();
-		partBuilders.put(partId, partBuilder);
+		final Map<Part.Attribute, String> partAttributes = new EnumMap<>(Part.Attribute.class);
 
 		consumeUntil(tag -> {
 			switch (tag) {
 				case Tags.PART_NAME:
-					consumeText(text -> partBuilder.setAttribute(Part.Attribute.NAME, text));
+					consumeText(text -> partAttributes.put(Part.Attribute.NAME, text));
 					break;
 				case Tags.PART_ABBREVIATION:
-					consumeText(text -> partBuilder.setAttribute(Part.Attribute.ABBREVIATED_NAME, text));
+					consumeText(text -> partAttributes.put(Part.Attribute.ABBREVIATED_NAME, text));
 					break;
 				// Fall through for elements that are currently not supported
 				case Tags.IDENTIFICATION:
@@ -444,11 +910,32 @@ final class StaxReader implements MusicXmlReader {
 					skipElement();
 			}
 		}, Tags.SCORE_PART);
+
+		partInfos.add(new ScoreMetadata.PartInfo(partId, partAttributes.get(Part.Attribute.NAME),
+				partAttributes.get(Part.Attribute.ABBREVIATED_NAME)));
+
+		if (!isReadingMetadataOnly) {
+			final PartBuilder partBuilder = new PartBuilder();
+			partAttributes.forEach(partBuilder::setAttribute);
+			partBuilders.put(partId, partBuilder);
+		}
+	}
+
+	private boolean isSelectedPart() {
+		final int partIndex = nextPartIndex;
+		++nextPartIndex;
+		return options.isPartSelected(reader.getAttributeValue(0), partIndex);
 	}
 
 	private void consumePartElem() throws XMLStreamException {
+		scoreBuilder.addPart(readPartElem());
+	}
+
+	private PartBuilder readPartElem() throws XMLStreamException {
 		final String partId = reader.getAttributeValue(0);
-		partContext = new PartContext(partBuilders.get(partId));
+		final PartBuilder partBuilder = partBuilders.get(partId);
+		partContext = session.getPartContext(partBuilder, partBuilder::addToStaff);
+		partContext.setInterner(interner);
 		notationResolver.reset(partContext);
 
 		consumeUntil(tag -> {
@@ -457,7 +944,7 @@ final class StaxReader implements MusicXmlReader {
 			}
 		}, Tags.PART);
 
-		scoreBuilder.addPart(partContext.getPartBuilder());
+		return partContext.getPartBuilder();
 	}
 
 	private void consumeOffsetElem(String element) throws XMLStreamException {
@@ -465,9 +952,9 @@ final class StaxReader implements MusicXmlReader {
 			switch (tag) {
 				case Tags.DURATION:
 					if (element.equals(Tags.FORWARD)) {
-						consumeText(text -> partContext.addForwardDuration(divisionsToDuration(text)));
+						consumeInt(value -> partContext.addForwardDuration(divisionsToDuration(value)));
 					} else if (element.equals(Tags.BACKUP)) {
-						consumeText(text -> partContext.addBackupDuration(divisionsToDuration(text)));
+						consumeInt(value -> partContext.addBackupDuration(divisionsToDuration(value)));
 					}
 					break;
 				case Tags.STAFF:
@@ -492,6 +979,17 @@ final class StaxReader implements MusicXmlReader {
 	private void consumeMeasureElem() throws XMLStreamException {
 		updateMeasureNumber();
 
+		final int measureNumber = partContext.getMeasureNumber();
+		if (options.isAfterSelectedMeasures(measureNumber)) {
+			skipElement();
+			return;
+		}
+
+		if (options.isBeforeSelectedMeasures(measureNumber)) {
+			consumeUnselectedMeasureElem();
+			return;
+		}
+
 		consumeUntil(tag -> {
 			switch (tag) {
 				case Tags.NOTE:
@@ -525,6 +1023,20 @@ final class StaxReader implements MusicXmlReader {
 		partContext.finishMeasureElement();
 	}
 
+	private void consumeUnselectedMeasureElem() throws XMLStreamException {
+		// Only the attributes of measures before the selected measures are read,
+		// because they carry over to the selected measures.
+		consumeUntil(tag -> {
+			if (Tags.ATTRIBUTES.equals(tag)) {
+				consumeAttributesElem();
+			} else {
+				skipElement();
+			}
+		}, Tags.MEASURE);
+
+		partContext.finishMeasureElement();
+	}
+
 	private void consumeHarmonyElem() throws XMLStreamException {
 		final ChordSymbolBuilder builder = new ChordSymbolBuilder();
 		final StringBuilder offsetString = new StringBuilder();
@@ -538,7 +1050,7 @@ final class StaxReader implements MusicXmlReader {
 									consumeText(text -> currentStep = text);
 								}
 								if (rootTag.equals(Tags.ROOT_ALTER)) {
-									consumeText(text -> currentAlter = Integer.parseInt(text));
+									consumeInt(value -> currentAlter = value);
 								}
 
 							}, Tags.ROOT);
@@ -553,7 +1065,7 @@ final class StaxReader implements MusicXmlReader {
 									consumeText(text -> currentStep = text);
 								}
 								if (Tags.BASS_ALTER.equals(bassTag)) {
-									consumeText(text -> currentAlter = Integer.parseInt(text));
+									consumeInt(value -> currentAlter = value);
 								}
 
 							}, Tags.BASS);
@@ -571,7 +1083,7 @@ final class StaxReader implements MusicXmlReader {
 					consumeText(text -> offsetString.append(text));
 					break;
 				case Tags.STAFF:
-					consumeText(text -> partContext.setStaff(Integer.parseInt(text)));
+					consumeInt(value -> partContext.setStaff(value));
 					break;
 				default:
 					skipElement();
@@ -591,10 +1103,10 @@ final class StaxReader implements MusicXmlReader {
 		consumeUntil(tag -> {
 			switch (tag) {
 				case Tags.DEGREE_VALUE:
-					consumeText(text -> currentChordExtensionValue = Integer.parseInt(text));
+					consumeInt(value -> currentChordExtensionValue = value);
 					break;
 				case Tags.DEGREE_ALTER:
-					consumeText(text -> currentAlter = Integer.parseInt(text));
+					consumeInt(value -> currentAlter = value);
 					break;
 				case Tags.DEGREE_TYPE:
 					consumeText(text -> currentChordExtensionType = text);
@@ -628,7 +1140,7 @@ final class StaxReader implements MusicXmlReader {
 					consumeText(text -> partContext.setDirectionOffset(divisionsToFraction(text)));
 					break;
 				case Tags.STAFF:
-					consumeText(text -> partContext.setDirectionStaff(Integer.parseInt(text)));
+					consumeInt(value -> partContext.setDirectionStaff(value));
 					break;
 				default:
 					skipElement();
@@ -655,7 +1167,10 @@ final class StaxReader implements MusicXmlReader {
 	}
 
 	private Duration divisionsToDuration(String divisionsString) {
-		final int divisions = Integer.parseInt(divisionsString);
+		return divisionsToDuration(Integer.parseInt(divisionsString));
+	}
+
+	private Duration divisionsToDuration(int divisions) {
 		return Durations.QUARTER.divide(currentDivisions).multiply(divisions);
 	}
 
@@ -675,17 +1190,17 @@ final class StaxReader implements MusicXmlReader {
 		consumeUntil(tag -> {
 			switch (tag) {
 				case Tags.DURATION:
-					consumeText(text -> currentDurDivisions = Integer.parseInt(text));
+					consumeInt(value -> currentDurDivisions = value);
 					break;
 				case Tags.PITCH:
 				case Tags.UNPITCHED:
 					consumePitchElem(tag);
 					break;
 				case Tags.VOICE:
-					consumeText(text -> partContext.setVoice(Integer.parseInt(text)));
+					consumeInt(value -> partContext.setVoice(value));
 					break;
 				case Tags.STAFF:
-					consumeText(text -> partContext.setStaff(Integer.parseInt(text)));
+					consumeInt(value -> partContext.setStaff(value));
 					break;
 				case Tags.REST:
 					currentDurationalBuilder = new RestBuilder();
@@ -1033,7 +1548,7 @@ final class StaxReader implements MusicXmlReader {
 	private void consumeTimeModificationElem() throws XMLStreamException {
 		consumeUntil(tag -> {
 			if (tag.equals(Tags.ACTUAL_NOTES)) {
-				consumeText(text -> currentTupletDivisor = Integer.parseInt(text));
+				consumeInt(value -> currentTupletDivisor = value);
 			} else {
 				skipElement();
 			}
@@ -1093,10 +1608,10 @@ final class StaxReader implements MusicXmlReader {
 					consumeText(text -> currentStep = text);
 					break;
 				case Tags.ALTER:
-					consumeText(text -> currentAlter = Integer.parseInt(text));
+					consumeInt(value -> currentAlter = value);
 				case Tags.OCTAVE:
 				case Tags.DISPLAY_OCTAVE:
-					consumeText(text -> currentOctave = Integer.parseInt(text));
+					consumeInt(value -> currentOctave = value);
 			}
 		}, pitchTag);
 
@@ -1108,7 +1623,7 @@ final class StaxReader implements MusicXmlReader {
 		consumeUntil(tag -> {
 			switch (tag) {
 				case Tags.DIVISIONS:
-					consumeText(text -> currentDivisions = Integer.parseInt(text));
+					consumeInt(value -> currentDivisions = value);
 					break;
 				case Tags.KEY:
 					consumeKeyElem();
@@ -1142,7 +1657,7 @@ final class StaxReader implements MusicXmlReader {
 		consumeUntil(tag -> {
 			switch (tag) {
 				case Tags.STAFF_LINES:
-					consumeText(text -> partContext.setStaffLines(Integer.parseInt(text)));
+					consumeInt(value -> partContext.setStaffLines(value));
 					break;
 				default:
 					break;
@@ -1155,8 +1670,8 @@ final class StaxReader implements MusicXmlReader {
 		consumeUntil(tag -> {
 			switch (tag) {
 				case Tags.FIFTHS:
-					consumeText(text -> partContext.getMeasureBuilder()
-							.setKeySignature(Transforms.fifthsToKeySig(Integer.parseInt(text))));
+					consumeInt(value -> partContext.getMeasureBuilder()
+							.setKeySignature(Transforms.fifthsToKeySig(value)));
 					break;
 				// Fall through for elements that are currently not supported
 				case Tags.MODE:
@@ -1178,10 +1693,10 @@ final class StaxReader implements MusicXmlReader {
 		consumeUntil(tag -> {
 			switch (tag) {
 				case Tags.BEATS:
-					consumeText(text -> beats = Integer.parseInt(text));
+					consumeInt(value -> beats = value);
 					break;
 				case Tags.BEAT_TYPE:
-					consumeText(text -> beatDivisions = Integer.parseInt(text));
+					consumeInt(value -> beatDivisions = value);
 					break;
 				// Fall through for elements that are currently not supported
 				case Tags.INTERCHANGEABLE:
@@ -1241,7 +1756,7 @@ final class StaxReader implements MusicXmlReader {
 					consumeText(text -> clefSymbol = Transforms.signToClefSymbol(text));
 					break;
 				case Tags.LINE:
-					consumeText(text -> clefLine = Integer.parseInt(text));
+					consumeInt(value -> clefLine = value);
 					break;
 				// Fall through for elements that are currently not supported
 				case Tags.CLEF_OCTAVE_CHANGE:
@@ -1261,7 +1776,8 @@ final class StaxReader implements MusicXmlReader {
 	}
 
 	private String getParsingFailureMessage(String message) {
-		return "Parsing of " + path + " failed with: " + message;
+		final String sourceName = path != null ? path.toString() : STREAM_SOURCE_NAME;
+		return "Parsing of " + sourceName + " failed with: " + message;
 	}
 
 }
@@ -0,0 +1,203 @@
+/*
+ * Distributed under the MIT license (see LICENSE.txt or https://opensource.org/licenses/MIT).
+ */
+package org.wmn4j.io.musicxml;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Perfect hash table of the MusicXML vocabulary in {@link Tags}.
+ * <p>
+ * The table maps the UTF-8 bytes of a tag or attribute value to the corresponding {@link Tags} constant
+ * without creating a string for the bytes. Because the returned strings are the constants themselves, their
+ * hash codes are already cached and comparing them to the constants in switch statements is cheap.
+ * <p>
+ * The table uses hash and displace: the keys are first divided into buckets using one hash function and
+ * then, starting from the largest bucket, a seed is searched for each bucket so that the keys of the bucket
+ * hash to free slots with the seeded hash function. A lookup therefore computes two hashes and compares the
+ * bytes with at most one key.
+ * <p>
+ * For writing, the table also holds the UTF-8 bytes of the constants, so that they can be written without
+ * encoding them again.
+ */
+final class TagTable {
+
+	private static final int FNV_OFFSET_BASIS = 0x811C9DC5;
+	private static final int FNV_PRIME = 0x01000193;
+	private static final int MAX_SEED = 1 << 20;
+
+	private static final int[] SEEDS;
+	private static final byte[][] KEYS;
+	private static final String[] VALUES;
+	private static final int MASK;
+	private static final Map<String, byte[]> ENCODED;
+
+	static {
+		final Set<String> vocabulary = readVocabulary();
+		final int bucketCount = Math.max(1, vocabulary.size() / 2);
+		final int size = Integer.highestOneBit(Math.max(1, vocabulary.size() * 2 - 1)) << 1;
+
+		final List<List<String>> buckets = new ArrayList<>(bucketCount);
+		for (int i = 0; i < bucketCount; ++i) {
+			buckets.add(new ArrayList<>());
+		}
+
+		for (String value : vocabulary) {
+			final byte[] key = value.getBytes(StandardCharsets.UTF_8);
+			buckets.get(bucketIndex(hash(key, 0, key.length, 0), bucketCount)).add(value);
+		}
+
+		final List<Integer> bucketOrder = new ArrayList<>(bucketCount);
+		for (int i = 0; i < bucketCount; ++i) {
+			bucketOrder.add(i);
+		}
+		bucketOrder.sort(Comparator.comparingInt((Integer bucket) -> buckets.get(bucket).size()).reversed());
+
+		SEEDS = new int[bucketCount];
+		KEYS = new byte[size][];
+		VALUES = new String[size];
+		MASK = size - 1;
+		ENCODED = new HashMap<>(vocabulary.size() * 2);
+
+		for (int bucket : bucketOrder) {
+			if (!buckets.get(bucket).isEmpty()) {
+				SEEDS[bucket] = placeBucket(buckets.get(bucket));
+			}
+		}
+
+		for (String value : vocabulary) {
+			if (!needsEscaping(value)) {
+				ENCODED.put(value, value.getBytes(StandardCharsets.UTF_8));
+			}
+		}
+	}
+
+	private TagTable() {
+		// Not meant to be instantiated.
+	}
+
+	/**
+	 * Returns the {@link Tags} constant whose UTF-8 bytes are the given range of bytes, or null if the range
+	 * is not in the vocabulary.
+	 *
+	 * @param bytes the bytes that contain the range
+	 * @param start the start index of the range (inclusive)
+	 * @param end   the end index of the range (exclusive)
+	 * @return the constant matching the bytes or null if there is no matching constant
+	 */
+	static String lookup(byte[] bytes, int start, int end) {
+		final int seed = SEEDS[bucketIndex(hash(bytes, start, end, 0), SEEDS.length)];
+		final int slot = hash(bytes, start, end, seed) & MASK;
+		final byte[] key = KEYS[slot];
+
+		if (key != null && Arrays.equals(key, 0, key.length, bytes, start, end)) {
+			return VALUES[slot];
+		}
+
+		return null;
+	}
+
+	/**
+	 * Returns the UTF-8 bytes of the given {@link Tags} constant, or null if the given string is not in the
+	 * vocabulary. The bytes are only returned for constants that can be written as they are in element names,
+	 * attribute values, and text, so they contain no characters that would need to be escaped.
+	 * <p>
+	 * The returned array is shared and must not be modified.
+	 *
+	 * @param value the string whose bytes are returned
+	 * @return the UTF-8 bytes of the given constant or null if the string is not in the vocabulary
+	 */
+	static byte[] getEncoded(String value) {
+		return ENCODED.get(value);
+	}
+
+	private static boolean needsEscaping(String value) {
+		for (int i = 0; i < value.length(); ++i) {
+			final char character = value.charAt(i);
+			if (character == '<' || character == '>' || character == '&' || character == '"') {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	private static int placeBucket(List<String> values) {
+		final int[] slots = new int[values.size()];
+
+		for (int seed = 1; seed < MAX_SEED; ++seed) {
+			if (findFreeSlots(values, seed, slots)) {
+				for (int i = 0; i < slots.length; ++i) {
+					VALUES[slots[i]] = values.get(i);
+					KEYS[slots[i]] = values.get(i).getBytes(StandardCharsets.UTF_8);
+				}
+
+				return seed;
+			}
+		}
+
+		throw new IllegalStateException("Failed to create perfect hash table for the MusicXML vocabulary");
+	}
+
+	private static boolean findFreeSlots(List<String> values, int seed, int[] slots) {
+		for (int i = 0; i < slots.length; ++i) {
+			final byte[] key = values.get(i).getBytes(StandardCharsets.UTF_8);
+			slots[i] = hash(key, 0, key.length, seed) & MASK;
+
+			if (VALUES[slots[i]] != null) {
+				return false;
+			}
+
+			for (int j = 0; j < i; ++j) {
+				if (slots[j] == slots[i]) {
+					return false;
+				}
+			}
+		}
+
+		return true;
+	}
+
+	private static int bucketIndex(int hash, int bucketCount) {
+		return (hash & Integer.MAX_VALUE) % bucketCount;
+	}
+
+	private static int hash(byte[] bytes, int start, int end, int seed) {
+		int hash = FNV_OFFSET_BASIS ^ seed;
+		for (int i = start; i < end; ++i) {
+			hash = (hash ^ (bytes[i] & 0xFF)) * FNV_PRIME;
+		}
+
+		// Mix the bits so that the low bits used for the slot depend on all bytes.
+		hash ^= hash >>> 15;
+		hash *= 0x2C1B3C6D;
+		hash ^= hash >>> 12;
+		return hash;
+	}
+
+	private static Set<String> readVocabulary() {
+		final Set<String> vocabulary = new LinkedHashSet<>();
+		for (Field field : Tags.class.getDeclaredFields()) {
+			final int modifiers = field.getModifiers();
+			if (Modifier.isStatic(modifiers) && field.getType().equals(String.class)) {
+				try {
+					vocabulary.add((String) field.get(null));
+				} catch (IllegalAccessException e) {
+					throw new IllegalStateException("Cannot read MusicXML vocabulary", e);
+				}
+			}
+		}
+
+		return vocabulary;
+	}
+}
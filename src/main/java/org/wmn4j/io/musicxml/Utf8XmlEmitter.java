@@ -0,0 +1,604 @@
+/*
+ * Distributed under the MIT license (see LICENSE.txt or https://opensource.org/licenses/MIT).
+ */
+package org.wmn4j.io.musicxml;
+
+import javax.xml.XMLConstants;
+import javax.xml.namespace.NamespaceContext;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Stream writer that writes XML directly as UTF-8 encoded bytes.
+ * <p>
+ * The emitter implements the {@link XMLStreamWriter} API, so it can be used in place of the stream writers of
+ * the XML output factory, and produces exactly the same output as they do when writing UTF-8. The output is
+ * collected into a reusable byte buffer that is written to the output stream when it is full and when the
+ * emitter is flushed. Names and values from the MusicXML vocabulary are copied as pre-encoded bytes from
+ * {@link TagTable}, and integers can be written without creating strings for them using
+ * {@link #writeValue(String, int)} and {@link #writeAttribute(String, int)}.
+ * <p>
+ * When indenting, each start tag, empty element, and end tag that does not directly follow text is written on
+ * its own line indented by two spaces for each level of nesting. The indentations are taken from a fixed table.
+ * <p>
+ * Namespace prefixes bound using {@link #setPrefix(String, String)} are bound for the whole document instead of
+ * the current element, which is sufficient for MusicXML.
+ */
+final class Utf8XmlEmitter implements XMLStreamWriter {
+
+	private static final int BUFFER_SIZE = 8192;
+	private static final int INITIAL_DEPTH = 16;
+	private static final int INDENTATION_TABLE_SIZE = 32;
+	private static final int INDENT_WIDTH = 2;
+	private static final int MAX_ESCAPED_LENGTH = 6;
+	private static final byte[][] INDENTATIONS = createIndentations();
+
+	private static final byte[] LT = bytes("&lt;");
+	private static final byte[] GT = bytes("&gt;");
+	private static final byte[] AMP = bytes("&amp;");
+	private static final byte[] QUOT = bytes("&quot;");
+	private static final byte[] MIN_INT = bytes(Integer.toString(Integer.MIN_VALUE));
+	private static final byte[] XML_DECLARATION_START = bytes("<?xml version=\"");
+	private static final byte[] ENCODING_START = bytes("\" encoding=\"");
+	private static final byte[] DECLARATION_END = bytes("?>");
+	private static final byte[] DEFAULT_DECLARATION_END = bytes("\" ?>");
+	private static final byte[] COMMENT_START = bytes("<!--");
+	private static final byte[] COMMENT_END = bytes("-->");
+	private static final byte[] CDATA_START = bytes("<![CDATA[");
+	private static final byte[] CDATA_END = bytes("]]>");
+	private static final byte[] NAMESPACE_DECLARATION = bytes(" xmlns");
+	private static final byte[] EMPTY_ELEMENT_END = bytes("/>");
+	private static final byte[] END_TAG_START = bytes("</");
+	private static final byte[] ATTRIBUTE_VALUE_START = bytes("=\"");
+	private static final String DEFAULT_VERSION = "1.0";
+
+	private final OutputStream outputStream;
+	private final boolean indent;
+	private final byte[] buffer = new byte[BUFFER_SIZE];
+	private int count;
+
+	private String[] openElements = new String[INITIAL_DEPTH];
+	private int openElementCount;
+	private boolean isStartTagOpen;
+	private boolean isEmptyElementOpen;
+
+	// The indentation depth differs from the number of open elements while text has been written in an element.
+	private int indentDepth;
+	private boolean valueWritten;
+
+	private final Map<String, String> prefixes = new HashMap<>();
+	private NamespaceContext namespaceContext;
+
+	/**
+	 * Creates an emitter that writes to the given output stream. The output stream is not closed when the
+	 * emitter is closed.
+	 *
+	 * @param outputStream the output stream to which the XML is written
+	 * @param indent       true if the output is indented, false for output without unnecessary whitespace
+	 */
+	Utf8XmlEmitter(OutputStream outputStream, boolean indent) {
+		this(outputStream, indent, 0);
+	}
+
+	/**
+	 * Creates an emitter that writes a fragment of a document nested at the given depth to the given output
+	 * stream. The fragment is indented as it would be if it were written by an emitter with the given number of
+	 * open elements, so that it can be inserted as is into a document written by another emitter.
+	 *
+	 * @param outputStream the output stream to which the XML is written
+	 * @param indent       true if the output is indented, false for output without unnecessary whitespace
+	 * @param indentDepth  the number of elements in which the written fragment is nested
+	 */
+	Utf8XmlEmitter(OutputStream outputStream, boolean indent, int indentDepth) {
+		this.outputStream = outputStream;
+		this.indent = indent;
+		this.indentDepth = indentDepth;
+	}
+
+	/**
+	 * Writes an element with the given name that contains the given integer as its text.
+	 *
+	 * @param localName the name of the element
+	 * @param value     the integer written as the text of the element
+	 * @throws XMLStreamException if writing fails
+	 */
+	void writeValue(String localName, int value) throws XMLStreamException {
+		writeStartElement(localName);
+		closeStartTag();
+		writeInt(value);
+		valueWritten = true;
+		writeEndElement();
+	}
+
+	/**
+	 * Writes an attribute with the given name and integer value to the current start tag.
+	 *
+	 * @param localName the name of the attribute
+	 * @param value     the integer value of the attribute
+	 * @throws XMLStreamException if there is no start tag for the attribute or writing fails
+	 */
+	void writeAttribute(String localName, int value) throws XMLStreamException {
+		startAttribute(null, localName);
+		writeInt(value);
+		write((byte) '"');
+	}
+
+	@Override
+	public void writeStartElement(String localName) throws XMLStreamException {
+		startElement(null, localName, false);
+	}
+
+	@Override
+	public void writeStartElement(String namespaceURI, String localName) throws XMLStreamException {
+		startElement(requirePrefix(namespaceURI), localName, false);
+	}
+
+	@Override
+	public void writeStartElement(String prefix, String localName, String namespaceURI) throws XMLStreamException {
+		startElement(prefix, localName, false);
+	}
+
+	@Override
+	public void writeEmptyElement(String namespaceURI, String localName) throws XMLStreamException {
+		startElement(requirePrefix(namespaceURI), localName, true);
+	}
+
+	@Override
+	public void writeEmptyElement(String prefix, String localName, String namespaceURI) throws XMLStreamException {
+		startElement(prefix, localName, true);
+	}
+
+	@Override
+	public void writeEmptyElement(String localName) throws XMLStreamException {
+		startElement(null, localName, true);
+	}
+
+	private void startElement(String prefix, String localName, boolean isEmpty) throws XMLStreamException {
+		if (indent) {
+			writeIndentation(indentDepth);
+			if (!isEmpty) {
+				++indentDepth;
+			}
+		}
+
+		closeStartTag();
+		final String name = prefix == null || prefix.isEmpty() ? localName : prefix + ':' + localName;
+		write((byte) '<');
+		writeName(name);
+
+		if (isEmpty) {
+			isEmptyElementOpen = true;
+		} else {
+			if (openElementCount == openElements.length) {
+				openElements = Arrays.copyOf(openElements, openElementCount * 2);
+			}
+
+			openElements[openElementCount] = name;
+			++openElementCount;
+			isStartTagOpen = true;
+		}
+	}
+
+	@Override
+	public void writeEndElement() throws XMLStreamException {
+		if (indent) {
+			--indentDepth;
+			if (valueWritten) {
+				valueWritten = false;
+			} else {
+				writeIndentation(indentDepth);
+			}
+		}
+
+		if (openElementCount == 0) {
+			throw new XMLStreamException("No element was found to write");
+		}
+
+		closeStartTag();
+		--openElementCount;
+		writeEndTag(openElements[openElementCount]);
+	}
+
+	@Override
+	public void writeEndDocument() throws XMLStreamException {
+		closeStartTag();
+		while (openElementCount > 0) {
+			--openElementCount;
+			writeEndTag(openElements[openElementCount]);
+		}
+	}
+
+	private void writeEndTag(String name) throws XMLStreamException {
+		write(END_TAG_START);
+		writeName(name);
+		write((byte) '>');
+	}
+
+	@Override
+	public void close() throws XMLStreamException {
+		flush();
+	}
+
+	@Override
+	public void flush() throws XMLStreamException {
+		try {
+			flushBuffer();
+			outputStream.flush();
+		} catch (IOException e) {
+			throw new XMLStreamException(e.getMessage(), e);
+		}
+	}
+
+	@Override
+	public void writeAttribute(String localName, String value) throws XMLStreamException {
+		startAttribute(null, localName);
+		writeText(value, true);
+		write((byte) '"');
+	}
+
+	@Override
+	public void writeAttribute(String prefix, String namespaceURI, String localName, String value)
+			throws XMLStreamException {
+		startAttribute(prefix, localName);
+		writeText(value, true);
+		write((byte) '"');
+	}
+
+	@Override
+	public void writeAttribute(String namespaceURI, String localName, String value) throws XMLStreamException {
+		startAttribute(requirePrefix(namespaceURI), localName);
+		writeText(value, true);
+		write((byte) '"');
+	}
+
+	private void startAttribute(String prefix, String localName) throws XMLStreamException {
+		if (!isStartTagOpen && !isEmptyElementOpen) {
+			throw new XMLStreamException("Attribute not associated with any element");
+		}
+
+		write((byte) ' ');
+		if (prefix != null && !prefix.isEmpty()) {
+			writeName(prefix);
+			write((byte) ':');
+		}
+
+		writeName(localName);
+		write(ATTRIBUTE_VALUE_START);
+	}
+
+	@Override
+	public void writeNamespace(String prefix, String namespaceURI) throws XMLStreamException {
+		if (prefix == null || prefix.isEmpty() || XMLConstants.XMLNS_ATTRIBUTE.equals(prefix)) {
+			writeDefaultNamespace(namespaceURI);
+			return;
+		}
+
+		startAttribute(XMLConstants.XMLNS_ATTRIBUTE, prefix);
+		writeText(namespaceURI, true);
+		write((byte) '"');
+	}
+
+	@Override
+	public void writeDefaultNamespace(String namespaceURI) throws XMLStreamException {
+		if (!isStartTagOpen && !isEmptyElementOpen) {
+			throw new XMLStreamException("Namespace not associated with any element");
+		}
+
+		write(NAMESPACE_DECLARATION);
+		write(ATTRIBUTE_VALUE_START);
+		writeText(namespaceURI, true);
+		write((byte) '"');
+	}
+
+	@Override
+	public void writeComment(String data) throws XMLStreamException {
+		closeStartTag();
+		write(COMMENT_START);
+		writeText(data, false, false);
+		write(COMMENT_END);
+	}
+
+	@Override
+	public void writeProcessingInstruction(String target) throws XMLStreamException {
+		writeProcessingInstruction(target, null);
+	}
+
+	@Override
+	public void writeProcessingInstruction(String target, String data) throws XMLStreamException {
+		closeStartTag();
+		write((byte) '<');
+		write((byte) '?');
+		writeName(target);
+		if (data != null) {
+			write((byte) ' ');
+			writeText(data, false, false);
+		}
+		write(DECLARATION_END);
+	}
+
+	@Override
+	public void writeCData(String data) throws XMLStreamException {
+		closeStartTag();
+		write(CDATA_START);
+		writeText(data, false, false);
+		write(CDATA_END);
+	}
+
+	@Override
+	public void writeDTD(String dtd) throws XMLStreamException {
+		closeStartTag();
+		writeText(dtd, false, false);
+	}
+
+	@Override
+	public void writeEntityRef(String name) throws XMLStreamException {
+		closeStartTag();
+		write((byte) '&');
+		writeName(name);
+		write((byte) ';');
+	}
+
+	@Override
+	public void writeStartDocument() throws XMLStreamException {
+		write(XML_DECLARATION_START);
+		writeName(DEFAULT_VERSION);
+		write(DEFAULT_DECLARATION_END);
+	}
+
+	@Override
+	public void writeStartDocument(String version) throws XMLStreamException {
+		write(XML_DECLARATION_START);
+		writeName(version);
+		write((byte) '"');
+		write(DECLARATION_END);
+	}
+
+	@Override
+	public void writeStartDocument(String encoding, String version) throws XMLStreamException {
+		if (!StandardCharsets.UTF_8.name().equalsIgnoreCase(encoding)) {
+			throw new XMLStreamException("Only UTF-8 output is supported, the requested encoding was " + encoding);
+		}
+
+		write(XML_DECLARATION_START);
+		writeName(version);
+		write(ENCODING_START);
+		writeName(encoding);
+		write((byte) '"');
+		write(DECLARATION_END);
+	}
+
+	@Override
+	public void writeCharacters(String text) throws XMLStreamException {
+		closeStartTag();
+		writeText(text, false);
+		valueWritten = true;
+	}
+
+	@Override
+	public void writeCharacters(char[] text, int start, int len) throws XMLStreamException {
+		writeCharacters(new String(text, start, len));
+	}
+
+	@Override
+	public String getPrefix(String uri) throws XMLStreamException {
+		final String prefix = prefixes.get(uri);
+		if (prefix == null && namespaceContext != null) {
+			return namespaceContext.getPrefix(uri);
+		}
+
+		return prefix;
+	}
+
+	@Override
+	public void setPrefix(String prefix, String uri) throws XMLStreamException {
+		prefixes.put(uri, prefix);
+	}
+
+	@Override
+	public void setDefaultNamespace(String uri) throws XMLStreamException {
+		prefixes.put(uri, XMLConstants.DEFAULT_NS_PREFIX);
+	}
+
+	@Override
+	public void setNamespaceContext(NamespaceContext context) throws XMLStreamException {
+		this.namespaceContext = context;
+	}
+
+	@Override
+	public NamespaceContext getNamespaceContext() {
+		return namespaceContext;
+	}
+
+	@Override
+	public Object getProperty(String name) {
+		throw new IllegalArgumentException("Property " + name + " is not supported");
+	}
+
+	private String requirePrefix(String namespaceURI) throws XMLStreamException {
+		final String prefix = getPrefix(namespaceURI);
+		if (prefix == null) {
+			throw new XMLStreamException("No prefix bound to namespace " + namespaceURI);
+		}
+
+		return prefix;
+	}
+
+	private void closeStartTag() throws XMLStreamException {
+		if (isStartTagOpen) {
+			write((byte) '>');
+			isStartTagOpen = false;
+		} else if (isEmptyElementOpen) {
+			write(EMPTY_ELEMENT_END);
+			isEmptyElementOpen = false;
+		}
+	}
+
+	private void writeIndentation(int depth) throws XMLStreamException {
+		closeStartTag();
+		write(depth >= 0 && depth < INDENTATIONS.length ? INDENTATIONS[depth] : createIndentation(depth));
+	}
+
+	private void writeName(String name) throws XMLStreamException {
+		final byte[] encoded = TagTable.getEncoded(name);
+		if (encoded != null) {
+			write(encoded);
+		} else {
+			writeText(name, false, false);
+		}
+	}
+
+	private void writeText(String text, boolean isAttributeValue) throws XMLStreamException {
+		final byte[] encoded = TagTable.getEncoded(text);
+		if (encoded != null) {
+			write(encoded);
+		} else {
+			writeText(text, true, isAttributeValue);
+		}
+	}
+
+	/**
+	 * Writes the given text encoded as UTF-8. When escaping, the characters that have a special meaning in
+	 * text are replaced by the predefined entities, which are the same ones that the stream writers of the
+	 * XML output factory replace.
+	 */
+	private void writeText(String text, boolean escape, boolean isAttributeValue) throws XMLStreamException {
+		final int length = text.length();
+		for (int i = 0; i < length; ++i) {
+			if (count + MAX_ESCAPED_LENGTH > buffer.length) {
+				flushBufferForWriting();
+			}
+
+			final char character = text.charAt(i);
+			if (character < 0x80) {
+				if (escape && character == '<') {
+					writeEscape(LT);
+				} else if (escape && character == '>') {
+					writeEscape(GT);
+				} else if (escape && character == '&') {
+					writeEscape(AMP);
+				} else if (escape && isAttributeValue && character == '"') {
+					writeEscape(QUOT);
+				} else {
+					buffer[count++] = (byte) character;
+				}
+			} else if (character < 0x800) {
+				buffer[count++] = (byte) (0xC0 | (character >> 6));
+				buffer[count++] = (byte) (0x80 | (character & 0x3F));
+			} else if (Character.isHighSurrogate(character) && i + 1 < length
+					&& Character.isLowSurrogate(text.charAt(i + 1))) {
+				final int codePoint = Character.toCodePoint(character, text.charAt(i + 1));
+				buffer[count++] = (byte) (0xF0 | (codePoint >> 18));
+				buffer[count++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+				buffer[count++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+				buffer[count++] = (byte) (0x80 | (codePoint & 0x3F));
+				++i;
+			} else if (Character.isSurrogate(character)) {
+				// Unpaired surrogates cannot be encoded.
+				buffer[count++] = (byte) '?';
+			} else {
+				buffer[count++] = (byte) (0xE0 | (character >> 12));
+				buffer[count++] = (byte) (0x80 | ((character >> 6) & 0x3F));
+				buffer[count++] = (byte) (0x80 | (character & 0x3F));
+			}
+		}
+	}
+
+	private void writeEscape(byte[] escaped) {
+		System.arraycopy(escaped, 0, buffer, count, escaped.length);
+		count += escaped.length;
+	}
+
+	private void writeInt(int value) throws XMLStreamException {
+		if (value == Integer.MIN_VALUE) {
+			write(MIN_INT);
+			return;
+		}
+
+		if (count + MIN_INT.length > buffer.length) {
+			flushBufferForWriting();
+		}
+
+		int remaining = value;
+		if (remaining < 0) {
+			buffer[count++] = (byte) '-';
+			remaining = -remaining;
+		}
+
+		int digitCount = 1;
+		for (int limit = 10; digitCount < 10 && remaining >= limit; limit *= 10) {
+			++digitCount;
+		}
+
+		count += digitCount;
+		for (int i = count - 1; i >= count - digitCount; --i) {
+			buffer[i] = (byte) ('0' + remaining % 10);
+			remaining /= 10;
+		}
+	}
+
+	private void write(byte value) throws XMLStreamException {
+		if (count == buffer.length) {
+			flushBufferForWriting();
+		}
+
+		buffer[count++] = value;
+	}
+
+	private void write(byte[] bytes) throws XMLStreamException {
+		if (count + bytes.length > buffer.length) {
+			flushBufferForWriting();
+			if (bytes.length > buffer.length) {
+				try {
+					outputStream.write(bytes);
+				} catch (IOException e) {
+					throw new XMLStreamException(e.getMessage(), e);
+				}
+				return;
+			}
+		}
+
+		System.arraycopy(bytes, 0, buffer, count, bytes.length);
+		count += bytes.length;
+	}
+
+	private void flushBufferForWriting() throws XMLStreamException {
+		try {
+			flushBuffer();
+		} catch (IOException e) {
+			throw new XMLStreamException(e.getMessage(), e);
+		}
+	}
+
+	private void flushBuffer() throws IOException {
+		if (count > 0) {
+			outputStream.write(buffer, 0, count);
+			count = 0;
+		}
+	}
+
+	private static byte[][] createIndentations() {
+		final byte[][] indentations = new byte[INDENTATION_TABLE_SIZE][];
+		for (int depth = 0; depth < indentations.length; ++depth) {
+			indentations[depth] = createIndentation(depth);
+		}
+
+		return indentations;
+	}
+
+	private static byte[] createIndentation(int depth) {
+		final byte[] indentation = new byte[1 + Math.max(0, depth) * INDENT_WIDTH];
+		Arrays.fill(indentation, (byte) ' ');
+		indentation[0] = '\n';
+		return indentation;
+	}
+
+	private static byte[] bytes(String value) {
+		return value.getBytes(StandardCharsets.US_ASCII);
+	}
+}
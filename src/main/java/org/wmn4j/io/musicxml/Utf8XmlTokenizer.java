@@ -0,0 +1,1390 @@
+/*
+ * Distributed under the MIT license (see LICENSE.txt or https://opensource.org/licenses/MIT).
+ */
+package org.wmn4j.io.musicxml;
+
+import javax.xml.XMLConstants;
+import javax.xml.namespace.NamespaceContext;
+import javax.xml.namespace.QName;
+import javax.xml.stream.Location;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+/**
+ * Stream reader that tokenizes UTF-8 encoded XML directly from bytes.
+ * <p>
+ * The tokenizer implements the parts of the {@link XMLStreamReader} cursor API that are needed for reading
+ * MusicXML, so it can be used in place of the stream readers of the XML parser factory. Element names and
+ * attribute values are matched against the MusicXML vocabulary using {@link TagTable}, so for known names
+ * and values no strings are created. The text content of elements is only decoded into a string when it is
+ * requested, and integer content can be parsed directly from the bytes using {@link #getTextAsInt()}.
+ * <p>
+ * The whole document is held in memory. Only UTF-8 (and its subset ASCII) is supported, which can be checked
+ * using {@link #isUtf8(byte[])}. Malformed UTF-8, characters that are not allowed in XML, and names that do
+ * not start with a name start character are rejected in the same way as by the XML parser factory. Document
+ * type declarations are skipped without processing them, so entities other than the predefined entities and
+ * character references are not supported.
+ */
+final class Utf8XmlTokenizer implements XMLStreamReader {
+
+	private static final byte[] UTF8_BOM = {(byte) 0xEF, (byte) 0xBB, (byte) 0xBF};
+	private static final byte[] XML_DECLARATION_START = bytes("<?xml");
+	private static final byte[] ENCODING = bytes("encoding");
+	private static final byte[] COMMENT_START = bytes("<!--");
+	private static final byte[] COMMENT_END = bytes("-->");
+	private static final byte[] DOUBLE_HYPHEN = bytes("--");
+	private static final byte[] CDATA_START = bytes("<![CDATA[");
+	private static final byte[] CDATA_END = bytes("]]>");
+	private static final byte[] DOCTYPE_START = bytes("<!DOCTYPE");
+	private static final byte[] PI_END = bytes("?>");
+	private static final byte[] XMLNS = bytes("xmlns");
+	private static final String XML_TARGET = "xml";
+	private static final String CDATA_TYPE = "CDATA";
+	private static final String UTF8 = "UTF-8";
+	private static final int INITIAL_CAPACITY = 16;
+	private static final String CONTENT_OUTSIDE_ROOT_MESSAGE = "Content is not allowed outside the root element";
+	private static final String UNEXPECTED_END_MESSAGE = "Unexpected end of document";
+	private static final String EXPECTED_SEPARATOR = ", expected ";
+
+	private final byte[] bytes;
+	private final int documentStart;
+	private final int end;
+	private int position;
+	private int eventType = XMLStreamConstants.START_DOCUMENT;
+	private boolean hasRootElement;
+
+	// The names of the open elements. The element at the current depth is the current element.
+	private int depth;
+	private String[] localNames = new String[INITIAL_CAPACITY];
+	private String[] prefixes = new String[INITIAL_CAPACITY];
+	private int[] nameStarts = new int[INITIAL_CAPACITY];
+	private int[] nameEnds = new int[INITIAL_CAPACITY];
+	private int[] namespaceScopes = new int[INITIAL_CAPACITY];
+	private boolean isEmptyElement;
+	private boolean isElementEnded;
+
+	// Namespace declarations of all open elements.
+	private String[] namespacePrefixes = new String[INITIAL_CAPACITY];
+	private String[] namespaceUris = new String[INITIAL_CAPACITY];
+	private int namespaceCount;
+
+	private int attributeCount;
+	private String[] attributeLocalNames = new String[INITIAL_CAPACITY];
+	private String[] attributePrefixes = new String[INITIAL_CAPACITY];
+	private String[] attributeValues = new String[INITIAL_CAPACITY];
+
+	// The text of the current event is kept as a range of bytes that is decoded only when needed. Text with
+	// references, CDATA sections or carriage returns is decoded immediately so that errors in it are reported
+	// as parsing errors.
+	private int textStart;
+	private int textEnd;
+	private boolean isTextEncoded;
+	private String text;
+	private char[] textCharacters;
+	private String piTarget;
+
+	private byte[] decodeBuffer = new byte[INITIAL_CAPACITY];
+
+	private int lineCountPosition;
+	private int lineCount = 1;
+
+	/**
+	 * Creates a tokenizer for the UTF-8 encoded XML document in the given bytes.
+	 *
+	 * @param bytes the bytes of the document, which are not copied
+	 */
+	Utf8XmlTokenizer(byte[] bytes) {
+		this(bytes, Arrays.equals(bytes, 0, Math.min(bytes.length, UTF8_BOM.length), UTF8_BOM, 0, UTF8_BOM.length)
+				? UTF8_BOM.length : 0, bytes.length);
+	}
+
+	private Utf8XmlTokenizer(byte[] bytes, int start, int end) {
+		this.bytes = bytes;
+		this.documentStart = start;
+		this.end = end;
+		this.position = start;
+	}
+
+	/**
+	 * Returns a tokenizer for the element of the document that is in the given range of bytes. The element is
+	 * tokenized as if it were the root element of a document, except that the namespace declarations in scope
+	 * for the current element are also in scope for it. The locations reported by the returned tokenizer are
+	 * locations in the whole document.
+	 * <p>
+	 * The returned tokenizer is independent of this tokenizer, so the two can be used in different threads.
+	 *
+	 * @param start the index of the first byte of the start tag of the element
+	 * @param end   the index following the last byte of the element
+	 * @return a tokenizer for the element in the given range of bytes
+	 */
+	Utf8XmlTokenizer fragment(int start, int end) {
+		final Utf8XmlTokenizer fragment = new Utf8XmlTokenizer(bytes, start, end);
+		final int inheritedCount = eventType == XMLStreamConstants.START_ELEMENT ? namespaceScopes[depth]
+				: namespaceCount;
+		final int capacity = Math.max(INITIAL_CAPACITY, inheritedCount * 2);
+		fragment.namespacePrefixes = Arrays.copyOf(namespacePrefixes, capacity);
+		fragment.namespaceUris = Arrays.copyOf(namespaceUris, capacity);
+		fragment.namespaceCount = inheritedCount;
+		return fragment;
+	}
+
+	/**
+	 * Returns the index of the first byte of the start tag of the current element.
+	 *
+	 * @return the index of the first byte of the start tag of the current element
+	 * @throws IllegalStateException if the current event is not the start of an element
+	 */
+	int getElementStart() {
+		if (eventType != XMLStreamConstants.START_ELEMENT) {
+			throw new IllegalStateException("The current event is not the start of an element");
+		}
+
+		return nameStarts[depth] - 1;
+	}
+
+	/**
+	 * Moves the tokenizer over the content of the current element without tokenizing it, so that the next
+	 * event is the end of the element. The skipped content is not checked, so it should be checked separately,
+	 * for example, by tokenizing the element using a {@link #fragment(int, int) fragment}. If the current
+	 * element is empty, the tokenizer is not moved.
+	 *
+	 * @param contentEnd the index of the first byte of the end tag of the current element
+	 * @throws IllegalStateException if the current event is not the start of an element
+	 */
+	void skipContent(int contentEnd) {
+		if (eventType != XMLStreamConstants.START_ELEMENT || contentEnd < position || contentEnd > end) {
+			throw new IllegalStateException("Cannot skip the content of the current element to " + contentEnd);
+		}
+
+		if (!isEmptyElement) {
+			position = contentEnd;
+		}
+	}
+
+	/**
+	 * Returns true if the given XML document is encoded in UTF-8, which is the case if the document starts
+	 * with a UTF-8 byte order mark or the encoding declared in the XML declaration is UTF-8 or ASCII or
+	 * if the document does not declare its encoding and does not start with a UTF-16 byte order mark.
+	 *
+	 * @param bytes the bytes of an XML document
+	 * @return true if the given XML document is encoded in UTF-8
+	 */
+	static boolean isUtf8(byte[] bytes) {
+		if (bytes.length >= 2 && (bytes[0] == 0 || bytes[1] == 0 || (bytes[0] & 0xFF) >= 0xFE)) {
+			// UTF-16 and UTF-32 byte order marks and documents that start with a zero byte.
+			return false;
+		}
+
+		final Utf8XmlTokenizer tokenizer = new Utf8XmlTokenizer(bytes);
+		if (!tokenizer.startsWith(tokenizer.position, XML_DECLARATION_START)) {
+			return true;
+		}
+
+		final int declarationEnd = tokenizer.indexOf(tokenizer.position, PI_END);
+		final int encodingIndex = tokenizer.indexOf(tokenizer.position, ENCODING);
+		if (declarationEnd < 0 || encodingIndex < 0 || encodingIndex > declarationEnd) {
+			return true;
+		}
+
+		int index = tokenizer.skipWhitespace(encodingIndex + ENCODING.length);
+		if (index >= declarationEnd || bytes[index] != '=') {
+			return false;
+		}
+
+		index = tokenizer.skipWhitespace(index + 1);
+		if (index >= declarationEnd) {
+			return false;
+		}
+
+		final byte quote = bytes[index];
+		final int valueEnd = tokenizer.indexOf(index + 1, quote);
+		if (valueEnd < 0 || valueEnd > declarationEnd) {
+			return false;
+		}
+
+		final String encoding = new String(bytes, index + 1, valueEnd - index - 1, StandardCharsets.US_ASCII);
+		return UTF8.equalsIgnoreCase(encoding) || "UTF8".equalsIgnoreCase(encoding)
+				|| "US-ASCII".equalsIgnoreCase(encoding) || "ASCII".equalsIgnoreCase(encoding);
+	}
+
+	/**
+	 * Returns true if the text of the current event contains only whitespace.
+	 *
+	 * @return true if the text of the current event contains only whitespace
+	 */
+	boolean isBlankText() {
+		if (isTextEncoded) {
+			return getText().isBlank();
+		}
+
+		for (int i = textStart; i < textEnd; ++i) {
+			if (!isWhitespace(bytes[i])) {
+				if (bytes[i] < 0) {
+					// Check non-ASCII characters against all whitespace characters.
+					return getText().isBlank();
+				}
+
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * Returns the text of the current event parsed as a decimal integer in the same way as
+	 * {@link Integer#parseInt(String)} parses it, but without creating a string of the text.
+	 *
+	 * @return the text of the current event parsed as an integer
+	 * @throws NumberFormatException if the text is not a valid integer
+	 */
+	int getTextAsInt() {
+		if (isTextEncoded || textStart == textEnd) {
+			return Integer.parseInt(getText());
+		}
+
+		int index = textStart;
+		final boolean isNegative = bytes[index] == '-';
+		if (isNegative || bytes[index] == '+') {
+			++index;
+			if (index == textEnd) {
+				return Integer.parseInt(getText());
+			}
+		}
+
+		// Accumulate negatively so that Integer.MIN_VALUE can be parsed.
+		final int limit = isNegative ? Integer.MIN_VALUE : -Integer.MAX_VALUE;
+		final int multiplyLimit = limit / 10;
+		int result = 0;
+		for (; index < textEnd; ++index) {
+			final int digit = bytes[index] - '0';
+			if (digit < 0 || digit > 9 || result < multiplyLimit) {
+				return Integer.parseInt(getText());
+			}
+
+			result *= 10;
+			if (result < limit + digit) {
+				return Integer.parseInt(getText());
+			}
+			result -= digit;
+		}
+
+		return isNegative ? result : -result;
+	}
+
+	@Override
+	public int next() throws XMLStreamException {
+		if (eventType == XMLStreamConstants.END_DOCUMENT) {
+			throw new NoSuchElementException("No more events in the document");
+		}
+
+		text = null;
+		textCharacters = null;
+
+		if (isElementEnded) {
+			namespaceCount = namespaceScopes[depth];
+			--depth;
+			isElementEnded = false;
+		}
+
+		if (isEmptyElement) {
+			isEmptyElement = false;
+			return endElement();
+		}
+
+		while (position < end) {
+			if (bytes[position] == '<') {
+				final int event = readMarkup();
+				if (event >= 0) {
+					return event;
+				}
+			} else if (depth > 0) {
+				return readCharacters();
+			} else {
+				final int contentStart = skipWhitespace(position);
+				if (contentStart < end && bytes[contentStart] != '<') {
+					throw error(CONTENT_OUTSIDE_ROOT_MESSAGE);
+				}
+				position = contentStart;
+			}
+		}
+
+		if (depth > 0 || !hasRootElement) {
+			throw error(UNEXPECTED_END_MESSAGE);
+		}
+
+		eventType = XMLStreamConstants.END_DOCUMENT;
+		return eventType;
+	}
+
+	private int readMarkup() throws XMLStreamException {
+		if (startsWith(position, COMMENT_START)) {
+			// The first "--" in a comment must begin the end of the comment.
+			final int contentEnd = requireIndexOf(position + COMMENT_START.length, DOUBLE_HYPHEN);
+			if (contentEnd + 2 >= end || bytes[contentEnd + 2] != '>') {
+				throw error("The string \"--\" is not allowed within comments");
+			}
+
+			checkCharacters(position + COMMENT_START.length, contentEnd);
+			text = new String(bytes, position + COMMENT_START.length, contentEnd - position - COMMENT_START.length,
+					StandardCharsets.UTF_8);
+			position = contentEnd + COMMENT_END.length;
+			eventType = XMLStreamConstants.COMMENT;
+			return eventType;
+		}
+
+		if (startsWith(position, CDATA_START)) {
+			if (depth == 0) {
+				throw error(CONTENT_OUTSIDE_ROOT_MESSAGE);
+			}
+			return readCharacters();
+		}
+
+		if (startsWith(position, DOCTYPE_START)) {
+			return readDoctype();
+		}
+
+		if (position + 1 < end && bytes[position + 1] == '?') {
+			return readProcessingInstruction();
+		}
+
+		if (position + 1 < end && bytes[position + 1] == '/') {
+			return readEndTag();
+		}
+
+		return readStartTag();
+	}
+
+	private int readDoctype() throws XMLStreamException {
+		final int start = position;
+		int index = position + DOCTYPE_START.length;
+		boolean isInInternalSubset = false;
+		while (index < end) {
+			final byte current = bytes[index];
+			if (current == '"' || current == '\'') {
+				index = requireIndexOf(index + 1, current);
+			} else if (current == '[') {
+				isInInternalSubset = true;
+			} else if (current == ']') {
+				isInInternalSubset = false;
+			} else if (current == '>' && !isInInternalSubset) {
+				break;
+			}
+			++index;
+		}
+
+		if (index >= end) {
+			throw error("Unterminated document type declaration");
+		}
+
+		checkCharacters(start, index);
+		position = index + 1;
+		text = new String(bytes, start, position - start, StandardCharsets.UTF_8);
+		eventType = XMLStreamConstants.DTD;
+		return eventType;
+	}
+
+	private int readProcessingInstruction() throws XMLStreamException {
+		final int contentEnd = requireIndexOf(position + 2, PI_END);
+		final int targetEnd = findNameEnd(position + 2, contentEnd);
+		final int dataStart = skipWhitespace(targetEnd);
+		if (targetEnd == position + 2 || (dataStart == targetEnd && targetEnd != contentEnd)) {
+			throw error("Malformed processing instruction");
+		}
+
+		final String target = new String(bytes, position + 2, targetEnd - position - 2, StandardCharsets.UTF_8);
+		if (XML_TARGET.equalsIgnoreCase(target)) {
+			// The XML declaration is only allowed at the very start of the document.
+			if (!XML_TARGET.equals(target) || position != documentStart) {
+				throw error("The processing instruction target \"" + target + "\" is reserved");
+			}
+
+			position = contentEnd + PI_END.length;
+			return -1;
+		}
+
+		checkCharacters(dataStart, contentEnd);
+		position = contentEnd + PI_END.length;
+
+		piTarget = target;
+		text = new String(bytes, dataStart, Math.max(0, contentEnd - dataStart), StandardCharsets.UTF_8);
+		eventType = XMLStreamConstants.PROCESSING_INSTRUCTION;
+		return eventType;
+	}
+
+	private int readEndTag() throws XMLStreamException {
+		final int nameStart = position + 2;
+		final int nameEnd = findNameEnd(nameStart, end);
+		final int tagEnd = skipWhitespace(nameEnd);
+		if (tagEnd >= end || bytes[tagEnd] != '>') {
+			throw error("Malformed end tag");
+		}
+
+		if (depth == 0 || !Arrays.equals(bytes, nameStarts[depth], nameEnds[depth], bytes, nameStart, nameEnd)) {
+			throw error("End tag " + new String(bytes, nameStart, nameEnd - nameStart, StandardCharsets.UTF_8)
+					+ " does not match the start tag");
+		}
+
+		position = tagEnd + 1;
+		return endElement();
+	}
+
+	private int endElement() {
+		isElementEnded = true;
+		attributeCount = 0;
+		eventType = XMLStreamConstants.END_ELEMENT;
+		return eventType;
+	}
+
+	private int readStartTag() throws XMLStreamException {
+		if (depth == 0 && hasRootElement) {
+			throw error("Only one root element is allowed");
+		}
+
+		final int nameStart = position + 1;
+		final int nameEnd = findNameEnd(nameStart, end);
+		if (nameStart == nameEnd) {
+			throw error("Malformed start tag");
+		}
+
+		pushElement(nameStart, nameEnd);
+		attributeCount = 0;
+
+		int index = nameEnd;
+		while (true) {
+			index = skipWhitespace(index);
+			if (index >= end) {
+				throw error("Unterminated start tag");
+			}
+
+			if (bytes[index] == '>') {
+				++index;
+				break;
+			}
+
+			if (bytes[index] == '/' && index + 1 < end && bytes[index + 1] == '>') {
+				index += 2;
+				isEmptyElement = true;
+				break;
+			}
+
+			index = readAttribute(index);
+		}
+
+		position = index;
+		hasRootElement = true;
+		resolveElementPrefix();
+		eventType = XMLStreamConstants.START_ELEMENT;
+		return eventType;
+	}
+
+	private void pushElement(int nameStart, int nameEnd) {
+		++depth;
+		if (depth == localNames.length) {
+			final int capacity = depth * 2;
+			localNames = Arrays.copyOf(localNames, capacity);
+			prefixes = Arrays.copyOf(prefixes, capacity);
+			nameStarts = Arrays.copyOf(nameStarts, capacity);
+			nameEnds = Arrays.copyOf(nameEnds, capacity);
+			namespaceScopes = Arrays.copyOf(namespaceScopes, capacity);
+		}
+
+		final int colon = indexOf(nameStart, nameEnd, (byte) ':');
+		prefixes[depth] = colon < 0 ? null : toName(nameStart, colon);
+		localNames[depth] = toName(colon < 0 ? nameStart : colon + 1, nameEnd);
+		nameStarts[depth] = nameStart;
+		nameEnds[depth] = nameEnd;
+		namespaceScopes[depth] = namespaceCount;
+	}
+
+	private void resolveElementPrefix() throws XMLStreamException {
+		if (prefixes[depth] != null && getNamespaceURI(prefixes[depth]) == null) {
+			throw error("Undeclared namespace prefix " + prefixes[depth]);
+		}
+	}
+
+	private int readAttribute(int nameStart) throws XMLStreamException {
+		final int nameEnd = findNameEnd(nameStart, end);
+		int index = skipWhitespace(nameEnd);
+		if (nameStart == nameEnd || index >= end || bytes[index] != '=') {
+			throw error("Malformed attribute");
+		}
+
+		index = skipWhitespace(index + 1);
+		if (index >= end || (bytes[index] != '"' && bytes[index] != '\'')) {
+			throw error("Attribute value must be quoted");
+		}
+
+		final int valueStart = index + 1;
+		final int valueEnd = requireIndexOf(valueStart, bytes[index]);
+		final String value = decodeAttributeValue(valueStart, valueEnd);
+
+		final int colon = indexOf(nameStart, nameEnd, (byte) ':');
+		if (Arrays.equals(bytes, nameStart, nameEnd, XMLNS, 0, XMLNS.length)) {
+			declareNamespace(null, value);
+		} else if (colon >= 0 && Arrays.equals(bytes, nameStart, colon, XMLNS, 0, XMLNS.length)) {
+			declareNamespace(toName(colon + 1, nameEnd), value);
+		} else {
+			addAttribute(colon < 0 ? null : toName(nameStart, colon), toName(colon < 0 ? nameStart : colon + 1,
+					nameEnd), value);
+		}
+
+		return valueEnd + 1;
+	}
+
+	private void declareNamespace(String prefix, String uri) {
+		if (namespaceCount == namespacePrefixes.length) {
+			namespacePrefixes = Arrays.copyOf(namespacePrefixes, namespaceCount * 2);
+			namespaceUris = Arrays.copyOf(namespaceUris, namespaceCount * 2);
+		}
+
+		namespacePrefixes[namespaceCount] = prefix;
+		namespaceUris[namespaceCount] = uri;
+		++namespaceCount;
+	}
+
+	private void addAttribute(String prefix, String localName, String value) throws XMLStreamException {
+		for (int i = 0; i < attributeCount; ++i) {
+			if (localName.equals(attributeLocalNames[i]) && Objects.equals(prefix, attributePrefixes[i])) {
+				throw error("Duplicate attribute " + (prefix == null ? "" : prefix + ':') + localName);
+			}
+		}
+
+		if (attributeCount == attributeLocalNames.length) {
+			attributeLocalNames = Arrays.copyOf(attributeLocalNames, attributeCount * 2);
+			attributePrefixes = Arrays.copyOf(attributePrefixes, attributeCount * 2);
+			attributeValues = Arrays.copyOf(attributeValues, attributeCount * 2);
+		}
+
+		attributeLocalNames[attributeCount] = localName;
+		attributePrefixes[attributeCount] = prefix;
+		attributeValues[attributeCount] = value;
+		++attributeCount;
+	}
+
+	private int readCharacters() throws XMLStreamException {
+		textStart = position;
+		isTextEncoded = false;
+
+		int index = position;
+		// The start of the text that is not in a character data section, in which "]]>" is not allowed.
+		int plainTextStart = position;
+		while (index < end) {
+			final byte current = bytes[index];
+			if (current == '<') {
+				if (!startsWith(index, CDATA_START)) {
+					break;
+				}
+
+				final int contentStart = index + CDATA_START.length;
+				index = requireIndexOf(contentStart, CDATA_END);
+				checkCharacters(contentStart, index);
+				index += CDATA_END.length;
+				plainTextStart = index;
+				isTextEncoded = true;
+			} else {
+				if (current == '&' || current == '\r') {
+					isTextEncoded = true;
+				} else if (current == '>' && index - 2 >= plainTextStart && bytes[index - 1] == ']'
+						&& bytes[index - 2] == ']') {
+					throw error("The string \"]]>\" is not allowed in text");
+				} else if (current < 0) {
+					index += checkEncodedCharacter(index);
+					continue;
+				} else if (isIllegalControlCharacter(current)) {
+					throw illegalCharacterError(current);
+				}
+				++index;
+			}
+		}
+
+		textEnd = index;
+		position = index;
+		text = isTextEncoded ? decode(textStart, textEnd, false) : null;
+		eventType = XMLStreamConstants.CHARACTERS;
+		return eventType;
+	}
+
+	private String decodeAttributeValue(int start, int end) throws XMLStreamException {
+		checkCharacters(start, end);
+		for (int i = start; i < end; ++i) {
+			final byte current = bytes[i];
+			if (current == '&' || current == '<' || current == '\t' || current == '\n' || current == '\r') {
+				return decode(start, end, true);
+			}
+		}
+
+		return toName(start, end);
+	}
+
+	/**
+	 * Throws an exception if the given range of bytes is not valid UTF-8 or contains characters that are not
+	 * allowed in XML.
+	 */
+	private void checkCharacters(int start, int end) throws XMLStreamException {
+		int index = start;
+		while (index < end) {
+			if (bytes[index] < 0) {
+				index += checkEncodedCharacter(index);
+			} else if (isIllegalControlCharacter(bytes[index])) {
+				throw illegalCharacterError(bytes[index]);
+			} else {
+				++index;
+			}
+		}
+	}
+
+	/**
+	 * Returns the number of bytes in the UTF-8 encoded non-ASCII character at the given index, or throws an
+	 * exception if the bytes are not valid UTF-8 or the character is not allowed in XML.
+	 */
+	private int checkEncodedCharacter(int index) throws XMLStreamException {
+		final int codePoint = decodeCodePoint(index);
+		if (!isXmlCharacter(codePoint)) {
+			throw illegalCharacterError(codePoint);
+		}
+
+		return encodedLength(codePoint);
+	}
+
+	/**
+	 * Decodes the UTF-8 encoded character at the given index. Overlong encodings and encodings of values
+	 * above the Unicode range are rejected.
+	 */
+	private int decodeCodePoint(int index) throws XMLStreamException {
+		final int first = bytes[index] & 0xFF;
+		final int length;
+		int codePoint;
+		if (first < 0x80) {
+			return first;
+		} else if (first >= 0xC2 && first <= 0xDF) {
+			length = 2;
+			codePoint = first & 0x1F;
+		} else if (first >= 0xE0 && first <= 0xEF) {
+			length = 3;
+			codePoint = first & 0x0F;
+		} else if (first >= 0xF0 && first <= 0xF4) {
+			length = 4;
+			codePoint = first & 0x07;
+		} else {
+			throw malformedEncodingError(index);
+		}
+
+		if (index + length > end) {
+			throw malformedEncodingError(index);
+		}
+
+		for (int i = index + 1; i < index + length; ++i) {
+			if ((bytes[i] & 0xC0) != 0x80) {
+				throw malformedEncodingError(index);
+			}
+
+			codePoint = (codePoint << 6) | (bytes[i] & 0x3F);
+		}
+
+		if (encodedLength(codePoint) != length || codePoint > Character.MAX_CODE_POINT) {
+			throw malformedEncodingError(index);
+		}
+
+		return codePoint;
+	}
+
+	private static int encodedLength(int codePoint) {
+		if (codePoint < 0x80) {
+			return 1;
+		}
+
+		if (codePoint < 0x800) {
+			return 2;
+		}
+
+		return codePoint < 0x10000 ? 3 : 4;
+	}
+
+	/**
+	 * Returns true if the given code point matches the Char production of XML 1.0.
+	 */
+	private static boolean isXmlCharacter(int codePoint) {
+		return codePoint == '\t' || codePoint == '\n' || codePoint == '\r'
+				|| (codePoint >= 0x20 && codePoint <= 0xD7FF)
+				|| (codePoint >= 0xE000 && codePoint <= 0xFFFD)
+				|| (codePoint >= 0x10000 && codePoint <= Character.MAX_CODE_POINT);
+	}
+
+	private static boolean isIllegalControlCharacter(byte value) {
+		return value >= 0 && value < 0x20 && value != '\t' && value != '\n' && value != '\r';
+	}
+
+	private XMLStreamException illegalCharacterError(int codePoint) {
+		return error("Invalid XML character (Unicode: 0x" + Integer.toHexString(codePoint) + ")");
+	}
+
+	private XMLStreamException malformedEncodingError(int index) {
+		return error("Invalid UTF-8 byte 0x" + Integer.toHexString(bytes[index] & 0xFF));
+	}
+
+	/**
+	 * Decodes the given range of bytes by replacing entity and character references, normalizing line ends,
+	 * and unwrapping character data sections.
+	 */
+	private String decode(int start, int end, boolean isAttributeValue) throws XMLStreamException {
+		int length = 0;
+		int index = start;
+		while (index < end) {
+			ensureDecodeCapacity(length + 4);
+			final byte current = bytes[index];
+
+			if (current == '&') {
+				final int referenceEnd = indexOf(index + 1, end, (byte) ';');
+				if (referenceEnd < 0) {
+					throw error("Unterminated entity reference");
+				}
+
+				length = appendReference(index + 1, referenceEnd, length);
+				index = referenceEnd + 1;
+			} else if (current == '<' && !isAttributeValue) {
+				final int contentStart = index + CDATA_START.length;
+				final int contentEnd = requireIndexOf(contentStart, CDATA_END);
+				for (int i = contentStart; i < contentEnd; ++i) {
+					ensureDecodeCapacity(length + 1);
+					if (bytes[i] == '\r') {
+						decodeBuffer[length++] = '\n';
+						if (i + 1 < contentEnd && bytes[i + 1] == '\n') {
+							++i;
+						}
+					} else {
+						decodeBuffer[length++] = bytes[i];
+					}
+				}
+				index = contentEnd + CDATA_END.length;
+			} else if (current == '<') {
+				throw error("Attribute values cannot contain '<'");
+			} else if (current == '\r') {
+				decodeBuffer[length++] = isAttributeValue ? (byte) ' ' : (byte) '\n';
+				index += index + 1 < end && bytes[index + 1] == '\n' ? 2 : 1;
+			} else if (isAttributeValue && (current == '\t' || current == '\n')) {
+				decodeBuffer[length++] = ' ';
+				++index;
+			} else {
+				decodeBuffer[length++] = current;
+				++index;
+			}
+		}
+
+		return new String(decodeBuffer, 0, length, StandardCharsets.UTF_8);
+	}
+
+	private int appendReference(int start, int end, int decodedLength) throws XMLStreamException {
+		final String name = new String(bytes, start, end - start, StandardCharsets.US_ASCII);
+		final int codePoint;
+		switch (name) {
+			case "amp":
+				codePoint = '&';
+				break;
+			case "lt":
+				codePoint = '<';
+				break;
+			case "gt":
+				codePoint = '>';
+				break;
+			case "quot":
+				codePoint = '"';
+				break;
+			case "apos":
+				codePoint = '\'';
+				break;
+			default:
+				codePoint = parseCharacterReference(name);
+		}
+
+		// Encode the code point as UTF-8.
+		int length = decodedLength;
+		if (codePoint < 0x80) {
+			decodeBuffer[length++] = (byte) codePoint;
+		} else if (codePoint < 0x800) {
+			decodeBuffer[length++] = (byte) (0xC0 | (codePoint >> 6));
+			decodeBuffer[length++] = (byte) (0x80 | (codePoint & 0x3F));
+		} else if (codePoint < 0x10000) {
+			decodeBuffer[length++] = (byte) (0xE0 | (codePoint >> 12));
+			decodeBuffer[length++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+			decodeBuffer[length++] = (byte) (0x80 | (codePoint & 0x3F));
+		} else {
+			decodeBuffer[length++] = (byte) (0xF0 | (codePoint >> 18));
+			decodeBuffer[length++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+			decodeBuffer[length++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+			decodeBuffer[length++] = (byte) (0x80 | (codePoint & 0x3F));
+		}
+
+		return length;
+	}
+
+	private int parseCharacterReference(String name) throws XMLStreamException {
+		try {
+			if (name.startsWith("#x")) {
+				return validCodePoint(Integer.parseInt(name.substring(2), 16));
+			}
+
+			if (name.startsWith("#")) {
+				return validCodePoint(Integer.parseInt(name.substring(1)));
+			}
+		} catch (NumberFormatException e) {
+			throw error("Invalid character reference &" + name + ';');
+		}
+
+		throw error("Undeclared entity &" + name + ';');
+	}
+
+	private int validCodePoint(int codePoint) throws XMLStreamException {
+		if (!isXmlCharacter(codePoint)) {
+			throw error("Invalid character reference " + codePoint);
+		}
+
+		return codePoint;
+	}
+
+	private void ensureDecodeCapacity(int capacity) {
+		if (capacity > decodeBuffer.length) {
+			decodeBuffer = Arrays.copyOf(decodeBuffer, Math.max(capacity, decodeBuffer.length * 2));
+		}
+	}
+
+	/**
+	 * Returns the vocabulary constant for the given range of bytes or a new string if the bytes are not in
+	 * the vocabulary.
+	 */
+	private String toName(int start, int end) {
+		final String name = TagTable.lookup(bytes, start, end);
+		return name != null ? name : new String(bytes, start, end - start, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Returns the end of the name that starts at the given index. The name ends at the first character that
+	 * is not a name character, or at the start if the first character is not a name start character.
+	 */
+	private int findNameEnd(int start, int limit) throws XMLStreamException {
+		int index = start;
+		while (index < limit) {
+			final byte current = bytes[index];
+			if (current >= 0) {
+				if (!isAsciiNameCharacter(current, index == start)) {
+					break;
+				}
+				++index;
+			} else {
+				final int codePoint = decodeCodePoint(index);
+				if (!isNameCharacter(codePoint, index == start)) {
+					break;
+				}
+				index += encodedLength(codePoint);
+			}
+		}
+
+		return index;
+	}
+
+	private static boolean isAsciiNameCharacter(byte value, boolean isStart) {
+		if ((value >= 'a' && value <= 'z') || (value >= 'A' && value <= 'Z') || value == '_' || value == ':') {
+			return true;
+		}
+
+		return !isStart && ((value >= '0' && value <= '9') || value == '-' || value == '.');
+	}
+
+	/**
+	 * Returns true if the given non-ASCII code point matches the NameStartChar production of XML 1.0 or, if the
+	 * character is not at the start of the name, the NameChar production.
+	 */
+	private static boolean isNameCharacter(int codePoint, boolean isStart) {
+		if ((codePoint >= 0xC0 && codePoint <= 0xD6) || (codePoint >= 0xD8 && codePoint <= 0xF6)
+				|| (codePoint >= 0xF8 && codePoint <= 0x2FF) || (codePoint >= 0x370 && codePoint <= 0x37D)
+				|| (codePoint >= 0x37F && codePoint <= 0x1FFF) || (codePoint >= 0x200C && codePoint <= 0x200D)
+				|| (codePoint >= 0x2070 && codePoint <= 0x218F) || (codePoint >= 0x2C00 && codePoint <= 0x2FEF)
+				|| (codePoint >= 0x3001 && codePoint <= 0xD7FF) || (codePoint >= 0xF900 && codePoint <= 0xFDCF)
+				|| (codePoint >= 0xFDF0 && codePoint <= 0xFFFD) || (codePoint >= 0x10000 && codePoint <= 0xEFFFF)) {
+			return true;
+		}
+
+		return !isStart && (codePoint == 0xB7 || (codePoint >= 0x300 && codePoint <= 0x36F)
+				|| (codePoint >= 0x203F && codePoint <= 0x2040));
+	}
+
+	private int skipWhitespace(int start) {
+		int index = start;
+		while (index < end && isWhitespace(bytes[index])) {
+			++index;
+		}
+
+		return index;
+	}
+
+	private static boolean isWhitespace(byte value) {
+		return value == ' ' || value == '\n' || value == '\t' || value == '\r';
+	}
+
+	private boolean startsWith(int start, byte[] prefix) {
+		return start + prefix.length <= end && Arrays.equals(bytes, start, start + prefix.length, prefix, 0,
+				prefix.length);
+	}
+
+	private int indexOf(int start, byte[] sequence) {
+		for (int i = start; i + sequence.length <= end; ++i) {
+			if (bytes[i] == sequence[0] && startsWith(i, sequence)) {
+				return i;
+			}
+		}
+
+		return -1;
+	}
+
+	private int indexOf(int start, byte value) {
+		return indexOf(start, end, value);
+	}
+
+	private int indexOf(int start, int limit, byte value) {
+		for (int i = start; i < limit; ++i) {
+			if (bytes[i] == value) {
+				return i;
+			}
+		}
+
+		return -1;
+	}
+
+	private int requireIndexOf(int start, byte[] sequence) throws XMLStreamException {
+		final int index = indexOf(start, sequence);
+		if (index < 0) {
+			throw error(UNEXPECTED_END_MESSAGE + EXPECTED_SEPARATOR + new String(sequence, StandardCharsets.US_ASCII));
+		}
+
+		return index;
+	}
+
+	private int requireIndexOf(int start, byte value) throws XMLStreamException {
+		final int index = indexOf(start, value);
+		if (index < 0) {
+			throw error(UNEXPECTED_END_MESSAGE + EXPECTED_SEPARATOR + (char) value);
+		}
+
+		return index;
+	}
+
+	private XMLStreamException error(String message) {
+		return new XMLStreamException(message, getLocation());
+	}
+
+	private static byte[] bytes(String value) {
+		return value.getBytes(StandardCharsets.US_ASCII);
+	}
+
+	@Override
+	public Object getProperty(String name) {
+		return null;
+	}
+
+	@Override
+	public boolean hasNext() {
+		return eventType != XMLStreamConstants.END_DOCUMENT;
+	}
+
+	@Override
+	public void require(int type, String namespaceURI, String localName) throws XMLStreamException {
+		if (type != eventType) {
+			throw error("Expected event " + type + " but was " + eventType);
+		}
+
+		if (namespaceURI != null && !namespaceURI.equals(getNamespaceURI())) {
+			throw error("Expected namespace " + namespaceURI);
+		}
+
+		if (localName != null && !localName.equals(getLocalName())) {
+			throw error("Expected element " + localName);
+		}
+	}
+
+	@Override
+	public String getElementText() throws XMLStreamException {
+		if (eventType != XMLStreamConstants.START_ELEMENT) {
+			throw error("Element text can only be read at the start of an element");
+		}
+
+		final StringBuilder elementText = new StringBuilder();
+		int event = next();
+		while (event != XMLStreamConstants.END_ELEMENT) {
+			if (event == XMLStreamConstants.START_ELEMENT) {
+				throw error("Element text cannot contain elements");
+			}
+
+			if (event == XMLStreamConstants.CHARACTERS) {
+				elementText.append(getText());
+			}
+
+			event = next();
+		}
+
+		return elementText.toString();
+	}
+
+	@Override
+	public int nextTag() throws XMLStreamException {
+		int event = next();
+		while (event == XMLStreamConstants.CHARACTERS && isWhiteSpace()
+				|| event == XMLStreamConstants.COMMENT
+				|| event == XMLStreamConstants.PROCESSING_INSTRUCTION) {
+			event = next();
+		}
+
+		if (event != XMLStreamConstants.START_ELEMENT && event != XMLStreamConstants.END_ELEMENT) {
+			throw error("Expected start or end tag");
+		}
+
+		return event;
+	}
+
+	@Override
+	public void close() {
+		// The bytes are held in memory, so there are no resources to close.
+	}
+
+	@Override
+	public String getNamespaceURI(String prefix) {
+		if (XMLConstants.XML_NS_PREFIX.equals(prefix)) {
+			return XMLConstants.XML_NS_URI;
+		}
+
+		if (XMLConstants.XMLNS_ATTRIBUTE.equals(prefix)) {
+			return XMLConstants.XMLNS_ATTRIBUTE_NS_URI;
+		}
+
+		final String declaredPrefix = prefix == null || prefix.isEmpty() ? null : prefix;
+		for (int i = namespaceCount - 1; i >= 0; --i) {
+			if (declaredPrefix == null ? namespacePrefixes[i] == null : declaredPrefix.equals(namespacePrefixes[i])) {
+				return namespaceUris[i].isEmpty() ? null : namespaceUris[i];
+			}
+		}
+
+		return null;
+	}
+
+	@Override
+	public boolean isStartElement() {
+		return eventType == XMLStreamConstants.START_ELEMENT;
+	}
+
+	@Override
+	public boolean isEndElement() {
+		return eventType == XMLStreamConstants.END_ELEMENT;
+	}
+
+	@Override
+	public boolean isCharacters() {
+		return eventType == XMLStreamConstants.CHARACTERS;
+	}
+
+	@Override
+	public boolean isWhiteSpace() {
+		return eventType == XMLStreamConstants.CHARACTERS && isBlankText();
+	}
+
+	@Override
+	public String getAttributeValue(String namespaceURI, String localName) {
+		for (int i = 0; i < attributeCount; ++i) {
+			if (localName.equals(attributeLocalNames[i])
+					&& (namespaceURI == null || namespaceURI.equals(nonNull(getAttributeNamespace(i))))) {
+				return attributeValues[i];
+			}
+		}
+
+		return null;
+	}
+
+	@Override
+	public int getAttributeCount() {
+		return attributeCount;
+	}
+
+	@Override
+	public QName getAttributeName(int index) {
+		return new QName(nonNull(getAttributeNamespace(index)), getAttributeLocalName(index),
+				nonNull(getAttributePrefix(index)));
+	}
+
+	@Override
+	public String getAttributeNamespace(int index) {
+		final String prefix = getAttributePrefix(index);
+		return prefix == null ? null : getNamespaceURI(prefix);
+	}
+
+	@Override
+	public String getAttributeLocalName(int index) {
+		checkAttributeIndex(index);
+		return attributeLocalNames[index];
+	}
+
+	@Override
+	public String getAttributePrefix(int index) {
+		checkAttributeIndex(index);
+		return attributePrefixes[index];
+	}
+
+	@Override
+	public String getAttributeType(int index) {
+		checkAttributeIndex(index);
+		return CDATA_TYPE;
+	}
+
+	@Override
+	public String getAttributeValue(int index) {
+		checkAttributeIndex(index);
+		return attributeValues[index];
+	}
+
+	@Override
+	public boolean isAttributeSpecified(int index) {
+		checkAttributeIndex(index);
+		return true;
+	}
+
+	private void checkAttributeIndex(int index) {
+		if (eventType != XMLStreamConstants.START_ELEMENT) {
+			throw new IllegalStateException("Attributes are only available at the start of an element");
+		}
+
+		if (index < 0 || index >= attributeCount) {
+			throw new IndexOutOfBoundsException("No attribute at index " + index);
+		}
+	}
+
+	@Override
+	public int getNamespaceCount() {
+		if (eventType != XMLStreamConstants.START_ELEMENT && eventType != XMLStreamConstants.END_ELEMENT) {
+			throw new IllegalStateException("Namespaces are only available for elements");
+		}
+
+		return namespaceCount - namespaceScopes[depth];
+	}
+
+	@Override
+	public String getNamespacePrefix(int index) {
+		return namespacePrefixes[namespaceScopes[depth] + index];
+	}
+
+	@Override
+	public String getNamespaceURI(int index) {
+		return namespaceUris[namespaceScopes[depth] + index];
+	}
+
+	@Override
+	public NamespaceContext getNamespaceContext() {
+		return new NamespaceContext() {
+			@Override
+			public String getNamespaceURI(String prefix) {
+				final String uri = Utf8XmlTokenizer.this.getNamespaceURI(prefix);
+				return nonNull(uri);
+			}
+
+			@Override
+			public String getPrefix(String namespaceURI) {
+				final Iterator<String> prefixes = getPrefixes(namespaceURI);
+				return prefixes.hasNext() ? prefixes.next() : null;
+			}
+
+			@Override
+			public Iterator<String> getPrefixes(String namespaceURI) {
+				final List<String> matching = new ArrayList<>();
+				for (int i = namespaceCount - 1; i >= 0; --i) {
+					final String prefix = nonNull(namespacePrefixes[i]);
+					if (namespaceUris[i].equals(namespaceURI) && !matching.contains(prefix)
+							&& namespaceURI.equals(nonNull(Utf8XmlTokenizer.this.getNamespaceURI(prefix)))) {
+						matching.add(prefix);
+					}
+				}
+
+				return matching.iterator();
+			}
+		};
+	}
+
+	@Override
+	public int getEventType() {
+		return eventType;
+	}
+
+	@Override
+	public String getText() {
+		if (text == null && eventType == XMLStreamConstants.CHARACTERS) {
+			text = toName(textStart, textEnd);
+		}
+
+		if (text == null) {
+			throw new IllegalStateException("The current event has no text");
+		}
+
+		return text;
+	}
+
+	@Override
+	public char[] getTextCharacters() {
+		if (textCharacters == null) {
+			textCharacters = getText().toCharArray();
+		}
+
+		return textCharacters;
+	}
+
+	@Override
+	public int getTextCharacters(int sourceStart, char[] target, int targetStart, int length) {
+		final char[] characters = getTextCharacters();
+		final int count = Math.max(0, Math.min(length, characters.length - sourceStart));
+		System.arraycopy(characters, sourceStart, target, targetStart, count);
+		return count;
+	}
+
+	@Override
+	public int getTextStart() {
+		return 0;
+	}
+
+	@Override
+	public int getTextLength() {
+		return getTextCharacters().length;
+	}
+
+	@Override
+	public String getEncoding() {
+		return UTF8;
+	}
+
+	@Override
+	public boolean hasText() {
+		return eventType == XMLStreamConstants.CHARACTERS || eventType == XMLStreamConstants.COMMENT
+				|| eventType == XMLStreamConstants.DTD;
+	}
+
+	@Override
+	public Location getLocation() {
+		final int offset = position;
+		if (offset < lineCountPosition) {
+			lineCountPosition = 0;
+			lineCount = 1;
+		}
+
+		for (; lineCountPosition < offset && lineCountPosition < end; ++lineCountPosition) {
+			if (bytes[lineCountPosition] == '\n') {
+				++lineCount;
+			}
+		}
+
+		final int lineNumber = lineCount;
+		int lineStart = offset;
+		while (lineStart > 0 && bytes[lineStart - 1] != '\n') {
+			--lineStart;
+		}
+		final int columnNumber = offset - lineStart + 1;
+
+		return new Location() {
+			@Override
+			public int getLineNumber() {
+				return lineNumber;
+			}
+
+			@Override
+			public int getColumnNumber() {
+				return columnNumber;
+			}
+
+			@Override
+			public int getCharacterOffset() {
+				return offset;
+			}
+
+			@Override
+			public String getPublicId() {
+				return null;
+			}
+
+			@Override
+			public String getSystemId() {
+				return null;
+			}
+		};
+	}
+
+	@Override
+	public QName getName() {
+		return new QName(nonNull(getNamespaceURI()), getLocalName(), nonNull(getPrefix()));
+	}
+
+	@Override
+	public String getLocalName() {
+		if (!hasName()) {
+			throw new IllegalStateException("The current event has no name");
+		}
+
+		return localNames[depth];
+	}
+
+	@Override
+	public boolean hasName() {
+		return eventType == XMLStreamConstants.START_ELEMENT || eventType == XMLStreamConstants.END_ELEMENT;
+	}
+
+	@Override
+	public String getNamespaceURI() {
+		if (!hasName()) {
+			return null;
+		}
+
+		return getNamespaceURI(prefixes[depth]);
+	}
+
+	@Override
+	public String getPrefix() {
+		if (!hasName()) {
+			return null;
+		}
+
+		return prefixes[depth];
+	}
+
+	@Override
+	public String getVersion() {
+		return "1.0";
+	}
+
+	@Override
+	public boolean isStandalone() {
+		return false;
+	}
+
+	@Override
+	public boolean standaloneSet() {
+		return false;
+	}
+
+	@Override
+	public String getCharacterEncodingScheme() {
+		return UTF8;
+	}
+
+	@Override
+	public String getPITarget() {
+		return eventType == XMLStreamConstants.PROCESSING_INSTRUCTION ? piTarget : null;
+	}
+
+	@Override
+	public String getPIData() {
+		return eventType == XMLStreamConstants.PROCESSING_INSTRUCTION ? text : null;
+	}
+
+	private static String nonNull(String value) {
+		return value == null ? "" : value;
+	}
+}
@@ -0,0 +1,179 @@
+/*
+ * Distributed under the MIT license (see LICENSE.txt or https://opensource.org/licenses/MIT).
+ */
+package org.wmn4j.io.musicxml;
+
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.AttributesImpl;
+
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.util.StreamReaderDelegate;
+import javax.xml.validation.Schema;
+import javax.xml.validation.ValidatorHandler;
+
+/**
+ * Stream reader that validates the document against a schema while it is being read.
+ * <p>
+ * Every event the cursor is advanced to is forwarded to a {@link ValidatorHandler}, so the document is
+ * validated in the same pass in which it is read instead of reading it once for validation and once for
+ * parsing. A validation error is reported as an {@link XMLStreamException} from the call that advanced
+ * the cursor to the invalid content. The whole document must be read through this reader for the
+ * validation to be complete.
+ */
+final class ValidatingStreamReader extends StreamReaderDelegate {
+
+	private static final String CDATA_TYPE = "CDATA";
+
+	private final ValidatorHandler validator;
+	private final AttributesImpl attributes = new AttributesImpl();
+
+	/**
+	 * Creates a reader that validates the document read using the given reader against the given schema.
+	 *
+	 * @param reader the reader that reads the document, must be at the start of the document
+	 * @param schema the schema against which the document is validated
+	 * @throws XMLStreamException if the validation cannot be started
+	 */
+	ValidatingStreamReader(XMLStreamReader reader, Schema schema) throws XMLStreamException {
+		this(reader, schema.newValidatorHandler());
+	}
+
+	/**
+	 * Creates a reader that validates the document read using the given reader with the given validator.
+	 * The validator is reset for the document, so a validator can be reused for validating multiple
+	 * documents one after another.
+	 *
+	 * @param reader    the reader that reads the document, must be at the start of the document
+	 * @param validator the validator with which the document is validated
+	 * @throws XMLStreamException if the validation cannot be started
+	 */
+	ValidatingStreamReader(XMLStreamReader reader, ValidatorHandler validator) throws XMLStreamException {
+		super(reader);
+		this.validator = validator;
+
+		try {
+			validator.startDocument();
+		} catch (SAXException e) {
+			throw new XMLStreamException(e.getMessage(), e);
+		}
+	}
+
+	@Override
+	public int next() throws XMLStreamException {
+		final int event = super.next();
+
+		try {
+			switch (event) {
+				case XMLStreamConstants.START_ELEMENT:
+					startElement();
+					break;
+				case XMLStreamConstants.END_ELEMENT:
+					endElement();
+					break;
+				case XMLStreamConstants.CHARACTERS:
+				case XMLStreamConstants.CDATA:
+				case XMLStreamConstants.SPACE:
+					validator.characters(getTextCharacters(), getTextStart(), getTextLength());
+					break;
+				case XMLStreamConstants.END_DOCUMENT:
+					validator.endDocument();
+					break;
+				default:
+					// Other events do not affect validity against the schema.
+					break;
+			}
+		} catch (SAXException e) {
+			throw new XMLStreamException(e.getMessage(), e);
+		}
+
+		return event;
+	}
+
+	@Override
+	public int nextTag() throws XMLStreamException {
+		int event = next();
+		while (event == XMLStreamConstants.CHARACTERS && isWhiteSpace()
+				|| event == XMLStreamConstants.SPACE
+				|| event == XMLStreamConstants.COMMENT
+				|| event == XMLStreamConstants.PROCESSING_INSTRUCTION) {
+			event = next();
+		}
+
+		if (event != XMLStreamConstants.START_ELEMENT && event != XMLStreamConstants.END_ELEMENT) {
+			throw new XMLStreamException("Expected start or end tag", getLocation());
+		}
+
+		return event;
+	}
+
+	@Override
+	public String getElementText() throws XMLStreamException {
+		final StringBuilder text = new StringBuilder();
+		int event = next();
+		while (event != XMLStreamConstants.END_ELEMENT) {
+			if (event == XMLStreamConstants.START_ELEMENT) {
+				throw new XMLStreamException("Element text cannot contain elements", getLocation());
+			}
+
+			if (event == XMLStreamConstants.CHARACTERS || event == XMLStreamConstants.CDATA
+					|| event == XMLStreamConstants.SPACE) {
+				text.append(getTextCharacters(), getTextStart(), getTextLength());
+			}
+
+			event = next();
+		}
+
+		return text.toString();
+	}
+
+	/**
+	 * Reads the remaining document so that all of it gets validated.
+	 *
+	 * @throws XMLStreamException if the remaining document is not valid
+	 */
+	void validateRemaining() throws XMLStreamException {
+		while (getEventType() != XMLStreamConstants.END_DOCUMENT) {
+			next();
+		}
+	}
+
+	private void startElement() throws SAXException {
+		for (int i = 0; i < getNamespaceCount(); ++i) {
+			validator.startPrefixMapping(nonNull(getNamespacePrefix(i)), nonNull(getNamespaceURI(i)));
+		}
+
+		attributes.clear();
+		for (int i = 0; i < getAttributeCount(); ++i) {
+			final String localName = getAttributeLocalName(i);
+			final String type = getAttributeType(i);
+			attributes.addAttribute(nonNull(getAttributeNamespace(i)), localName,
+					qualifiedName(getAttributePrefix(i), localName), type == null ? CDATA_TYPE : type,
+					getAttributeValue(i));
+		}
+
+		validator.startElement(nonNull(getNamespaceURI()), getLocalName(), qualifiedName(getPrefix(), getLocalName()),
+				attributes);
+	}
+
+	private void endElement() throws SAXException {
+		validator.endElement(nonNull(getNamespaceURI()), getLocalName(), qualifiedName(getPrefix(), getLocalName()));
+
+		for (int i = 0; i < getNamespaceCount(); ++i) {
+			validator.endPrefixMapping(nonNull(getNamespacePrefix(i)));
+		}
+	}
+
+	private static String qualifiedName(String prefix, String localName) {
+		if (prefix == null || prefix.isEmpty()) {
+			return localName;
+		}
+
+		return prefix + ":" + localName;
+	}
+
+	private static String nonNull(String value) {
+		return value == null ? "" : value;
+	}
+}
@@ -0,0 +1,257 @@
+/*
+ * Distributed under the MIT license (see LICENSE.txt or https://opensource.org/licenses/MIT).
+ */
+package org.wmn4j.io.musicxml;
+
+import java.util.Objects;
+import java.util.zip.Deflater;
+
+/**
+ * Represents the options for writing MusicXML.
+ * <p>
+ * The options select whether the output is compressed and minified, and the number of parts that can be
+ * written in parallel. The output is the same regardless of the number of parts written in parallel.
+ * <p>
+ * For compressed output, the options also select how the entries of the .mxl container are compressed and
+ * the number of blocks of the MusicXML file that can be deflated in parallel.
+ * <p>
+ * This class is immutable.
+ */
+public final class WriteOptions {
+
+	private static final WriteOptions DEFAULTS = new WriteOptions(false, false, 1, CompressionMethod.DEFLATED,
+			Deflater.DEFAULT_COMPRESSION, 1);
+
+	/**
+	 * The methods with which the entries of compressed MusicXML (.mxl) containers can be stored.
+	 */
+	public enum CompressionMethod {
+		/**
+		 * The entries are compressed using the deflate algorithm.
+		 */
+		DEFLATED,
+
+		/**
+		 * The entries are stored without compression. The MusicXML file is kept in memory until it has been
+		 * written, because the size of a stored entry has to be written before its contents.
+		 */
+		STORED
+	}
+
+	private final boolean compress;
+	private final boolean minify;
+	private final int partParallelism;
+	private final CompressionMethod compressionMethod;
+	private final int compressionLevel;
+	private final int deflateParallelism;
+
+	private WriteOptions(boolean compress, boolean minify, int partParallelism, CompressionMethod compressionMethod,
+			int compressionLevel, int deflateParallelism) {
+		this.compress = compress;
+		this.minify = minify;
+		this.partParallelism = partParallelism;
+		this.compressionMethod = compressionMethod;
+		this.compressionLevel = compressionLevel;
+		this.deflateParallelism = deflateParallelism;
+	}
+
+	/**
+	 * Returns the default options. The default options write uncompressed and indented MusicXML, and write
+	 * the parts one at a time. Compressed output is deflated on the writing thread with the default
+	 * compression level.
+	 *
+	 * @return the default options
+	 */
+	public static WriteOptions defaults() {
+		return DEFAULTS;
+	}
+
+	/**
+	 * Returns options that are otherwise the same as these, but with the given compression setting.
+	 *
+	 * @param compress set true to write compressed MusicXML (.mxl), otherwise writes uncompressed
+	 * @return options with the given compression setting
+	 */
+	public WriteOptions withCompression(boolean compress) {
+		return new WriteOptions(compress, minify, partParallelism, compressionMethod, compressionLevel,
+				deflateParallelism);
+	}
+
+	/**
+	 * Returns options that are otherwise the same as these, but with the given minification setting.
+	 * <p>
+	 * Some incorrectly implemented MusicXML parsers may depend on even insignificant whitespace so minified
+	 * MusicXML files might not work with all software.
+	 *
+	 * @param minify set true to produce minified MusicXML with no unnecessary whitespace
+	 * @return options with the given minification setting
+	 */
+	public WriteOptions withMinification(boolean minify) {
+		return new WriteOptions(compress, minify, partParallelism, compressionMethod, compressionLevel,
+				deflateParallelism);
+	}
+
+	/**
+	 * Returns options that are otherwise the same as these, but with at most the given number of parts
+	 * written in parallel.
+	 * <p>
+	 * Writing parts in parallel makes writing scores with many parts, such as orchestral scores, faster on
+	 * multicore processors. Each part is written into its own buffer on its own thread, and the buffers are
+	 * written to the output in the order of the parts, so the output is byte for byte the same as when the
+	 * parts are written one at a time. The written parts are kept in memory until they are written to the
+	 * output.
+	 *
+	 * @param partParallelism the maximum number of parts written in parallel, one for writing the parts one at
+	 *                        a time
+	 * @return options with the given number of parts written in parallel
+	 * @throws IllegalArgumentException if the given number is less than one
+	 */
+	public WriteOptions withPartParallelism(int partParallelism) {
+		if (partParallelism < 1) {
+			throw new IllegalArgumentException("Part parallelism must be at least one, was " + partParallelism);
+		}
+
+		return new WriteOptions(compress, minify, partParallelism, compressionMethod, compressionLevel,
+				deflateParallelism);
+	}
+
+	/**
+	 * Returns options that are otherwise the same as these, but with the given method for storing the entries
+	 * of compressed MusicXML containers.
+	 *
+	 * @param compressionMethod the method with which the entries of the .mxl container are stored
+	 * @return options with the given compression method
+	 */
+	public WriteOptions withCompressionMethod(CompressionMethod compressionMethod) {
+		Objects.requireNonNull(compressionMethod);
+		return new WriteOptions(compress, minify, partParallelism, compressionMethod, compressionLevel,
+				deflateParallelism);
+	}
+
+	/**
+	 * Returns options that are otherwise the same as these, but with the given level for deflating the entries
+	 * of compressed MusicXML containers.
+	 *
+	 * @param compressionLevel the compression level from 0 to 9, or {@link Deflater#DEFAULT_COMPRESSION}
+	 * @return options with the given compression level
+	 * @throws IllegalArgumentException if the given level is not a valid compression level
+	 */
+	public WriteOptions withCompressionLevel(int compressionLevel) {
+		if ((compressionLevel < Deflater.NO_COMPRESSION || compressionLevel > Deflater.BEST_COMPRESSION)
+				&& compressionLevel != Deflater.DEFAULT_COMPRESSION) {
+			throw new IllegalArgumentException("Invalid compression level " + compressionLevel);
+		}
+
+		return new WriteOptions(compress, minify, partParallelism, compressionMethod, compressionLevel,
+				deflateParallelism);
+	}
+
+	/**
+	 * Returns options that are otherwise the same as these, but with at most the given number of blocks of
+	 * the MusicXML file deflated in parallel when writing compressed MusicXML.
+	 * <p>
+	 * Deflating in parallel makes writing large compressed scores faster on multicore processors. The
+	 * MusicXML file is split into blocks that are deflated on separate threads and joined into a single
+	 * deflated entry of the .mxl container, which can be read by any software that reads .mxl files. The
+	 * compressed output can be slightly larger than when deflating on one thread.
+	 *
+	 * @param deflateParallelism the maximum number of blocks deflated in parallel, one for deflating on the
+	 *                           writing thread
+	 * @return options with the given number of blocks deflated in parallel
+	 * @throws IllegalArgumentException if the given number is less than one
+	 */
+	public WriteOptions withDeflateParallelism(int deflateParallelism) {
+		if (deflateParallelism < 1) {
+			throw new IllegalArgumentException("Deflate parallelism must be at least one, was " + deflateParallelism);
+		}
+
+		return new WriteOptions(compress, minify, partParallelism, compressionMethod, compressionLevel,
+				deflateParallelism);
+	}
+
+	/**
+	 * Returns true if the output is compressed MusicXML (.mxl).
+	 *
+	 * @return true if the output is compressed MusicXML
+	 */
+	public boolean isCompressed() {
+		return compress;
+	}
+
+	/**
+	 * Returns true if the output is minified.
+	 *
+	 * @return true if the output is minified
+	 */
+	public boolean isMinified() {
+		return minify;
+	}
+
+	/**
+	 * Returns the maximum number of parts written in parallel.
+	 *
+	 * @return the maximum number of parts written in parallel
+	 */
+	public int getPartParallelism() {
+		return partParallelism;
+	}
+
+	/**
+	 * Returns the method with which the entries of compressed MusicXML containers are stored.
+	 *
+	 * @return the method with which the entries of compressed MusicXML containers are stored
+	 */
+	public CompressionMethod getCompressionMethod() {
+		return compressionMethod;
+	}
+
+	/**
+	 * Returns the level with which the entries of compressed MusicXML containers are deflated.
+	 *
+	 * @return the level with which the entries of compressed MusicXML containers are deflated
+	 */
+	public int getCompressionLevel() {
+		return compressionLevel;
+	}
+
+	/**
+	 * Returns the maximum number of blocks deflated in parallel.
+	 *
+	 * @return the maximum number of blocks deflated in parallel
+	 */
+	public int getDeflateParallelism() {
+		return deflateParallelism;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o) {
+			return true;
+		}
+
+		if (!(o instanceof WriteOptions)) {
+			return false;
+		}
+
+		final WriteOptions other = (WriteOptions) o;
+		return compress == other.compress
+				&& minify == other.minify
+				&& partParallelism == other.partParallelism
+				&& compressionMethod == other.compressionMethod
+				&& compressionLevel == other.compressionLevel
+				&& deflateParallelism == other.deflateParallelism;
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(compress, minify, partParallelism, compressionMethod, compressionLevel,
+				deflateParallelism);
+	}
+
+	@Override
+	public String toString() {
+		return "WriteOptions(compress=" + compress + ", minify=" + minify + ", partParallelism=" + partParallelism
+				+ ", compressionMethod=" + compressionMethod + ", compressionLevel=" + compressionLevel
+				+ ", deflateParallelism=" + deflateParallelism + ")";
+	}
+}
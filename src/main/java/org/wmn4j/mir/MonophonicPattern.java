@@ -12,7 +12,6 @@ import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.NoSuchElementException;
-import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.SortedSet;
@@ -32,6 +31,7 @@ final class MonophonicPattern implements Pattern {
 	private final List<Durational> contents;
 	private final String name;
 	private final SortedSet<String> labels;
+	private final int hash;
 
 	MonophonicPattern(List<? extends Durational> contents, String name, Set<String> labels) {
 		this.contents = Collections.unmodifiableList(new ArrayList<>(contents));
@@ -46,6 +46,7 @@ final class MonophonicPattern implements Pattern {
 		}
 		this.name = name;
 		this.labels = Collections.unmodifiableSortedSet(new TreeSet<>(labels));
+		this.hash = this.contents.hashCode();
 	}
 
 	MonophonicPattern(List<? extends Durational> contents, String name) {
@@ -251,7 +252,7 @@ final class MonophonicPattern implements Pattern {
 
 		Pattern other = (Pattern) o;
 
-		if (!other.isMonophonic()) {
+		if (!other.isMonophonic() || PolyphonicPattern.haveDifferentHashes(this, other)) {
 			return false;
 		}
 
@@ -260,7 +261,7 @@ final class MonophonicPattern implements Pattern {
 
 	@Override
 	public int hashCode() {
-		return Objects.hashCode(contents);
+		return hash;
 	}
 
 	@Override
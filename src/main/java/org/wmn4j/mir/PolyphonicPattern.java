@@ -11,10 +11,10 @@ import org.wmn4j.representation.geometric.PointPattern;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.SortedSet;
@@ -33,6 +33,7 @@ final class PolyphonicPattern implements Pattern {
 	private final Map<Integer, List<Durational>> voices;
 	private final String name;
 	private final SortedSet<String> labels;
+	private final int hash;
 
 	PolyphonicPattern(Map<Integer, List<? extends Durational>> voices, String name, Set<String> labels) {
 		Map<Integer, List<Durational>> voicesCopy = new HashMap<>();
@@ -61,6 +62,7 @@ final class PolyphonicPattern implements Pattern {
 
 		this.name = name;
 		this.labels = Collections.unmodifiableSortedSet(new TreeSet<>(labels));
+		this.hash = computeHash();
 	}
 
 	PolyphonicPattern(Map<Integer, List<? extends Durational>> voices, String name) {
@@ -83,6 +85,7 @@ final class PolyphonicPattern implements Pattern {
 
 		this.name = name;
 		this.labels = Collections.unmodifiableSortedSet(new TreeSet<>(labels));
+		this.hash = computeHash();
 	}
 
 	PolyphonicPattern(List<? extends Durational> voice) {
@@ -136,7 +139,22 @@ final class PolyphonicPattern implements Pattern {
 			return false;
 		}
 
-		return containsEqualVoices((Pattern) o, PolyphonicPattern::iterablesEquals);
+		final Pattern other = (Pattern) o;
+		if (haveDifferentHashes(this, other)) {
+			return false;
+		}
+
+		return containsEqualVoices(other, PolyphonicPattern::iterablesEquals);
+	}
+
+	/*
+	 * Returns true if the patterns cannot be equal because they have different hashes. The hashes of other
+	 * implementations of Pattern are not known to be consistent with these, so they are not compared.
+	 */
+	static boolean haveDifferentHashes(Pattern pattern, Pattern other) {
+		final boolean isKnownImplementation = other instanceof MonophonicPattern
+				|| other instanceof PolyphonicPattern;
+		return isKnownImplementation && pattern.hashCode() != other.hashCode();
 	}
 
 	static boolean iterablesEquals(Iterable<Durational> a, Iterable<Durational> b) {
@@ -324,9 +342,27 @@ final class PolyphonicPattern implements Pattern {
 		return voices.values().stream().map(List::size).reduce(0, Integer::sum);
 	}
 
+	/*
+	 * Voices are compared for equality regardless of their numbers and of how many equal voices there are,
+	 * so the hash is the sum of the distinct hashes of the voices. This makes a pattern with a single voice
+	 * have the same hash as a monophonic pattern with the same contents.
+	 */
+	private int computeHash() {
+		final Set<Integer> voiceHashes = new HashSet<>();
+		int hash = 0;
+		for (List<Durational> voice : voices.values()) {
+			final int voiceHash = voice.hashCode();
+			if (voiceHashes.add(voiceHash)) {
+				hash += voiceHash;
+			}
+		}
+
+		return hash;
+	}
+
 	@Override
 	public int hashCode() {
-		return Objects.hash(voices);
+		return hash;
 	}
 
 	@Override
@@ -19,6 +19,7 @@ import java.util.stream.Collectors;
  */
 public final class Chord implements Durational, Iterable<Note> {
 	private final GenericChord<Note> internalChord;
+	private final int hash;
 
 	/**
 	 * Returns a chord with the given {@link Note} objects.
@@ -60,6 +61,8 @@ public final class Chord implements Durational, Iterable<Note> {
 				throw new IllegalArgumentException("All notes in chord must be of same duration");
 			}
 		}
+
+		this.hash = computeHash();
 	}
 
 	@Override
@@ -223,12 +226,20 @@ public final class Chord implements Durational, Iterable<Note> {
 	 */
 	@Override
 	public boolean equals(Object o) {
+		if (o == this) {
+			return true;
+		}
+
 		if (!(o instanceof Chord)) {
 			return false;
 		}
 
 		final Chord other = (Chord) o;
 
+		if (this.hash != other.hash) {
+			return false;
+		}
+
 		if (!this.getDuration().equals(other.getDuration())) {
 			return false;
 		}
@@ -240,13 +251,17 @@ public final class Chord implements Durational, Iterable<Note> {
 		return true;
 	}
 
-	@Override
-	public int hashCode() {
+	private int computeHash() {
 		int hash = 7;
 		hash = 61 * hash + Objects.hashCode(this.internalChord);
 		return hash;
 	}
 
+	@Override
+	public int hashCode() {
+		return hash;
+	}
+
 	@Override
 	public String toString() {
 		return internalChord.toString();
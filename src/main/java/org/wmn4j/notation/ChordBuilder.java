@@ -17,6 +17,7 @@ public final class ChordBuilder implements DurationalBuilder, Iterable<NoteBuild
 
 	private final List<NoteBuilder> noteBuilders;
 	private Duration duration;
+	private NoteInterner interner;
 
 	/**
 	 * Constructor. This builder takes ownership of the given NoteBuilder.
@@ -61,6 +62,10 @@ public final class ChordBuilder implements DurationalBuilder, Iterable<NoteBuild
 	 * @return reference to this
 	 */
 	public ChordBuilder add(NoteBuilder noteBuilder) {
+		if (interner != null) {
+			noteBuilder.setInterner(interner);
+		}
+
 		this.noteBuilders.add(noteBuilder);
 		return this;
 	}
@@ -101,6 +106,23 @@ public final class ChordBuilder implements DurationalBuilder, Iterable<NoteBuild
 		return this.duration;
 	}
 
+	/**
+	 * Sets the interner used for sharing the built chord and its notes with other equal chords and notes.
+	 * The interner is also set in all the note builders in this builder. If the interner is null, the
+	 * built chords and notes are not shared.
+	 *
+	 * @param interner the interner used for sharing the built chord, or null for not sharing it
+	 * @return reference to this
+	 * @see NoteInterner
+	 */
+	public ChordBuilder setInterner(NoteInterner interner) {
+		for (NoteBuilder builder : this) {
+			builder.setInterner(interner);
+		}
+		this.interner = interner;
+		return this;
+	}
+
 	@Override
 	public Iterator<NoteBuilder> iterator() {
 		return this.noteBuilders.iterator();
@@ -110,6 +132,7 @@ public final class ChordBuilder implements DurationalBuilder, Iterable<NoteBuild
 	public Chord build() {
 		final List<Note> notes = new ArrayList<>();
 		this.noteBuilders.forEach((builder) -> notes.add(builder.build()));
-		return Chord.of(notes);
+		final Chord chord = Chord.of(notes);
+		return interner != null ? interner.intern(chord) : chord;
 	}
 }
@@ -58,6 +58,11 @@ public final class Clef {
 		}
 	}
 
+	// The clefs on the lines of a five-line staff are created in advance, so that each of them has a
+	// single instance.
+	private static final int STAFF_LINE_COUNT = 5;
+	private static final Clef[][] CLEFS = createClefs();
+
 	private final Symbol symbol;
 	// The center of the clef counted from bottom.
 	private final int line;
@@ -78,7 +83,23 @@ public final class Clef {
 			throw new IllegalArgumentException("line is smaller than 1");
 		}
 
-		return new Clef(Objects.requireNonNull(symbol), line);
+		Objects.requireNonNull(symbol);
+		if (line <= STAFF_LINE_COUNT) {
+			return CLEFS[symbol.ordinal()][line - 1];
+		}
+
+		return new Clef(symbol, line);
+	}
+
+	private static Clef[][] createClefs() {
+		final Clef[][] clefs = new Clef[Symbol.values().length][STAFF_LINE_COUNT];
+		for (Symbol symbol : Symbol.values()) {
+			for (int line = 1; line <= STAFF_LINE_COUNT; ++line) {
+				clefs[symbol.ordinal()][line - 1] = new Clef(symbol, line);
+			}
+		}
+
+		return clefs;
 	}
 
 	/**
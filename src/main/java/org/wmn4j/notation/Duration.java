@@ -3,12 +3,9 @@
  */
 package org.wmn4j.notation;
 
-import org.apache.commons.math3.fraction.Fraction;
-
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
 
@@ -55,7 +52,16 @@ public final class Duration implements Comparable<Duration> {
 	// its mathematical duration.
 	private static final List<Integer> COMMON_TUPLET_DIVISORS = Arrays.asList(3, 5, 7, 11, 13);
 
-	private final Fraction fraction;
+	// Durations whose numerator, denominator, and tuplet divisor fit into 20 bits have a cache key and are
+	// cached, which covers practically all durations in scores.
+	private static final int CACHE_KEY_FIELD_BITS = 20;
+	private static final int MAX_CACHED_DURATION_COUNT = 4096;
+	private static final ValueCache<Long, Duration> CACHE = new ValueCache<>(MAX_CACHED_DURATION_COUNT);
+	static final long NO_CACHE_KEY = -1;
+
+	// The length of the duration as a reduced fraction of a whole note.
+	private final int numerator;
+	private final int denominator;
 	private final int tupletDivisor;
 	private final int dotCount;
 
@@ -68,7 +74,7 @@ public final class Duration implements Comparable<Duration> {
 	 * @return an instance with the given numerator and denominator
 	 */
 	public static Duration of(int numerator, int denominator) {
-		return create(new Fraction(numerator, denominator), DEFAULT_DOT_COUNT, DEFAULT_TUPLET_DIVISOR);
+		return create(numerator, denominator, DEFAULT_DOT_COUNT, DEFAULT_TUPLET_DIVISOR);
 	}
 
 	/**
@@ -87,20 +93,36 @@ public final class Duration implements Comparable<Duration> {
 	 * @return an instance with the given numerator and denominator and expression information
 	 */
 	public static Duration of(int numerator, int denominator, int dotCount, int tupletDivisor) {
-		return create(new Fraction(numerator, denominator), dotCount, tupletDivisor);
+		return create(numerator, denominator, dotCount, tupletDivisor);
+	}
+
+	/**
+	 * Returns an instance with the length of the given fraction, which does not have to be reduced.
+	 * This is used for creating the results of arithmetic without intermediate objects.
+	 */
+	static Duration fromFraction(long numerator, long denominator) {
+		return create(numerator, denominator, DEFAULT_DOT_COUNT, DEFAULT_TUPLET_DIVISOR);
 	}
 
 	/**
 	 * Private creator method.
 	 */
-	private static Duration create(Fraction fraction, int dotCount, int tupletDivisor) {
+	private static Duration create(long numerator, long denominator, int dotCount, int tupletDivisor) {
+		if (denominator == 0) {
+			throw new IllegalArgumentException("denominator must be at least 1");
+		}
+
+		final long rational = reduce(numerator, denominator);
+		return create(rational, dotCount, tupletDivisor);
+	}
 
-		if (fraction.getNumerator() < 1) {
+	/**
+	 * Creator method for a fraction reduced using {@link #reduce(long, long)}.
+	 */
+	private static Duration create(long rational, int dotCount, int tupletDivisor) {
+		if (numeratorOf(rational) < 1) {
 			throw new IllegalArgumentException("numerator must be at least 1");
 		}
-		if (fraction.getDenominator() < 1) {
-			throw new IllegalArgumentException("denominator must be at least 1");
-		}
 		if (dotCount < 0 || dotCount > MAX_DOT_COUNT) {
 			throw new IllegalArgumentException("dotCount must be at least zero and at most " + MAX_DOT_COUNT);
 		}
@@ -108,26 +130,115 @@ public final class Duration implements Comparable<Duration> {
 			throw new IllegalArgumentException("tupletDivisor must be positive");
 		}
 
-		return new Duration(fraction, dotCount, tupletDivisor);
+		final int numerator = numeratorOf(rational);
+		final int denominator = denominatorOf(rational);
+		final long key = cacheKey(numerator, denominator, dotCount, tupletDivisor);
+		if (key == NO_CACHE_KEY) {
+			return new Duration(numerator, denominator, dotCount, tupletDivisor);
+		}
+
+		final Duration cached = CACHE.get(key);
+		if (cached != null) {
+			return cached;
+		}
+
+		return CACHE.intern(key, new Duration(numerator, denominator, dotCount, tupletDivisor));
+	}
+
+	private static long cacheKey(int numerator, int denominator, int dotCount, int tupletDivisor) {
+		if ((numerator | denominator | tupletDivisor) >>> CACHE_KEY_FIELD_BITS != 0) {
+			return NO_CACHE_KEY;
+		}
+
+		// The dot count takes three bits and the other fields take the bits above it.
+		return ((long) numerator << (2 * CACHE_KEY_FIELD_BITS + 3)) | ((long) denominator << (CACHE_KEY_FIELD_BITS + 3))
+				| ((long) tupletDivisor << 3) | dotCount;
+	}
+
+	/**
+	 * Returns a key that identifies both the length and the expression of this duration,
+	 * or {@link #NO_CACHE_KEY} if this duration is not cached.
+	 */
+	long cacheKey() {
+		return cacheKey(numerator, denominator, dotCount, tupletDivisor);
 	}
 
 	/**
 	 * Constructor for the class. The constructor is private, to get a Duration
 	 * object use the static method {@link #of(int, int) getDuration}.
 	 */
-	private Duration(Fraction fraction, int dotCount, int tupletDivisor) {
-		this.fraction = fraction;
+	private Duration(int numerator, int denominator, int dotCount, int tupletDivisor) {
+		this.numerator = numerator;
+		this.denominator = denominator;
 		this.dotCount = dotCount;
 		this.tupletDivisor = tupletDivisor;
 	}
 
+	/*
+	 * Fractions that are computed within this class are reduced so that the denominator is positive and
+	 * packed into a long with the numerator in the high 32 bits and the denominator in the low 32 bits.
+	 * This avoids creating objects for the intermediate results.
+	 */
+	private static long reduce(long numerator, long denominator) {
+		final long divisor = gcd(Math.abs(numerator), Math.abs(denominator));
+		long reducedNumerator = numerator / divisor;
+		long reducedDenominator = denominator / divisor;
+		if (reducedDenominator < 0) {
+			reducedNumerator = -reducedNumerator;
+			reducedDenominator = -reducedDenominator;
+		}
+
+		return ((long) Math.toIntExact(reducedNumerator) << 32) | Math.toIntExact(reducedDenominator);
+	}
+
+	private static int numeratorOf(long rational) {
+		return (int) (rational >> 32);
+	}
+
+	private static int denominatorOf(long rational) {
+		return (int) rational;
+	}
+
+	static long gcd(long a, long b) {
+		long x = a;
+		long y = b;
+		while (y != 0) {
+			final long remainder = x % y;
+			x = y;
+			y = remainder;
+		}
+
+		return x == 0 ? 1 : x;
+	}
+
+	private long toRational() {
+		return ((long) numerator << 32) | denominator;
+	}
+
+	private static long add(long first, long second) {
+		return reduce((long) numeratorOf(first) * denominatorOf(second)
+						+ (long) numeratorOf(second) * denominatorOf(first),
+				(long) denominatorOf(first) * denominatorOf(second));
+	}
+
+	private static long subtract(long first, long second) {
+		return reduce((long) numeratorOf(first) * denominatorOf(second)
+						- (long) numeratorOf(second) * denominatorOf(first),
+				(long) denominatorOf(first) * denominatorOf(second));
+	}
+
+	private static int compare(long first, long second) {
+		return Long.compare((long) numeratorOf(first) * denominatorOf(second),
+				(long) numeratorOf(second) * denominatorOf(first));
+	}
+
 	/**
 	 * Returns the numerator of this duration.
 	 *
 	 * @return the numerator of this duration
 	 */
 	public int getNumerator() {
-		return fraction.getNumerator();
+		return numerator;
 	}
 
 	/**
@@ -136,7 +247,7 @@ public final class Duration implements Comparable<Duration> {
 	 * @return the denominator of this duration.
 	 */
 	public int getDenominator() {
-		return fraction.getDenominator();
+		return denominator;
 	}
 
 	/**
@@ -158,12 +269,12 @@ public final class Duration implements Comparable<Duration> {
 
 		final Duration other = (Duration) o;
 
-		return this.fraction.equals(other.fraction);
+		return this.numerator == other.numerator && this.denominator == other.denominator;
 	}
 
 	@Override
 	public int hashCode() {
-		return fraction.hashCode();
+		return 37 * (37 * 17 + numerator) + denominator;
 	}
 
 	@Override
@@ -191,8 +302,8 @@ public final class Duration implements Comparable<Duration> {
 		 */
 		final int dotDurationDivisor = (1 << (dotCount + 2)) - 2;
 
-		final Fraction durationValue = this.fraction.add(this.fraction.divide(dotDurationDivisor));
-		return create(durationValue, dotCount + 1, tupletDivisor);
+		return create((long) numerator * (dotDurationDivisor + 1), (long) denominator * dotDurationDivisor,
+				dotCount + 1, tupletDivisor);
 	}
 
 	/**
@@ -215,8 +326,8 @@ public final class Duration implements Comparable<Duration> {
 		 */
 		final int dotDurationDivisor = (1 << (dotCount + 1)) - 1;
 
-		final Fraction lastDotDuration = this.fraction.divide(dotDurationDivisor);
-		return create(this.fraction.subtract(lastDotDuration), dotCount - 1, tupletDivisor);
+		return create((long) numerator * (dotDurationDivisor - 1), (long) denominator * dotDurationDivisor,
+				dotCount - 1, tupletDivisor);
 	}
 
 	/**
@@ -233,18 +344,17 @@ public final class Duration implements Comparable<Duration> {
 			return this;
 		}
 
-		Fraction durationWithoutDots = removeDots(this.fraction, dotCount);
-		return create(durationWithoutDots, DEFAULT_DOT_COUNT, tupletDivisor);
+		return create(removeDots(toRational(), dotCount), DEFAULT_DOT_COUNT, tupletDivisor);
 	}
 
-	private Fraction removeDots(Fraction withDots, int dotCount) {
+	private static long removeDots(long withDots, int dotCount) {
 		/*
 		 * If a duration d_n has n dots, then the duration d_0 that is produced by removing all dots is
-		 * d_0 = d_n / (2 - (1/2)^n). This is derived from the geometric sum produced by adding n dots to
-		 * a duration.
+		 * d_0 = d_n / (2 - (1/2)^n) = d_n * 2^n / (2^(n + 1) - 1). This is derived from the geometric sum
+		 * produced by adding n dots to a duration.
 		 */
-		Fraction divisor = new Fraction(2, 1).subtract(new Fraction(1, (1 << dotCount)));
-		return withDots.divide(divisor);
+		return reduce((long) numeratorOf(withDots) << dotCount,
+				(long) denominatorOf(withDots) * ((1L << (dotCount + 1)) - 1));
 	}
 
 	/**
@@ -282,7 +392,7 @@ public final class Duration implements Comparable<Duration> {
 	 * @return the fraction numerator/denominator as double.
 	 */
 	public double toDouble() {
-		return fraction.doubleValue();
+		return (double) numerator / (double) denominator;
 	}
 
 	/**
@@ -296,7 +406,7 @@ public final class Duration implements Comparable<Duration> {
 	 * @return a Duration that is the sum of this and other.
 	 */
 	public Duration add(Duration other) {
-		return create(this.fraction.add(other.fraction), DEFAULT_DOT_COUNT, DEFAULT_TUPLET_DIVISOR);
+		return create(add(toRational(), other.toRational()), DEFAULT_DOT_COUNT, DEFAULT_TUPLET_DIVISOR);
 	}
 
 	/**
@@ -311,7 +421,7 @@ public final class Duration implements Comparable<Duration> {
 	 * @return a Duration that is this other minus other.
 	 */
 	public Duration subtract(Duration other) {
-		return create(this.fraction.subtract(other.fraction), DEFAULT_DOT_COUNT, DEFAULT_TUPLET_DIVISOR);
+		return create(subtract(toRational(), other.toRational()), DEFAULT_DOT_COUNT, DEFAULT_TUPLET_DIVISOR);
 	}
 
 	/**
@@ -327,7 +437,7 @@ public final class Duration implements Comparable<Duration> {
 	 * @throws IllegalArgumentException if multiplier is less than 1
 	 */
 	public Duration multiply(int multiplier) {
-		return create(this.fraction.multiply(multiplier), DEFAULT_DOT_COUNT, DEFAULT_TUPLET_DIVISOR);
+		return create((long) numerator * multiplier, denominator, DEFAULT_DOT_COUNT, DEFAULT_TUPLET_DIVISOR);
 	}
 
 	/**
@@ -347,7 +457,7 @@ public final class Duration implements Comparable<Duration> {
 			newTupletDivisor *= divisor;
 		}
 
-		return create(this.fraction.divide(divisor), dotCount, newTupletDivisor);
+		return create(numerator, (long) denominator * divisor, dotCount, newTupletDivisor);
 	}
 
 	/**
@@ -379,7 +489,7 @@ public final class Duration implements Comparable<Duration> {
 	 */
 	@Override
 	public int compareTo(Duration other) {
-		return this.fraction.compareTo(other.fraction);
+		return compare(toRational(), other.toRational());
 	}
 
 	/**
@@ -389,25 +499,26 @@ public final class Duration implements Comparable<Duration> {
 	 * @return true if this duration is expressible as a single notation symbol with contianed expression information.
 	 */
 	public boolean hasExpression() {
-		return isExpressible(fraction, dotCount, tupletDivisor);
+		return isExpressible(toRational(), dotCount, tupletDivisor);
 	}
 
-	private boolean isExpressible(Fraction fraction, int dotCount, int tupletDivisor) {
+	private static boolean isExpressible(long rational, int dotCount, int tupletDivisor) {
 		// Try to simpilify the duration to one corresponding to a basic notation symbol, i.e., one that
 		// is expressible as (1 / 2^n).
-		Fraction basicDuration = fraction;
+		long basicDuration = rational;
 		if (dotCount > 0) {
 			basicDuration = removeDots(basicDuration, dotCount);
 		}
 
-		int simplifiedDenominator = basicDuration.getDenominator();
+		final int basicDenominator = denominatorOf(basicDuration);
+		int simplifiedDenominator = basicDenominator;
 
 		if (tupletDivisor > DEFAULT_TUPLET_DIVISOR) {
 			// Simplify the denominator using the tuplet divisor if it specifies a tuplet duration.
 			simplifiedDenominator /= tupletDivisor;
 
 			// Check that the division was even.
-			if (simplifiedDenominator * tupletDivisor != basicDuration.getDenominator()) {
+			if (simplifiedDenominator * tupletDivisor != basicDenominator) {
 				return false;
 			}
 		}
@@ -416,7 +527,7 @@ public final class Duration implements Comparable<Duration> {
 		// numerator should be 1 (most durations), 2 (some durations like breve or 2/3),
 		// or 4 (longa, the longest note type),
 		// and the denominator should be a power of two if the expression information was correct.
-		boolean isNumeratorExpressible = EXPRESSIBLE_NUMERATORS.contains(basicDuration.getNumerator());
+		boolean isNumeratorExpressible = EXPRESSIBLE_NUMERATORS.contains(numeratorOf(basicDuration));
 		boolean isDenominatorExpressible =
 				isPowerOfTwo(simplifiedDenominator) && simplifiedDenominator <= MAX_EXPRESSIBLE_BASIC_DENOMINATOR;
 
@@ -442,29 +553,31 @@ public final class Duration implements Comparable<Duration> {
 
 		List<Duration> maxDurationDecomposition = Collections.singletonList(maxDuration);
 		if (!maxDuration.hasExpression()) {
-			maxDurationDecomposition = decomposeFractionToExpressibleDurations(maxDuration.fraction);
+			maxDurationDecomposition = decomposeFractionToExpressibleDurations(maxDuration.toRational());
 		}
 
-		int maxDurationRepetitions = fraction.divide(maxDuration.fraction).intValue();
+		final int maxDurationRepetitions = (int) (((long) numerator * maxDuration.denominator)
+				/ ((long) denominator * maxDuration.numerator));
 		List<Duration> decomposition = new ArrayList<>();
 		for (int i = 0; i < maxDurationRepetitions; ++i) {
 			decomposition.addAll(maxDurationDecomposition);
 		}
 
-		Fraction leftOver = fraction.subtract(maxDuration.fraction.multiply(maxDurationRepetitions));
+		final long leftOver = subtract(toRational(),
+				reduce((long) maxDuration.numerator * maxDurationRepetitions, maxDuration.denominator));
 		decomposition.addAll(decomposeFractionToExpressibleDurations(leftOver));
 
 		return decomposition;
 	}
 
-	private List<Duration> decomposeFractionToExpressibleDurations(Fraction durationFraction) {
+	private static List<Duration> decomposeFractionToExpressibleDurations(long durationFraction) {
 		List<Duration> decomposition = new ArrayList<>();
-		Fraction leftOver = durationFraction;
+		long leftOver = durationFraction;
 
 		// Repeat until there's no leftover duration
-		while (leftOver.compareTo(Fraction.ZERO) > 0) {
+		while (numeratorOf(leftOver) > 0) {
 			Duration largestFit = findLargestExpressibleDuration(leftOver);
-			leftOver = leftOver.subtract(largestFit.fraction);
+			leftOver = subtract(leftOver, largestFit.toRational());
 			decomposition.add(largestFit);
 		}
 
@@ -474,17 +587,17 @@ public final class Duration implements Comparable<Duration> {
 	/**
 	 * Tries to find and return the largest expressible duration that is at most the given fraction.
 	 */
-	private Duration findLargestExpressibleDuration(Fraction durationFraction) {
+	private static Duration findLargestExpressibleDuration(long durationFraction) {
 		if (isExpressible(durationFraction, DEFAULT_DOT_COUNT, DEFAULT_TUPLET_DIVISOR)) {
 			return create(durationFraction, DEFAULT_DOT_COUNT, DEFAULT_TUPLET_DIVISOR);
 		}
 
-		final int originalNumerator = durationFraction.getNumerator();
-		final int originalDenominator = durationFraction.getDenominator();
+		final int originalNumerator = numeratorOf(durationFraction);
+		final int originalDenominator = denominatorOf(durationFraction);
 
 		// Simplify the fraction first by seeing if it can be expressed as a dotted
 		// duration and what the required dot count is.
-		Fraction dotlessFraction = durationFraction;
+		long dotlessFraction = durationFraction;
 		int dotCount = 0;
 
 		if (DOTTED_DURATION_NUMERATORS.contains(originalNumerator)) {
@@ -495,7 +608,7 @@ public final class Duration implements Comparable<Duration> {
 
 		// Use the fraction in the dotless form to find a suitable
 		// tuplet divisor.
-		final int dotlessDenominator = dotlessFraction.getDenominator();
+		final int dotlessDenominator = denominatorOf(dotlessFraction);
 		int tupletDivisor = 1;
 		final boolean isBasicDenominator = isPowerOfTwo(dotlessDenominator);
 		if (!isBasicDenominator) {
@@ -525,8 +638,7 @@ public final class Duration implements Comparable<Duration> {
 
 		if (isBasicDenominator) {
 			final int largestFitNumerator = Math.max((originalNumerator / 2) * 2, 1);
-			return create(new Fraction(largestFitNumerator, durationFraction.getDenominator()), DEFAULT_DOT_COUNT,
-					DEFAULT_TUPLET_DIVISOR);
+			return create(largestFitNumerator, originalDenominator, DEFAULT_DOT_COUNT, DEFAULT_TUPLET_DIVISOR);
 		}
 
 		if (originalNumerator > tupletDivisor) {
@@ -534,15 +646,13 @@ public final class Duration implements Comparable<Duration> {
 			// dot count and tuplet divisor, find the largest duration that can be fitted
 			// into the fraction with the tuplet information.
 
-			int coefficient = tupletDivisor != 1 ? tupletDivisor : Math.max(durationFraction.getDenominator() / 2, 1);
+			int coefficient = tupletDivisor != 1 ? tupletDivisor : Math.max(originalDenominator / 2, 1);
 
 			int largestFitNumerator = Math.max(coefficient * (originalNumerator / coefficient), 1);
-			Fraction largestFit = new Fraction(largestFitNumerator, durationFraction.getDenominator());
-
-			return create(largestFit, DEFAULT_DOT_COUNT, DEFAULT_TUPLET_DIVISOR);
+			return create(largestFitNumerator, originalDenominator, DEFAULT_DOT_COUNT, DEFAULT_TUPLET_DIVISOR);
 		}
 
-		return create(new Fraction(1, originalDenominator), 0, tupletDivisor);
+		return create(1, originalDenominator, 0, tupletDivisor);
 	}
 
 	/**
@@ -557,17 +667,15 @@ public final class Duration implements Comparable<Duration> {
 	 * @return The sum of the given durations
 	 */
 	public static Duration sum(Iterable<Duration> durations) {
-		Iterator<Duration> iterator = durations.iterator();
-		Fraction cumulatedDur = Fraction.ZERO;
-
-		while (iterator.hasNext()) {
-			cumulatedDur = cumulatedDur.add(iterator.next().fraction);
+		final DurationAccumulator accumulator = new DurationAccumulator();
+		for (Duration duration : durations) {
+			accumulator.add(duration);
 		}
 
-		return create(cumulatedDur, DEFAULT_DOT_COUNT, DEFAULT_TUPLET_DIVISOR);
+		return accumulator.toDuration();
 	}
 
-	private boolean isPowerOfTwo(int number) {
+	private static boolean isPowerOfTwo(int number) {
 		return number > 0 && ((number & (number - 1)) == 0);
 	}
 }
@@ -0,0 +1,120 @@
+/*
+ * Distributed under the MIT license (see LICENSE.txt or https://opensource.org/licenses/MIT).
+ */
+package org.wmn4j.notation;
+
+/**
+ * Accumulates a sum of durations without creating intermediate {@link Duration} objects.
+ * <p>
+ * The sum starts from zero and can become zero or negative when durations are subtracted from it.
+ * A {@link Duration} with the value of the sum can be created when the sum is positive.
+ * <p>
+ * Instances of this class are not thread-safe.
+ */
+public final class DurationAccumulator {
+
+	// The sum as a reduced fraction with a positive denominator.
+	private long numerator;
+	private long denominator = 1;
+
+	/**
+	 * Creates an accumulator with a sum of zero.
+	 */
+	public DurationAccumulator() {
+	}
+
+	/**
+	 * Adds the given duration to the sum.
+	 *
+	 * @param duration the duration to add to the sum
+	 * @return reference to this
+	 * @throws ArithmeticException if the sum cannot be represented exactly
+	 */
+	public DurationAccumulator add(Duration duration) {
+		return add(duration.getNumerator(), duration.getDenominator());
+	}
+
+	/**
+	 * Subtracts the given duration from the sum.
+	 *
+	 * @param duration the duration to subtract from the sum
+	 * @return reference to this
+	 * @throws ArithmeticException if the sum cannot be represented exactly
+	 */
+	public DurationAccumulator subtract(Duration duration) {
+		return add(-(long) duration.getNumerator(), duration.getDenominator());
+	}
+
+	private DurationAccumulator add(long otherNumerator, long otherDenominator) {
+		if (denominator == otherDenominator) {
+			numerator = Math.addExact(numerator, otherNumerator);
+		} else {
+			numerator = Math.addExact(Math.multiplyExact(numerator, otherDenominator),
+					Math.multiplyExact(otherNumerator, denominator));
+			denominator = Math.multiplyExact(denominator, otherDenominator);
+		}
+
+		final long divisor = Duration.gcd(Math.abs(numerator), denominator);
+		numerator /= divisor;
+		denominator /= divisor;
+		return this;
+	}
+
+	/**
+	 * Sets the sum to zero.
+	 *
+	 * @return reference to this
+	 */
+	public DurationAccumulator clear() {
+		numerator = 0;
+		denominator = 1;
+		return this;
+	}
+
+	/**
+	 * Returns true if the sum is zero.
+	 *
+	 * @return true if the sum is zero
+	 */
+	public boolean isZero() {
+		return numerator == 0;
+	}
+
+	/**
+	 * Returns true if the sum is greater than zero.
+	 *
+	 * @return true if the sum is greater than zero
+	 */
+	public boolean isPositive() {
+		return numerator > 0;
+	}
+
+	/**
+	 * Compares the sum to the given duration.
+	 *
+	 * @param duration the duration to which the sum is compared
+	 * @return negative integer if the sum is less than the duration, positive integer if the sum is greater than
+	 * the duration, and 0 if the sum is equal to the duration
+	 */
+	public int compareTo(Duration duration) {
+		return Long.compare(Math.multiplyExact(numerator, duration.getDenominator()),
+				Math.multiplyExact((long) duration.getNumerator(), denominator));
+	}
+
+	/**
+	 * Returns a duration with the value of the sum.
+	 * <p>
+	 * The returned duration does not have dot count or tuplet divisor information.
+	 *
+	 * @return a duration with the value of the sum
+	 * @throws IllegalArgumentException if the sum is not positive
+	 */
+	public Duration toDuration() {
+		return Duration.fromFraction(numerator, denominator);
+	}
+
+	@Override
+	public String toString() {
+		return "(" + numerator + "/" + denominator + ")";
+	}
+}
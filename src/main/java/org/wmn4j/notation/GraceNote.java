@@ -23,6 +23,7 @@ public final class GraceNote implements OptionallyPitched, Ornamental, Notation.
 	private final Note note;
 	private final Ornamental.Type type;
 	private final Collection<Notation.Connection> principalNoteConnections;
+	private final int hash;
 
 	/**
 	 * Returns an instance with the given parameters.
@@ -84,6 +85,7 @@ public final class GraceNote implements OptionallyPitched, Ornamental, Notation.
 				lyrics);
 		this.type = Objects.requireNonNull(type);
 		this.principalNoteConnections = Collections.unmodifiableList(new ArrayList<>(principalNoteConnections));
+		this.hash = computeHash();
 	}
 
 	Collection<Notation.Connection> getPrincipalNoteConnections() {
@@ -236,17 +238,21 @@ public final class GraceNote implements OptionallyPitched, Ornamental, Notation.
 
 		GraceNote other = (GraceNote) o;
 
-		return this.note.equals(other.note) && this.type.equals(other.type);
+		return this.hash == other.hash && this.type.equals(other.type) && this.note.equals(other.note);
 	}
 
-	@Override
-	public int hashCode() {
+	private int computeHash() {
 		int hash = 3;
 		hash = 79 * hash + Objects.hashCode(this.note);
 		hash = 79 * hash + Objects.hashCode(this.type);
 		return hash;
 	}
 
+	@Override
+	public int hashCode() {
+		return hash;
+	}
+
 	@Override
 	public Duration getDisplayableDuration() {
 		return note.getDuration();
@@ -14,6 +14,25 @@ import java.util.Objects;
  * This class is immutable.
  */
 public final class KeySignature {
+
+	// The key signatures of the major and minor keys are created in advance, so that each of them has a
+	// single instance. They are indexed by the number of sharps or flats.
+	private static final List<Pitch.Base> SHARP_ORDER = List.of(Pitch.Base.F, Pitch.Base.C, Pitch.Base.G,
+			Pitch.Base.D, Pitch.Base.A, Pitch.Base.E, Pitch.Base.B);
+	private static final List<Pitch.Base> FLAT_ORDER = List.of(Pitch.Base.B, Pitch.Base.E, Pitch.Base.A,
+			Pitch.Base.D, Pitch.Base.G, Pitch.Base.C, Pitch.Base.F);
+	private static final KeySignature[] SHARP_KEY_SIGNATURES = new KeySignature[SHARP_ORDER.size() + 1];
+	private static final KeySignature[] FLAT_KEY_SIGNATURES = new KeySignature[FLAT_ORDER.size() + 1];
+
+	static {
+		SHARP_KEY_SIGNATURES[0] = new KeySignature(null, null);
+		FLAT_KEY_SIGNATURES[0] = SHARP_KEY_SIGNATURES[0];
+		for (int i = 1; i <= SHARP_ORDER.size(); ++i) {
+			SHARP_KEY_SIGNATURES[i] = new KeySignature(SHARP_ORDER.subList(0, i), null);
+			FLAT_KEY_SIGNATURES[i] = new KeySignature(null, FLAT_ORDER.subList(0, i));
+		}
+	}
+
 	private final List<Pitch.Base> sharps;
 	private final List<Pitch.Base> flats;
 
@@ -31,9 +50,24 @@ public final class KeySignature {
 	 *                                  flats.
 	 */
 	public static KeySignature of(List<Pitch.Base> sharps, List<Pitch.Base> flats) {
+		final boolean hasSharps = sharps != null && !sharps.isEmpty();
+		final boolean hasFlats = flats != null && !flats.isEmpty();
+
+		if (!hasFlats && (!hasSharps || isPrefixOf(SHARP_ORDER, sharps))) {
+			return SHARP_KEY_SIGNATURES[hasSharps ? sharps.size() : 0];
+		}
+
+		if (!hasSharps && isPrefixOf(FLAT_ORDER, flats)) {
+			return FLAT_KEY_SIGNATURES[flats.size()];
+		}
+
 		return new KeySignature(sharps, flats);
 	}
 
+	private static boolean isPrefixOf(List<Pitch.Base> order, List<Pitch.Base> alterations) {
+		return alterations.size() <= order.size() && order.subList(0, alterations.size()).equals(alterations);
+	}
+
 	/**
 	 * Constructor for KeySignature. For common key signatures use the ones defined
 	 * in {@link KeySignatures}. This is mostly intended for creating custom key
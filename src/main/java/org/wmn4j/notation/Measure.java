@@ -8,6 +8,7 @@ import org.wmn4j.notation.access.Offset;
 import org.wmn4j.notation.directions.Direction;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Iterator;
@@ -15,8 +16,6 @@ import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Objects;
-import java.util.SortedMap;
-import java.util.TreeMap;
 
 /**
  * Represents a measure. A measure may contain multiple voices that are referred
@@ -27,8 +26,17 @@ import java.util.TreeMap;
  */
 public final class Measure implements Iterable<Durational> {
 
+	private static final int[] NO_VOICE_NUMBERS = {};
+	private static final Durational[][] NO_VOICES = {};
+
 	private final int number;
-	private final SortedMap<Integer, List<Durational>> voices;
+
+	// The voice numbers in ascending order and the contents of the voices in the same order. The voice
+	// numbers are also kept as an unmodifiable list, so that it does not need to be created on each call.
+	private final int[] voiceNumbers;
+	private final Durational[][] voices;
+	private final List<Integer> voiceNumberList;
+
 	private final MeasureAttributes measureAttr;
 
 	private final List<Offset<ChordSymbol>> chordSymbols;
@@ -121,13 +129,28 @@ public final class Measure implements Iterable<Durational> {
 		}
 
 		this.number = number;
-		final SortedMap<Integer, List<Durational>> voicesCopy = new TreeMap<>();
 
-		for (Integer voiceNum : noteVoices.keySet()) {
-			voicesCopy.put(voiceNum, Collections.unmodifiableList(new ArrayList<>(noteVoices.get(voiceNum))));
-		}
+		if (noteVoices.isEmpty()) {
+			this.voiceNumbers = NO_VOICE_NUMBERS;
+			this.voices = NO_VOICES;
+			this.voiceNumberList = Collections.emptyList();
+		} else {
+			this.voiceNumbers = new int[noteVoices.size()];
+			int index = 0;
+			for (Integer voiceNumber : noteVoices.keySet()) {
+				this.voiceNumbers[index++] = voiceNumber;
+			}
 
-		this.voices = Collections.unmodifiableSortedMap(voicesCopy);
+			Arrays.sort(this.voiceNumbers);
+			this.voices = new Durational[this.voiceNumbers.length][];
+			final Integer[] voiceNumberObjects = new Integer[this.voiceNumbers.length];
+			for (int i = 0; i < this.voiceNumbers.length; ++i) {
+				voiceNumberObjects[i] = this.voiceNumbers[i];
+				this.voices[i] = noteVoices.get(voiceNumberObjects[i]).toArray(new Durational[0]);
+			}
+
+			this.voiceNumberList = List.of(voiceNumberObjects);
+		}
 
 		this.measureAttr = Objects.requireNonNull(measureAttr);
 
@@ -145,13 +168,13 @@ public final class Measure implements Iterable<Durational> {
 	}
 
 	/**
-	 * Returns the voice numbers in this measure in ascending order.
+	 * Returns an unmodifiable list of the voice numbers in this measure in ascending order.
 	 * Voice numbers are not necessarily consecutive and do not need begin from 0.
 	 *
 	 * @return list of the voice numbers used in this measure.
 	 */
 	public List<Integer> getVoiceNumbers() {
-		return new ArrayList<>(this.voices.keySet());
+		return this.voiceNumberList;
 	}
 
 	/**
@@ -160,9 +183,10 @@ public final class Measure implements Iterable<Durational> {
 	 *
 	 * @param voiceNumber the voice for which the number of elements is returned
 	 * @return the number of elements in the voice with voiceNumber
+	 * @throws NoSuchElementException if there is no voice with the given number
 	 */
-	public int getVoiceSize(int voiceNumber) {
-		return this.voices.get(voiceNumber).size();
+	public int getVoiceSize(int voiceNumber) throws NoSuchElementException {
+		return getVoice(voiceNumber).length;
 	}
 
 	/**
@@ -171,7 +195,16 @@ public final class Measure implements Iterable<Durational> {
 	 * @return number of voices in this measure
 	 */
 	public int getVoiceCount() {
-		return this.voices.keySet().size();
+		return this.voiceNumbers.length;
+	}
+
+	private Durational[] getVoice(int voiceNumber) {
+		final int voiceIndex = Arrays.binarySearch(this.voiceNumbers, voiceNumber);
+		if (voiceIndex < 0) {
+			throw new NoSuchElementException("No voice with number " + voiceNumber + " in measure " + number);
+		}
+
+		return this.voices[voiceIndex];
 	}
 
 	/**
@@ -325,16 +358,12 @@ public final class Measure implements Iterable<Durational> {
 	 *                                if the index is out of range
 	 */
 	public Durational get(int voiceNumber, int index) throws NoSuchElementException {
-		if (!this.voices.keySet().contains(voiceNumber)) {
+		final Durational[] voice = getVoice(voiceNumber);
+		if (index < 0 || index >= voice.length) {
 			throw new NoSuchElementException();
 		}
 
-		final List<Durational> voice = this.voices.get(voiceNumber);
-		if (index < 0 || index >= voice.size()) {
-			throw new NoSuchElementException();
-		}
-
-		return voice.get(index);
+		return voice[index];
 	}
 
 	/**
@@ -343,25 +372,24 @@ public final class Measure implements Iterable<Durational> {
 	 * @return true if this measure is a full measure rest
 	 */
 	public boolean isFullMeasureRest() {
-		final var voiceNumbers = getVoiceNumbers();
-		if (voiceNumbers.size() > 1) {
+		if (voices.length > 1) {
 			return false;
 		}
 
-		if (voiceNumbers.isEmpty()) {
+		if (voices.length == 0) {
 			return true;
 		}
 
-		final var voice = voices.get(voiceNumbers.get(0));
-		if (voice.size() > 1) {
+		final var voice = voices[0];
+		if (voice.length > 1) {
 			return false;
 		}
 
-		if (voice.isEmpty()) {
+		if (voice.length == 0) {
 			return true;
 		}
 
-		final var durational = voice.get(0);
+		final var durational = voice[0];
 		if (!durational.isRest()) {
 			return false;
 		}
@@ -375,7 +403,7 @@ public final class Measure implements Iterable<Durational> {
 	 * @return true if this measure is empty
 	 */
 	public boolean isEmpty() {
-		return this.voices.isEmpty();
+		return this.voices.length == 0;
 	}
 
 	@Override
@@ -383,11 +411,12 @@ public final class Measure implements Iterable<Durational> {
 		final StringBuilder strBuilder = new StringBuilder();
 		strBuilder.append("Measure ").append(this.number).append(", ").append(this.measureAttr).append(":\n");
 
-		for (Integer i : this.voices.keySet()) {
-			strBuilder.append("Voice ").append(i).append(": ");
-			for (int j = 0; j < voices.get(i).size(); ++j) {
-				strBuilder.append(voices.get(i).get(j).toString());
-				if (j != voices.get(i).size() - 1) {
+		for (int i = 0; i < this.voiceNumbers.length; ++i) {
+			strBuilder.append("Voice ").append(this.voiceNumbers[i]).append(": ");
+			final Durational[] voice = this.voices[i];
+			for (int j = 0; j < voice.length; ++j) {
+				strBuilder.append(voice[j].toString());
+				if (j != voice.length - 1) {
 					strBuilder.append(", ");
 				}
 			}
@@ -411,10 +440,14 @@ public final class Measure implements Iterable<Durational> {
 		return new Iter(this);
 	}
 
+	/*
+	 * Iterates through the voices in ascending order of voice number. The iteration ends at the first
+	 * empty voice.
+	 */
 	private static class Iter implements MeasureIterator {
-		private final List<Integer> voiceNumbers;
-		private final Measure measure;
-		private int voiceNumberIndex = 0;
+		private final int[] voiceNumbers;
+		private final Durational[][] voices;
+		private int voiceIndex = 0;
 		private int positionInVoice = 0;
 		private int prevVoiceNumber = 0;
 		private int prevPositionInVoice = 0;
@@ -425,8 +458,8 @@ public final class Measure implements Iterable<Durational> {
 		 * @param measure the measure for which the iterator is created
 		 */
 		Iter(Measure measure) {
-			this.measure = measure;
-			this.voiceNumbers = measure.getVoiceNumbers();
+			this.voiceNumbers = measure.voiceNumbers;
+			this.voices = measure.voices;
 		}
 
 		@Override
@@ -441,12 +474,7 @@ public final class Measure implements Iterable<Durational> {
 
 		@Override
 		public boolean hasNext() {
-			if (voiceNumberIndex >= this.voiceNumbers.size()) {
-				return false;
-			}
-
-			final int voiceNumber = this.voiceNumbers.get(this.voiceNumberIndex);
-			return this.measure.getVoiceSize(voiceNumber) > 0;
+			return voiceIndex < this.voices.length && this.voices[voiceIndex].length > 0;
 		}
 
 		@Override
@@ -455,13 +483,14 @@ public final class Measure implements Iterable<Durational> {
 				throw new NoSuchElementException();
 			}
 
-			this.prevVoiceNumber = this.voiceNumbers.get(this.voiceNumberIndex);
+			final Durational[] voice = this.voices[this.voiceIndex];
+			this.prevVoiceNumber = this.voiceNumbers[this.voiceIndex];
 			this.prevPositionInVoice = this.positionInVoice;
-			final Durational next = measure.get(prevVoiceNumber, prevPositionInVoice);
+			final Durational next = voice[this.positionInVoice];
 
 			++this.positionInVoice;
-			if (this.positionInVoice == measure.getVoiceSize(prevVoiceNumber)) {
-				++this.voiceNumberIndex;
+			if (this.positionInVoice == voice.length) {
+				++this.voiceIndex;
 				this.positionInVoice = 0;
 			}
 
@@ -330,12 +330,16 @@ public class MeasureBuilder {
 	 * @return sum of the durations of the in the voice
 	 */
 	public Duration totalDurationOfVoice(int voice) {
-		final List<Duration> durations = new ArrayList<>();
+		return accumulateDurationOfVoice(voice).toDuration();
+	}
+
+	private DurationAccumulator accumulateDurationOfVoice(int voice) {
+		final DurationAccumulator accumulator = new DurationAccumulator();
 		for (DurationalBuilder d : this.voices.get(voice)) {
-			durations.add(d.getDuration());
+			accumulator.add(d.getDuration());
 		}
 
-		return Duration.sum(durations);
+		return accumulator;
 	}
 
 	/**
@@ -348,8 +352,7 @@ public class MeasureBuilder {
 	 * @return true if the durations in the voice add up to fill a measure
 	 */
 	public boolean isFull(int voice) {
-		final Duration voiceDuration = this.totalDurationOfVoice(voice);
-		return !voiceDuration.isShorterThan(attributesBuilder.timeSignature.getTotalDuration());
+		return accumulateDurationOfVoice(voice).compareTo(attributesBuilder.timeSignature.getTotalDuration()) >= 0;
 	}
 
 	/**
@@ -374,7 +377,7 @@ public class MeasureBuilder {
 	 * exceed what can fit in the measure
 	 */
 	public boolean isOverflowing(int voice) {
-		return totalDurationOfVoice(voice).isLongerThan(getTimeSignature().getTotalDuration());
+		return accumulateDurationOfVoice(voice).compareTo(getTimeSignature().getTotalDuration()) > 0;
 	}
 
 	/**
@@ -401,19 +404,19 @@ public class MeasureBuilder {
 	private void trimVoice(int voice) {
 		List<DurationalBuilder> voiceContents = voices.get(voice);
 
-		Duration cumulatedDuration = null;
-		final Duration maxTotalDuration = getTimeSignature().getTotalDuration();
+		// The duration that is left in the measure before the builder at index i.
+		final DurationAccumulator remainingDuration = new DurationAccumulator()
+				.add(getTimeSignature().getTotalDuration());
 
 		for (int i = 0; i < voiceContents.size(); ++i) {
 			DurationalBuilder builder = voiceContents.get(i);
 			Duration duration = builder.getDuration();
-			Duration cumulatedWithCurrent = cumulatedDuration == null ? duration
-					: cumulatedDuration.add(duration);
+			final int comparison = remainingDuration.compareTo(duration);
 
 			// If this is true, the builder at index i fills the voice to be exactly of the
 			// duration specified by the time signature. The rest of the builders are
 			// discarded.
-			if (cumulatedWithCurrent.equals(maxTotalDuration)) {
+			if (comparison == 0) {
 				voiceContents.subList(i + 1, voiceContents.size()).clear();
 				break;
 			}
@@ -421,15 +424,13 @@ public class MeasureBuilder {
 			// If this is true, the builder at index i fills the voice to exceed the
 			// duration specified by the time signature so the duration needs to be
 			// reduced. The rest of the builders are discarded.
-			if (cumulatedWithCurrent.isLongerThan(maxTotalDuration)) {
-				final Duration allowedDuration = cumulatedDuration == null ? maxTotalDuration
-						: maxTotalDuration.subtract(cumulatedDuration);
-				builder.setDuration(allowedDuration);
+			if (comparison < 0) {
+				builder.setDuration(remainingDuration.toDuration());
 				voiceContents.subList(i + 1, voiceContents.size()).clear();
 				break;
 			}
 
-			cumulatedDuration = cumulatedWithCurrent;
+			remainingDuration.subtract(duration);
 		}
 	}
 
@@ -37,6 +37,11 @@ public final class Note implements Durational, OptionallyPitched, Notation.Conne
 
 	private final List<Lyric> lyrics;
 
+	// The types of the notations as a bit set indexed by the ordinals of the types. Notes are compared
+	// using the types of their notations, so they are kept here for comparisons without allocation.
+	private final int notationTypes;
+	private final int hash;
+
 	/**
 	 * Returns an instance with the given parameters.
 	 *
@@ -149,6 +154,18 @@ public final class Note implements Durational, OptionallyPitched, Notation.Conne
 		} else {
 			this.lyrics = Collections.emptyList();
 		}
+
+		this.notationTypes = computeNotationTypes(this.notationConnections);
+		this.hash = computeHash();
+	}
+
+	private static int computeNotationTypes(Collection<Notation.Connection> notationConnections) {
+		int types = 0;
+		for (Notation.Connection connection : notationConnections) {
+			types |= 1 << connection.getType().ordinal();
+		}
+
+		return types;
 	}
 
 	private Collection<Ornament> copyOrnaments(Collection<Ornament> ornaments) {
@@ -500,15 +517,15 @@ public final class Note implements Durational, OptionallyPitched, Notation.Conne
 	 * @return the total duration of tied notes starting from the onset of this note
 	 */
 	public Duration getTiedDuration() {
-		final List<Duration> tiedDurations = new ArrayList<>();
+		final DurationAccumulator tiedDuration = new DurationAccumulator();
 
 		Optional<Note> currentNote = Optional.of(this);
 		while (currentNote.isPresent()) {
-			tiedDurations.add(currentNote.get().getDuration());
+			tiedDuration.add(currentNote.get().getDuration());
 			currentNote = currentNote.get().getFollowingTiedNote();
 		}
 
-		return Duration.sum(tiedDurations);
+		return tiedDuration.toDuration();
 	}
 
 	/**
@@ -607,19 +624,19 @@ public final class Note implements Durational, OptionallyPitched, Notation.Conne
 
 		final Note other = (Note) o;
 
-		if (!this.displayPitch.equals(other.displayPitch)) {
+		if (this.hash != other.hash || this.notationTypes != other.notationTypes) {
 			return false;
 		}
 
-		if (!this.equalsInPitchAndDuration(other)) {
+		if (!this.displayPitch.equals(other.displayPitch)) {
 			return false;
 		}
 
-		if (!this.articulations.equals(other.articulations)) {
+		if (!this.equalsInPitchAndDuration(other)) {
 			return false;
 		}
 
-		if (!getNotationConnectionTypes().equals(other.getNotationConnectionTypes())) {
+		if (!this.articulations.equals(other.articulations)) {
 			return false;
 		}
 
@@ -638,22 +655,21 @@ public final class Note implements Durational, OptionallyPitched, Notation.Conne
 		return ornaments.equals(other.ornaments);
 	}
 
-	private Set<Notation.Type> getNotationConnectionTypes() {
-		return notationConnections.stream()
-				.map(Notation.Connection::getType).collect(Collectors.toSet());
-	}
-
-	@Override
-	public int hashCode() {
+	private int computeHash() {
 		int hash = 3;
 		hash = 79 * hash + Objects.hashCode(this.pitch);
 		hash = 79 * hash + Objects.hashCode(this.displayPitch);
 		hash = 79 * hash + Objects.hashCode(this.duration);
 		hash = 79 * hash + Objects.hashCode(this.articulations);
-		hash = 79 * hash + Objects.hashCode(getNotationConnectionTypes());
+		hash = 79 * hash + this.notationTypes;
 		hash = 79 * hash + Objects.hashCode(this.techniques);
 		hash = 79 * hash + Objects.hashCode(this.lyrics);
 		return hash;
 	}
 
+	@Override
+	public int hashCode() {
+		return hash;
+	}
+
 }
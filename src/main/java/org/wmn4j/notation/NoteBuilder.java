@@ -40,6 +40,8 @@ public final class NoteBuilder implements DurationalBuilder, ConnectableBuilder
 
 	private Set<Technique> techniques = new HashSet<>();
 
+	private NoteInterner interner;
+
 	private Note cachedNote;
 	private boolean isBuilding;
 
@@ -347,6 +349,20 @@ public final class NoteBuilder implements DurationalBuilder, ConnectableBuilder
 		return this;
 	}
 
+	/**
+	 * Sets the interner used for sharing the built note with other equal notes. If the interner
+	 * is null, the built notes are not shared. Notes that have notations or grace notes are never
+	 * shared.
+	 *
+	 * @param interner the interner used for sharing the built note, or null for not sharing it
+	 * @return reference to this
+	 * @see NoteInterner
+	 */
+	public NoteBuilder setInterner(NoteInterner interner) {
+		this.interner = interner;
+		return this;
+	}
+
 	/**
 	 * Removes the cached note that was built on the previous call of {@link #build
 	 * build}.
@@ -485,7 +501,8 @@ public final class NoteBuilder implements DurationalBuilder, ConnectableBuilder
 	 * {@link NoteBuilder} and {@link GraceNoteBuilder}  objects to which this is tied. Calling this method to
 	 * create the first note in a sequence of tied notes builds all the tied notes.
 	 * The {@link Note} objects are cached in the builders. In case of tied notes,
-	 * the temporally first one should be built first.
+	 * the temporally first one should be built first. If an interner is set in this builder,
+	 * the returned note can be shared with other equal notes.
 	 *
 	 * @return a note instance with the values set in this builder.
 	 */
@@ -507,6 +524,10 @@ public final class NoteBuilder implements DurationalBuilder, ConnectableBuilder
 							techniques,
 							lyrics);
 
+			if (interner != null) {
+				this.cachedNote = interner.intern(this.cachedNote);
+			}
+
 			updateGraceNoteBuilders();
 
 			isBuilding = false;
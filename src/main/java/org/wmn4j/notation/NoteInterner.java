@@ -0,0 +1,148 @@
+/*
+ * Distributed under the MIT license (see LICENSE.txt or https://opensource.org/licenses/MIT).
+ */
+package org.wmn4j.notation;
+
+import java.util.Arrays;
+
+/**
+ * Shares one instance between structurally identical notes and chords.
+ * <p>
+ * Repetitive music, such as ostinatos, accompaniment figures, and doubled parts, contains large numbers of
+ * notes that are equal in pitch, duration, articulations, ornaments, techniques, and lyrics. An interner
+ * returns the first such note it has seen for all the equal notes given to it, so that the notes that are
+ * not otherwise referenced can be garbage collected. Notes are only shared if their durations are also written
+ * in the same way, so a dotted eighth triplet is not shared with an eighth note although their durations are
+ * equal. Interning can be enabled for builders using
+ * {@link NoteBuilder#setInterner(NoteInterner)} and {@link ChordBuilder#setInterner(NoteInterner)}.
+ * <p>
+ * Notes that have notations, such as ties and slurs, are connected to other notes by identity, so they are
+ * never shared. Notes with grace notes are not shared either, because the grace notes are connected to
+ * their principal note. Chords are only shared if none of their notes has notations or grace notes.
+ * <p>
+ * An interner holds at most {@value #MAX_INSTANCE_COUNT} notes and as many chords. When it is full, notes
+ * and chords without an equal shared instance are returned as they are.
+ * <p>
+ * This class is thread-safe.
+ */
+public final class NoteInterner {
+
+	/**
+	 * The maximum number of notes and the maximum number of chords held by an interner.
+	 */
+	public static final int MAX_INSTANCE_COUNT = 1 << 16;
+
+	private final ValueCache<Key, Note> notes = new ValueCache<>(MAX_INSTANCE_COUNT);
+	private final ValueCache<Key, Chord> chords = new ValueCache<>(MAX_INSTANCE_COUNT);
+
+	/*
+	 * Identifies a shared note or chord. Durations are equal if their values are equal, so the dots and tuplet
+	 * divisors of the durations of the notes are compared in addition to the note or chord.
+	 */
+	private static final class Key {
+		private final Object value;
+		private final long[] writtenDurations;
+		private final int hash;
+
+		private Key(Object value, long[] writtenDurations) {
+			this.value = value;
+			this.writtenDurations = writtenDurations;
+			this.hash = 31 * value.hashCode() + Arrays.hashCode(writtenDurations);
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) {
+				return true;
+			}
+
+			if (!(o instanceof Key)) {
+				return false;
+			}
+
+			final Key other = (Key) o;
+			return hash == other.hash && Arrays.equals(writtenDurations, other.writtenDurations)
+					&& value.equals(other.value);
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+	}
+
+	/**
+	 * Creates an interner that does not hold any notes or chords.
+	 */
+	public NoteInterner() {
+	}
+
+	/**
+	 * Returns the shared note that is equal to the given note. If the given note cannot be shared, because
+	 * it has notations or grace notes, the given note is returned.
+	 *
+	 * @param note the note for which the shared instance is returned
+	 * @return the shared note that is equal to the given note
+	 */
+	public Note intern(Note note) {
+		if (!isShareable(note)) {
+			return note;
+		}
+
+		return notes.intern(new Key(note, new long[] { getWrittenDuration(note) }), note);
+	}
+
+	/**
+	 * Returns the shared chord that is equal to the given chord. If the given chord cannot be shared,
+	 * because any of its notes has notations or grace notes, the given chord is returned.
+	 *
+	 * @param chord the chord for which the shared instance is returned
+	 * @return the shared chord that is equal to the given chord
+	 */
+	public Chord intern(Chord chord) {
+		final long[] writtenDurations = new long[chord.getNoteCount()];
+		int i = 0;
+		for (Note note : chord) {
+			if (!isShareable(note)) {
+				return chord;
+			}
+
+			writtenDurations[i++] = getWrittenDuration(note);
+		}
+
+		return chords.intern(new Key(chord, writtenDurations), chord);
+	}
+
+	/**
+	 * Returns the number of notes shared by this interner.
+	 *
+	 * @return the number of notes shared by this interner
+	 */
+	public int getNoteCount() {
+		return notes.size();
+	}
+
+	/**
+	 * Returns the number of chords shared by this interner.
+	 *
+	 * @return the number of chords shared by this interner
+	 */
+	public int getChordCount() {
+		return chords.size();
+	}
+
+	/*
+	 * Returns the dots and the tuplet divisor of the duration of the given note, which together with the value
+	 * of the duration determine how the duration is written.
+	 */
+	private static long getWrittenDuration(Note note) {
+		final Duration duration = note.getDuration();
+		return ((long) duration.getDotCount() << Integer.SIZE) | (duration.getTupletDivisor() & 0xFFFFFFFFL);
+	}
+
+	private static boolean isShareable(Note note) {
+		return !note.hasNotations()
+				&& !note.hasOrnament(Ornament.Type.GRACE_NOTES)
+				&& !note.hasOrnament(Ornament.Type.SUCCEEDING_GRACE_NOTES);
+	}
+}
@@ -127,9 +127,14 @@ public final class Pitch implements Comparable<Pitch> {
 	 */
 	public static final int MAX_OCTAVE = 10;
 
+	// All pitches are created in advance, so that each pitch has a single instance.
+	private static final int ACCIDENTAL_COUNT = Accidental.values().length;
+	private static final Pitch[] PITCHES = createPitches();
+
 	private final Base pitchBase;
 	private final Accidental accidental;
 	private final int octave;
+	private final int hash;
 
 	/**
 	 * Returns an instance.
@@ -146,7 +151,24 @@ public final class Pitch implements Comparable<Pitch> {
 			throw new IllegalArgumentException("octave was " + octave + ". octave must be between 0 and " + MAX_OCTAVE);
 		}
 
-		return new Pitch(Objects.requireNonNull(pitchName), Objects.requireNonNull(accidental), octave);
+		return PITCHES[getIndex(Objects.requireNonNull(pitchName), Objects.requireNonNull(accidental), octave)];
+	}
+
+	private static int getIndex(Base pitchName, Accidental accidental, int octave) {
+		return (pitchName.ordinal() * ACCIDENTAL_COUNT + accidental.ordinal()) * (MAX_OCTAVE + 1) + octave;
+	}
+
+	private static Pitch[] createPitches() {
+		final Pitch[] pitches = new Pitch[Base.values().length * ACCIDENTAL_COUNT * (MAX_OCTAVE + 1)];
+		for (Base pitchName : Base.values()) {
+			for (Accidental accidental : Accidental.values()) {
+				for (int octave = 0; octave <= MAX_OCTAVE; ++octave) {
+					pitches[getIndex(pitchName, accidental, octave)] = new Pitch(pitchName, accidental, octave);
+				}
+			}
+		}
+
+		return pitches;
 	}
 
 	/**
@@ -156,6 +178,7 @@ public final class Pitch implements Comparable<Pitch> {
 		this.pitchBase = pitchName;
 		this.octave = octave;
 		this.accidental = accidental;
+		this.hash = computeHash();
 	}
 
 	/**
@@ -285,15 +308,19 @@ public final class Pitch implements Comparable<Pitch> {
 		return true;
 	}
 
-	@Override
-	public int hashCode() {
+	private int computeHash() {
 		int hash = 5;
-		hash = 89 * hash + Objects.hashCode(this.pitchBase);
-		hash = 89 * hash + Objects.hashCode(this.accidental);
+		hash = 89 * hash + this.pitchBase.ordinal();
+		hash = 89 * hash + this.accidental.ordinal();
 		hash = 89 * hash + this.octave;
 		return hash;
 	}
 
+	@Override
+	public int hashCode() {
+		return hash;
+	}
+
 	/**
 	 * Returns an integer that denotes if this pitch is higher than, lower than, or
 	 * equal to the given pitch.
@@ -3,14 +3,16 @@
  */
 package org.wmn4j.notation;
 
-import java.util.Objects;
-
 /**
  * Represents a rest.
  * <p>
  * This class is immutable.
  */
 public final class Rest implements Durational {
+	// Rests are cached by the lengths and the expressions of their durations.
+	private static final int MAX_CACHED_REST_COUNT = 1024;
+	private static final ValueCache<Long, Rest> CACHE = new ValueCache<>(MAX_CACHED_REST_COUNT);
+
 	private final Duration duration;
 
 	/**
@@ -21,9 +23,17 @@ public final class Rest implements Durational {
 	 * @throws NullPointerException if duration is null
 	 */
 	public static Rest of(Duration duration) {
+		final long key = duration.cacheKey();
+		if (key == Duration.NO_CACHE_KEY) {
+			return new Rest(duration);
+		}
+
+		final Rest cached = CACHE.get(key);
+		if (cached != null) {
+			return cached;
+		}
 
-		// TODO: Use interner pattern for caching.
-		return new Rest(Objects.requireNonNull(duration));
+		return CACHE.intern(key, new Rest(duration));
 	}
 
 	/**
@@ -82,7 +92,6 @@ public final class Rest implements Durational {
 
 	@Override
 	public int hashCode() {
-		final int hash = 3;
-		return hash;
+		return 31 * 3 + this.duration.hashCode();
 	}
 }
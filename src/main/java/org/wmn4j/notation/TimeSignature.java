@@ -51,10 +51,19 @@ public final class TimeSignature {
 		BEAT_DURATION_AS_DOTTED_NOTE,
 	}
 
+	// Time signatures are cached by the number of beats, the length and expression of the beat duration,
+	// and the symbol.
+	private static final int MAX_CACHED_TIME_SIGNATURE_COUNT = 1024;
+	private static final ValueCache<CacheKey, TimeSignature> CACHE = new ValueCache<>(
+			MAX_CACHED_TIME_SIGNATURE_COUNT);
+
 	private final int beats;
 	private final Duration beatDuration;
 	private final Symbol symbol;
 
+	private record CacheKey(int beats, long beatDurationKey, Symbol symbol) {
+	}
+
 	/**
 	 * Returns a time signature with the given numerator and denominator.
 	 *
@@ -94,7 +103,18 @@ public final class TimeSignature {
 			throw new IllegalArgumentException("beats must be at least 1.");
 		}
 
-		return new TimeSignature(beats, Objects.requireNonNull(beatDuration), symbol);
+		final long durationKey = beatDuration.cacheKey();
+		if (durationKey == Duration.NO_CACHE_KEY) {
+			return new TimeSignature(beats, beatDuration, symbol);
+		}
+
+		final CacheKey key = new CacheKey(beats, durationKey, symbol);
+		final TimeSignature cached = CACHE.get(key);
+		if (cached != null) {
+			return cached;
+		}
+
+		return CACHE.intern(key, new TimeSignature(beats, beatDuration, symbol));
 	}
 
 	private TimeSignature(int beats, Duration beatDuration, Symbol symbol) {
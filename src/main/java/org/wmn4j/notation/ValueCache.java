@@ -0,0 +1,57 @@
+/*
+ * Distributed under the MIT license (see LICENSE.txt or https://opensource.org/licenses/MIT).
+ */
+package org.wmn4j.notation;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Holds canonical instances of immutable values so that equal values created by the factory methods
+ * can share one instance.
+ * <p>
+ * The cache is bounded: once it holds the maximum number of instances, new values are no longer added
+ * to it and the factory methods return separate instances for them. This keeps the memory used by the
+ * cache small when unusual values are created in large numbers.
+ * <p>
+ * This class is thread-safe.
+ *
+ * @param <K> the type of the keys that identify the values
+ * @param <V> the type of the cached values
+ */
+final class ValueCache<K, V> {
+
+	private final ConcurrentHashMap<K, V> instances = new ConcurrentHashMap<>();
+	private final int maxSize;
+
+	ValueCache(int maxSize) {
+		this.maxSize = maxSize;
+	}
+
+	/**
+	 * Returns the canonical instance with the given key or null if there is none.
+	 */
+	V get(K key) {
+		return instances.get(key);
+	}
+
+	/**
+	 * Returns the canonical instance with the given key, making the given value the canonical instance
+	 * if there is none yet and the cache is not full.
+	 */
+	V intern(K key, V value) {
+		if (instances.size() >= maxSize) {
+			final V existing = instances.get(key);
+			return existing != null ? existing : value;
+		}
+
+		final V existing = instances.putIfAbsent(key, value);
+		return existing != null ? existing : value;
+	}
+
+	/**
+	 * Returns the number of canonical instances in this cache.
+	 */
+	int size() {
+		return instances.size();
+	}
+}
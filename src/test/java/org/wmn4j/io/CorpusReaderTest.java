@@ -0,0 +1,137 @@
+/*
+ * Distributed under the MIT license (see LICENSE.txt or https://opensource.org/licenses/MIT).
+ */
+package org.wmn4j.io;
+
+import org.junit.jupiter.api.Test;
+import org.wmn4j.TestHelper;
+import org.wmn4j.io.musicxml.MusicXmlReader;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CorpusReaderTest {
+
+	private static final Path MUSICXML_DIRECTORY = Paths.get(TestHelper.TESTFILE_PATH + "musicxml/");
+
+	private static List<Path> getPaths(String... fileNames) {
+		return List.of(fileNames).stream().map(MUSICXML_DIRECTORY::resolve).collect(Collectors.toList());
+	}
+
+	@Test
+	void testFindFilesReturnsFilesMatchingGlobInOrder() throws IOException {
+		final List<Path> compressedFiles = CorpusReader.findFiles(MUSICXML_DIRECTORY, "*.mxl");
+		assertEquals(List.of(MUSICXML_DIRECTORY.resolve("multi_staff_multi_voice_notation_test.mxl")),
+				compressedFiles);
+
+		final List<Path> allFiles = CorpusReader.findFiles(MUSICXML_DIRECTORY);
+		assertTrue(allFiles.containsAll(compressedFiles));
+		assertTrue(allFiles.contains(MUSICXML_DIRECTORY.resolve("singleC.musicxml")));
+		assertEquals(allFiles.stream().sorted().collect(Collectors.toList()), allFiles);
+	}
+
+	@Test
+	void testResultsAreReturnedInOrderOfPaths() {
+		final List<Path> paths = getPaths("singleC.musicxml", "twoMeasures.musicxml",
+				"multi_staff_multi_voice_notation_test.mxl", "twoPartsAndMeasures.musicxml");
+
+		try (CorpusReader corpusReader = CorpusReader.of(paths, MusicXmlReader::readerFor)) {
+			final List<CorpusReader.Result> results = corpusReader.stream().collect(Collectors.toList());
+			assertEquals(paths, results.stream().map(CorpusReader.Result::getPath).collect(Collectors.toList()));
+
+			for (CorpusReader.Result result : results) {
+				assertTrue(result.isSuccess(), "Reading failed: " + result);
+				assertTrue(result.getScore().isPresent());
+				assertTrue(result.getFailure().isEmpty());
+				assertFalse(result.getReadTime().isNegative());
+			}
+
+			assertEquals(2, results.get(3).getScore().get().getPartCount());
+		}
+	}
+
+	@Test
+	void testOwnExecutorUsesDaemonThreads() {
+		final List<Path> paths = getPaths("singleC.musicxml", "twoMeasures.musicxml");
+		final List<Boolean> daemonStatuses = new CopyOnWriteArrayList<>();
+
+		try (CorpusReader corpusReader = CorpusReader.of(paths, path -> {
+			daemonStatuses.add(Thread.currentThread().isDaemon());
+			return MusicXmlReader.readerFor(path);
+		})) {
+			assertTrue(corpusReader.stream().allMatch(CorpusReader.Result::isSuccess));
+		}
+
+		assertEquals(List.of(true, true), daemonStatuses);
+	}
+
+	@Test
+	void testFailuresAreReturnedAsResults() {
+		final List<Path> paths = getPaths("singleCInvalidMusicXml.musicxml", "singleC.musicxml",
+				"aFileThatDoesNotAndShouldNotExistInTestFiles.musicxml");
+
+		try (CorpusReader corpusReader = CorpusReader.of(paths, MusicXmlReader::readerFor)) {
+			final List<CorpusReader.Result> results = corpusReader.stream().collect(Collectors.toList());
+			assertEquals(3, results.size());
+
+			assertFalse(results.get(0).isSuccess());
+			assertTrue(results.get(0).getFailure().get() instanceof ParsingFailureException);
+			assertTrue(results.get(0).getScore().isEmpty());
+
+			assertTrue(results.get(1).isSuccess());
+
+			assertFalse(results.get(2).isSuccess());
+			assertTrue(results.get(2).getFailure().get() instanceof IOException);
+		}
+	}
+
+	@Test
+	void testReadingAheadIsBounded() {
+		final List<Path> paths = getPaths("singleC.musicxml", "singleC.musicxml", "singleC.musicxml",
+				"singleC.musicxml", "singleC.musicxml", "singleC.musicxml");
+		final AtomicInteger createdReaders = new AtomicInteger();
+		final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+		try (CorpusReader corpusReader = CorpusReader.of(paths, path -> {
+			createdReaders.incrementAndGet();
+			return MusicXmlReader.readerFor(path);
+		}, executor, 2)) {
+			final var results = corpusReader.iterator();
+			assertTrue(results.next().isSuccess());
+
+			// After consuming one result, at most two more files have been started.
+			assertTrue(createdReaders.get() <= 3);
+
+			int count = 1;
+			while (results.hasNext()) {
+				assertTrue(results.next().isSuccess());
+				++count;
+			}
+
+			assertEquals(paths.size(), count);
+			assertEquals(paths.size(), createdReaders.get());
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	void testResultsCanOnlyBeIteratedOnce() {
+		try (CorpusReader corpusReader = CorpusReader.of(getPaths("singleC.musicxml"), MusicXmlReader::readerFor)) {
+			corpusReader.iterator();
+			assertThrows(IllegalStateException.class, corpusReader::iterator);
+		}
+	}
+}
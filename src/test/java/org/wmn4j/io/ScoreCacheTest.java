@@ -0,0 +1,249 @@
+/*
+ * Distributed under the MIT license (see LICENSE.txt or https://opensource.org/licenses/MIT).
+ */
+package org.wmn4j.io;
+
+import org.junit.jupiter.api.Test;
+import org.wmn4j.TestHelper;
+import org.wmn4j.io.musicxml.MusicXmlReader;
+import org.wmn4j.notation.Score;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ScoreCacheTest {
+
+	private static final Path MUSICXML_DIRECTORY = Paths.get(TestHelper.TESTFILE_PATH + "musicxml/");
+	private static final long LARGE_WEIGHT = 1024 * 1024 * 1024;
+
+	private static Path getPath(String fileName) {
+		return MUSICXML_DIRECTORY.resolve(fileName);
+	}
+
+	@Test
+	void testScoreIsReadOnceAndShared() throws Exception {
+		final ScoreCache cache = ScoreCache.create(MusicXmlReader::readerFor, LARGE_WEIGHT);
+		final Path path = getPath("multistaff.musicxml");
+
+		final Score score = cache.get(path);
+		assertSame(score, cache.get(path));
+		assertSame(score, cache.get(path.toAbsolutePath()));
+		assertSame(score, cache.getIfPresent(path).orElseThrow());
+
+		final ScoreCache.Statistics statistics = cache.getStatistics();
+		assertEquals(3, statistics.getHitCount());
+		assertEquals(1, statistics.getMissCount());
+		assertEquals(1, statistics.getLoadSuccessCount());
+		assertEquals(0.75, statistics.getHitRate());
+		assertTrue(statistics.getTotalLoadTime().compareTo(Duration.ZERO) > 0);
+		assertEquals(ScoreCache.estimateWeight(score), cache.getWeight());
+	}
+
+	@Test
+	void testConcurrentMissesReadFileOnce() throws Exception {
+		final int threadCount = 8;
+		final AtomicInteger readerCount = new AtomicInteger();
+		final CountDownLatch release = new CountDownLatch(1);
+		final ScoreCache cache = ScoreCache.create(path -> {
+			readerCount.incrementAndGet();
+			try {
+				release.await();
+			} catch (InterruptedException e) {
+				throw new IllegalStateException(e);
+			}
+
+			return MusicXmlReader.readerFor(path);
+		}, LARGE_WEIGHT);
+
+		final Path path = getPath("multistaff.musicxml");
+		final ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+		try {
+			final List<Future<Score>> futures = new ArrayList<>();
+			for (int i = 0; i < threadCount; ++i) {
+				futures.add(executor.submit(() -> cache.get(path)));
+			}
+
+			while (cache.getStatistics().getMissCount() < threadCount) {
+				Thread.sleep(1);
+			}
+
+			release.countDown();
+			final Score score = futures.get(0).get();
+			for (Future<Score> future : futures) {
+				assertSame(score, future.get());
+			}
+		} finally {
+			executor.shutdown();
+		}
+
+		assertEquals(1, readerCount.get());
+		assertEquals(1, cache.getStatistics().getLoadSuccessCount());
+	}
+
+	@Test
+	void testLeastRecentlyUsedScoresAreEvictedByWeight() throws Exception {
+		final Path first = getPath("multistaff.musicxml");
+		final Path second = getPath("clefs.musicxml");
+		final Path third = getPath("lyrics_test.musicxml");
+
+		final ScoreCache sizing = ScoreCache.create(MusicXmlReader::readerFor, LARGE_WEIGHT);
+		final long weight = ScoreCache.estimateWeight(sizing.get(first))
+				+ Math.max(ScoreCache.estimateWeight(sizing.get(second)), ScoreCache.estimateWeight(sizing.get(third)));
+
+		final ScoreCache cache = ScoreCache.create(MusicXmlReader::readerFor, weight);
+		final Score firstScore = cache.get(first);
+		cache.get(second);
+
+		// Reading the first score again makes the second score the least recently used.
+		cache.get(first);
+		cache.get(third);
+
+		assertEquals(2, cache.size());
+		assertTrue(cache.getWeight() <= weight);
+		assertTrue(cache.getIfPresent(second).isEmpty());
+		assertSame(firstScore, cache.getIfPresent(first).orElseThrow());
+		assertTrue(cache.getIfPresent(third).isPresent());
+		assertEquals(1, cache.getStatistics().getEvictionCount());
+	}
+
+	@Test
+	void testScoreHeavierThanMaximumIsNotCached() throws Exception {
+		final ScoreCache cache = ScoreCache.create(MusicXmlReader::readerFor, 1);
+		final Path path = getPath("singleC.musicxml");
+
+		assertNotSame(cache.get(path), cache.get(path));
+		assertEquals(0, cache.size());
+		assertEquals(2, cache.getStatistics().getLoadSuccessCount());
+	}
+
+	@Test
+	void testScoresExpire() throws Exception {
+		final AtomicLong time = new AtomicLong();
+		final ScoreCache cache = new ScoreCache(MusicXmlReader::readerFor, LARGE_WEIGHT, 100, time::get);
+		final Path path = getPath("singleC.musicxml");
+
+		final Score score = cache.get(path);
+		time.set(99);
+		assertSame(score, cache.get(path));
+
+		time.set(100);
+		assertTrue(cache.getIfPresent(path).isEmpty());
+		assertEquals(0, cache.getWeight());
+		assertNotSame(score, cache.get(path));
+		assertEquals(2, cache.getStatistics().getLoadSuccessCount());
+		assertEquals(1, cache.getStatistics().getEvictionCount());
+	}
+
+	@Test
+	void testScoresExpireInReadingOrder() throws Exception {
+		final AtomicLong time = new AtomicLong();
+		final ScoreCache cache = new ScoreCache(MusicXmlReader::readerFor, LARGE_WEIGHT, 100, time::get);
+		final Path first = getPath("singleC.musicxml");
+		final Path second = getPath("multistaff.musicxml");
+		final Path third = getPath("clefs.musicxml");
+
+		cache.get(first);
+		time.set(50);
+		cache.get(second);
+
+		// Using the first score again does not extend its expiry.
+		time.set(60);
+		cache.get(first);
+		time.set(100);
+		cache.get(third);
+
+		assertEquals(2, cache.size());
+		assertEquals(1, cache.getStatistics().getEvictionCount());
+		assertTrue(cache.getIfPresent(first).isEmpty());
+		assertTrue(cache.getIfPresent(second).isPresent());
+		assertTrue(cache.getIfPresent(third).isPresent());
+	}
+
+	@Test
+	void testScoreReadDuringInvalidationIsNotCached() throws Exception {
+		final CountDownLatch started = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		final AtomicInteger readerCount = new AtomicInteger();
+		final ScoreCache cache = ScoreCache.create(path -> {
+			if (readerCount.incrementAndGet() == 1) {
+				started.countDown();
+				try {
+					release.await();
+				} catch (InterruptedException e) {
+					throw new IllegalStateException(e);
+				}
+			}
+
+			return MusicXmlReader.readerFor(path);
+		}, LARGE_WEIGHT);
+
+		final Path path = getPath("singleC.musicxml");
+		final ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			final Future<Score> reading = executor.submit(() -> cache.get(path));
+			started.await();
+			cache.invalidate(path);
+			release.countDown();
+
+			final Score staleScore = reading.get();
+			assertEquals(0, cache.size());
+			assertEquals(0, cache.getWeight());
+			assertNotSame(staleScore, cache.get(path));
+		} finally {
+			executor.shutdown();
+		}
+
+		assertEquals(2, readerCount.get());
+		assertEquals(1, cache.size());
+	}
+
+	@Test
+	void testFailuresAreNotCached() {
+		final ScoreCache cache = ScoreCache.create(MusicXmlReader::readerFor, LARGE_WEIGHT);
+		final Path path = getPath("singleCInvalidMusicXml.musicxml");
+
+		assertThrows(ParsingFailureException.class, () -> cache.get(path));
+		assertThrows(ParsingFailureException.class, () -> cache.get(path));
+		assertEquals(2, cache.getStatistics().getLoadFailureCount());
+		assertEquals(0, cache.size());
+	}
+
+	@Test
+	void testInvalidateRemovesScores() throws Exception {
+		final ScoreCache cache = ScoreCache.create(MusicXmlReader::readerFor, LARGE_WEIGHT);
+		final Path first = getPath("singleC.musicxml");
+		final Path second = getPath("multistaff.musicxml");
+		cache.get(first);
+		cache.get(second);
+
+		cache.invalidate(first);
+		assertTrue(cache.getIfPresent(first).isEmpty());
+		assertEquals(1, cache.size());
+
+		cache.invalidateAll();
+		assertEquals(0, cache.size());
+		assertEquals(0, cache.getWeight());
+	}
+
+	@Test
+	void testEstimatedWeightGrowsWithScoreSize() {
+		final Score small = TestHelper.readScore("musicxml/singleC.musicxml");
+		final Score large = TestHelper.readScore("musicxml/multi_part_pattern_position_test.musicxml");
+		assertTrue(ScoreCache.estimateWeight(small) < ScoreCache.estimateWeight(large));
+	}
+}
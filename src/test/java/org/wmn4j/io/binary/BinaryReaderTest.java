@@ -0,0 +1,118 @@
+/*
+ * Distributed under the MIT license (see LICENSE.txt or https://opensource.org/licenses/MIT).
+ */
+package org.wmn4j.io.binary;
+
+import org.junit.jupiter.api.Test;
+import org.wmn4j.io.ParsingFailureException;
+import org.wmn4j.notation.Durations;
+import org.wmn4j.notation.MeasureBuilder;
+import org.wmn4j.notation.Note;
+import org.wmn4j.notation.NoteBuilder;
+import org.wmn4j.notation.PartBuilder;
+import org.wmn4j.notation.Pitch;
+import org.wmn4j.notation.Score;
+import org.wmn4j.notation.ScoreBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+class BinaryReaderTest {
+
+	private static Score createTiedScore() {
+		final Pitch pitch = Pitch.of(Pitch.Base.C, Pitch.Accidental.NATURAL, 4);
+		final NoteBuilder first = new NoteBuilder(pitch, Durations.HALF);
+		final NoteBuilder second = new NoteBuilder(pitch, Durations.HALF);
+		first.addTieToFollowing(second);
+
+		final MeasureBuilder firstMeasure = new MeasureBuilder(1).addToVoice(1, new NoteBuilder(pitch, Durations.HALF))
+				.addToVoice(1, first);
+		final MeasureBuilder secondMeasure = new MeasureBuilder(2).addToVoice(1, second)
+				.addToVoice(1, new NoteBuilder(pitch, Durations.HALF));
+
+		return new ScoreBuilder().addPart(new PartBuilder("Part").add(firstMeasure).add(secondMeasure)).build();
+	}
+
+	@Test
+	void testReadingFromInputStream() throws IOException, ParsingFailureException {
+		final byte[] contents = BinaryScoreWriter.toBytes(createTiedScore());
+
+		try (BinaryScoreReader reader = BinaryScoreReader.readerFor(new ByteArrayInputStream(contents))) {
+			final Score score = reader.readScore();
+			assertEquals("Part", score.getPart(0).getName().orElseThrow());
+
+			final Note tiedNote = (Note) score.getPart(0).getMeasure(1, 1).get(1, 1);
+			assertTrue(tiedNote.isTiedToFollowing());
+			assertEquals(Durations.WHOLE, tiedNote.getTiedDuration());
+			assertSame(score.getPart(0).getMeasure(1, 2).get(1, 0), tiedNote.getFollowingTiedNote().orElseThrow());
+		}
+	}
+
+	@Test
+	void testWhenInputIsNotBinaryScoreThenReadingThrows() {
+		final byte[] contents = "<?xml version=\"1.0\"?>".getBytes();
+		assertThrows(ParsingFailureException.class, () -> BinaryScoreReader.readerFor(contents).readScore());
+	}
+
+	@Test
+	void testWhenVersionIsNotSupportedThenReadingThrows() throws IOException {
+		final byte[] contents = BinaryScoreWriter.toBytes(createTiedScore());
+		contents[BinaryFormat.MAGIC.length] = (byte) (BinaryFormat.VERSION + 1);
+		assertThrows(ParsingFailureException.class, () -> BinaryScoreReader.readerFor(contents).readScore());
+	}
+
+	@Test
+	void testWhenInputIsTruncatedThenReadingThrows() throws IOException {
+		final byte[] contents = BinaryScoreWriter.toBytes(createTiedScore());
+		final byte[] truncated = Arrays.copyOf(contents, contents.length / 2);
+		assertThrows(ParsingFailureException.class, () -> BinaryScoreReader.readerFor(truncated).readScore());
+		assertThrows(ParsingFailureException.class,
+				() -> BinaryScoreReader.readerFor(new ByteArrayInputStream(truncated)).readScore());
+	}
+
+	@Test
+	void testWhenBodyIsCorruptedThenReadingThrowsParsingFailure() throws IOException {
+		final byte[] contents = BinaryScoreWriter.toBytes(createTiedScore());
+		final int headerLength = BinaryFormat.MAGIC.length + 1;
+		final byte[] corruptions = { 0x00, 0x01, 0x7F, (byte) 0x80, (byte) 0xFF };
+
+		for (int i = headerLength; i < contents.length; ++i) {
+			for (byte corruption : corruptions) {
+				final byte[] corrupted = contents.clone();
+				corrupted[i] = corruption;
+				try {
+					BinaryScoreReader.readerFor(corrupted).readScore();
+				} catch (ParsingFailureException e) {
+					// Expected for most corruptions.
+				} catch (RuntimeException e) {
+					fail("Corrupting byte " + i + " to " + corruption + " caused " + e);
+				}
+			}
+		}
+	}
+
+	@Test
+	void testSignedVarIntsOfAllMagnitudesAreRead() throws IOException, ParsingFailureException {
+		final int[] values = { 0, 1, -1, 63, -64, 1 << 29, -(1 << 29), 1 << 30, -(1 << 30), Integer.MAX_VALUE,
+				Integer.MIN_VALUE };
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		final BinaryOutput output = new BinaryOutput(bytes);
+		for (int value : values) {
+			output.writeSignedVarInt(value);
+		}
+
+		output.flush();
+		final BinaryInput input = new BinaryInput(bytes.toByteArray());
+		for (int value : values) {
+			assertEquals(value, input.readSignedVarInt());
+		}
+	}
+}
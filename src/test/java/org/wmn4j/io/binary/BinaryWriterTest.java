@@ -0,0 +1,200 @@
+/*
+ * Distributed under the MIT license (see LICENSE.txt or https://opensource.org/licenses/MIT).
+ */
+package org.wmn4j.io.binary;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.wmn4j.TestHelper;
+import org.wmn4j.io.ParsingFailureException;
+import org.wmn4j.io.musicxml.MusicXmlReader;
+import org.wmn4j.io.musicxml.MusicXmlWriter;
+import org.wmn4j.io.musicxml.ReadOptions;
+import org.wmn4j.notation.Durational;
+import org.wmn4j.notation.GraceNote;
+import org.wmn4j.notation.GraceNoteChord;
+import org.wmn4j.notation.Notation;
+import org.wmn4j.notation.Note;
+import org.wmn4j.notation.Ornament;
+import org.wmn4j.notation.Ornamental;
+import org.wmn4j.notation.Score;
+import org.wmn4j.notation.access.PositionIterator;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+class BinaryWriterTest {
+
+	@TempDir
+	Path temporaryDirectory;
+
+	private static final String MUSICXML_FILE_PATH = "musicxml/";
+
+	// Test files whose MusicXML output does not depend on the order in which notations are stored in notes.
+	private static final List<String> STABLE_TEST_FILES = List.of("articulations.musicxml",
+			"attribute_reading_test.musicxml", "barlines.musicxml", "basic_dotted_duration_appearances.musicxml",
+			"chord_symbol_test.musicxml", "clef_change_where_note_in_another_voice_carries_over.musicxml",
+			"clefs.musicxml", "directions_test.musicxml", "grace_note_chord_test.musicxml", "keysigs.musicxml",
+			"lyrics_test.musicxml", "multi_part_pattern_position_test.musicxml", "multistaff.musicxml",
+			"nonnumeric_measure_number.musicxml", "ornament_test.musicxml", "pickup_measure_test.musicxml",
+			"selection_test.musicxml", "techniques_test.musicxml", "timesigs.musicxml", "tuplet_test.musicxml",
+			"unpitched_notes_test.musicxml");
+
+	// Test files with notes at which several notations end, which makes the order of notations in the MusicXML
+	// output vary.
+	private static final List<String> CONNECTED_NOTATION_TEST_FILES = List.of("grace_note_test.musicxml",
+			"multi_staff_multi_voice_notation_test.musicxml", "single_staff_single_voice_notation_test.musicxml",
+			"tieTesting.musicxml");
+
+	private Score readMusicXmlTestFile(String testFileName) {
+		final Path path = Paths.get(TestHelper.TESTFILE_PATH + MUSICXML_FILE_PATH + testFileName);
+		Score score = null;
+
+		try (final MusicXmlReader reader = MusicXmlReader.nonValidatingReaderFor(path)) {
+			score = reader.readScore();
+		} catch (final IOException | ParsingFailureException e) {
+			fail("Parsing failed with exception " + e);
+		}
+
+		assertNotNull(score);
+		return score;
+	}
+
+	private static Score roundTrip(Score score) throws IOException {
+		try (BinaryScoreReader reader = BinaryScoreReader.readerFor(BinaryScoreWriter.toBytes(score))) {
+			return reader.readScore();
+		} catch (ParsingFailureException e) {
+			fail("Reading binary score failed with exception " + e);
+			return null;
+		}
+	}
+
+	@Test
+	void testWrittenScoresAreReadWithSameContents() throws IOException {
+		for (String testFile : STABLE_TEST_FILES) {
+			final Score score = readMusicXmlTestFile(testFile);
+			assertArrayEquals(MusicXmlWriter.toBytes(score, false, false),
+					MusicXmlWriter.toBytes(roundTrip(score), false, false), testFile);
+		}
+	}
+
+	/*
+	 * Describes the notations of the given note and its grace notes in a form that does not depend on the order
+	 * of the notations.
+	 */
+	private static List<String> describeNotations(Note note) {
+		final List<String> descriptions = new ArrayList<>();
+		describeNotations(note, note.getNotations(), descriptions);
+
+		for (Ornament ornament : note.getOrnaments()) {
+			for (Ornamental ornamental : ornament.getOrnamentalNotes()) {
+				if (ornamental instanceof GraceNote graceNote) {
+					describeNotations(graceNote, graceNote.getNotations(), descriptions);
+				} else {
+					for (GraceNote graceNote : (GraceNoteChord) ornamental) {
+						describeNotations(graceNote, graceNote.getNotations(), descriptions);
+					}
+				}
+			}
+		}
+
+		Collections.sort(descriptions);
+		return descriptions;
+	}
+
+	private static void describeNotations(Notation.Connectable note, Set<Notation> notations,
+			List<String> descriptions) {
+		for (Notation notation : notations) {
+			final Notation.Connection connection = note.getConnection(notation).orElseThrow();
+			descriptions.add(notation.getType() + " " + notation.getStyle() + " " + connection.isBeginning() + " "
+					+ connection.isEnd() + " " + connection.getFollowingNote().map(Note::getDisplayPitch) + " "
+					+ connection.getFollowingGraceNote().map(GraceNote::getDisplayPitch));
+		}
+	}
+
+	private static void assertSameNotations(Score expected, Score actual, String testFile) {
+		final PositionIterator expectedIterator = expected.partwiseIterator();
+		final PositionIterator actualIterator = actual.partwiseIterator();
+
+		while (expectedIterator.hasNext()) {
+			assertTrue(actualIterator.hasNext(), testFile);
+			final Durational expectedDurational = expectedIterator.next();
+			final Durational actualDurational = actualIterator.next();
+			assertEquals(expectedDurational, actualDurational, testFile);
+
+			if (expectedDurational instanceof Note expectedNote) {
+				assertEquals(describeNotations(expectedNote), describeNotations((Note) actualDurational), testFile);
+			} else if (expectedDurational.isChord()) {
+				for (int i = 0; i < expectedDurational.toChord().getNoteCount(); ++i) {
+					assertEquals(describeNotations(expectedDurational.toChord().getNote(i)),
+							describeNotations(actualDurational.toChord().getNote(i)), testFile);
+				}
+			}
+		}
+
+		assertFalse(actualIterator.hasNext(), testFile);
+	}
+
+	@Test
+	void testNotationsConnectingNotesAreReadWithSameContents() throws IOException {
+		for (String testFile : CONNECTED_NOTATION_TEST_FILES) {
+			final Score score = readMusicXmlTestFile(testFile);
+			assertSameNotations(score, roundTrip(score), testFile);
+		}
+	}
+
+	@Test
+	void testNotationsAreReadWithSameContentsFromScoreWithInternedNotes() throws IOException {
+		for (String testFile : CONNECTED_NOTATION_TEST_FILES) {
+			final Path path = Paths.get(TestHelper.TESTFILE_PATH + MUSICXML_FILE_PATH + testFile);
+			try (MusicXmlReader reader = MusicXmlReader.readerFor(path,
+					ReadOptions.defaults().withNoteInterning(true))) {
+				final Score score = reader.readScore();
+				assertSameNotations(score, roundTrip(score), testFile);
+			} catch (ParsingFailureException e) {
+				fail("Parsing failed with exception " + e);
+			}
+		}
+	}
+
+	@Test
+	void testBinaryScoreIsSmallerThanUncompressedMusicXml() throws IOException {
+		final Score score = readMusicXmlTestFile("multi_part_pattern_position_test.musicxml");
+		assertTrue(BinaryScoreWriter.toBytes(score).length * 10 < MusicXmlWriter.toBytes(score, false, true).length);
+	}
+
+	@Test
+	void testWritingToFileAndOutputStreamWritesSameBytes() throws IOException, ParsingFailureException {
+		final Score score = readMusicXmlTestFile("multistaff.musicxml");
+		final Path file = temporaryDirectory.resolve("score.wmn4j");
+		try (BinaryScoreWriter writer = BinaryScoreWriter.writerFor(score, file)) {
+			writer.write();
+		}
+
+		final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		try (BinaryScoreWriter writer = BinaryScoreWriter.writerFor(score, outputStream)) {
+			writer.write();
+		}
+
+		assertArrayEquals(outputStream.toByteArray(), Files.readAllBytes(file));
+
+		try (BinaryScoreReader reader = BinaryScoreReader.readerFor(file)) {
+			assertArrayEquals(MusicXmlWriter.toBytes(score, false, false),
+					MusicXmlWriter.toBytes(reader.readScore(), false, false));
+		}
+	}
+}
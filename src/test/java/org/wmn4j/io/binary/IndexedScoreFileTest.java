@@ -0,0 +1,169 @@
+/*
+ * Distributed under the MIT license (see LICENSE.txt or https://opensource.org/licenses/MIT).
+ */
+package org.wmn4j.io.binary;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.wmn4j.TestHelper;
+import org.wmn4j.io.ParsingFailureException;
+import org.wmn4j.io.musicxml.MusicXmlReader;
+import org.wmn4j.io.musicxml.MusicXmlWriter;
+import org.wmn4j.io.musicxml.ReadOptions;
+import org.wmn4j.notation.Durational;
+import org.wmn4j.notation.Measure;
+import org.wmn4j.notation.Note;
+import org.wmn4j.notation.Part;
+import org.wmn4j.notation.Score;
+import org.wmn4j.notation.access.PositionIterator;
+import org.wmn4j.notation.access.Selection;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IndexedScoreFileTest {
+
+	@TempDir
+	Path temporaryDirectory;
+
+	// Test files whose MusicXML output does not depend on the order in which notations are stored in notes.
+	private static final List<String> TEST_FILES = List.of("articulations.musicxml",
+			"attribute_reading_test.musicxml", "barlines.musicxml", "chord_symbol_test.musicxml",
+			"clef_change_where_note_in_another_voice_carries_over.musicxml", "clefs.musicxml",
+			"directions_test.musicxml", "grace_note_chord_test.musicxml", "keysigs.musicxml", "lyrics_test.musicxml",
+			"multi_part_pattern_position_test.musicxml", "multistaff.musicxml", "ornament_test.musicxml",
+			"pickup_measure_test.musicxml", "techniques_test.musicxml", "tuplet_test.musicxml");
+
+	private Score writeAndOpen(Score score, int cachedSegmentCount) throws IOException, ParsingFailureException {
+		final Path path = temporaryDirectory.resolve("score.wmn4ji");
+		IndexedScoreFile.write(score, path);
+		return IndexedScoreFile.open(path, cachedSegmentCount);
+	}
+
+	@Test
+	void testOpenedScoresHaveSameContents() throws IOException, ParsingFailureException {
+		for (String testFile : TEST_FILES) {
+			final Score score = TestHelper.readScore("musicxml/" + testFile);
+			final Score indexed = writeAndOpen(score, IndexedScoreFile.DEFAULT_CACHED_SEGMENT_COUNT);
+
+			assertEquals(score.getPartCount(), indexed.getPartCount(), testFile);
+			assertEquals(score.getMeasureCount(), indexed.getMeasureCount(), testFile);
+			assertEquals(score.hasPickupMeasure(), indexed.hasPickupMeasure(), testFile);
+			assertArrayEquals(MusicXmlWriter.toBytes(score, false, false),
+					MusicXmlWriter.toBytes(indexed, false, false), testFile);
+		}
+	}
+
+	@Test
+	void testIteratorsAndSelectionsWorkOnOpenedScore() throws IOException, ParsingFailureException {
+		final Score score = TestHelper.readScore("musicxml/multi_part_pattern_position_test.musicxml");
+		final Score indexed = writeAndOpen(score, 2);
+
+		assertIteratesSame(score.partwiseIterator(), indexed.partwiseIterator());
+
+		final Selection selection = score.selectRange(2, 3).subSelection(List.of(1));
+		final Selection indexedSelection = indexed.selectRange(2, 3).subSelection(List.of(1));
+		assertIteratesSame(selection.partwiseIterator(), indexedSelection.partwiseIterator());
+	}
+
+	private static void assertIteratesSame(PositionIterator expected, PositionIterator actual) {
+		while (expected.hasNext()) {
+			assertTrue(actual.hasNext());
+			final Durational expectedDurational = expected.next();
+			assertEquals(expectedDurational, actual.next());
+			assertEquals(expected.getPositionOfPrevious(), actual.getPositionOfPrevious());
+		}
+
+		assertFalse(actual.hasNext());
+	}
+
+	@Test
+	void testMeasuresAreReadWhenAccessed() throws IOException, ParsingFailureException {
+		final Score score = TestHelper.readScore("musicxml/multistaff.musicxml");
+
+		final Part cachingPart = writeAndOpen(score, IndexedScoreFile.DEFAULT_CACHED_SEGMENT_COUNT).getPart(1);
+		assertSame(cachingPart.getMeasure(1, 1), cachingPart.getMeasure(1, 1));
+
+		final Part nonCachingPart = writeAndOpen(score, 0).getPart(1);
+		final Measure measure = nonCachingPart.getMeasure(2, 1);
+		assertNotSame(measure, nonCachingPart.getMeasure(2, 1));
+		assertEquals(score.getPart(1).getMeasure(2, 1).toString(), measure.toString());
+
+		assertThrows(NoSuchElementException.class, () -> nonCachingPart.getMeasure(3, 1));
+		assertThrows(NoSuchElementException.class, () -> nonCachingPart.getMeasure(1, 0));
+		assertThrows(NoSuchElementException.class,
+				() -> nonCachingPart.getMeasure(1, score.getFullMeasureCount() + 1));
+	}
+
+	@Test
+	void testTiesOverBarlinesConnectNotesInReadMeasures() throws IOException, ParsingFailureException {
+		assertTiesOverBarlinesConnectNotes(TestHelper.readScore("musicxml/tieTesting.musicxml"));
+	}
+
+	@Test
+	void testTiesOverBarlinesConnectNotesInReadMeasuresOfScoreWithInternedNotes()
+			throws IOException, ParsingFailureException {
+		final Path path = Paths.get(TestHelper.TESTFILE_PATH + "musicxml/tieTesting.musicxml");
+		try (MusicXmlReader reader = MusicXmlReader.readerFor(path, ReadOptions.defaults().withNoteInterning(true))) {
+			assertTiesOverBarlinesConnectNotes(reader.readScore());
+		}
+	}
+
+	private void assertTiesOverBarlinesConnectNotes(Score score) throws IOException, ParsingFailureException {
+		final Part part = writeAndOpen(score, IndexedScoreFile.DEFAULT_CACHED_SEGMENT_COUNT).getPart(0);
+
+		int tiesOverBarlines = 0;
+		for (int measureNumber = 1; measureNumber < part.getFullMeasureCount(); ++measureNumber) {
+			final Measure measure = part.getMeasure(Part.DEFAULT_STAFF_NUMBER, measureNumber);
+			final Measure nextMeasure = part.getMeasure(Part.DEFAULT_STAFF_NUMBER, measureNumber + 1);
+
+			for (Durational durational : measure) {
+				if (durational instanceof Note note && note.isTiedToFollowing()) {
+					final Note following = note.getFollowingTiedNote().orElseThrow();
+					assertTrue(contains(measure, following) || contains(nextMeasure, following));
+					tiesOverBarlines += contains(nextMeasure, following) ? 1 : 0;
+				}
+			}
+		}
+
+		assertTrue(tiesOverBarlines > 0);
+	}
+
+	private static boolean contains(Measure measure, Note note) {
+		for (Durational durational : measure) {
+			if (durational == note) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	@Test
+	void testOpeningInvalidFileThrows() throws IOException {
+		final Score score = TestHelper.readScore("musicxml/singleC.musicxml");
+		final Path binaryScore = temporaryDirectory.resolve("score.wmn4jb");
+		Files.write(binaryScore, BinaryScoreWriter.toBytes(score));
+		assertThrows(ParsingFailureException.class, () -> IndexedScoreFile.open(binaryScore));
+
+		final Path path = temporaryDirectory.resolve("score.wmn4ji");
+		IndexedScoreFile.write(score, path);
+		final byte[] contents = Files.readAllBytes(path);
+		contents[contents.length - 1] = 0x7F;
+		final Path damaged = temporaryDirectory.resolve("damaged.wmn4ji");
+		Files.write(damaged, contents);
+		assertThrows(ParsingFailureException.class, () -> IndexedScoreFile.open(damaged));
+	}
+}
@@ -0,0 +1,172 @@
+/*
+ * Distributed under the MIT license (see LICENSE.txt or https://opensource.org/licenses/MIT).
+ */
+package org.wmn4j.io.binary;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.wmn4j.TestHelper;
+import org.wmn4j.io.ParsingFailureException;
+import org.wmn4j.notation.Duration;
+import org.wmn4j.notation.Durational;
+import org.wmn4j.notation.Measure;
+import org.wmn4j.notation.Note;
+import org.wmn4j.notation.Score;
+import org.wmn4j.notation.access.Position;
+import org.wmn4j.notation.access.Positional;
+import org.wmn4j.notation.access.Selection;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NoteTableTest {
+
+	@TempDir
+	Path temporaryDirectory;
+
+	private static final List<String> TEST_FILES = List.of("musicxml/multi_staff_multi_voice_notation_test.mxl",
+			"musicxml/tieTesting.musicxml", "musicxml/tuplet_test.musicxml", "musicxml/unpitched_notes_test.musicxml",
+			"musicxml/multi_part_pattern_position_test.musicxml");
+
+	private record ExpectedRow(Position position, Duration onset, Note note) {
+	}
+
+	private static List<ExpectedRow> getExpectedRows(Selection selection) {
+		final List<ExpectedRow> rows = new ArrayList<>();
+		for (Positional positional : selection.enumeratePartwise()) {
+			final Position position = positional.position();
+			final Measure measure = selection.getPart(position.getPartIndex()).getStaff(position.getStaffNumber())
+					.getMeasure(position.getMeasureNumber());
+
+			final List<Duration> preceding = new ArrayList<>();
+			for (int i = 0; i < position.getIndexInVoice(); ++i) {
+				preceding.add(measure.get(position.getVoiceNumber(), i).getDuration());
+			}
+
+			final Duration onset = preceding.isEmpty() ? null : Duration.sum(preceding);
+			final Durational durational = positional.durational();
+			if (durational.isChord()) {
+				for (Note note : durational.toChord()) {
+					rows.add(new ExpectedRow(position, onset, note));
+				}
+			} else if (durational instanceof Note note) {
+				rows.add(new ExpectedRow(position, onset, note));
+			}
+		}
+
+		return rows;
+	}
+
+	private static void assertTableContents(Selection selection, NoteTable table, String testFile) {
+		final List<ExpectedRow> expectedRows = getExpectedRows(selection);
+		assertEquals(expectedRows.size(), table.getRowCount(), testFile);
+
+		for (int row = 0; row < table.getRowCount(); ++row) {
+			final ExpectedRow expected = expectedRows.get(row);
+			final Position position = expected.position();
+			assertEquals(position.getPartIndex(), table.getPartIndex(row), testFile);
+			assertEquals(position.getStaffNumber(), table.getStaffNumber(row), testFile);
+			assertEquals(position.getMeasureNumber(), table.getMeasureNumber(row), testFile);
+			assertEquals(position.getVoiceNumber(), table.getVoiceNumber(row), testFile);
+
+			if (expected.onset() == null) {
+				assertEquals(0, table.getOnsetNumerator(row), testFile);
+				assertEquals(1, table.getOnsetDenominator(row), testFile);
+			} else {
+				assertEquals(expected.onset().getNumerator(), table.getOnsetNumerator(row), testFile);
+				assertEquals(expected.onset().getDenominator(), table.getOnsetDenominator(row), testFile);
+			}
+
+			final Note note = expected.note();
+			assertEquals(note.getDuration().getNumerator(), table.getDurationNumerator(row), testFile);
+			assertEquals(note.getDuration().getDenominator(), table.getDurationDenominator(row), testFile);
+			assertEquals(note.getPitch(), table.getPitch(row), testFile);
+			assertEquals(note.getPitch().isPresent(), table.isPitched(row), testFile);
+			if (note.getPitch().isPresent()) {
+				assertEquals(note.getPitch().get().toInt(), table.getPitchNumber(row), testFile);
+			}
+
+			assertEquals(note.isTiedToFollowing(), table.isTiedToFollowing(row), testFile);
+			assertEquals(note.isTiedFromPrevious(), table.isTiedFromPrevious(row), testFile);
+		}
+	}
+
+	@Test
+	void testTableContainsNotesOfScore() throws IOException, ParsingFailureException {
+		for (String testFile : TEST_FILES) {
+			final Score score = TestHelper.readScore(testFile);
+			final Path path = temporaryDirectory.resolve("notes.wmn4jt");
+			NoteTable.write(score, path);
+			assertTableContents(score.toSelection(), NoteTable.open(path), testFile);
+		}
+	}
+
+	@Test
+	void testTableContainsNotesOfSelection() throws IOException, ParsingFailureException {
+		final Score score = TestHelper.readScore("musicxml/multi_part_pattern_position_test.musicxml");
+		final Selection selection = score.selectRange(2, 3).subSelection(List.of(1));
+		final Path path = temporaryDirectory.resolve("notes.wmn4jt");
+		NoteTable.write(selection, path);
+
+		final NoteTable table = NoteTable.open(path);
+		assertTrue(table.getRowCount() > 0);
+		assertTableContents(selection, table, "selection");
+		for (int row = 0; row < table.getRowCount(); ++row) {
+			assertEquals(1, table.getPartIndex(row));
+			assertTrue(table.getMeasureNumber(row) >= 2 && table.getMeasureNumber(row) <= 3);
+		}
+	}
+
+	@Test
+	void testTiedNotesAreMarked() throws IOException, ParsingFailureException {
+		final Path path = temporaryDirectory.resolve("notes.wmn4jt");
+		NoteTable.write(TestHelper.readScore("musicxml/tieTesting.musicxml"), path);
+		final NoteTable table = NoteTable.open(path);
+
+		int tiedToFollowing = 0;
+		int tiedFromPrevious = 0;
+		for (int row = 0; row < table.getRowCount(); ++row) {
+			tiedToFollowing += table.isTiedToFollowing(row) ? 1 : 0;
+			tiedFromPrevious += table.isTiedFromPrevious(row) ? 1 : 0;
+		}
+
+		assertTrue(tiedToFollowing > 0);
+		assertEquals(tiedToFollowing, tiedFromPrevious);
+	}
+
+	@Test
+	void testAccessingRowOutsideTableThrows() throws IOException, ParsingFailureException {
+		final Path path = temporaryDirectory.resolve("notes.wmn4jt");
+		NoteTable.write(TestHelper.readScore("musicxml/singleC.musicxml"), path);
+		final NoteTable table = NoteTable.open(path);
+
+		assertEquals(1, table.getRowCount());
+		assertEquals(Optional.of(60), table.getPitch(0).map(pitch -> pitch.toInt()));
+		assertThrows(IndexOutOfBoundsException.class, () -> table.getPitchNumber(1));
+		assertThrows(IndexOutOfBoundsException.class, () -> table.getPartIndex(-1));
+	}
+
+	@Test
+	void testOpeningInvalidFileThrows() throws IOException {
+		final Path path = temporaryDirectory.resolve("notes.wmn4jt");
+		NoteTable.write(TestHelper.readScore("musicxml/singleC.musicxml"), path);
+		final byte[] contents = Files.readAllBytes(path);
+
+		final Path truncated = temporaryDirectory.resolve("truncated.wmn4jt");
+		Files.write(truncated, Arrays.copyOf(contents, contents.length - 1));
+		assertThrows(ParsingFailureException.class, () -> NoteTable.open(truncated));
+
+		final Path binaryScore = temporaryDirectory.resolve("score.wmn4jb");
+		Files.write(binaryScore, BinaryScoreWriter.toBytes(TestHelper.readScore("musicxml/singleC.musicxml")));
+		assertThrows(ParsingFailureException.class, () -> NoteTable.open(binaryScore));
+	}
+}
@@ -0,0 +1,316 @@
+/*
+ * Distributed under the MIT license (see LICENSE.txt or https://opensource.org/licenses/MIT).
+ */
+package org.wmn4j.io.midi;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.wmn4j.io.ParsingFailureException;
+import org.wmn4j.notation.Chord;
+import org.wmn4j.notation.Clefs;
+import org.wmn4j.notation.Duration;
+import org.wmn4j.notation.Durational;
+import org.wmn4j.notation.Durations;
+import org.wmn4j.notation.KeySignatures;
+import org.wmn4j.notation.Measure;
+import org.wmn4j.notation.Note;
+import org.wmn4j.notation.Pitch;
+import org.wmn4j.notation.Score;
+import org.wmn4j.notation.TimeSignatures;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MidiReaderTest {
+
+	@TempDir
+	Path temporaryDirectory;
+
+	private static final int TICKS_PER_QUARTER = 480;
+
+	/*
+	 * Writes the events of a MIDI track. The delta times are computed from the absolute ticks of the events,
+	 * so the events must be written in the order of their ticks.
+	 */
+	private static final class TrackWriter {
+		private final ByteArrayOutputStream events = new ByteArrayOutputStream();
+		private long tick;
+
+		private TrackWriter event(long eventTick, int... bytes) {
+			writeVariableLength(events, eventTick - tick);
+			tick = eventTick;
+			for (int b : bytes) {
+				events.write(b);
+			}
+
+			return this;
+		}
+
+		private TrackWriter meta(long eventTick, int type, byte[] data) {
+			event(eventTick, 0xFF, type);
+			writeVariableLength(events, data.length);
+			events.writeBytes(data);
+			return this;
+		}
+
+		private TrackWriter name(String name) {
+			return meta(0, 0x03, name.getBytes(StandardCharsets.US_ASCII));
+		}
+
+		private TrackWriter note(int channel, int key, long onset, long end) {
+			// Note offs are written as note ons with zero velocity, which is the common form in files.
+			return event(onset, 0x90 | channel, key, 64).event(end, 0x90 | channel, key, 0);
+		}
+
+		private byte[] toChunk() {
+			final ByteArrayOutputStream chunk = new ByteArrayOutputStream();
+			final ByteArrayOutputStream contents = new ByteArrayOutputStream();
+			contents.writeBytes(events.toByteArray());
+			contents.writeBytes(new byte[] { 0, (byte) 0xFF, 0x2F, 0 });
+			chunk.writeBytes("MTrk".getBytes(StandardCharsets.US_ASCII));
+			writeInt(chunk, contents.size());
+			chunk.writeBytes(contents.toByteArray());
+			return chunk.toByteArray();
+		}
+	}
+
+	private static void writeVariableLength(ByteArrayOutputStream output, long value) {
+		int shift = 21;
+		while (shift > 0 && (value >> shift) == 0) {
+			shift -= 7;
+		}
+
+		for (; shift > 0; shift -= 7) {
+			output.write((int) ((value >> shift) & 0x7F) | 0x80);
+		}
+
+		output.write((int) (value & 0x7F));
+	}
+
+	private static void writeInt(ByteArrayOutputStream output, int value) {
+		output.write(value >>> 24);
+		output.write((value >>> 16) & 0xFF);
+		output.write((value >>> 8) & 0xFF);
+		output.write(value & 0xFF);
+	}
+
+	private static byte[] toFile(int format, int division, TrackWriter... tracks) {
+		final ByteArrayOutputStream file = new ByteArrayOutputStream();
+		file.writeBytes("MThd".getBytes(StandardCharsets.US_ASCII));
+		writeInt(file, 6);
+		file.writeBytes(new byte[] { 0, (byte) format, 0, (byte) tracks.length, (byte) (division >> 8),
+				(byte) division });
+		for (TrackWriter track : tracks) {
+			file.writeBytes(track.toChunk());
+		}
+
+		return file.toByteArray();
+	}
+
+	private static Score read(byte[] contents) throws IOException, ParsingFailureException {
+		try (MidiReader reader = MidiReader.readerFor(new ByteArrayInputStream(contents))) {
+			return reader.readScore();
+		}
+	}
+
+	private static long quarters(double count) {
+		return Math.round(count * TICKS_PER_QUARTER);
+	}
+
+	private static Pitch pitch(Pitch.Base base, Pitch.Accidental accidental, int octave) {
+		return Pitch.of(base, accidental, octave);
+	}
+
+	@Test
+	void testReadingSimpleMelody() throws IOException, ParsingFailureException {
+		final TrackWriter conductor = new TrackWriter().name("Melody");
+		final TrackWriter track = new TrackWriter().name("Flute")
+				.note(0, 60, 0, quarters(1))
+				.note(0, 64, quarters(1), quarters(2))
+				.note(0, 67, quarters(2), quarters(4));
+		final Path path = temporaryDirectory.resolve("melody.mid");
+		Files.write(path, toFile(1, TICKS_PER_QUARTER, conductor, track));
+
+		final Score score;
+		try (MidiReader reader = MidiReader.readerFor(path)) {
+			score = reader.readScore();
+		}
+
+		assertEquals("Melody", score.getTitle().orElseThrow());
+		assertEquals(1, score.getPartCount());
+		assertEquals("Flute", score.getPart(0).getName().orElseThrow());
+		assertEquals(1, score.getFullMeasureCount());
+
+		final Measure measure = score.getPart(0).getMeasure(1, 1);
+		assertEquals(TimeSignatures.FOUR_FOUR, measure.getTimeSignature());
+		assertEquals(Clefs.G, measure.getClef());
+		assertEquals(List.of(1), measure.getVoiceNumbers());
+		assertEquals(3, measure.getVoiceSize(1));
+		assertEquals(Note.of(Pitch.Base.C, Pitch.Accidental.NATURAL, 4, Durations.QUARTER), measure.get(1, 0));
+		assertEquals(Note.of(Pitch.Base.E, Pitch.Accidental.NATURAL, 4, Durations.QUARTER), measure.get(1, 1));
+		assertEquals(Note.of(Pitch.Base.G, Pitch.Accidental.NATURAL, 4, Durations.HALF), measure.get(1, 2));
+	}
+
+	@Test
+	void testNotesAreQuantizedToGrid() throws IOException, ParsingFailureException {
+		final TrackWriter track = new TrackWriter()
+				.note(0, 60, 10, quarters(0.75) - 20)
+				.note(0, 62, quarters(0.75) + 5, quarters(1))
+				.note(0, 64, quarters(1) + 1, quarters(1) + 20);
+
+		final Measure measure = read(toFile(0, TICKS_PER_QUARTER, track)).getPart(0).getMeasure(1, 1);
+		assertEquals(Durations.EIGHTH.addDot(), measure.get(1, 0).getDuration());
+		assertEquals(Durations.SIXTEENTH, measure.get(1, 1).getDuration());
+
+		// Notes shorter than the grid last one grid duration.
+		assertEquals(Durations.SIXTEENTH, measure.get(1, 2).getDuration());
+		assertTrue(measure.get(1, 3).isRest());
+
+		final Measure coarseMeasure;
+		try (MidiReader reader = MidiReader.readerFor(new ByteArrayInputStream(toFile(0, TICKS_PER_QUARTER, track)),
+				Durations.QUARTER)) {
+			coarseMeasure = reader.readScore().getPart(0).getMeasure(1, 1);
+		}
+
+		assertEquals(Durations.QUARTER, coarseMeasure.get(1, 0).getDuration());
+		assertEquals(Durations.QUARTER, coarseMeasure.get(1, 1).getDuration());
+	}
+
+	@Test
+	void testNotesAreTiedOverBarlinesAndSplitIntoExpressibleDurations() throws IOException, ParsingFailureException {
+		final TrackWriter track = new TrackWriter()
+				.note(0, 60, quarters(3), quarters(5))
+				.note(0, 62, quarters(5), quarters(7.25));
+
+		final Score score = read(toFile(0, TICKS_PER_QUARTER, track));
+		assertEquals(2, score.getFullMeasureCount());
+		final Measure first = score.getPart(0).getMeasure(1, 1);
+		final Measure second = score.getPart(0).getMeasure(1, 2);
+
+		assertTrue(first.get(1, 0).isRest());
+		assertEquals(Durations.HALF.addDot(), first.get(1, 0).getDuration());
+
+		final Note tied = (Note) first.get(1, 1);
+		assertTrue(tied.isTiedToFollowing());
+		assertSame(second.get(1, 0), tied.getFollowingTiedNote().orElseThrow());
+		assertEquals(Durations.HALF, tied.getTiedDuration());
+
+		// The duration of 9/16 is written as a half note tied to a sixteenth.
+		final Note longNote = (Note) second.get(1, 1);
+		assertEquals(Durations.HALF, longNote.getDuration());
+		assertTrue(longNote.isTiedToFollowing());
+		assertSame(second.get(1, 2), longNote.getFollowingTiedNote().orElseThrow());
+		assertEquals(Duration.of(9, 16), longNote.getTiedDuration());
+		assertFalse(((Note) second.get(1, 2)).isTiedToFollowing());
+	}
+
+	@Test
+	void testSimultaneousNotesFormChordsAndOverlappingNotesFormVoices() throws IOException, ParsingFailureException {
+		final TrackWriter track = new TrackWriter()
+				.event(0, 0x90, 60, 64).event(0, 0x90, 64, 64)
+				.event(quarters(1), 0x90, 48, 64)
+				.event(quarters(2), 0x80, 60, 0).event(quarters(2), 0x80, 64, 0)
+				.event(quarters(4), 0x80, 48, 0);
+
+		final Measure measure = read(toFile(0, TICKS_PER_QUARTER, track)).getPart(0).getMeasure(1, 1);
+		assertEquals(List.of(1, 2), measure.getVoiceNumbers());
+
+		final Durational chord = measure.get(1, 0);
+		assertTrue(chord.isChord());
+		assertEquals(Chord.of(Note.of(Pitch.Base.C, Pitch.Accidental.NATURAL, 4, Durations.HALF),
+				Note.of(Pitch.Base.E, Pitch.Accidental.NATURAL, 4, Durations.HALF)), chord);
+		assertTrue(measure.get(1, 1).isRest());
+
+		assertTrue(measure.get(2, 0).isRest());
+		assertEquals(Durations.QUARTER, measure.get(2, 0).getDuration());
+		assertEquals(Note.of(Pitch.Base.C, Pitch.Accidental.NATURAL, 3, Durations.HALF.addDot()),
+				measure.get(2, 1));
+	}
+
+	@Test
+	void testTimeAndKeySignaturesAreRead() throws IOException, ParsingFailureException {
+		final TrackWriter track = new TrackWriter()
+				.meta(0, 0x58, new byte[] { 3, 2, 24, 8 })
+				.meta(0, 0x59, new byte[] { -2, 0 })
+				.note(0, 46, 0, quarters(3))
+				.meta(quarters(3), 0x59, new byte[] { 1, 0 })
+				.note(0, 42, quarters(3), quarters(6));
+
+		final Score score = read(toFile(0, TICKS_PER_QUARTER, track));
+		assertEquals(2, score.getFullMeasureCount());
+		final Measure first = score.getPart(0).getMeasure(1, 1);
+		final Measure second = score.getPart(0).getMeasure(1, 2);
+
+		assertEquals(TimeSignatures.THREE_FOUR, first.getTimeSignature());
+		assertEquals(KeySignatures.BFLATMAJ_GMIN, first.getKeySignature());
+		assertEquals(KeySignatures.GMAJ_EMIN, second.getKeySignature());
+		assertEquals(Clefs.F, first.getClef());
+		assertEquals(pitch(Pitch.Base.B, Pitch.Accidental.FLAT, 2), ((Note) first.get(1, 0)).getPitch().orElseThrow());
+		assertEquals(Durations.HALF.addDot(), first.get(1, 0).getDuration());
+		assertEquals(pitch(Pitch.Base.F, Pitch.Accidental.SHARP, 2),
+				((Note) second.get(1, 0)).getPitch().orElseThrow());
+	}
+
+	@Test
+	void testChannelsOfTrackAreReadIntoSeparatePartsAndEmptyMeasuresGetRests()
+			throws IOException, ParsingFailureException {
+		final TrackWriter track = new TrackWriter().name("Piano")
+				.note(0, 72, 0, quarters(4))
+				.note(1, 36, quarters(8), quarters(12));
+
+		final Score score = read(toFile(0, TICKS_PER_QUARTER, track));
+		assertEquals(2, score.getPartCount());
+		assertEquals(3, score.getFullMeasureCount());
+		assertEquals("Piano", score.getPart(0).getName().orElseThrow());
+
+		final Measure emptyMeasure = score.getPart(0).getMeasure(1, 2);
+		assertEquals(1, emptyMeasure.getVoiceSize(1));
+		assertTrue(emptyMeasure.get(1, 0).isRest());
+		assertEquals(Durations.WHOLE, emptyMeasure.get(1, 0).getDuration());
+
+		assertTrue(score.getPart(1).getMeasure(1, 1).get(1, 0).isRest());
+		assertEquals(Note.of(Pitch.Base.C, Pitch.Accidental.NATURAL, 2, Durations.WHOLE),
+				score.getPart(1).getMeasure(1, 3).get(1, 0));
+	}
+
+	@Test
+	void testReadingInvalidFilesThrows() {
+		assertThrows(ParsingFailureException.class, () -> read("<?xml version=\"1.0\"?>".getBytes()));
+
+		final byte[] smpte = toFile(0, 0xE728, new TrackWriter().note(0, 60, 0, 40));
+		assertThrows(ParsingFailureException.class, () -> read(smpte));
+
+		final byte[] contents = toFile(0, TICKS_PER_QUARTER, new TrackWriter().note(0, 60, 0, quarters(1)));
+		assertThrows(ParsingFailureException.class, () -> read(Arrays.copyOf(contents, contents.length - 2)));
+
+		final byte[] eighthMeasures = toFile(0, TICKS_PER_QUARTER, new TrackWriter()
+				.meta(0, 0x58, new byte[] { 3, 3, 24, 8 }).note(0, 60, 0, quarters(1)));
+		assertThrows(ParsingFailureException.class, () -> {
+			try (MidiReader reader = MidiReader.readerFor(new ByteArrayInputStream(eighthMeasures),
+					Durations.QUARTER)) {
+				reader.readScore();
+			}
+		});
+	}
+
+	@Test
+	void testDataBytesWithHighBitSetThrow() {
+		final byte[] invalidKey = toFile(0, TICKS_PER_QUARTER, new TrackWriter().event(0, 0x9F, 0xC8, 64));
+		assertThrows(ParsingFailureException.class, () -> read(invalidKey));
+
+		final byte[] invalidVelocity = toFile(0, TICKS_PER_QUARTER, new TrackWriter().event(0, 0x90, 60, 0x80));
+		assertThrows(ParsingFailureException.class, () -> read(invalidVelocity));
+	}
+}
@@ -0,0 +1,189 @@
+/*
+ * Distributed under the MIT license (see LICENSE.txt or https://opensource.org/licenses/MIT).
+ */
+package org.wmn4j.io.musicxml;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.wmn4j.TestHelper;
+import org.wmn4j.io.ParsingFailureException;
+import org.wmn4j.notation.Durations;
+import org.wmn4j.notation.Measure;
+import org.wmn4j.notation.MeasureBuilder;
+import org.wmn4j.notation.NoteBuilder;
+import org.wmn4j.notation.Part;
+import org.wmn4j.notation.Pitch;
+import org.wmn4j.notation.Score;
+import org.wmn4j.notation.Staff;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.fail;
+
+class IncrementalStaxWriterTest {
+
+	@TempDir
+	Path temporaryDirectory;
+
+	private static final String MUSICXML_FILE_PATH = "musicxml/";
+
+	private Score readMusicXmlTestFile(String testFileName) {
+		final Path path = Paths.get(TestHelper.TESTFILE_PATH + MUSICXML_FILE_PATH + testFileName);
+		Score score = null;
+
+		try (final MusicXmlReader reader = MusicXmlReader.nonValidatingReaderFor(path)) {
+			score = reader.readScore();
+		} catch (final IOException | ParsingFailureException e) {
+			fail("Parsing failed with exception " + e);
+		}
+
+		assertNotNull(score);
+		return score;
+	}
+
+	private Score readScore(Path path) {
+		try (final MusicXmlReader reader = MusicXmlReader.readerFor(path)) {
+			return reader.readScore();
+		} catch (final IOException | ParsingFailureException e) {
+			fail("Reading score written incrementally failed with exception " + e);
+			return null;
+		}
+	}
+
+	private static Map<Score.Attribute, String> getAttributes(Score score) {
+		final Map<Score.Attribute, String> attributes = new EnumMap<>(Score.Attribute.class);
+		for (Score.Attribute attribute : Score.Attribute.values()) {
+			score.getAttribute(attribute).ifPresent(value -> attributes.put(attribute, value));
+		}
+
+		return attributes;
+	}
+
+	private static List<PartDeclaration> getPartDeclarations(Score score) {
+		final List<PartDeclaration> declarations = new ArrayList<>();
+		for (Part part : score) {
+			final List<Staff.Type> staffTypes = new ArrayList<>();
+			for (Integer staffNumber : part.getStaffNumbers()) {
+				staffTypes.add(part.getStaff(staffNumber).getType());
+			}
+
+			declarations.add(PartDeclaration.of(part.getName().orElse(""),
+					part.getAttribute(Part.Attribute.ABBREVIATED_NAME).orElse(null), staffTypes));
+		}
+
+		return declarations;
+	}
+
+	/*
+	 * Writes the measures in the order in which they would be produced while going through the score in time,
+	 * so that the measures of the parts are interleaved.
+	 */
+	private static void writeMeasures(Score score, IncrementalMusicXmlWriter writer) throws IOException {
+		final int first = score.hasPickupMeasure() ? 0 : 1;
+		for (int m = first; m <= score.getFullMeasureCount(); ++m) {
+			for (int i = 0; i < score.getPartCount(); ++i) {
+				final Part part = score.getPart(i);
+				final List<Integer> staffNumbers = part.getStaffNumbers();
+				for (int s = 0; s < staffNumbers.size(); ++s) {
+					writer.writeMeasure(i, s + 1, part.getMeasure(staffNumbers.get(s), m));
+				}
+			}
+		}
+	}
+
+	@Test
+	void testWritingMeasuresWithDeclaredDivisionsWritesSameBytesAsScoreWriter() throws IOException {
+		final List<String> testFiles = List.of("multi_part_pattern_position_test.musicxml",
+				"multi_staff_multi_voice_notation_test.musicxml", "pickup_measure_test.musicxml",
+				"tuplet_writing_test.musicxml", "unpitched_notes_test.musicxml");
+
+		for (String testFile : testFiles) {
+			final Score score = readMusicXmlTestFile(testFile);
+			final int divisions = PartContentWriter.computeDivisions(score.partwiseIterator());
+
+			for (boolean minify : List.of(false, true)) {
+				final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+				try (IncrementalMusicXmlWriter writer = IncrementalMusicXmlWriter.writerFor(outputStream,
+						getAttributes(score), getPartDeclarations(score), divisions, false, minify)) {
+					writeMeasures(score, writer);
+				}
+
+				assertArrayEquals(MusicXmlWriter.toBytes(score, false, minify), outputStream.toByteArray(),
+						testFile);
+			}
+		}
+	}
+
+	@Test
+	void testWritingMeasuresWithAdaptiveDivisions() throws IOException {
+		for (String testFile : List.of("multi_part_pattern_position_test.musicxml", "multistaff.musicxml")) {
+			final Score score = readMusicXmlTestFile(testFile);
+			final Path expectedFile = temporaryDirectory.resolve("expected.musicxml");
+			try (MusicXmlWriter writer = MusicXmlWriter.writerFor(score, expectedFile, false, false)) {
+				writer.write();
+			}
+
+			final byte[] expected = MusicXmlWriter.toBytes(readScore(expectedFile), false, false);
+
+			for (boolean compress : List.of(false, true)) {
+				final Path file = temporaryDirectory.resolve(compress ? "file.mxl" : "file.musicxml");
+				try (IncrementalMusicXmlWriter writer = IncrementalMusicXmlWriter.writerFor(file,
+						getAttributes(score), getPartDeclarations(score), compress, false)) {
+					writeMeasures(score, writer);
+				}
+
+				assertArrayEquals(expected, MusicXmlWriter.toBytes(readScore(file), false, false), testFile);
+			}
+		}
+	}
+
+	@Test
+	void testWhenDurationsRequireMoreDivisionsThenDivisionsAreIncreased() throws IOException {
+		final Pitch pitch = Pitch.of(Pitch.Base.C, Pitch.Accidental.NATURAL, 4);
+		final MeasureBuilder quarters = new MeasureBuilder(1);
+		for (int i = 0; i < 4; ++i) {
+			quarters.addToVoice(1, new NoteBuilder(pitch, Durations.QUARTER));
+		}
+
+		final MeasureBuilder triplets = new MeasureBuilder(2);
+		for (int i = 0; i < 6; ++i) {
+			triplets.addToVoice(1, new NoteBuilder(pitch, Durations.QUARTER_TRIPLET));
+		}
+
+		final Measure first = quarters.build();
+		final Measure second = triplets.build();
+
+		final Path file = temporaryDirectory.resolve("file.musicxml");
+		try (IncrementalMusicXmlWriter writer = IncrementalMusicXmlWriter.writerFor(file, Map.of(),
+				List.of(PartDeclaration.of("Part", 1)), false, false)) {
+			writer.writeMeasure(0, first);
+			writer.writeMeasure(0, second);
+		}
+
+		final Score writtenScore = readScore(file);
+		assertEquals(Durations.QUARTER, writtenScore.getPart(0).getMeasure(1, 1).get(1, 0).getDuration());
+		assertEquals(Durations.QUARTER_TRIPLET, writtenScore.getPart(0).getMeasure(1, 2).get(1, 5).getDuration());
+	}
+
+	@Test
+	void testWhenMeasureOfStaffIsMissingThenClosingThrows() throws IOException {
+		final Measure measure = new MeasureBuilder(1).build();
+		final IncrementalMusicXmlWriter writer = IncrementalMusicXmlWriter.writerFor(new ByteArrayOutputStream(),
+				Map.of(), List.of(PartDeclaration.of("Piano", 2)), false, false);
+
+		writer.writeMeasure(0, 1, measure);
+		assertThrows(IllegalStateException.class, writer::close);
+		assertThrows(IllegalStateException.class, () -> writer.writeMeasure(0, 2, measure));
+	}
+}
@@ -0,0 +1,225 @@
+/*
+ * Distributed under the MIT license (see LICENSE.txt or https://opensource.org/licenses/MIT).
+ */
+package org.wmn4j.io.musicxml;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.wmn4j.TestHelper;
+import org.wmn4j.io.ParsingFailureException;
+import org.wmn4j.notation.Score;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MusicXmlCacheTest {
+
+	@TempDir
+	Path temporaryDirectory;
+
+	private static final String MUSICXML_FILE_PATH = "musicxml/";
+	private static final long LARGE_CACHE_SIZE = 1024 * 1024;
+
+	private static final List<String> TEST_FILES = List.of("multistaff.musicxml", "lyrics_test.musicxml",
+			"clefs.musicxml", "techniques_test.musicxml");
+
+	private static Path getTestFilePath(String testFileName) {
+		return Paths.get(TestHelper.TESTFILE_PATH + MUSICXML_FILE_PATH + testFileName);
+	}
+
+	private static Score readDirectly(Path path, ReadOptions options) throws IOException, ParsingFailureException {
+		try (MusicXmlReader reader = MusicXmlReader.readerFor(path, options)) {
+			return reader.readScore();
+		}
+	}
+
+	private Path getCacheDirectory() {
+		return temporaryDirectory.resolve("cache");
+	}
+
+	private static long countEntries(Path directory) throws IOException {
+		long count = 0;
+		try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*.score")) {
+			for (Path ignored : files) {
+				++count;
+			}
+		}
+
+		return count;
+	}
+
+	@Test
+	void testCachedScoresHaveSameContentsAsParsedScores() throws Exception {
+		for (MusicXmlCache.KeyType keyType : MusicXmlCache.KeyType.values()) {
+			final MusicXmlCache cache = MusicXmlCache.open(getCacheDirectory().resolve(keyType.name()),
+					LARGE_CACHE_SIZE, keyType);
+
+			for (int round = 0; round < 2; ++round) {
+				for (String testFile : TEST_FILES) {
+					final Path path = getTestFilePath(testFile);
+					final Score expected = readDirectly(path, ReadOptions.defaults());
+					assertArrayEquals(MusicXmlWriter.toBytes(expected, false, false),
+							MusicXmlWriter.toBytes(cache.readScore(path), false, false), testFile);
+				}
+			}
+
+			assertEquals(TEST_FILES.size(), cache.getMissCount());
+			assertEquals(TEST_FILES.size(), cache.getHitCount());
+			assertEquals(TEST_FILES.size(), cache.getEntryCount());
+		}
+	}
+
+	@Test
+	void testCachedScoresAreUsedAfterReopeningCache() throws Exception {
+		final Path path = getTestFilePath("multistaff.musicxml");
+		MusicXmlCache.open(getCacheDirectory(), LARGE_CACHE_SIZE).readScore(path);
+
+		final MusicXmlCache cache = MusicXmlCache.open(getCacheDirectory(), LARGE_CACHE_SIZE);
+		assertEquals(1, cache.getEntryCount());
+		cache.readScore(path);
+		assertEquals(1, cache.getHitCount());
+		assertEquals(0, cache.getMissCount());
+	}
+
+	@Test
+	void testCachedScoresAreRemovedWhenVersionChanges() throws Exception {
+		final Path path = getTestFilePath("multistaff.musicxml");
+		MusicXmlCache.open(getCacheDirectory(), LARGE_CACHE_SIZE).readScore(path);
+		Files.writeString(getCacheDirectory().resolve("wmn4j-cache-version"), "0.0.0", StandardCharsets.UTF_8);
+
+		final MusicXmlCache cache = MusicXmlCache.open(getCacheDirectory(), LARGE_CACHE_SIZE);
+		assertEquals(0, cache.getEntryCount());
+		assertEquals(0, countEntries(getCacheDirectory()));
+		cache.readScore(path);
+		assertEquals(0, cache.getHitCount());
+		assertEquals(1, cache.getMissCount());
+	}
+
+	@Test
+	void testReadOptionsArePartOfKey() throws Exception {
+		final Path path = getTestFilePath("multistaff.musicxml");
+		final ReadOptions firstMeasure = ReadOptions.defaults().withMeasureRange(1, 1);
+		final MusicXmlCache cache = MusicXmlCache.open(getCacheDirectory(), LARGE_CACHE_SIZE);
+
+		cache.readScore(path);
+		final Score score = cache.readScore(path, firstMeasure);
+		assertEquals(2, cache.getMissCount());
+		assertEquals(readDirectly(path, firstMeasure).toString(), score.toString());
+
+		cache.readScore(path, firstMeasure.withEngine(ReadOptions.Engine.STAX));
+		assertEquals(1, cache.getHitCount());
+	}
+
+	@Test
+	void testLeastRecentlyUsedScoresAreEvicted() throws Exception {
+		final Path first = getTestFilePath("multistaff.musicxml");
+		final Path second = getTestFilePath("clefs.musicxml");
+		final Path third = getTestFilePath("lyrics_test.musicxml");
+
+		final MusicXmlCache sizing = MusicXmlCache.open(temporaryDirectory.resolve("sizing"), LARGE_CACHE_SIZE);
+		sizing.readScore(first);
+		sizing.readScore(second);
+		final long twoEntrySize = sizing.getSize();
+		sizing.readScore(third);
+
+		final MusicXmlCache cache = MusicXmlCache.open(getCacheDirectory(), sizing.getSize() - 1);
+		cache.readScore(first);
+		cache.readScore(second);
+		assertEquals(twoEntrySize, cache.getSize());
+
+		// Reading the first score again makes the second score the least recently used.
+		cache.readScore(first);
+		cache.readScore(third);
+		assertEquals(2, cache.getEntryCount());
+		assertEquals(2, countEntries(getCacheDirectory()));
+		assertTrue(cache.getSize() <= sizing.getSize() - 1);
+
+		cache.readScore(first);
+		cache.readScore(third);
+		assertEquals(3, cache.getHitCount());
+		cache.readScore(second);
+		assertEquals(4, cache.getMissCount());
+	}
+
+	@Test
+	void testChangedFileIsParsedAgain() throws Exception {
+		final Path path = temporaryDirectory.resolve("score.musicxml");
+		Files.copy(getTestFilePath("multistaff.musicxml"), path);
+
+		final MusicXmlCache cache = MusicXmlCache.open(getCacheDirectory(), LARGE_CACHE_SIZE);
+		cache.readScore(path);
+		Files.copy(getTestFilePath("clefs.musicxml"), path, StandardCopyOption.REPLACE_EXISTING);
+
+		final Score score = cache.readScore(path);
+		assertEquals(2, cache.getMissCount());
+		assertEquals(readDirectly(path, ReadOptions.defaults()).toString(), score.toString());
+	}
+
+	@Test
+	void testDamagedEntryIsParsedAgain() throws Exception {
+		final Path path = getTestFilePath("multistaff.musicxml");
+		final MusicXmlCache cache = MusicXmlCache.open(getCacheDirectory(), LARGE_CACHE_SIZE);
+		cache.readScore(path);
+
+		try (DirectoryStream<Path> files = Files.newDirectoryStream(getCacheDirectory(), "*.score")) {
+			for (Path entry : files) {
+				Files.write(entry, new byte[] { 1, 2, 3 });
+			}
+		}
+
+		assertEquals(readDirectly(path, ReadOptions.defaults()).toString(), cache.readScore(path).toString());
+		assertEquals(2, cache.getMissCount());
+		assertEquals(0, cache.getHitCount());
+		cache.readScore(path);
+		assertEquals(1, cache.getHitCount());
+	}
+
+	@Test
+	void testEntryWithCorruptedByteIsParsedAgain() throws Exception {
+		final Path path = getTestFilePath("multistaff.musicxml");
+		final String expected = readDirectly(path, ReadOptions.defaults()).toString();
+		final MusicXmlCache cache = MusicXmlCache.open(getCacheDirectory(), LARGE_CACHE_SIZE);
+		cache.readScore(path);
+
+		final Path entry;
+		try (DirectoryStream<Path> files = Files.newDirectoryStream(getCacheDirectory(), "*.score")) {
+			entry = files.iterator().next();
+		}
+
+		final byte[] contents = Files.readAllBytes(entry);
+		for (int i = 0; i < contents.length; i += Math.max(1, contents.length / 64)) {
+			final byte[] corrupted = contents.clone();
+			corrupted[i] ^= (byte) 0x5A;
+			Files.write(entry, corrupted);
+
+			final long missCount = cache.getMissCount();
+			assertEquals(expected, cache.readScore(path).toString());
+			assertEquals(missCount + 1, cache.getMissCount());
+		}
+
+		assertEquals(0, cache.getHitCount());
+		cache.readScore(path);
+		assertEquals(1, cache.getHitCount());
+	}
+
+	@Test
+	void testClearRemovesCachedScores() throws Exception {
+		final MusicXmlCache cache = MusicXmlCache.open(getCacheDirectory(), LARGE_CACHE_SIZE);
+		cache.readScore(getTestFilePath("multistaff.musicxml"));
+		cache.clear();
+
+		assertEquals(0, cache.getSize());
+		assertEquals(0, cache.getEntryCount());
+		assertEquals(0, countEntries(getCacheDirectory()));
+	}
+}
@@ -0,0 +1,153 @@
+/*
+ * Distributed under the MIT license (see LICENSE.txt or https://opensource.org/licenses/MIT).
+ */
+package org.wmn4j.io.musicxml;
+
+import org.junit.jupiter.api.Test;
+import org.wmn4j.TestHelper;
+import org.wmn4j.io.ParsingFailureException;
+import org.wmn4j.notation.Score;
+
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MusicXmlReaderSessionTest {
+
+	private static final String MUSICXML_FILE_PATH = "musicxml/";
+
+	private static final List<String> TEST_FILES = List.of("singleC.musicxml", "twoPartsAndMeasures.musicxml",
+			"multistaff.musicxml", "tieTesting.musicxml", "multi_staff_multi_voice_notation_test.mxl",
+			"grace_note_test.musicxml", "lyrics_test.musicxml", "chord_symbol_test.musicxml",
+			"pickup_measure_test.musicxml", "techniques_test.musicxml", "clefs.musicxml");
+
+	private static Path getTestFilePath(String testFileName) {
+		return Paths.get(TestHelper.TESTFILE_PATH + MUSICXML_FILE_PATH + testFileName);
+	}
+
+	private static Score readScore(MusicXmlReader reader) throws IOException, ParsingFailureException {
+		try (reader) {
+			return reader.readScore();
+		}
+	}
+
+	@Test
+	void testReadingFilesOneAfterAnotherGivesSameScoresAsSeparateReaders() throws Exception {
+		final MusicXmlReaderSession session = MusicXmlReaderSession.create();
+
+		// Read the files twice so that every file is also read after a different file.
+		for (int round = 0; round < 2; ++round) {
+			for (String testFile : TEST_FILES) {
+				final Score expected = readScore(MusicXmlReader.readerFor(getTestFilePath(testFile)));
+				final Score score = readScore(session.readerFor(getTestFilePath(testFile)));
+				assertEquals(expected.toString(), score.toString(), testFile);
+			}
+		}
+	}
+
+	@Test
+	void testReadingNotationsWithSession() throws Exception {
+		final MusicXmlReaderSession session = MusicXmlReaderSession.create();
+
+		readScore(session.readerFor(getTestFilePath("tieTesting.musicxml")));
+		MusicXmlFileChecks.assertNotationsReadCorrectlyFromMultipleStavesWithMultipleVoices(readScore(
+				session.readerFor(getTestFilePath("multi_staff_multi_voice_notation_test.musicxml"))));
+		MusicXmlFileChecks.assertTiedNotesReadCorrectly(
+				readScore(session.readerFor(getTestFilePath("tieTesting.musicxml"))));
+	}
+
+	@Test
+	void testSessionCanBeUsedAfterFailedRead() throws Exception {
+		final MusicXmlReaderSession session = MusicXmlReaderSession.create();
+
+		try (MusicXmlReader reader = session.readerFor(getTestFilePath("singleCInvalidMusicXml.musicxml"))) {
+			assertThrows(ParsingFailureException.class, reader::readScore);
+		}
+
+		final Score score = readScore(session.readerFor(getTestFilePath("twoPartsAndMeasures.musicxml")));
+		final Score expected = readScore(MusicXmlReader.readerFor(getTestFilePath("twoPartsAndMeasures.musicxml")));
+		assertEquals(expected.toString(), score.toString());
+
+		try (MusicXmlReader reader = session.readerFor(getTestFilePath("singleCInvalidMusicXml.musicxml"))) {
+			assertThrows(ParsingFailureException.class, reader::readScore);
+		}
+	}
+
+	@Test
+	void testReadingMeasuresAndMetadataWithSession() throws Exception {
+		final MusicXmlReaderSession session = MusicXmlReaderSession.create();
+
+		final ScoreMetadata metadata;
+		try (MusicXmlReader reader = session.readerFor(getTestFilePath("attribute_reading_test.musicxml"))) {
+			metadata = reader.readMetadata();
+		}
+		assertEquals(Optional.of("Composition title"), metadata.getTitle());
+
+		final Score expected = readScore(MusicXmlReader.readerFor(getTestFilePath("multistaff.musicxml")));
+		int measureCount = 0;
+		try (MusicXmlReader reader = session.readerFor(getTestFilePath("multistaff.musicxml"),
+				ReadOptions.defaults())) {
+			Optional<PartMeasure> measure = reader.readNextMeasure();
+			while (measure.isPresent()) {
+				final PartMeasure partMeasure = measure.get();
+				assertEquals(expected.getPart(partMeasure.getPartIndex())
+								.getMeasure(partMeasure.getStaffNumber(), partMeasure.getMeasure().getNumber())
+								.toString(),
+						partMeasure.getMeasure().toString());
+				++measureCount;
+				measure = reader.readNextMeasure();
+			}
+		}
+		assertTrue(measureCount > 0);
+	}
+
+	@Test
+	void testCreatingReaderBeforePreviousIsClosedIsNotAllowed() throws Exception {
+		final MusicXmlReaderSession session = MusicXmlReaderSession.create();
+		final MusicXmlReader reader = session.readerFor(getTestFilePath("singleC.musicxml"));
+		assertThrows(IllegalStateException.class, () -> session.readerFor(getTestFilePath("singleC.musicxml")));
+
+		reader.close();
+		readScore(session.readerFor(getTestFilePath("singleC.musicxml")));
+	}
+
+	@Test
+	void testSessionOfCurrentThreadIsSameWithinThread() throws Exception {
+		final MusicXmlReaderSession session = MusicXmlReaderSession.ofCurrentThread();
+		assertSame(session, MusicXmlReaderSession.ofCurrentThread());
+
+		final MusicXmlReaderSession otherThreadSession = CompletableFuture
+				.supplyAsync(MusicXmlReaderSession::ofCurrentThread).get();
+		assertNotSame(session, otherThreadSession);
+	}
+
+	@Test
+	void testSessionDoesNotKeepReadScoreReachable() throws Exception {
+		final MusicXmlReaderSession session = MusicXmlReaderSession.create();
+		final WeakReference<Score> score = new WeakReference<>(
+				readScore(session.readerFor(getTestFilePath("tieTesting.musicxml"))));
+
+		for (int i = 0; i < 100 && score.get() != null; ++i) {
+			System.gc();
+			Thread.sleep(10);
+		}
+
+		assertNull(score.get());
+
+		// The session can still be used after its contexts have been released.
+		final Score expected = readScore(MusicXmlReader.readerFor(getTestFilePath("tieTesting.musicxml")));
+		assertEquals(expected.toString(),
+				readScore(session.readerFor(getTestFilePath("tieTesting.musicxml"))).toString());
+	}
+}
@@ -0,0 +1,108 @@
+/*
+ * Distributed under the MIT license (see LICENSE.txt or https://opensource.org/licenses/MIT).
+ */
+package org.wmn4j.io.musicxml;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class ParallelDeflateZipOutputStreamTest {
+
+	@TempDir
+	Path temporaryDirectory;
+
+	private static final byte[] FIRST_ENTRY = "<container/>".getBytes(StandardCharsets.UTF_8);
+
+	private static byte[] createContents(int length) {
+		final Random random = new Random(1);
+		final String[] words = { "<note>", "<pitch>", "<step>C</step>", "<octave>4</octave>", "</pitch>",
+				"<duration>1</duration>", "</note>", "\n    " };
+
+		final ByteArrayOutputStream contents = new ByteArrayOutputStream(length);
+		while (contents.size() < length) {
+			final byte[] word = words[random.nextInt(words.length)].getBytes(StandardCharsets.UTF_8);
+			contents.write(word, 0, Math.min(word.length, length - contents.size()));
+		}
+
+		return contents.toByteArray();
+	}
+
+	private static void write(OutputStream destination, byte[] contents, int level) throws IOException {
+		try (OutputStream output = new ParallelDeflateZipOutputStream(destination, "META-INF/container.xml",
+				FIRST_ENTRY, "score.musicxml", level, 4)) {
+			// Write in uneven pieces so that the writes do not line up with the blocks
+			int offset = 0;
+			int pieceLength = 1;
+			while (offset < contents.length) {
+				final int length = Math.min(pieceLength, contents.length - offset);
+				output.write(contents, offset, length);
+				offset += length;
+				pieceLength = pieceLength * 3 + 1;
+			}
+		}
+	}
+
+	private static void assertEntriesCorrect(ZipInputStream zipInput, byte[] contents) throws IOException {
+		final ZipEntry first = zipInput.getNextEntry();
+		assertNotNull(first);
+		assertEquals("META-INF/container.xml", first.getName());
+		assertArrayEquals(FIRST_ENTRY, zipInput.readAllBytes());
+
+		final ZipEntry main = zipInput.getNextEntry();
+		assertNotNull(main);
+		assertEquals("score.musicxml", main.getName());
+		assertArrayEquals(contents, zipInput.readAllBytes());
+
+		assertNull(zipInput.getNextEntry());
+	}
+
+	@Test
+	void testWrittenArchiveCanBeReadAsStream() throws IOException {
+		for (int length : new int[] { 0, 1000, ParallelDeflateZipOutputStream.BLOCK_SIZE,
+				5 * ParallelDeflateZipOutputStream.BLOCK_SIZE + 17 }) {
+			final byte[] contents = createContents(length);
+			final ByteArrayOutputStream output = new ByteArrayOutputStream();
+			write(output, contents, Deflater.DEFAULT_COMPRESSION);
+
+			try (ZipInputStream zipInput = new ZipInputStream(new ByteArrayInputStream(output.toByteArray()))) {
+				assertEntriesCorrect(zipInput, contents);
+			}
+		}
+	}
+
+	@Test
+	void testWrittenArchiveCanBeReadAsFile() throws IOException {
+		final byte[] contents = createContents(3 * ParallelDeflateZipOutputStream.BLOCK_SIZE + 5);
+		for (int level : new int[] { Deflater.NO_COMPRESSION, Deflater.BEST_SPEED, Deflater.BEST_COMPRESSION }) {
+			final Path file = temporaryDirectory.resolve("file" + level + ".zip");
+			write(Files.newOutputStream(file), contents, level);
+
+			try (ZipFile zipFile = new ZipFile(file.toFile())) {
+				assertEquals(2, zipFile.size());
+				final ZipEntry main = zipFile.getEntry("score.musicxml");
+				assertEquals(contents.length, main.getSize());
+				assertArrayEquals(contents, zipFile.getInputStream(main).readAllBytes());
+				assertArrayEquals(FIRST_ENTRY,
+						zipFile.getInputStream(zipFile.getEntry("META-INF/container.xml")).readAllBytes());
+			}
+		}
+	}
+}
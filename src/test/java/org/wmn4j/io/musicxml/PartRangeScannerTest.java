@@ -0,0 +1,87 @@
+/*
+ * Distributed under the MIT license (see LICENSE.txt or https://opensource.org/licenses/MIT).
+ */
+package org.wmn4j.io.musicxml;
+
+import org.junit.jupiter.api.Test;
+import org.wmn4j.TestHelper;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PartRangeScannerTest {
+
+	private static List<PartRangeScanner.PartRange> scan(String xml) {
+		return PartRangeScanner.scan(xml.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private static String substring(String xml, int start, int end) {
+		final byte[] bytes = xml.getBytes(StandardCharsets.UTF_8);
+		return new String(bytes, start, end - start, StandardCharsets.UTF_8);
+	}
+
+	@Test
+	void testPartRangesAreFoundInTestFile() throws IOException {
+		final String xml = Files.readString(
+				Paths.get(TestHelper.TESTFILE_PATH + "musicxml/twoPartsAndMeasures.musicxml"));
+		final List<PartRangeScanner.PartRange> ranges = scan(xml);
+
+		assertEquals(2, ranges.size());
+		for (PartRangeScanner.PartRange range : ranges) {
+			assertTrue(substring(xml, range.getStart(), range.getContentEnd()).startsWith("<part id="));
+			assertEquals("</part>", substring(xml, range.getContentEnd(), range.getEnd()));
+			assertTrue(range.getLastDivisions() > 0);
+			assertFalse(range.usesPreviousDivisions());
+		}
+	}
+
+	@Test
+	void testMarkupInCommentsAndTextIsIgnored() {
+		final String xml = "<?xml version=\"1.0\"?><!DOCTYPE score-partwise [<!ENTITY x \"<part>\">]>"
+				+ "<score-partwise><!-- <part id=\"X\"> --><part-list a=\"<part>\"/>"
+				+ "<part id=\"P1\"><measure><![CDATA[</part>]]></measure></part>"
+				+ "<part id=\"P2\"/></score-partwise>";
+		final List<PartRangeScanner.PartRange> ranges = scan(xml);
+
+		assertEquals(2, ranges.size());
+		assertEquals("<part id=\"P1\"><measure><![CDATA[</part>]]></measure>",
+				substring(xml, ranges.get(0).getStart(), ranges.get(0).getContentEnd()));
+		assertEquals("<part id=\"P2\"/>", substring(xml, ranges.get(1).getStart(), ranges.get(1).getEnd()));
+		assertEquals(ranges.get(1).getEnd(), ranges.get(1).getContentEnd());
+	}
+
+	@Test
+	void testDivisionsAreRecorded() {
+		final String xml = "<score-partwise>"
+				+ "<part id=\"P1\"><measure><attributes><divisions> 4 </divisions></attributes><note/></measure>"
+				+ "<measure><attributes><divisions>12</divisions></attributes></measure></part>"
+				+ "<part id=\"P2\"><measure><note/><attributes><divisions>2</divisions></attributes></measure></part>"
+				+ "<part id=\"P3\"><measure><backup/></measure></part>"
+				+ "</score-partwise>";
+		final List<PartRangeScanner.PartRange> ranges = scan(xml);
+
+		assertEquals(3, ranges.size());
+		assertEquals(12, ranges.get(0).getLastDivisions());
+		assertFalse(ranges.get(0).usesPreviousDivisions());
+		assertEquals(2, ranges.get(1).getLastDivisions());
+		assertTrue(ranges.get(1).usesPreviousDivisions());
+		assertEquals(0, ranges.get(2).getLastDivisions());
+		assertTrue(ranges.get(2).usesPreviousDivisions());
+	}
+
+	@Test
+	void testNoPartsAreFoundInMalformedMarkup() {
+		assertTrue(scan("<score-partwise><part id=\"P1\"></score-partwise>").isEmpty());
+		assertTrue(scan("<score-partwise><part id=\"P1\"><measure></part>").isEmpty());
+		assertTrue(scan("<score-partwise><part id=\"P1></part></score-partwise>").isEmpty());
+		assertTrue(scan("<score-partwise><part><attributes><divisions>&#52;</divisions></attributes></part>"
+				+ "</score-partwise>").isEmpty());
+	}
+}
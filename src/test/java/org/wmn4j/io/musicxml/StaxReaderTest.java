@@ -5,15 +5,47 @@ package org.wmn4j.io.musicxml;
 
 import org.junit.jupiter.api.Test;
 import org.wmn4j.TestHelper;
+import org.wmn4j.io.CorpusReader;
 import org.wmn4j.io.ParsingFailureException;
+import org.wmn4j.notation.Durational;
+import org.wmn4j.notation.Durations;
+import org.wmn4j.notation.Measure;
+import org.wmn4j.notation.MultiStaffPart;
+import org.wmn4j.notation.Note;
+import org.wmn4j.notation.Part;
 import org.wmn4j.notation.Score;
 import org.wmn4j.notation.ScoreBuilder;
+import org.wmn4j.notation.SingleStaffPart;
+import org.wmn4j.notation.Staff;
 
+import org.xml.sax.SAXException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
 class StaxReaderTest {
@@ -262,6 +294,19 @@ class StaxReaderTest {
 		}
 	}
 
+	@Test
+	void testGivenInvalidMusicXmlFileThenFailureIsReportedByValidation() {
+		final MusicXmlReader reader = getMusicXmlReader(
+				Paths.get(TestHelper.TESTFILE_PATH + MUSICXML_FILE_PATH + "singleCInvalidMusicXml.musicxml"), true);
+		final ParsingFailureException exception = assertThrows(ParsingFailureException.class, reader::readScore);
+		assertTrue(exception.getMessage().contains("tag-that-is-not-part-of-musicxml"));
+	}
+
+	@Test
+	void testMusicXmlSchemaIsCompiledOnlyOnce() throws SAXException {
+		assertSame(MusicXmlSchema.get(), MusicXmlSchema.get());
+	}
+
 	@Test
 	void testValidatingCorrectXmlFileWhenReadingToScore() {
 		final MusicXmlReader reader = getMusicXmlReader(
@@ -439,4 +484,521 @@ class StaxReaderTest {
 		Score score = readScore("chord_symbol_test.musicxml", true);
 		MusicXmlFileChecks.assertChordSymbolsCorrect(score);
 	}
+
+	private static byte[] readTestFileBytes(String testFileName) {
+		try {
+			return Files.readAllBytes(Paths.get(TestHelper.TESTFILE_PATH + MUSICXML_FILE_PATH + testFileName));
+		} catch (IOException e) {
+			fail("Failed to read test file " + testFileName);
+			return null;
+		}
+	}
+
+	private static Score readScore(MusicXmlReader reader) {
+		try (reader) {
+			return reader.readScore();
+		} catch (final IOException | ParsingFailureException e) {
+			fail("Parsing failed with exception " + e);
+			return null;
+		}
+	}
+
+	@Test
+	void testReadingScoreFromInputStream() {
+		final byte[] contents = readTestFileBytes("multi_staff_multi_voice_notation_test.musicxml");
+		final Score score = readScore(MusicXmlReader.readerFor(new ByteArrayInputStream(contents)));
+		MusicXmlFileChecks.assertNotationsReadCorrectlyFromMultipleStavesWithMultipleVoices(score);
+	}
+
+	@Test
+	void testReadingScoreFromCompressedInputStream() {
+		final byte[] contents = readTestFileBytes("multi_staff_multi_voice_notation_test.mxl");
+		final Score score = readScore(MusicXmlReader.readerFor(new ByteArrayInputStream(contents)));
+		MusicXmlFileChecks.assertNotationsReadCorrectlyFromMultipleStavesWithMultipleVoices(score);
+	}
+
+	@Test
+	void testReadingScoreFromByteArray() {
+		final byte[] contents = readTestFileBytes("tieTesting.musicxml");
+		final Score score = readScore(MusicXmlReader.nonValidatingReaderFor(contents));
+		MusicXmlFileChecks.assertTiedNotesReadCorrectly(score);
+	}
+
+	@Test
+	void testReadingScoreFromByteBufferDoesNotChangeBufferPosition() {
+		final byte[] contents = readTestFileBytes("multi_staff_multi_voice_notation_test.mxl");
+		final ByteBuffer buffer = ByteBuffer.allocateDirect(contents.length);
+		buffer.put(contents).flip();
+
+		final Score score = readScore(MusicXmlReader.readerFor(buffer));
+		MusicXmlFileChecks.assertNotationsReadCorrectlyFromMultipleStavesWithMultipleVoices(score);
+		assertEquals(0, buffer.position());
+	}
+
+	@Test
+	void testReadingScoreFromChannel() throws IOException {
+		final Path path = Paths.get(TestHelper.TESTFILE_PATH + MUSICXML_FILE_PATH + "singleC.musicxml");
+		final Score score = readScore(MusicXmlReader.readerFor(Files.newByteChannel(path)));
+		MusicXmlFileChecks.assertSingleNoteScoreReadCorrectly(score);
+	}
+
+	@Test
+	void testReadingCompressedStreamWhereMainFileIsBeforeContainer() throws IOException {
+		final byte[] musicXml = readTestFileBytes("singleC.musicxml");
+		final String container = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>"
+				+ "<container><rootfiles><rootfile full-path=\"score.musicxml\"/></rootfiles></container>";
+
+		final ByteArrayOutputStream zipBytes = new ByteArrayOutputStream();
+		try (ZipOutputStream zipStream = new ZipOutputStream(zipBytes)) {
+			zipStream.putNextEntry(new ZipEntry("score.musicxml"));
+			zipStream.write(musicXml);
+			zipStream.putNextEntry(new ZipEntry(CompressedMxl.META_INF_PATH));
+			zipStream.write(container.getBytes(StandardCharsets.UTF_8));
+		}
+
+		final Score score = readScore(MusicXmlReader.readerFor(zipBytes.toByteArray()));
+		MusicXmlFileChecks.assertSingleNoteScoreReadCorrectly(score);
+	}
+
+	@Test
+	void testReadingInvalidMusicXmlFromInputStream() {
+		final byte[] contents = readTestFileBytes("singleCInvalidMusicXml.musicxml");
+		final MusicXmlReader reader = MusicXmlReader.readerFor(new ByteArrayInputStream(contents));
+		final ParsingFailureException exception = assertThrows(ParsingFailureException.class, reader::readScore);
+		assertTrue(exception.getMessage().contains("input stream"));
+	}
+
+	private List<PartMeasure> readMeasures(String testFileName) {
+		final Path path = Paths.get(TestHelper.TESTFILE_PATH + MUSICXML_FILE_PATH + testFileName);
+		final List<PartMeasure> measures = new ArrayList<>();
+
+		try (MusicXmlReader reader = getMusicXmlReader(path, false)) {
+			Optional<PartMeasure> measure = reader.readNextMeasure();
+			while (measure.isPresent()) {
+				measures.add(measure.get());
+				measure = reader.readNextMeasure();
+			}
+		} catch (final IOException | ParsingFailureException e) {
+			fail("Parsing failed with exception " + e);
+		}
+
+		return measures;
+	}
+
+	private Score readScoreFromMeasures(String testFileName) {
+		final Map<Integer, Map<Integer, List<Measure>>> partStaves = new TreeMap<>();
+		final Map<Integer, String> partNames = new HashMap<>();
+		for (PartMeasure partMeasure : readMeasures(testFileName)) {
+			partStaves.computeIfAbsent(partMeasure.getPartIndex(), index -> new TreeMap<>())
+					.computeIfAbsent(partMeasure.getStaffNumber(), staff -> new ArrayList<>())
+					.add(partMeasure.getMeasure());
+			partNames.put(partMeasure.getPartIndex(), partMeasure.getPartName().orElse(null));
+		}
+
+		final List<Part> parts = new ArrayList<>();
+		for (var part : partStaves.entrySet()) {
+			final String name = partNames.get(part.getKey());
+			final Map<Integer, List<Measure>> staves = part.getValue();
+			if (staves.size() == 1) {
+				parts.add(SingleStaffPart.of(name, Staff.of(staves.values().iterator().next())));
+			} else {
+				final Map<Integer, Staff> builtStaves = new HashMap<>();
+				staves.forEach((staffNumber, measures) -> builtStaves.put(staffNumber, Staff.of(measures)));
+				parts.add(MultiStaffPart.of(name, builtStaves));
+			}
+		}
+
+		return Score.of(Collections.emptyMap(), parts);
+	}
+
+	@Test
+	void testReadingMeasuresOneAtATimeGivesSameMeasuresAsReadingScore() {
+		final List<String> testFiles = List.of("singleC.musicxml", "twoPartsAndMeasures.musicxml",
+				"multistaff.musicxml", "tieTesting.musicxml", "multi_staff_multi_voice_notation_test.mxl",
+				"grace_note_test.musicxml", "lyrics_test.musicxml", "chord_symbol_test.musicxml",
+				"pickup_measure_test.musicxml", "clefs.musicxml");
+
+		for (String testFile : testFiles) {
+			final Score score = readScore(testFile, false);
+			final List<PartMeasure> measures = readMeasures(testFile);
+
+			int measureCount = 0;
+			for (Part part : score) {
+				measureCount += part.getStaffNumbers().size() * part.getMeasureCount();
+			}
+			assertEquals(measureCount, measures.size(), testFile);
+
+			for (PartMeasure partMeasure : measures) {
+				final Part part = score.getPart(partMeasure.getPartIndex());
+				assertEquals(part.getName(), partMeasure.getPartName(), testFile);
+				final Measure expected = part.getMeasure(partMeasure.getStaffNumber(),
+						partMeasure.getMeasure().getNumber());
+				assertEquals(expected.toString(), partMeasure.getMeasure().toString(), testFile);
+			}
+		}
+	}
+
+	@Test
+	void testReadingMeasuresOneAtATimeResolvesTiesAcrossMeasures() {
+		MusicXmlFileChecks.assertTiedNotesReadCorrectly(readScoreFromMeasures("tieTesting.musicxml"));
+	}
+
+	@Test
+	void testReadingMeasuresOneAtATimeResolvesNotationsAcrossStavesAndVoices() {
+		MusicXmlFileChecks.assertNotationsReadCorrectlyFromMultipleStavesWithMultipleVoices(
+				readScoreFromMeasures("multi_staff_multi_voice_notation_test.musicxml"));
+	}
+
+	@Test
+	void testReadingMeasuresOneAtATimeReadsGraceNotes() {
+		MusicXmlFileChecks.assertGraceNotesAreCorrect(readScoreFromMeasures("grace_note_test.musicxml"));
+	}
+
+	@Test
+	void testReadingMeasuresAfterReadingScoreIsNotAllowed() throws Exception {
+		final Path path = Paths.get(TestHelper.TESTFILE_PATH + MUSICXML_FILE_PATH + "singleC.musicxml");
+		final MusicXmlReader reader = getMusicXmlReader(path, true);
+		reader.readScore();
+		assertThrows(IllegalStateException.class, reader::readNextMeasure);
+	}
+
+	@Test
+	void testReadingScoreAfterReadingMeasuresIsNotAllowed() throws Exception {
+		final Path path = Paths.get(TestHelper.TESTFILE_PATH + MUSICXML_FILE_PATH + "twoMeasures.musicxml");
+		try (MusicXmlReader reader = getMusicXmlReader(path, true)) {
+			assertTrue(reader.readNextMeasure().isPresent());
+			assertThrows(IllegalStateException.class, reader::readScore);
+		}
+	}
+
+	private static Path getTestFilePath(String testFileName) {
+		return Paths.get(TestHelper.TESTFILE_PATH + MUSICXML_FILE_PATH + testFileName);
+	}
+
+	@Test
+	void testReadingPartsSelectedById() {
+		final Score fullScore = readScore("twoPartsAndMeasures.musicxml", true);
+		final Score score = readScore(new StaxReader(getTestFilePath("twoPartsAndMeasures.musicxml"),
+				ReadOptions.defaults().withPartIds(List.of("P2"))));
+
+		assertEquals(1, score.getPartCount());
+		assertEquals(fullScore.getPart(1).toString(), score.getPart(0).toString());
+	}
+
+	@Test
+	void testReadingPartsSelectedByIndex() {
+		final Score fullScore = readScore("selection_test.musicxml", true);
+		final Score score = readScore(new StaxReader(getTestFilePath("selection_test.musicxml"),
+				ReadOptions.defaults().withPartIndices(List.of(0))));
+
+		assertEquals(1, score.getPartCount());
+		assertEquals(fullScore.getPart(0).toString(), score.getPart(0).toString());
+
+		final Score bothParts = readScore(new StaxReader(getTestFilePath("selection_test.musicxml"),
+				ReadOptions.defaults().withPartIndices(List.of(0)).withPartIds(List.of("P2"))));
+		assertEquals(fullScore.toString(), bothParts.toString());
+	}
+
+	@Test
+	void testReadingMeasureRangeReadsOnlySelectedMeasures() {
+		final Score fullScore = readScore("timesigs.musicxml", true);
+		final Score score = readScore(new StaxReader(getTestFilePath("timesigs.musicxml"),
+				ReadOptions.defaults().withMeasureRange(4, 6)));
+
+		final Part fullPart = fullScore.getPart(0);
+		final Part part = score.getPart(0);
+		assertEquals(6, part.getMeasureCount());
+
+		for (int number = 1; number <= 3; ++number) {
+			final Measure measure = part.getMeasure(1, number);
+			assertTrue(measure.isEmpty());
+			assertEquals(fullPart.getMeasure(1, number).getTimeSignature(), measure.getTimeSignature());
+		}
+
+		for (int number = 4; number <= 6; ++number) {
+			assertEquals(fullPart.getMeasure(1, number).toString(), part.getMeasure(1, number).toString());
+		}
+
+		final List<Durational> expected = new ArrayList<>();
+		fullScore.selectRange(4, 6).forEach(expected::add);
+		final List<Durational> selected = new ArrayList<>();
+		score.selectRange(4, 6).forEach(selected::add);
+		assertEquals(expected, selected);
+	}
+
+	@Test
+	void testReadingMeasuresOneAtATimeWithProjection() throws Exception {
+		final Score fullScore = readScore("selection_test.musicxml", true);
+		final ReadOptions options = ReadOptions.defaults().withPartIds(List.of("P2")).withMeasureRange(2, 3);
+		final List<PartMeasure> measures = new ArrayList<>();
+
+		try (MusicXmlReader reader = MusicXmlReader.readerFor(getTestFilePath("selection_test.musicxml"), options)) {
+			Optional<PartMeasure> measure = reader.readNextMeasure();
+			while (measure.isPresent()) {
+				measures.add(measure.get());
+				measure = reader.readNextMeasure();
+			}
+		}
+
+		assertEquals(2, measures.size());
+		for (int i = 0; i < measures.size(); ++i) {
+			final PartMeasure partMeasure = measures.get(i);
+			assertEquals(0, partMeasure.getPartIndex());
+			assertEquals("P2", partMeasure.getPartId());
+			assertEquals(i + 2, partMeasure.getMeasure().getNumber());
+			assertEquals(fullScore.getPart(1).getMeasure(1, i + 2).toString(), partMeasure.getMeasure().toString());
+		}
+	}
+
+	@Test
+	void testReadingWithNoteInterningSharesEqualNotes() {
+		for (String testFile : List.of("tieTesting.musicxml", "scoreIteratorTesting.musicxml")) {
+			final Score score = readScore(testFile, true);
+			final Score interned = readScore(new StaxReader(getTestFilePath(testFile),
+					ReadOptions.defaults().withNoteInterning(true)));
+
+			assertEquals(score.toString(), interned.toString(), testFile);
+
+			final Set<Note> notes = Collections.newSetFromMap(new IdentityHashMap<>());
+			final Set<Note> internedNotes = Collections.newSetFromMap(new IdentityHashMap<>());
+			int noteCount = 0;
+			for (Durational durational : score.toSelection()) {
+				if (durational instanceof Note note) {
+					notes.add(note);
+					++noteCount;
+				}
+			}
+
+			for (Durational durational : interned.toSelection()) {
+				if (durational instanceof Note note) {
+					// Notes with notations, such as ties, are never shared.
+					assertTrue(internedNotes.add(note) || !note.hasNotations(), testFile);
+				}
+			}
+
+			assertEquals(noteCount, notes.size(), testFile);
+			assertTrue(internedNotes.size() < notes.size(), testFile);
+		}
+	}
+
+	@Test
+	void testReadingPartsInParallelWithNoteInterning() {
+		final Score score = readScore("multi_part_pattern_position_test.musicxml", true);
+		final Score interned = readScore(new StaxReader(getTestFilePath("multi_part_pattern_position_test.musicxml"),
+				parallelOptions(true).withNoteInterning(true)));
+
+		assertEquals(score.toString(), interned.toString());
+	}
+
+	@Test
+	void testInvalidMeasureRangeIsNotAllowed() {
+		assertThrows(IllegalArgumentException.class, () -> ReadOptions.defaults().withMeasureRange(-1, 2));
+		assertThrows(IllegalArgumentException.class, () -> ReadOptions.defaults().withMeasureRange(3, 2));
+	}
+
+	private static ScoreMetadata readMetadata(MusicXmlReader reader) {
+		try (reader) {
+			return reader.readMetadata();
+		} catch (final IOException | ParsingFailureException e) {
+			fail("Parsing failed with exception " + e);
+			return null;
+		}
+	}
+
+	@Test
+	void testReadingMetadata() {
+		final ScoreMetadata metadata = readMetadata(
+				MusicXmlReader.readerFor(getTestFilePath("attribute_reading_test.musicxml")));
+
+		assertEquals(Optional.of("Composition title"), metadata.getTitle());
+		assertEquals(Optional.of("Movement title"), metadata.getAttribute(Score.Attribute.MOVEMENT_TITLE));
+		assertEquals(Optional.of("Composer name"), metadata.getAttribute(Score.Attribute.COMPOSER));
+		assertEquals(Optional.of("Arranger name"), metadata.getAttribute(Score.Attribute.ARRANGER));
+		assertFalse(metadata.hasAttribute(Score.Attribute.SUBTITLE));
+
+		assertEquals(2, metadata.getPartCount());
+		final ScoreMetadata.PartInfo secondPart = metadata.getParts().get(1);
+		assertEquals("P2", secondPart.getId());
+		assertEquals(Optional.of("Part name 2"), secondPart.getName());
+		assertEquals(Optional.of("Short part name 2"), secondPart.getAbbreviatedName());
+	}
+
+	@Test
+	void testReadingMetadataGivesSameMetadataAsReadingScore() throws Exception {
+		final List<String> testFiles = List.of("attribute_reading_test.musicxml", "twoPartsAndMeasures.musicxml",
+				"multi_staff_multi_voice_notation_test.mxl");
+
+		for (String testFile : testFiles) {
+			final ScoreMetadata metadata = readMetadata(MusicXmlReader.readerFor(getTestFilePath(testFile)));
+
+			try (MusicXmlReader reader = MusicXmlReader.readerFor(getTestFilePath(testFile))) {
+				final Score score = reader.readScore();
+				assertEquals(metadata, reader.readMetadata(), testFile);
+
+				assertEquals(score.getPartCount(), metadata.getPartCount(), testFile);
+				for (int i = 0; i < score.getPartCount(); ++i) {
+					assertEquals(score.getPart(i).getName(), metadata.getParts().get(i).getName(), testFile);
+				}
+
+				for (Score.Attribute attribute : Score.Attribute.values()) {
+					assertEquals(score.getAttribute(attribute), metadata.getAttribute(attribute), testFile);
+				}
+			}
+		}
+	}
+
+	@Test
+	void testReadingMetadataDoesNotReadParts() {
+		// The contents of the part are not valid MusicXML, so reading the metadata
+		// only succeeds if the part is not read.
+		final String musicXml = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>"
+				+ "<score-partwise version=\"4.0\"><work><work-title>Header only</work-title></work>"
+				+ "<part-list><score-part id=\"P1\"><part-name>Voice</part-name></score-part></part-list>"
+				+ "<part id=\"P1\"><measure number=\"1\"><note><duration>x</duration></note>";
+
+		final ScoreMetadata metadata = readMetadata(
+				MusicXmlReader.nonValidatingReaderFor(musicXml.getBytes(StandardCharsets.UTF_8)));
+
+		assertEquals(Optional.of("Header only"), metadata.getTitle());
+		assertEquals(List.of(new ScoreMetadata.PartInfo("P1", "Voice", null)), metadata.getParts());
+	}
+
+	@Test
+	void testReadingScoreAfterReadingMetadataIsNotAllowed() throws Exception {
+		final MusicXmlReader reader = MusicXmlReader.readerFor(getTestFilePath("twoMeasures.musicxml"));
+		reader.readMetadata();
+		assertThrows(IllegalStateException.class, reader::readScore);
+		assertThrows(IllegalStateException.class, reader::readNextMeasure);
+	}
+
+	private static ReadOptions parallelOptions(boolean validate) {
+		return ReadOptions.defaults().withValidation(validate).withEngine(ReadOptions.Engine.UTF8_TOKENIZER)
+				.withPartParallelism(4);
+	}
+
+	private static List<Durational> getDurationals(Score score) {
+		final List<Durational> durationals = new ArrayList<>();
+		score.durationalStream().forEach(durationals::add);
+		return durationals;
+	}
+
+	private static void assertSameScores(Score expected, Score actual) {
+		assertEquals(expected.toString(), actual.toString());
+		assertEquals(getDurationals(expected), getDurationals(actual));
+		for (int i = 0; i < expected.getPartCount(); ++i) {
+			assertEquals(expected.getPart(i).getName(), actual.getPart(i).getName());
+		}
+	}
+
+	@Test
+	void testReadingPartsInParallelGivesSameScoresAsReadingPartsOneAtATime() throws IOException {
+		final List<Path> testFiles = CorpusReader.findFiles(
+				Paths.get(TestHelper.TESTFILE_PATH + MUSICXML_FILE_PATH), "*.{musicxml,mxl}");
+
+		for (Path testFile : testFiles) {
+			for (boolean validate : List.of(false, true)) {
+				Score expected = null;
+				Exception expectedFailure = null;
+				try (MusicXmlReader reader = MusicXmlReader.readerFor(testFile,
+						ReadOptions.defaults().withValidation(validate))) {
+					expected = reader.readScore();
+				} catch (IOException | ParsingFailureException | RuntimeException e) {
+					expectedFailure = e;
+				}
+
+				try (MusicXmlReader reader = MusicXmlReader.readerFor(testFile, parallelOptions(validate))) {
+					final Score actual = reader.readScore();
+					assertNotNull(expected, "Expected reading " + testFile + " to fail with " + expectedFailure);
+					assertSameScores(expected, actual);
+				} catch (IOException | ParsingFailureException | RuntimeException e) {
+					assertNotNull(expectedFailure, "Parallel reading of " + testFile + " failed with " + e);
+					assertEquals(expectedFailure.getClass(), e.getClass());
+				}
+			}
+		}
+	}
+
+	private static String partWithNote(String partId, int divisions, int duration) {
+		final String attributes = divisions > 0 ? "<attributes><divisions>" + divisions + "</divisions></attributes>"
+				: "";
+		return "<part id=\"" + partId + "\"><measure number=\"1\">" + attributes
+				+ "<note><pitch><step>C</step><octave>4</octave></pitch><duration>" + duration + "</duration>"
+				+ "<voice>1</voice></note></measure></part>";
+	}
+
+	private static byte[] partwiseScore(String... parts) {
+		final StringBuilder musicXml = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\"?>"
+				+ "<score-partwise version=\"4.0\"><part-list>");
+		for (int i = 1; i <= parts.length; ++i) {
+			musicXml.append("<score-part id=\"P").append(i).append("\"><part-name>Part ").append(i)
+					.append("</part-name></score-part>");
+		}
+
+		musicXml.append("</part-list>");
+		for (String part : parts) {
+			musicXml.append(part);
+		}
+
+		return musicXml.append("</score-partwise>").toString().getBytes(StandardCharsets.UTF_8);
+	}
+
+	@Test
+	void testReadingPartsInParallelCarriesDivisionsToNextPart() {
+		// The second part does not declare its divisions, so it uses the divisions of the first part.
+		final byte[] contents = partwiseScore(partWithNote("P1", 2, 2), partWithNote("P2", 0, 4),
+				partWithNote("P3", 8, 8), partWithNote("P4", 0, 16));
+
+		final Score expected = readScore(MusicXmlReader.nonValidatingReaderFor(contents));
+		final Score score = readScore(MusicXmlReader.readerFor(new ByteArrayInputStream(contents),
+				parallelOptions(false)));
+
+		assertSameScores(expected, score);
+		final List<Durational> durationals = getDurationals(score);
+		assertEquals(Durations.QUARTER, durationals.get(0).getDuration());
+		assertEquals(Durations.HALF, durationals.get(1).getDuration());
+		assertEquals(Durations.QUARTER, durationals.get(2).getDuration());
+		assertEquals(Durations.HALF, durationals.get(3).getDuration());
+	}
+
+	@Test
+	void testReadingSelectedPartsInParallelCarriesDivisionsOnlyFromSelectedParts() {
+		final byte[] contents = partwiseScore(partWithNote("P1", 2, 2), partWithNote("P2", 8, 8),
+				partWithNote("P3", 0, 4));
+		final ReadOptions options = ReadOptions.defaults().withValidation(false).withPartIds(List.of("P1", "P3"));
+
+		final Score expected = readScore(MusicXmlReader.readerFor(new ByteArrayInputStream(contents), options));
+		final Score score = readScore(MusicXmlReader.readerFor(new ByteArrayInputStream(contents),
+				options.withEngine(ReadOptions.Engine.UTF8_TOKENIZER).withPartParallelism(2)));
+
+		assertSameScores(expected, score);
+		assertEquals(2, score.getPartCount());
+		assertEquals(Durations.HALF, getDurationals(score).get(1).getDuration());
+	}
+
+	@Test
+	void testReadingProjectionInParallel() {
+		final ReadOptions options = ReadOptions.defaults().withPartIds(List.of("P2")).withMeasureRange(2, 3);
+		final Score expected = readScore(new StaxReader(getTestFilePath("selection_test.musicxml"), options));
+		final Score score = readScore(new StaxReader(getTestFilePath("selection_test.musicxml"),
+				options.withEngine(ReadOptions.Engine.UTF8_TOKENIZER).withPartParallelism(2)));
+
+		assertSameScores(expected, score);
+	}
+
+	@Test
+	void testReadingMalformedPartInParallelFails() {
+		// The nesting of the elements is balanced, so the part is found by the scan and fails when it is parsed.
+		final byte[] contents = partwiseScore(partWithNote("P1", 2, 2),
+				"<part id=\"P2\"><measure number=\"1\"><note></voice></measure></part>");
+		assertEquals(2, PartRangeScanner.scan(contents).size());
+
+		final MusicXmlReader reader = MusicXmlReader.readerFor(new ByteArrayInputStream(contents),
+				parallelOptions(false));
+		assertThrows(ParsingFailureException.class, reader::readScore);
+	}
+
+	@Test
+	void testInvalidPartParallelismIsNotAllowed() {
+		assertThrows(IllegalArgumentException.class, () -> ReadOptions.defaults().withPartParallelism(0));
+	}
 }
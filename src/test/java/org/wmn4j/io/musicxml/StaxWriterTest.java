@@ -25,7 +25,11 @@ import org.wmn4j.notation.Score;
 import org.wmn4j.notation.ScoreBuilder;
 import org.wmn4j.notation.access.PositionIterator;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.text.DateFormat;
@@ -35,11 +39,14 @@ import java.util.Date;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
+import java.util.zip.Deflater;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
@@ -498,4 +505,169 @@ public class StaxWriterTest {
 		Score writtenScore = writeAndReadScore(score, false);
 		MusicXmlFileChecks.assertChordSymbolsCorrect(writtenScore);
 	}
+
+	private Score readScoreFromBytes(byte[] bytes) {
+		try (final MusicXmlReader reader = MusicXmlReader.readerFor(bytes)) {
+			return reader.readScore();
+		} catch (final IOException | ParsingFailureException e) {
+			fail("Reading score written to memory failed with exception " + e);
+			return null;
+		}
+	}
+
+	@Test
+	void testWritingToOutputStreamWritesSameBytesAsWritingToFile() throws IOException {
+		final Score score = readMusicXmlTestFile("lyrics_test.musicxml", false);
+		for (boolean minify : List.of(false, true)) {
+			final Path file = temporaryDirectory.resolve("file.musicxml");
+			writeOrFail(MusicXmlWriter.writerFor(score, file, false, minify));
+
+			final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+			writeOrFail(MusicXmlWriter.writerFor(score, outputStream, false, minify));
+
+			assertArrayEquals(Files.readAllBytes(file), outputStream.toByteArray());
+		}
+	}
+
+	@Test
+	void testWritingToOutputStreamDoesNotCloseStream() throws IOException {
+		final Score score = readMusicXmlTestFile("lyrics_test.musicxml", false);
+		final boolean[] isClosed = { false };
+		final ByteArrayOutputStream outputStream = new ByteArrayOutputStream() {
+			@Override
+			public void close() {
+				isClosed[0] = true;
+			}
+		};
+
+		writeOrFail(MusicXmlWriter.writerFor(score, outputStream, true, false));
+		assertFalse(isClosed[0]);
+
+		final int length = outputStream.size();
+		outputStream.write(1);
+		assertEquals(length + 1, outputStream.size());
+	}
+
+	@Test
+	void testWritingCompressedToChannel() {
+		final Score score = readMusicXmlTestFile("chord_symbol_test.musicxml", false);
+		final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		writeOrFail(MusicXmlWriter.writerFor(score, Channels.newChannel(outputStream), true, true));
+
+		final Score writtenScore = readScoreFromBytes(outputStream.toByteArray());
+		MusicXmlFileChecks.assertChordSymbolsCorrect(writtenScore);
+	}
+
+	@Test
+	void testWritingToBytes() throws IOException {
+		final Score score = readMusicXmlTestFile("techniques_test.musicxml", false);
+		for (boolean compress : List.of(false, true)) {
+			final Score writtenScore = readScoreFromBytes(MusicXmlWriter.toBytes(score, compress, false));
+			MusicXmlFileChecks.assertPlayingTechniquesAreCorrect(writtenScore);
+		}
+	}
+
+	@Test
+	void testWhenOutputFailsThenWritingThrows() {
+		final Score score = readMusicXmlTestFile("lyrics_test.musicxml", false);
+		final OutputStream failingStream = new OutputStream() {
+			@Override
+			public void write(int value) throws IOException {
+				throw new IOException("Output failed");
+			}
+		};
+
+		for (boolean compress : List.of(false, true)) {
+			final MusicXmlWriter writer = MusicXmlWriter.writerFor(score, failingStream, compress, false);
+			assertThrows(IOException.class, writer::write);
+		}
+	}
+
+	@Test
+	void testWhenClosingFailsAfterOutputFailsThenOutputFailureIsThrown() {
+		final Score score = readMusicXmlTestFile("lyrics_test.musicxml", false);
+		final OutputStream failingStream = new OutputStream() {
+			@Override
+			public void write(int value) throws IOException {
+				throw new IOException("Output failed");
+			}
+
+			@Override
+			public void flush() throws IOException {
+				throw new IOException("Flush failed");
+			}
+		};
+
+		final MusicXmlWriter writer = MusicXmlWriter.writerFor(score, failingStream, false, false);
+		final IOException exception = assertThrows(IOException.class, writer::write);
+		assertTrue(exception.getMessage().contains("Output failed"), exception.getMessage());
+		assertEquals(1, exception.getSuppressed().length);
+	}
+
+	@Test
+	void testWritingPartsInParallelWritesSameBytesAsWritingPartsOneAtATime() throws IOException {
+		final List<String> testFiles = List.of("multi_part_pattern_position_test.musicxml",
+				"twoPartsAndMeasures.musicxml", "multi_staff_multi_voice_notation_test.musicxml");
+
+		for (String testFile : testFiles) {
+			final Score score = readMusicXmlTestFile(testFile, false);
+			for (boolean minify : List.of(false, true)) {
+				final WriteOptions options = WriteOptions.defaults().withMinification(minify);
+				assertArrayEquals(MusicXmlWriter.toBytes(score, options),
+						MusicXmlWriter.toBytes(score, options.withPartParallelism(4)), testFile);
+			}
+		}
+	}
+
+	@Test
+	void testWritingPartsInParallelToCompressedFile() {
+		final Score score = readMusicXmlTestFile("multi_part_pattern_position_test.musicxml", false);
+		final Path file = temporaryDirectory.resolve("file.mxl");
+		writeOrFail(MusicXmlWriter.writerFor(score, file,
+				WriteOptions.defaults().withCompression(true).withPartParallelism(2)));
+
+		try (final MusicXmlReader reader = MusicXmlReader.readerFor(file)) {
+			final Score writtenScore = reader.readScore();
+			assertEquals(score.getPartCount(), writtenScore.getPartCount());
+			assertEquals(score.getFullMeasureCount(), writtenScore.getFullMeasureCount());
+		} catch (final IOException | ParsingFailureException e) {
+			fail("Reading score written in parallel failed with exception " + e);
+		}
+	}
+
+	@Test
+	void testWhenPartParallelismIsLessThanOneThenExceptionIsThrown() {
+		assertThrows(IllegalArgumentException.class, () -> WriteOptions.defaults().withPartParallelism(0));
+	}
+
+	@Test
+	void testWritingCompressedWithCompressionOptions() throws IOException {
+		final Score score = readMusicXmlTestFile("techniques_test.musicxml", false);
+		final WriteOptions compressed = WriteOptions.defaults().withCompression(true);
+		final List<WriteOptions> optionsToTest = List.of(
+				compressed.withDeflateParallelism(4),
+				compressed.withDeflateParallelism(2).withCompressionLevel(Deflater.BEST_COMPRESSION),
+				compressed.withCompressionLevel(Deflater.BEST_SPEED),
+				compressed.withCompressionMethod(WriteOptions.CompressionMethod.STORED),
+				compressed.withCompressionMethod(WriteOptions.CompressionMethod.STORED).withDeflateParallelism(4));
+
+		for (WriteOptions options : optionsToTest) {
+			final Score writtenScore = readScoreFromBytes(MusicXmlWriter.toBytes(score, options));
+			MusicXmlFileChecks.assertPlayingTechniquesAreCorrect(writtenScore);
+
+			final Path file = temporaryDirectory.resolve("file.mxl");
+			writeOrFail(MusicXmlWriter.writerFor(score, file, options));
+			try (final MusicXmlReader reader = MusicXmlReader.readerFor(file)) {
+				MusicXmlFileChecks.assertPlayingTechniquesAreCorrect(reader.readScore());
+			} catch (final ParsingFailureException e) {
+				fail("Reading compressed score failed with exception " + e);
+			}
+		}
+	}
+
+	@Test
+	void testWhenCompressionLevelIsInvalidThenExceptionIsThrown() {
+		assertThrows(IllegalArgumentException.class, () -> WriteOptions.defaults().withCompressionLevel(10));
+		assertThrows(IllegalArgumentException.class, () -> WriteOptions.defaults().withDeflateParallelism(0));
+	}
 }
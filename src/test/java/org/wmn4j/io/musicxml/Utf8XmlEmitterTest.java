@@ -0,0 +1,239 @@
+/*
+ * Distributed under the MIT license (see LICENSE.txt or https://opensource.org/licenses/MIT).
+ */
+package org.wmn4j.io.musicxml;
+
+import org.junit.jupiter.api.Test;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class Utf8XmlEmitterTest {
+
+	private static final Charset ENCODING = StandardCharsets.UTF_8;
+	private static final List<String> NAMES = List.of(Tags.NOTE, Tags.PITCH, Tags.STEP, Tags.DURATION, "a-b",
+			"ä", "x:y");
+	private static final List<String> TEXTS = List.of("", "quarter", "C", "a < b > c & d",
+			"\"quoted\" 'single'", "line\nbreak\ttab\r", "Café ä € 𝄞", "&amp;");
+	private static final List<Integer> INTS = List.of(0, 7, -3, 10, 99, 100, 123456789, Integer.MAX_VALUE,
+			Integer.MIN_VALUE, -Integer.MAX_VALUE);
+
+	@FunctionalInterface
+	private interface Step {
+		void apply(XMLStreamWriter writer) throws XMLStreamException;
+	}
+
+	private static byte[] writeWithReference(List<Step> steps, boolean indent) throws XMLStreamException {
+		final ByteArrayOutputStream output = new ByteArrayOutputStream();
+		final XMLStreamWriter writer = indent
+				? new IndentingXmlStreamWriter(output)
+				: XMLOutputFactory.newInstance().createXMLStreamWriter(output);
+		return write(steps, writer, output);
+	}
+
+	private static byte[] writeWithEmitter(List<Step> steps, boolean indent) throws XMLStreamException {
+		final ByteArrayOutputStream output = new ByteArrayOutputStream();
+		return write(steps, new Utf8XmlEmitter(output, indent), output);
+	}
+
+	private static byte[] write(List<Step> steps, XMLStreamWriter writer, ByteArrayOutputStream output)
+			throws XMLStreamException {
+		for (Step step : steps) {
+			step.apply(writer);
+		}
+
+		writer.flush();
+		writer.close();
+		return output.toByteArray();
+	}
+
+	private static void assertSameOutput(List<Step> steps) throws XMLStreamException {
+		for (boolean indent : List.of(false, true)) {
+			final byte[] expected = writeWithReference(steps, indent);
+			final byte[] actual = writeWithEmitter(steps, indent);
+			assertArrayEquals(expected, actual, () -> "Expected:\n" + new String(expected, ENCODING) + "\nActual:\n"
+					+ new String(actual, ENCODING));
+		}
+	}
+
+	private static Step intValue(String name, int value) {
+		return writer -> {
+			if (writer instanceof Utf8XmlEmitter emitter) {
+				emitter.writeValue(name, value);
+			} else {
+				writer.writeStartElement(name);
+				writer.writeCharacters(Integer.toString(value));
+				writer.writeEndElement();
+			}
+		};
+	}
+
+	private static Step intAttribute(String name, int value) {
+		return writer -> {
+			if (writer instanceof Utf8XmlEmitter emitter) {
+				emitter.writeAttribute(name, value);
+			} else {
+				writer.writeAttribute(name, Integer.toString(value));
+			}
+		};
+	}
+
+	@Test
+	void testDocumentIsWrittenLikeStaxWriter() throws XMLStreamException {
+		final List<Step> steps = new ArrayList<>();
+		steps.add(writer -> writer.writeStartDocument("UTF-8", "1.0"));
+		steps.add(writer -> writer.writeDTD("<!DOCTYPE score-partwise PUBLIC \"-//Recordare//DTD MusicXML 4.0 "
+				+ "Partwise//EN\" \"http://www.musicxml.org/dtds/partwise.dtd\">"));
+		steps.add(writer -> writer.writeStartElement(Tags.SCORE_PARTWISE));
+		steps.add(writer -> writer.writeAttribute(Tags.VERSION, "4.0"));
+		steps.add(writer -> writer.writeComment(" a comment "));
+		steps.add(writer -> writer.writeStartElement(Tags.PART));
+		steps.add(writer -> writer.writeAttribute(Tags.ID, "P1 & \"<2>\""));
+		steps.add(writer -> writer.writeStartElement(Tags.MEASURE));
+		steps.add(intAttribute(Tags.NUMBER, 1));
+		steps.add(writer -> writer.writeEmptyElement(Tags.CHORD));
+		steps.add(writer -> writer.writeEmptyElement(Tags.TIE));
+		steps.add(writer -> writer.writeAttribute(Tags.TYPE, Tags.START));
+		steps.add(intValue(Tags.DURATION, 4));
+		steps.add(writer -> writer.writeStartElement(Tags.WORK_TITLE));
+		steps.add(writer -> writer.writeCharacters("Title <&> \"ä\""));
+		steps.add(writer -> writer.writeEndElement());
+		steps.add(writer -> writer.writeStartElement(Tags.LYRIC));
+		steps.add(writer -> writer.writeEndElement());
+		steps.add(writer -> writer.writeStartElement(Tags.TEXT));
+		steps.add(writer -> writer.writeCharacters(""));
+		steps.add(writer -> writer.writeEndElement());
+		steps.add(writer -> writer.writeProcessingInstruction("target"));
+		steps.add(writer -> writer.writeProcessingInstruction("target", "data"));
+		steps.add(writer -> writer.writeStartElement(Tags.WORDS));
+		steps.add(writer -> writer.writeCData("<raw>"));
+		steps.add(writer -> writer.writeEntityRef("amp"));
+		steps.add(writer -> writer.writeCharacters(new char[] { 'a', 'b', 'c' }, 1, 2));
+		steps.add(writer -> writer.writeEndElement());
+		steps.add(writer -> writer.writeEndElement());
+		steps.add(writer -> writer.writeEndElement());
+		steps.add(writer -> writer.writeEndElement());
+		steps.add(writer -> writer.writeEndDocument());
+
+		assertSameOutput(steps);
+	}
+
+	@Test
+	void testDocumentDeclarationsAreWrittenLikeStaxWriter() throws XMLStreamException {
+		assertSameOutput(List.of(XMLStreamWriter::writeStartDocument, writer -> writer.writeEmptyElement("a")));
+		assertSameOutput(
+				List.of(writer -> writer.writeStartDocument("1.0"), writer -> writer.writeEmptyElement("a")));
+	}
+
+	@Test
+	void testEndDocumentClosesOpenElements() throws XMLStreamException {
+		assertSameOutput(List.of(writer -> writer.writeStartElement("a"), writer -> writer.writeStartElement("b"),
+				writer -> writer.writeEmptyElement("c"), XMLStreamWriter::writeEndDocument));
+	}
+
+	@Test
+	void testIntegersAreWrittenLikeStrings() throws XMLStreamException {
+		final List<Step> steps = new ArrayList<>();
+		steps.add(writer -> writer.writeStartElement(Tags.MEASURE));
+		for (int value : INTS) {
+			steps.add(intValue(Tags.DURATION, value));
+			steps.add(writer -> writer.writeEmptyElement(Tags.OFFSET));
+			steps.add(intAttribute(Tags.NUMBER, value));
+		}
+		steps.add(writer -> writer.writeEndElement());
+
+		assertSameOutput(steps);
+	}
+
+	@Test
+	void testLongOutputAndDeepNestingAreWritten() throws XMLStreamException {
+		final String longText = "ä<&".repeat(5000);
+		final int depth = 100;
+		final List<Step> steps = new ArrayList<>();
+		for (int i = 0; i < depth; ++i) {
+			steps.add(writer -> writer.writeStartElement(Tags.NOTE));
+			steps.add(writer -> writer.writeAttribute("default-x", longText));
+		}
+		steps.add(writer -> writer.writeCharacters(longText));
+		steps.add(writer -> writer.writeEmptyElement("x".repeat(10000)));
+		for (int i = 0; i < depth; ++i) {
+			steps.add(writer -> writer.writeEndElement());
+		}
+
+		assertSameOutput(steps);
+	}
+
+	@Test
+	void testRandomDocumentsAreWrittenLikeStaxWriter() throws XMLStreamException {
+		final Random random = new Random(4);
+		for (int document = 0; document < 200; ++document) {
+			final List<Step> steps = new ArrayList<>();
+			int openElements = 0;
+			boolean isAttributeAllowed = false;
+
+			for (int i = 0; i < 60; ++i) {
+				final String name = NAMES.get(random.nextInt(NAMES.size()));
+				final String text = TEXTS.get(random.nextInt(TEXTS.size()));
+				final int value = INTS.get(random.nextInt(INTS.size()));
+				final int action = random.nextInt(8);
+
+				if (action == 0 || openElements == 0) {
+					steps.add(writer -> writer.writeStartElement(name));
+					++openElements;
+					isAttributeAllowed = true;
+				} else if (action == 1) {
+					steps.add(writer -> writer.writeEmptyElement(name));
+					isAttributeAllowed = true;
+				} else if (action == 2 && isAttributeAllowed) {
+					steps.add(writer -> writer.writeAttribute(name, text));
+				} else if (action == 3 && isAttributeAllowed) {
+					steps.add(intAttribute(name, value));
+				} else if (action == 4) {
+					steps.add(writer -> writer.writeCharacters(text));
+					isAttributeAllowed = false;
+				} else if (action == 5) {
+					steps.add(intValue(name, value));
+					isAttributeAllowed = false;
+				} else {
+					steps.add(XMLStreamWriter::writeEndElement);
+					--openElements;
+					isAttributeAllowed = false;
+				}
+			}
+
+			for (int i = 0; i < openElements; ++i) {
+				steps.add(XMLStreamWriter::writeEndElement);
+			}
+			steps.add(XMLStreamWriter::writeEndDocument);
+
+			assertSameOutput(steps);
+		}
+	}
+
+	@Test
+	void testInvalidCallsThrow() {
+		final Utf8XmlEmitter emitter = new Utf8XmlEmitter(new ByteArrayOutputStream(), false);
+		assertThrows(XMLStreamException.class, () -> emitter.writeAttribute("a", "b"));
+		assertThrows(XMLStreamException.class, () -> emitter.writeAttribute("a", 1));
+		assertThrows(XMLStreamException.class, emitter::writeEndElement);
+		assertThrows(XMLStreamException.class, () -> emitter.writeStartDocument("ISO-8859-1", "1.0"));
+		assertThrows(IllegalArgumentException.class, () -> emitter.getProperty("property"));
+	}
+
+	@Test
+	void testVocabularyIsEncodedInTagTable() {
+		assertArrayEquals(Tags.NOTE.getBytes(ENCODING), TagTable.getEncoded(Tags.NOTE));
+		assertNull(TagTable.getEncoded("not-a-tag"));
+	}
+}
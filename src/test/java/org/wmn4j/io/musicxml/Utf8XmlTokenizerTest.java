@@ -0,0 +1,315 @@
+/*
+ * Distributed under the MIT license (see LICENSE.txt or https://opensource.org/licenses/MIT).
+ */
+package org.wmn4j.io.musicxml;
+
+import org.junit.jupiter.api.Test;
+import org.wmn4j.TestHelper;
+import org.wmn4j.io.CorpusReader;
+import org.wmn4j.io.ParsingFailureException;
+import org.wmn4j.notation.Durational;
+import org.wmn4j.notation.Part;
+import org.wmn4j.notation.Score;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+class Utf8XmlTokenizerTest {
+
+	private static final Path MUSICXML_DIRECTORY = Paths.get(TestHelper.TESTFILE_PATH + "musicxml/");
+
+	private static Utf8XmlTokenizer tokenizerFor(String xml) {
+		return new Utf8XmlTokenizer(xml.getBytes(StandardCharsets.UTF_8));
+	}
+
+	@Test
+	void testElementsAndAttributesAreTokenized() throws XMLStreamException {
+		final Utf8XmlTokenizer tokenizer = tokenizerFor(
+				"<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<!-- comment -->\n"
+						+ "<score-partwise version='4.0'><part id=\"P1\"><chord/></part></score-partwise>");
+
+		assertEquals(XMLStreamConstants.START_DOCUMENT, tokenizer.getEventType());
+		assertEquals(XMLStreamConstants.COMMENT, tokenizer.next());
+		assertEquals(" comment ", tokenizer.getText());
+
+		assertEquals(XMLStreamConstants.START_ELEMENT, tokenizer.next());
+		assertSame(Tags.SCORE_PARTWISE, tokenizer.getLocalName());
+		assertEquals("4.0", tokenizer.getAttributeValue(null, "version"));
+
+		assertEquals(XMLStreamConstants.START_ELEMENT, tokenizer.next());
+		assertSame(Tags.PART, tokenizer.getLocalName());
+		assertEquals("P1", tokenizer.getAttributeValue(0));
+		assertEquals(1, tokenizer.getAttributeCount());
+
+		assertEquals(XMLStreamConstants.START_ELEMENT, tokenizer.next());
+		assertSame(Tags.CHORD, tokenizer.getLocalName());
+		assertEquals(XMLStreamConstants.END_ELEMENT, tokenizer.next());
+		assertSame(Tags.CHORD, tokenizer.getLocalName());
+
+		assertEquals(XMLStreamConstants.END_ELEMENT, tokenizer.next());
+		assertSame(Tags.PART, tokenizer.getLocalName());
+		assertEquals(XMLStreamConstants.END_ELEMENT, tokenizer.next());
+		assertSame(Tags.SCORE_PARTWISE, tokenizer.getLocalName());
+		assertEquals(XMLStreamConstants.END_DOCUMENT, tokenizer.next());
+		assertFalse(tokenizer.hasNext());
+	}
+
+	@Test
+	void testTextIsDecoded() throws XMLStreamException {
+		final Utf8XmlTokenizer tokenizer = tokenizerFor(
+				"<a t=\"x &amp; &#228;\">Caf&#xE9; &lt;&gt;<![CDATA[ <raw> ]]>\r\n&quot;&apos; ä</a>");
+
+		tokenizer.next();
+		assertEquals("x & ä", tokenizer.getAttributeValue(null, "t"));
+		assertEquals(XMLStreamConstants.CHARACTERS, tokenizer.next());
+		assertEquals("Café <> <raw> \n\"' ä", tokenizer.getText());
+		assertEquals(XMLStreamConstants.END_ELEMENT, tokenizer.next());
+	}
+
+	@Test
+	void testIntegersAreParsedFromBytes() throws XMLStreamException {
+		final Utf8XmlTokenizer tokenizer = tokenizerFor(
+				"<a><b>42</b><b>-3</b><b>+7</b><b>2147483647</b><b>-2147483648</b><b>1.5</b><b>&#52;</b></a>");
+		tokenizer.next();
+
+		final List<Integer> expected = List.of(42, -3, 7, Integer.MAX_VALUE, Integer.MIN_VALUE);
+		for (int value : expected) {
+			tokenizer.next();
+			tokenizer.next();
+			assertFalse(tokenizer.isBlankText());
+			assertEquals(value, tokenizer.getTextAsInt());
+			tokenizer.next();
+		}
+
+		tokenizer.next();
+		tokenizer.next();
+		assertThrows(NumberFormatException.class, tokenizer::getTextAsInt);
+		tokenizer.next();
+
+		tokenizer.next();
+		tokenizer.next();
+		assertEquals(4, tokenizer.getTextAsInt());
+	}
+
+	@Test
+	void testNamespacesAreResolved() throws XMLStreamException {
+		final Utf8XmlTokenizer tokenizer = tokenizerFor(
+				"<a xmlns:xlink=\"http://www.w3.org/1999/xlink\"><b xlink:href=\"x\" xml:lang=\"fi\"/></a>");
+
+		tokenizer.next();
+		assertEquals(1, tokenizer.getNamespaceCount());
+		assertEquals("xlink", tokenizer.getNamespacePrefix(0));
+		assertEquals(0, tokenizer.getAttributeCount());
+
+		tokenizer.next();
+		assertEquals(0, tokenizer.getNamespaceCount());
+		assertEquals("http://www.w3.org/1999/xlink", tokenizer.getAttributeNamespace(0));
+		assertEquals("href", tokenizer.getAttributeLocalName(0));
+		assertEquals("x", tokenizer.getAttributeValue("http://www.w3.org/1999/xlink", "href"));
+		assertEquals("http://www.w3.org/XML/1998/namespace", tokenizer.getAttributeNamespace(1));
+		assertNull(tokenizer.getNamespaceURI());
+	}
+
+	@Test
+	void testMalformedDocumentsAreRejected() {
+		final List<String> malformed = List.of("<a><b></a>", "<a>", "<a b=c/>", "<a>&unknown;</a>", "text<a/>",
+				"<a/><b/>");
+
+		for (String xml : malformed) {
+			final Utf8XmlTokenizer tokenizer = tokenizerFor(xml);
+			assertThrows(XMLStreamException.class, () -> {
+				while (tokenizer.hasNext()) {
+					tokenizer.next();
+				}
+			}, xml);
+		}
+	}
+
+	private static void readAll(XMLStreamReader reader) throws XMLStreamException {
+		while (reader.hasNext()) {
+			reader.next();
+		}
+	}
+
+	@Test
+	void testDocumentsRejectedByStaxAreRejected() {
+		final List<String> malformed = List.of("<a b=\"1\" b=\"2\"/>", "<a x:b=\"1\" x:b=\"2\" xmlns:x=\"u\"/>",
+				"<a><!-- x -- y --></a>", "<a><!-- x ---></a>", "<a>\u0001</a>", "<a b=\"\u0001\"/>",
+				"<a><!-- \u0002 --></a>", "<a><![CDATA[\u0003]]></a>", "<a>x]]>y</a>", "<a>]]></a>");
+
+		for (String xml : malformed) {
+			assertRejectedByStaxAndTokenizer(xml.getBytes(StandardCharsets.UTF_8), xml);
+		}
+	}
+
+	@Test
+	void testMalformedUtf8IsRejected() {
+		final List<byte[]> malformed = List.of(new byte[] { '<', 'a', '>', (byte) 0xC3, '<', '/', 'a', '>' },
+				new byte[] { '<', 'a', '>', (byte) 0xC0, (byte) 0xAF, '<', '/', 'a', '>' },
+				new byte[] { '<', 'a', ' ', 'b', '=', '"', (byte) 0xFF, '"', '/', '>' },
+				new byte[] { '<', 'a', '>', (byte) 0xED, (byte) 0xA0, (byte) 0x80, '<', '/', 'a', '>' },
+				new byte[] { '<', (byte) 0xC3, '/', '>' });
+
+		for (byte[] xml : malformed) {
+			assertRejectedByStaxAndTokenizer(xml, Arrays.toString(xml));
+		}
+	}
+
+	@Test
+	void testInvalidNamesAreRejected() {
+		for (String xml : List.of("<1a/>", "<-a/>", "<a 1b=\"1\"/>", "<a></1a>", "<a!/>")) {
+			assertRejectedByStaxAndTokenizer(xml.getBytes(StandardCharsets.UTF_8), xml);
+		}
+	}
+
+	@Test
+	void testCharacterReferencesOutsideXmlCharactersAreRejected() {
+		for (String xml : List.of("<a>&#1;</a>", "<a>&#x1F;</a>", "<a b=\"&#8;\"/>", "<a>&#xFFFE;</a>",
+				"<a>&#xD800;</a>")) {
+			assertRejectedByStaxAndTokenizer(xml.getBytes(StandardCharsets.UTF_8), xml);
+		}
+	}
+
+	@Test
+	void testMisplacedXmlDeclarationIsRejected() {
+		for (String xml : List.of("<a/><?xml version=\"1.0\"?>", "<a><?xml version=\"1.0\"?></a>",
+				"<!-- c --><?xml version=\"1.0\"?><a/>", " <?xml version=\"1.0\"?><a/>", "<a><?XML x?></a>")) {
+			assertRejectedByStaxAndTokenizer(xml.getBytes(StandardCharsets.UTF_8), xml);
+		}
+	}
+
+	private static void assertRejectedByStaxAndTokenizer(byte[] xml, String message) {
+		final XMLInputFactory factory = XMLInputFactory.newInstance();
+		assertThrows(XMLStreamException.class,
+				() -> readAll(factory.createXMLStreamReader(new ByteArrayInputStream(xml))), "StAX: " + message);
+		assertThrows(XMLStreamException.class, () -> readAll(new Utf8XmlTokenizer(xml)), message);
+	}
+
+	@Test
+	void testDocumentsAcceptedByStaxAreAccepted() throws XMLStreamException {
+		final List<String> wellFormed = List.of("<a b=\"1\" c=\"2\"/>", "<a><!-- x - y --></a>", "<a><!----></a>",
+				"<a>\t\r\n</a>", "<a>]]</a>", "<a>]></a>", "<a><![CDATA[x]]>></a>", "<a><![CDATA[]]]]>></a>",
+				"<?xml version=\"1.0\"?><a/>", "<a><?xml-stylesheet x?></a>", "<\u00e9-1.\u00b7 \u00e0=\"\u20ac\"/>",
+				"<a>&#9;&#x10FFFF;\ud83c\udfb5</a>", "<_:a xmlns:_=\"u\"/>");
+
+		final XMLInputFactory factory = XMLInputFactory.newInstance();
+		for (String xml : wellFormed) {
+			readAll(factory.createXMLStreamReader(new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8))));
+			readAll(tokenizerFor(xml));
+		}
+	}
+
+	@Test
+	void testUtf8IsRecognizedFromDeclaration() {
+		assertTrue(Utf8XmlTokenizer.isUtf8("<a/>".getBytes(StandardCharsets.UTF_8)));
+		assertTrue(Utf8XmlTokenizer.isUtf8("<?xml version=\"1.0\"?><a/>".getBytes(StandardCharsets.UTF_8)));
+		assertTrue(Utf8XmlTokenizer.isUtf8(
+				"<?xml version=\"1.0\" encoding = 'utf-8'?><a/>".getBytes(StandardCharsets.UTF_8)));
+		assertFalse(Utf8XmlTokenizer.isUtf8(
+				"<?xml version=\"1.0\" encoding=\"ISO-8859-1\"?><a/>".getBytes(StandardCharsets.ISO_8859_1)));
+		assertFalse(Utf8XmlTokenizer.isUtf8("<a/>".getBytes(StandardCharsets.UTF_16)));
+	}
+
+	@Test
+	void testVocabularyIsFoundInTagTable() {
+		final byte[] bytes = "xnotationsx".getBytes(StandardCharsets.UTF_8);
+		assertSame(Tags.NOTATIONS, TagTable.lookup(bytes, 1, bytes.length - 1));
+		assertNull(TagTable.lookup(bytes, 0, bytes.length));
+		assertNull(TagTable.lookup(bytes, 1, 1));
+	}
+
+	private static Object readWithEngine(Path path, boolean validate, ReadOptions.Engine engine) {
+		final ReadOptions options = ReadOptions.defaults().withValidation(validate).withEngine(engine);
+		try (MusicXmlReader reader = MusicXmlReader.readerFor(path, options)) {
+			return reader.readScoreBuilder().build();
+		} catch (IOException | ParsingFailureException | RuntimeException e) {
+			return e.getClass();
+		}
+	}
+
+	private static void assertScoresEqual(Score expected, Score actual, String message) {
+		assertEquals(expected.toString(), actual.toString(), message);
+		for (Score.Attribute attribute : Score.Attribute.values()) {
+			assertEquals(expected.getAttribute(attribute), actual.getAttribute(attribute), message);
+		}
+
+		assertEquals(expected.getPartCount(), actual.getPartCount(), message);
+		for (int i = 0; i < expected.getPartCount(); ++i) {
+			final Part expectedPart = expected.getPart(i);
+			final Part actualPart = actual.getPart(i);
+			assertEquals(expectedPart.getName(), actualPart.getName(), message);
+			for (Part.Attribute attribute : Part.Attribute.values()) {
+				assertEquals(expectedPart.getAttribute(attribute), actualPart.getAttribute(attribute), message);
+			}
+		}
+
+		final List<Durational> expectedDurationals = expected.durationalStream().collect(Collectors.toList());
+		final List<Durational> actualDurationals = actual.durationalStream().collect(Collectors.toList());
+		assertEquals(expectedDurationals, actualDurationals, message);
+	}
+
+	@Test
+	void testTokenizerEngineReadsSameScoresAsStaxEngine() throws IOException {
+		final List<Path> testFiles = CorpusReader.findFiles(MUSICXML_DIRECTORY);
+		assertTrue(testFiles.size() > 40);
+
+		for (Path testFile : testFiles) {
+			for (boolean validate : List.of(false, true)) {
+				final String message = testFile + (validate ? " (validated)" : "");
+				final Object expected = readWithEngine(testFile, validate, ReadOptions.Engine.STAX);
+				final Object actual = readWithEngine(testFile, validate, ReadOptions.Engine.UTF8_TOKENIZER);
+
+				if (expected instanceof Score expectedScore) {
+					if (!(actual instanceof Score actualScore)) {
+						fail("Tokenizer failed with " + actual + " for " + message);
+						return;
+					}
+					assertScoresEqual(expectedScore, actualScore, message);
+				} else {
+					assertEquals(expected, actual, message);
+				}
+			}
+		}
+	}
+
+	@Test
+	void testTokenizerEngineReadsMeasuresOneAtATime() throws Exception {
+		final Path path = MUSICXML_DIRECTORY.resolve("multi_staff_multi_voice_notation_test.mxl");
+		final ReadOptions options = ReadOptions.defaults().withEngine(ReadOptions.Engine.UTF8_TOKENIZER);
+		final Score expected = (Score) readWithEngine(path, true, ReadOptions.Engine.STAX);
+
+		int measureCount = 0;
+		try (MusicXmlReader reader = MusicXmlReader.readerFor(path, options)) {
+			var measure = reader.readNextMeasure();
+			while (measure.isPresent()) {
+				final PartMeasure partMeasure = measure.get();
+				assertEquals(expected.getPart(partMeasure.getPartIndex())
+								.getMeasure(partMeasure.getStaffNumber(), partMeasure.getMeasure().getNumber())
+								.toString(),
+						partMeasure.getMeasure().toString());
+				++measureCount;
+				measure = reader.readNextMeasure();
+			}
+		}
+
+		assertTrue(measureCount > 0);
+	}
+}
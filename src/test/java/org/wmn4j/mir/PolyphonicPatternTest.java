@@ -161,6 +161,26 @@ public class PolyphonicPatternTest {
 		assertNotEquals(withAddedVoice, pattern1);
 	}
 
+	@Test
+	void testEqualPatternsWithDifferentVoiceNumbersHaveEqualHashCodes() {
+		final Map<Integer, List<? extends Durational>> voices = createReferencePatternVoices();
+		final Map<Integer, List<? extends Durational>> renumberedVoices = new HashMap<>();
+		renumberedVoices.put(5, voices.get(2));
+		renumberedVoices.put(7, voices.get(1));
+
+		final Pattern pattern = new PolyphonicPattern(voices);
+		final Pattern renumbered = new PolyphonicPattern(renumberedVoices);
+		assertEquals(pattern, renumbered);
+		assertEquals(pattern.hashCode(), renumbered.hashCode());
+
+		final List<Durational> voice = List.of(Note.of(Pitch.of(Pitch.Base.C, Pitch.Accidental.NATURAL, 4),
+				Durations.QUARTER), Rest.of(Durations.QUARTER));
+		final Pattern singleVoice = new PolyphonicPattern(voice);
+		final Pattern monophonic = new MonophonicPattern(voice);
+		assertEquals(singleVoice, monophonic);
+		assertEquals(singleVoice.hashCode(), monophonic.hashCode());
+	}
+
 	@Test
 	void testEqualsInPitchReturnsTrueForExactEquality() {
 		final Pattern pattern1 = new PolyphonicPattern(createReferencePatternVoices());
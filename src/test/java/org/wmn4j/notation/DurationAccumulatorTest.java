@@ -0,0 +1,61 @@
+/*
+ * Distributed under the MIT license (see LICENSE.txt or https://opensource.org/licenses/MIT).
+ */
+package org.wmn4j.notation;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DurationAccumulatorTest {
+
+	@Test
+	void testAddingDurations() {
+		final DurationAccumulator accumulator = new DurationAccumulator();
+		assertTrue(accumulator.isZero());
+
+		accumulator.add(Durations.QUARTER).add(Durations.EIGHTH_TRIPLET).add(Durations.EIGHTH_TRIPLET)
+				.add(Durations.EIGHTH_TRIPLET);
+		assertEquals(Durations.HALF, accumulator.toDuration());
+		assertEquals(0, accumulator.compareTo(Durations.HALF));
+		assertTrue(accumulator.compareTo(Durations.WHOLE) < 0);
+		assertTrue(accumulator.compareTo(Durations.QUARTER) > 0);
+	}
+
+	@Test
+	void testSubtractingDurations() {
+		final DurationAccumulator accumulator = new DurationAccumulator().add(Durations.HALF);
+		accumulator.subtract(Durations.QUARTER_TRIPLET);
+		assertEquals(Duration.of(1, 3), accumulator.toDuration());
+
+		accumulator.subtract(Duration.of(1, 3));
+		assertTrue(accumulator.isZero());
+		assertFalse(accumulator.isPositive());
+		assertThrows(IllegalArgumentException.class, accumulator::toDuration);
+
+		accumulator.subtract(Durations.EIGHTH);
+		assertFalse(accumulator.isPositive());
+		assertTrue(accumulator.compareTo(Durations.SIXTYFOURTH) < 0);
+
+		accumulator.clear();
+		assertTrue(accumulator.isZero());
+	}
+
+	@Test
+	void testSumIsSameAsWithDurationArithmetic() {
+		final Duration[] durations = { Durations.QUARTER.addDot(), Durations.EIGHTH_TRIPLET,
+				Durations.SIXTEENTH.divide(5), Durations.THIRTYSECOND.divide(7), Durations.WHOLE };
+
+		final DurationAccumulator accumulator = new DurationAccumulator();
+		Duration sum = null;
+		for (Duration duration : durations) {
+			accumulator.add(duration);
+			sum = sum == null ? duration : sum.add(duration);
+			assertEquals(sum, accumulator.toDuration());
+			assertEquals(sum.hashCode(), accumulator.toDuration().hashCode());
+		}
+	}
+}
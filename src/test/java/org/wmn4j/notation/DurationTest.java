@@ -10,6 +10,8 @@ import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -373,4 +375,19 @@ class DurationTest {
 		durations.add(Durations.EIGHTH_TRIPLET);
 		assertEquals(Durations.WHOLE, Duration.sum(durations), "Mixed durations did not add to whole note.");
 	}
+
+	@Test
+	void testEqualDurationsWithSameExpressionAreSameInstance() {
+		assertSame(Durations.QUARTER, Duration.of(2, 8));
+		assertSame(Durations.EIGHTH_TRIPLET, Durations.QUARTER.divide(3));
+		assertSame(Durations.QUARTER.addDot(), Duration.of(3, 8, 1, 1));
+		assertSame(Durations.HALF, Durations.QUARTER.add(Durations.QUARTER));
+
+		final Duration dotted = Durations.QUARTER.addDot();
+		final Duration undotted = Duration.of(3, 8);
+		assertEquals(dotted, undotted);
+		assertNotSame(dotted, undotted);
+		assertEquals(1, dotted.getDotCount());
+		assertEquals(0, undotted.getDotCount());
+	}
 }
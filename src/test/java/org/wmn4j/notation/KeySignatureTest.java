@@ -10,6 +10,7 @@ import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
@@ -54,4 +55,16 @@ class KeySignatureTest {
 		assertFalse(KeySignatures.CMAJ_AMIN.equals(KeySignatures.FMAJ_DMIN));
 	}
 
+	@Test
+	void testStandardKeySignaturesAreSameInstance() {
+		assertSame(KeySignatures.CMAJ_AMIN, KeySignature.of(List.of(), null));
+		assertSame(KeySignatures.AMAJ_FSHARPMIN,
+				KeySignature.of(List.of(Pitch.Base.F, Pitch.Base.C, Pitch.Base.G), null));
+		assertSame(KeySignatures.EFLATMAJ_CMIN,
+				KeySignature.of(null, List.of(Pitch.Base.B, Pitch.Base.E, Pitch.Base.A)));
+
+		final KeySignature nonStandard = KeySignature.of(List.of(Pitch.Base.C), List.of(Pitch.Base.B));
+		assertEquals(List.of(Pitch.Base.C), nonStandard.getSharps());
+		assertEquals(List.of(Pitch.Base.B), nonStandard.getFlats());
+	}
 }
@@ -17,6 +17,8 @@ import java.util.NoSuchElementException;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
@@ -80,6 +82,23 @@ class MeasureTest {
 		assertEquals(1, measure.getVoiceSize(0), "Modifying list from which measure is created changes measure");
 	}
 
+	@Test
+	void testVoiceNumbers() {
+		final Map<Integer, List<Durational>> voices = new HashMap<>(this.multipleNoteVoices);
+		voices.put(-2, List.of(C4));
+		final Measure measure = Measure.of(1, voices, TimeSignatures.FOUR_FOUR, keySig, Clefs.G);
+
+		assertEquals(List.of(-2, 0, 1), measure.getVoiceNumbers());
+		assertEquals(3, measure.getVoiceCount());
+		assertSame(measure.getVoiceNumbers(), measure.getVoiceNumbers());
+		assertThrows(UnsupportedOperationException.class, () -> measure.getVoiceNumbers().add(2));
+
+		assertEquals(1, measure.getVoiceSize(-2));
+		assertEquals(3, measure.getVoiceSize(1));
+		assertThrows(NoSuchElementException.class, () -> measure.getVoiceSize(2));
+		assertThrows(NoSuchElementException.class, () -> measure.get(2, 0));
+	}
+
 	@Test
 	void testGetNumber() {
 		assertEquals(1, Measure.of(1, singleNoteVoice, TimeSignatures.FOUR_FOUR, keySig, Clefs.G).getNumber());
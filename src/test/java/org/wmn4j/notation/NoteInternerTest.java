@@ -0,0 +1,100 @@
+/*
+ * Distributed under the MIT license (see LICENSE.txt or https://opensource.org/licenses/MIT).
+ */
+package org.wmn4j.notation;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class NoteInternerTest {
+
+	private static final Pitch C4 = Pitch.of(Pitch.Base.C, Pitch.Accidental.NATURAL, 4);
+	private static final Pitch E4 = Pitch.of(Pitch.Base.E, Pitch.Accidental.NATURAL, 4);
+
+	@Test
+	void testEqualNotesAreShared() {
+		final NoteInterner interner = new NoteInterner();
+		final Note note = interner.intern(Note.of(C4, Durations.QUARTER));
+
+		assertSame(note, interner.intern(Note.of(C4, Durations.QUARTER)));
+		assertNotSame(note, interner.intern(Note.of(C4, Durations.EIGHTH)));
+		assertNotSame(note, interner.intern(Note.of(C4, Durations.QUARTER, Set.of(Articulation.STACCATO))));
+		assertEquals(3, interner.getNoteCount());
+	}
+
+	@Test
+	void testNotesWithNotationsAreNotShared() {
+		final NoteInterner interner = new NoteInterner();
+		final NoteBuilder first = new NoteBuilder(C4, Durations.QUARTER).setInterner(interner);
+		final NoteBuilder second = new NoteBuilder(C4, Durations.QUARTER).setInterner(interner);
+		first.addTieToFollowing(second);
+
+		final Note tied = first.build();
+		assertSame(tied.getFollowingTiedNote().orElseThrow(), second.build());
+		assertNotSame(tied, interner.intern(Note.of(C4, Durations.QUARTER)));
+		assertSame(second.build(), interner.intern(second.build()));
+		assertEquals(1, interner.getNoteCount());
+	}
+
+	@Test
+	void testNotesWithGraceNotesAreNotShared() {
+		final NoteInterner interner = new NoteInterner();
+		final NoteBuilder builder = new NoteBuilder(C4, Durations.QUARTER).setInterner(interner);
+		builder.setPrecedingGraceNotes(List.of(new GraceNoteBuilder(E4, Durations.EIGHTH)));
+
+		builder.build();
+		assertEquals(0, interner.getNoteCount());
+	}
+
+	@Test
+	void testNoteBuildersShareBuiltNotes() {
+		final NoteInterner interner = new NoteInterner();
+		final Note first = new NoteBuilder(C4, Durations.QUARTER).setInterner(interner).build();
+		final Note second = new NoteBuilder(C4, Durations.QUARTER).setInterner(interner).build();
+
+		assertSame(first, second);
+		assertNotSame(first, new NoteBuilder(C4, Durations.QUARTER).build());
+	}
+
+	@Test
+	void testChordBuildersShareBuiltChordsAndNotes() {
+		final NoteInterner interner = new NoteInterner();
+		final Chord first = new ChordBuilder(new NoteBuilder(C4, Durations.HALF)).add(
+				new NoteBuilder(E4, Durations.HALF)).setInterner(interner).build();
+		final Chord second = new ChordBuilder(new NoteBuilder(E4, Durations.HALF)).setInterner(interner)
+				.add(new NoteBuilder(C4, Durations.HALF)).build();
+
+		assertSame(first, second);
+		assertSame(first.getNote(0), interner.intern(Note.of(C4, Durations.HALF)));
+		assertEquals(1, interner.getChordCount());
+		assertEquals(2, interner.getNoteCount());
+	}
+
+	@Test
+	void testNotesWithEqualDurationsWrittenDifferentlyAreNotShared() {
+		final NoteInterner interner = new NoteInterner();
+		final Duration dottedTriplet = Durations.EIGHTH_TRIPLET.addDot();
+		assertEquals(Durations.EIGHTH, dottedTriplet);
+
+		final Note eighth = interner.intern(Note.of(C4, Durations.EIGHTH));
+		final Note triplet = interner.intern(Note.of(C4, dottedTriplet));
+		assertNotSame(eighth, triplet);
+		assertEquals(1, triplet.getDuration().getDotCount());
+		assertEquals(3, triplet.getDuration().getTupletDivisor());
+		assertSame(triplet, interner.intern(Note.of(C4, dottedTriplet)));
+
+		final Chord eighthChord = interner.intern(
+				Chord.of(Note.of(C4, Durations.EIGHTH), Note.of(E4, Durations.EIGHTH)));
+		final Chord tripletChord = interner.intern(
+				Chord.of(Note.of(C4, dottedTriplet), Note.of(E4, dottedTriplet)));
+		assertNotSame(eighthChord, tripletChord);
+		assertEquals(1, tripletChord.getDuration().getDotCount());
+		assertEquals(2, interner.getChordCount());
+	}
+}
@@ -8,6 +8,7 @@ import org.junit.jupiter.api.Test;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class PitchTest {
@@ -109,4 +110,12 @@ class PitchTest {
 		assertTrue(0 < Pitch.of(Pitch.Base.E, Pitch.Accidental.NATURAL, 3)
 				.compareTo(Pitch.of(Pitch.Base.D, Pitch.Accidental.SHARP, 3)));
 	}
+
+	@Test
+	void testEqualPitchesAreSameInstance() {
+		assertSame(Pitch.of(Pitch.Base.C, Pitch.Accidental.SHARP, 4),
+				Pitch.of(Pitch.Base.C, Pitch.Accidental.SHARP, 4));
+		assertSame(Pitch.of(Pitch.Base.B, Pitch.Accidental.DOUBLE_FLAT, Pitch.MAX_OCTAVE),
+				Pitch.of(Pitch.Base.B, Pitch.Accidental.DOUBLE_FLAT, Pitch.MAX_OCTAVE));
+	}
 }
@@ -9,6 +9,7 @@ import org.wmn4j.notation.Rest;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class RestTest {
@@ -34,4 +35,11 @@ class RestTest {
 		assertTrue(Rest.of(Durations.QUARTER).equals(quarter));
 		assertFalse(quarter.equals(half));
 	}
+
+	@Test
+	void testRestsWithEqualDurationsAreSameInstance() {
+		assertSame(Rest.of(Durations.QUARTER), Rest.of(Duration.of(1, 4)));
+		assertEquals(1, Rest.of(Durations.QUARTER.addDot()).getDuration().getDotCount());
+		assertEquals(0, Rest.of(Duration.of(3, 8)).getDuration().getDotCount());
+	}
 }
@@ -6,8 +6,11 @@ package org.wmn4j.notation;
 import org.junit.jupiter.api.Test;
 import org.wmn4j.TestHelper;
 
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
@@ -89,4 +92,47 @@ class ScoreBuilderTest {
 		assertEquals(TimeSignatures.THREE_FOUR, thirdPart.getMeasure(1, 3).getTimeSignature());
 		assertEquals(TimeSignatures.FOUR_FOUR, thirdPart.getMeasure(1, 4).getTimeSignature());
 	}
+
+	@Test
+	void testValueObjectsAreSharedInLargeScore() {
+		final int measureCount = 2000;
+		final PartBuilder partBuilder = new PartBuilder("Generated");
+		for (int i = 1; i <= measureCount; ++i) {
+			final MeasureBuilder measureBuilder = new MeasureBuilder(i, MeasureAttributes.of(TimeSignature.of(3, 4),
+					KeySignature.of(List.of(Pitch.Base.F), null), Barline.SINGLE, Clef.of(Clef.Symbol.G, 2)));
+			for (int j = 0; j < 5; ++j) {
+				final Pitch.Base base = Pitch.Base.values()[(i + j) % Pitch.Base.values().length];
+				measureBuilder.addToVoice(1, new NoteBuilder(Pitch.of(base, Pitch.Accidental.NATURAL, 4),
+						Duration.of(1, 8)));
+			}
+
+			measureBuilder.addToVoice(1, new RestBuilder(Duration.of(2, 16)));
+			partBuilder.add(measureBuilder);
+		}
+
+		final Score score = new ScoreBuilder().addPart(partBuilder).build();
+		final Set<Object> durations = Collections.newSetFromMap(new IdentityHashMap<>());
+		final Set<Object> pitches = Collections.newSetFromMap(new IdentityHashMap<>());
+		final Set<Object> rests = Collections.newSetFromMap(new IdentityHashMap<>());
+		final Set<Object> attributes = Collections.newSetFromMap(new IdentityHashMap<>());
+
+		for (Measure measure : score.getPart(0).getStaff(Part.DEFAULT_STAFF_NUMBER)) {
+			attributes.add(measure.getTimeSignature());
+			attributes.add(measure.getKeySignature());
+			attributes.add(measure.getClef());
+			for (Durational durational : measure) {
+				durations.add(durational.getDuration());
+				if (durational.isRest()) {
+					rests.add(durational);
+				} else {
+					pitches.add(durational.toNote().getPitch().orElseThrow());
+				}
+			}
+		}
+
+		assertEquals(1, durations.size());
+		assertEquals(Pitch.Base.values().length, pitches.size());
+		assertEquals(1, rests.size());
+		assertEquals(3, attributes.size());
+	}
 }
@@ -7,6 +7,8 @@ import org.junit.jupiter.api.Test;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class TimeSignatureTest {
@@ -50,4 +52,11 @@ class TimeSignatureTest {
 		assertEquals(TimeSignature.Symbol.COMMON, TimeSignatures.COMMON.getSymbol());
 		assertEquals(TimeSignature.Symbol.CUT_TIME, TimeSignatures.CUT_TIME.getSymbol());
 	}
+
+	@Test
+	void testEqualTimeSignaturesAreSameInstance() {
+		assertSame(TimeSignatures.FOUR_FOUR, TimeSignature.of(4, 4));
+		assertSame(TimeSignatures.COMMON, TimeSignature.of(4, Durations.QUARTER, TimeSignature.Symbol.COMMON));
+		assertNotSame(TimeSignatures.FOUR_FOUR, TimeSignatures.COMMON);
+	}
 }